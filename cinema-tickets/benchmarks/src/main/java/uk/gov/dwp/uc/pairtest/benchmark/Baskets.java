@@ -0,0 +1,64 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.ADULT;
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.CHILD;
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.INFANT;
+
+
+/**
+ * Representative baskets shared by the benchmarks.
+ */
+
+
+public enum Baskets {
+
+
+    // A typical family purchase.
+    VALID( new TicketTypeRequest( ADULT, 2 ), new TicketTypeRequest( CHILD, 2 ), new TicketTypeRequest( INFANT, 1 ) ),
+
+    // Exactly 20 tickets spread across many requests, the most work a valid purchase can do.
+    AT_LIMIT( atLimit() ),
+
+    // No adult, rejected with an InvalidPurchaseException.
+    INVALID_NO_ADULT( new TicketTypeRequest( CHILD, 3 ) ),
+
+    // 21 tickets, rejected with an InvalidPurchaseException.
+    INVALID_OVER_LIMIT( new TicketTypeRequest( ADULT, 20 ), new TicketTypeRequest( CHILD, 1 ) );
+
+
+    private final TicketTypeRequest[] requests;
+
+
+    Baskets( TicketTypeRequest... requests ) {
+        this.requests = requests;
+    }
+
+
+    public TicketTypeRequest[] requests() {
+        return requests;
+    }
+
+
+    public boolean isValid() {
+        return this == VALID || this == AT_LIMIT;
+    }
+
+
+    private static TicketTypeRequest[] atLimit() {
+
+        TicketTypeRequest[] requests = new TicketTypeRequest[20];
+
+        for ( int i = 0; i < requests.length; i++ ) {
+            if ( i < 10 ) requests[i] = new TicketTypeRequest( ADULT, 1 );
+            else if ( i < 15 ) requests[i] = new TicketTypeRequest( CHILD, 1 );
+            else requests[i] = new TicketTypeRequest( INFANT, 1 );
+        }
+
+        return requests;
+
+    }
+
+
+}
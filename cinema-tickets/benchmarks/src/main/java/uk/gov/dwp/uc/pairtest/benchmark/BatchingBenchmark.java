@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.dispatch.BatchingPurchaseDispatcher;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Batched against unbatched dispatch of valid purchases to simulated gateways.
+ *
+ * Both sides use the same number of worker threads. Each invocation submits BURST purchases and waits for all of them,
+ * so the score is purchases completed per second.
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 4 )
+@State( Scope.Benchmark )
+public class BatchingBenchmark {
+
+
+    private static final int BURST = 64;
+
+
+    @Param( { "0", "20" } )
+    public long gatewayLatencyMicros;
+
+    @Param( { "4" } )
+    public int workerThreads;
+
+    @Param( { "64" } )
+    public int maxBatchSize;
+
+
+    private final TicketTypeRequest[] requests = Baskets.VALID.requests();
+
+    private ExecutorService unbatchedExecutor;
+    private AsyncTicketService unbatched;
+    private BatchingPurchaseDispatcher batched;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos( gatewayLatencyMicros );
+        LatencySeatReservationService seats = new LatencySeatReservationService( latencyNanos );
+        LatencyTicketPaymentService payments = new LatencyTicketPaymentService( latencyNanos );
+
+        unbatchedExecutor = Executors.newFixedThreadPool( workerThreads, PurchaseExecutors.daemonThreads( "unbatched" ) );
+        unbatched = new AsyncTicketServiceImpl( seats, payments, unbatchedExecutor );
+
+        batched = new BatchingPurchaseDispatcher( seats, payments, PricingTable.standardPrices(),
+                16384, maxBatchSize, 200, 1000, TimeUnit.MICROSECONDS, workerThreads );
+
+    }
+
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+        unbatchedExecutor.shutdownNow();
+        batched.close();
+
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation( BURST )
+    public Object unbatched() {
+        return burst( unbatched );
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation( BURST )
+    public Object batched() {
+        return burst( batched );
+    }
+
+
+    private Object burst( AsyncTicketService service ) {
+
+        @SuppressWarnings( "unchecked" )
+        CompletableFuture<PurchaseResult>[] futures = new CompletableFuture[ BURST ];
+
+        for ( int i = 0; i < BURST; i++ ) futures[i] = service.purchaseTickets( i + 1, requests );
+
+        return CompletableFuture.allOf( futures ).join();
+
+    }
+
+
+}
@@ -0,0 +1,122 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.bulk.BulkTicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * One bulk call against a loop of purchaseTickets calls, across batch sizes and validation parallelism.
+ * One basket in ten is invalid.
+ *
+ * Cores: parallelism sets the fork-join pool size. Run on a machine with at least that many cores, or pin
+ * with e.g. taskset, for the numbers to mean anything.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class BulkPurchaseBenchmark {
+
+
+    @Param( { "10", "100", "1000" } )
+    public int batchSize;
+
+    @Param( { "1", "2", "4" } )
+    public int parallelism;
+
+    @Param( { "0", "20" } )
+    public long gatewayLatencyMicros;
+
+
+    private List<PurchaseRequest> requests;
+    private ForkJoinPool validationPool;
+    private ExecutorService gatewayExecutor;
+    private BulkTicketService bulkTicketService;
+    private TicketServiceImpl ticketService;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos( gatewayLatencyMicros );
+        LatencySeatReservationService seats = new LatencySeatReservationService( latencyNanos );
+        LatencyTicketPaymentService payments = new LatencyTicketPaymentService( latencyNanos );
+
+        validationPool = new ForkJoinPool( parallelism );
+        gatewayExecutor = PurchaseExecutors.virtualThreadsOrFixedPool();
+
+        bulkTicketService = new BulkTicketService( seats, payments, PricingTable.standardPrices(), validationPool, gatewayExecutor );
+        ticketService = new TicketServiceImpl( seats, payments );
+
+        requests = new ArrayList<>( batchSize );
+        for ( int i = 0; i < batchSize; i++ ) {
+            Baskets basket = i % 10 == 9 ? Baskets.INVALID_NO_ADULT : Baskets.VALID;
+            requests.add( new PurchaseRequest( i + 1, basket.requests() ) );
+        }
+
+    }
+
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+
+        validationPool.shutdownNow();
+        gatewayExecutor.shutdownNow();
+
+    }
+
+
+    @Benchmark
+    public PurchaseOutcome[] bulk() {
+        return bulkTicketService.purchaseAll( requests );
+    }
+
+
+    @Benchmark
+    public int oneByOne() {
+
+        int accepted = 0;
+
+        for ( PurchaseRequest request: requests ) {
+            try {
+                ticketService.purchaseTickets( request.getAccountId(), request.getTicketTypeRequests() );
+                accepted++;
+            } catch ( InvalidPurchaseException e ) {
+                // Counted by omission.
+            }
+        }
+
+        return accepted;
+
+    }
+
+
+}
@@ -0,0 +1,96 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.dispatch.OverflowPolicy;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.events.InMemoryEventSink;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventPublisher;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventSink;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * purchaseTickets with no listener against publishing to a PurchaseEventPublisher under OverflowPolicy.REJECT,
+ * draining into an in-memory sink, or into a sink that takes 50us an event and so falls hopelessly behind.
+ *
+ * The slow sink should cost purchases no more than the fast one: events are dropped, purchases never wait.
+ * Check getDropped in a real deployment, as this benchmark does not report it.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class EventPublishBenchmark {
+
+
+    @Param( { "none", "memory", "slow" } )
+    public String sink;
+
+
+    private TicketServiceImpl ticketService;
+    private PurchaseEventPublisher publisher;
+    private final TicketTypeRequest[] requests = Baskets.VALID.requests();
+    private final Long accountId = 1L;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        PurchaseListener listener = PurchaseListener.NONE;
+
+        if ( !"none".equals( sink ) ) {
+            PurchaseEventSink eventSink = "slow".equals( sink )
+                    ? event -> LockSupport.parkNanos( TimeUnit.MICROSECONDS.toNanos( 50 ) )
+                    : new InMemoryEventSink( 1024 );
+            publisher = new PurchaseEventPublisher( PurchaseEventPublisher.DEFAULT_CAPACITY, OverflowPolicy.REJECT, eventSink );
+            listener = publisher;
+        }
+
+        ticketService = new TicketServiceImpl( new LatencySeatReservationService( 0 ), new LatencyTicketPaymentService( 0 ),
+                PricingTable.standardPrices(), listener );
+
+    }
+
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        if ( publisher != null ) publisher.close();
+    }
+
+
+    @Benchmark
+    public void purchaseTickets() {
+        ticketService.purchaseTickets( accountId, requests );
+    }
+
+
+    @Benchmark
+    @Threads( 4 )
+    public void purchaseTicketsContended() {
+        ticketService.purchaseTickets( accountId, requests );
+    }
+
+
+}
@@ -0,0 +1,109 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketQuoteService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.http.PurchaseHttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Requests per second and latency percentiles of PurchaseHttpServer, driven over loopback by one keep-alive
+ * connection per benchmark thread. The gateways answer at once, so this is the cost of the HTTP layer plus
+ * the purchase itself. Compare with the same requests against the servlet stack on the same machine.
+ *
+ * Both modes run: thrpt is requests per second over all threads, sample gives p50 / p99 / p99.9 per request.
+ *
+ *     java -jar target/benchmarks.jar HttpPurchaseBenchmark -t 16
+ */
+
+
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+// Nagle's algorithm off, as PurchaseHttpServer asks of the JVM it runs in.
+@Fork( value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true" )
+@Threads( 8 )
+@State( Scope.Benchmark )
+public class HttpPurchaseBenchmark {
+
+
+    private static final byte[] PURCHASE = LoopbackHttpClient.post( "/purchase", "account=42&adult=2&child=2&infant=1" );
+    private static final byte[] REJECTED = LoopbackHttpClient.post( "/purchase", "account=42&child=3" );
+    private static final byte[] QUOTE = LoopbackHttpClient.post( "/quote", "account=42&adult=2&child=2&infant=1" );
+
+
+    private PurchaseHttpServer server;
+
+
+    @State( Scope.Thread )
+    public static class Connection {
+
+        LoopbackHttpClient client;
+
+        @Setup( Level.Trial )
+        public void connect( HttpPurchaseBenchmark benchmark ) throws IOException {
+            client = new LoopbackHttpClient( benchmark.server.getPort() );
+        }
+
+        @TearDown( Level.Trial )
+        public void disconnect() throws IOException {
+            client.close();
+        }
+
+    }
+
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException {
+
+        server = new PurchaseHttpServer( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ),
+                new TicketServiceImpl( new LatencySeatReservationService( 0 ), new LatencyTicketPaymentService( 0 ) ),
+                new TicketQuoteService() );
+        server.start();
+
+    }
+
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        server.close();
+    }
+
+
+    @Benchmark
+    public int purchase( Connection connection ) throws IOException {
+        return connection.client.send( PURCHASE );
+    }
+
+
+    @Benchmark
+    public int rejectedPurchase( Connection connection ) throws IOException {
+        return connection.client.send( REJECTED );
+    }
+
+
+    @Benchmark
+    public int quote( Connection connection ) throws IOException {
+        return connection.client.send( QUOTE );
+    }
+
+
+}
@@ -0,0 +1,91 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.journal.MappedPurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.SyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+/**
+ * Purchases journaled per second under each SyncPolicy, one op being the intent, paid and reserved records of
+ * a single purchase. Eight threads, so GROUP_COMMIT has callers to share each fsync between.
+ *
+ * The journal goes to a temporary directory, -Djournal.dir=... to put it on the disk being measured.
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 2, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 8 )
+@State( Scope.Benchmark )
+public class JournalBenchmark {
+
+
+    @Param( { "NONE", "GROUP_COMMIT", "EVERY_RECORD" } )
+    public SyncPolicy syncPolicy;
+
+    private final int tally = TicketTally.of( 2, 1, 0 );
+
+    private Path directory;
+    private MappedPurchaseJournal journal;
+
+
+    @Setup
+    public void setUp() throws IOException {
+
+        String parent = System.getProperty( "journal.dir" );
+        directory = parent == null ? Files.createTempDirectory( "journal" ) : Files.createTempDirectory( Path.of( parent ), "journal" );
+
+        // Small segments, finished ones are deleted as the benchmark runs.
+        journal = new MappedPurchaseJournal( directory, syncPolicy, 4 << 20 );
+
+    }
+
+
+    @TearDown
+    public void tearDown() throws IOException {
+
+        journal.close();
+
+        try ( Stream<Path> files = Files.walk( directory ) ) {
+            files.sorted( Comparator.reverseOrder() ).forEach( file -> file.toFile().delete() );
+        }
+
+    }
+
+
+    @Benchmark
+    public long purchase() {
+
+        long purchaseId = journal.intent( 1L, tally, 50, 3 );
+        journal.paid( purchaseId );
+        journal.reserved( purchaseId );
+
+        return purchaseId;
+
+    }
+
+
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Stand-in seat booking service that parks the calling thread for a fixed time, simulating a remote round trip.
+ * A latency of 0 returns immediately.
+ */
+
+
+public class LatencySeatReservationService implements SeatReservationService {
+
+
+    private final long latencyNanos;
+
+
+    public LatencySeatReservationService( long latencyNanos ) {
+        this.latencyNanos = latencyNanos;
+    }
+
+
+    @Override
+    public void reserveSeat( long accountId, int totalSeatsToAllocate ) {
+        if ( latencyNanos > 0 ) LockSupport.parkNanos( latencyNanos );
+    }
+
+
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Stand-in payment gateway that parks the calling thread for a fixed time, simulating a remote round trip.
+ * A latency of 0 returns immediately.
+ */
+
+
+public class LatencyTicketPaymentService implements TicketPaymentService {
+
+
+    private final long latencyNanos;
+
+
+    public LatencyTicketPaymentService( long latencyNanos ) {
+        this.latencyNanos = latencyNanos;
+    }
+
+
+    @Override
+    public void makePayment( long accountId, int totalAmountToPay ) {
+        if ( latencyNanos > 0 ) LockSupport.parkNanos( latencyNanos );
+    }
+
+
+}
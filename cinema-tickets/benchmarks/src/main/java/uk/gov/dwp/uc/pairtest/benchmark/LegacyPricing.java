@@ -0,0 +1,86 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+
+/**
+ * The original four-pass validation and pricing from TicketServiceImpl, kept as a benchmark baseline.
+ */
+
+
+final class LegacyPricing {
+
+
+    private static final int ADULT_TICKET_COST = 20;
+    private static final int CHILD_TICKET_COST = 10;
+
+
+    private LegacyPricing() {
+    }
+
+
+    static boolean validRequest( long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+        return accountId > 0 &&
+                ticketTypeRequests.length > 0 && ticketTypeRequests.length <= 20 &&
+                validTicketTotal( ticketTypeRequests ) &&
+                validTicketTypes( ticketTypeRequests );
+    }
+
+
+    static int calculateTotalTicketCost( TicketTypeRequest[] ticketTypeRequests ) {
+
+        int totalCost = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+            if ( t.getTicketType() == TicketTypeRequest.Type.ADULT ) totalCost += ( ADULT_TICKET_COST * t.getNoOfTickets() );
+            else if ( t.getTicketType() == TicketTypeRequest.Type.CHILD ) totalCost += ( CHILD_TICKET_COST * t.getNoOfTickets() );
+        }
+
+        return totalCost;
+
+    }
+
+
+    static int calculateTotalSeatsToReserve( TicketTypeRequest[] ticketTypeRequests ) {
+
+        int totalSeats = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+            if ( t.getTicketType() == TicketTypeRequest.Type.ADULT || t.getTicketType() == TicketTypeRequest.Type.CHILD ) totalSeats += t.getNoOfTickets();
+        }
+
+        return totalSeats;
+
+    }
+
+
+    private static boolean validTicketTotal( TicketTypeRequest[] ticketTypeRequests ) {
+
+        int totalTickets = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+            totalTickets += t.getNoOfTickets();
+            if ( totalTickets > 20 ) return false;
+        }
+
+        return totalTickets > 0;
+
+    }
+
+
+    private static boolean validTicketTypes( TicketTypeRequest[] ticketTypeRequests ) {
+
+        int totalAdults = 0;
+        int totalInfants = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+            if ( t.getTicketType() == TicketTypeRequest.Type.ADULT ) totalAdults += t.getNoOfTickets();
+            else if ( t.getTicketType() == TicketTypeRequest.Type.INFANT ) totalInfants += t.getNoOfTickets();
+        }
+
+        return totalAdults > 0 && totalInfants <= totalAdults;
+
+    }
+
+
+}
@@ -0,0 +1,116 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Bare HTTP/1.1 client over one keep-alive loopback connection, for benchmarking a server rather than a client.
+ *
+ * Sends a request prepared once as bytes and reads the response into a reused buffer, so it adds almost nothing
+ * to the time or allocation being measured. Only understands what PurchaseHttpServer sends back: a status line,
+ * headers, and a Content-Length body or none. Not thread-safe, one per benchmark thread.
+ */
+
+
+final class LoopbackHttpClient implements AutoCloseable {
+
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+    private final byte[] buffer = new byte[ 8192 ];
+
+
+    LoopbackHttpClient( int port ) throws IOException {
+
+        socket = new Socket( InetAddress.getLoopbackAddress(), port );
+        socket.setTcpNoDelay( true );
+        out = socket.getOutputStream();
+        in = socket.getInputStream();
+
+    }
+
+
+    static byte[] post( String path, String form ) {
+
+        return ( "POST " + path + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: " + form.length() + "\r\n"
+                + "\r\n"
+                + form ).getBytes( StandardCharsets.US_ASCII );
+
+    }
+
+
+    /**
+     * Sends request and returns the response status once the whole response has been read.
+     */
+    int send( byte[] request ) throws IOException {
+
+        out.write( request );
+        out.flush();
+
+        int length = 0;
+        int headersEnd;
+
+        while ( ( headersEnd = headersEnd( length ) ) < 0 ) length = fill( length );
+
+        int bodyLength = contentLength( headersEnd );
+        while ( length < headersEnd + bodyLength ) length = fill( length );
+
+        // "HTTP/1.1 204 ..."
+        return ( buffer[9] - '0' ) * 100 + ( buffer[10] - '0' ) * 10 + ( buffer[11] - '0' );
+
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+
+    private int fill( int length ) throws IOException {
+
+        if ( length == buffer.length ) throw new IOException( "Response larger than " + buffer.length + " bytes" );
+
+        int n = in.read( buffer, length, buffer.length - length );
+        if ( n < 0 ) throw new IOException( "Connection closed by server" );
+
+        return length + n;
+
+    }
+
+
+    // Index just past the blank line ending the headers, or -1.
+    private int headersEnd( int length ) {
+
+        for ( int i = 3; i < length; i++ ) {
+            if ( buffer[i] == '\n' && buffer[ i - 1 ] == '\r' && buffer[ i - 2 ] == '\n' && buffer[ i - 3 ] == '\r' ) return i + 1;
+        }
+
+        return -1;
+
+    }
+
+
+    private int contentLength( int headersEnd ) {
+
+        String headers = new String( buffer, 0, headersEnd, StandardCharsets.US_ASCII ).toLowerCase();
+        int at = headers.indexOf( "content-length:" );
+        if ( at < 0 ) return 0;
+
+        int end = headers.indexOf( '\r', at );
+
+        return Integer.parseInt( headers.substring( at + "content-length:".length(), end ).trim() );
+
+    }
+
+
+}
@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * purchaseTickets with no listener against purchaseTickets recording PurchaseMetrics, on a valid basket with
+ * instant gateways, the case where instrumentation is the largest share of the work.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class MetricsOverheadBenchmark {
+
+
+    @Param( { "false", "true" } )
+    public boolean instrumented;
+
+
+    private TicketServiceImpl ticketService;
+    private final TicketTypeRequest[] requests = Baskets.VALID.requests();
+    private final Long accountId = 1L;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        PurchaseListener listener = instrumented ? new PurchaseMetrics() : PurchaseListener.NONE;
+
+        ticketService = new TicketServiceImpl( new LatencySeatReservationService( 0 ), new LatencyTicketPaymentService( 0 ),
+                PricingTable.standardPrices(), listener );
+
+    }
+
+
+    @Benchmark
+    public void purchaseTickets() {
+        ticketService.purchaseTickets( accountId, requests );
+    }
+
+
+    @Benchmark
+    @Threads( 4 )
+    public void purchaseTicketsContended() {
+        ticketService.purchaseTickets( accountId, requests );
+    }
+
+
+}
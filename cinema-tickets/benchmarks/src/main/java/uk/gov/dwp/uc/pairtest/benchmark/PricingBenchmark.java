@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Validation plus cost plus seats for one basket, three ways:
+ *
+ *     legacy     the original four passes over TicketTypeRequest[]
+ *     evaluator  one tally pass, then PurchaseEvaluator arithmetic
+ *     table      one tally pass, then a PricingTable lookup
+ *
+ * buildTable measures the one-off cost of building a PricingTable. Its footprint is printed at setup.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class PricingBenchmark {
+
+
+    @Param( { "VALID", "AT_LIMIT", "INVALID_NO_ADULT" } )
+    public Baskets basket;
+
+
+    private TicketTypeRequest[] requests;
+    private final long accountId = 1L;
+    private final PurchaseEvaluator evaluator = PurchaseEvaluator.standardPrices();
+    private final PricingTable table = PricingTable.standardPrices();
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        requests = basket.requests();
+        System.out.println( "# " + table );
+
+    }
+
+
+    @Benchmark
+    public int legacy() {
+
+        if ( !LegacyPricing.validRequest( accountId, requests ) ) return -1;
+
+        return LegacyPricing.calculateTotalTicketCost( requests ) + LegacyPricing.calculateTotalSeatsToReserve( requests );
+
+    }
+
+
+    @Benchmark
+    public int evaluator() {
+
+        int tally = TicketTally.of( requests );
+
+        if ( evaluator.rejectionReason( accountId, tally ) != null ) return -1;
+
+        return evaluator.totalCost( tally ) + evaluator.totalSeats( tally );
+
+    }
+
+
+    @Benchmark
+    public int table() {
+
+        int tally = TicketTally.of( requests );
+
+        if ( table.rejectionReason( accountId, tally ) != null ) return -1;
+
+        return table.totalCost( tally ) + table.totalSeats( tally );
+
+    }
+
+
+    @Benchmark
+    @BenchmarkMode( Mode.SingleShotTime )
+    @OutputTimeUnit( TimeUnit.MICROSECONDS )
+    @Warmup( iterations = 0 )
+    @Measurement( iterations = 10 )
+    public PricingTable buildTable() {
+        return PricingTable.build( new PurchaseEvaluator( 20, 10, 0 ) );
+    }
+
+
+}
@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.promotions.Promotion;
+import uk.gov.dwp.uc.pairtest.promotions.PromotionPricing;
+import uk.gov.dwp.uc.pairtest.promotions.PromotionSet;
+import uk.gov.dwp.uc.pairtest.promotions.Promotions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Quoting a basket under a dozen stacked promotions: computed from scratch every time ( cold ) against
+ * PromotionPricing with the baskets already cached ( cached ).
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PromotionBenchmark {
+
+
+    private final int[] tallies = new int[ 256 ];
+    private int next;
+
+    private PromotionSet promotions;
+    private PromotionPricing pricing;
+
+
+    @Setup
+    public void setUp() {
+
+        List<Promotion> dozen = new ArrayList<>();
+        for ( int i = 0; i < 3; i++ ) {
+            dozen.add( Promotions.familyBundle( 2, 2, 55 - i ) );
+            dozen.add( Promotions.typePrice( TicketTypeRequest.Type.ADULT, 19 - i ) );
+            dozen.add( Promotions.percentOff( 2 ) );
+            dozen.add( Promotions.amountOff( 4 + i, 1 ) );
+        }
+
+        promotions = new PromotionSet( "dozen", PurchaseEvaluator.standardPrices(), dozen );
+        pricing = new PromotionPricing();
+
+        Random random = new Random( 42 );
+        for ( int i = 0; i < tallies.length; i++ ) {
+            tallies[i] = TicketTally.of( 1 + random.nextInt( 5 ), random.nextInt( 6 ), random.nextInt( 2 ) );
+            pricing.quote( promotions, tallies[i] );
+        }
+
+    }
+
+
+    private int nextTally() {
+        return tallies[ next++ & ( tallies.length - 1 ) ];
+    }
+
+
+    @Benchmark
+    public int cold() {
+        return promotions.price( nextTally() );
+    }
+
+
+    @Benchmark
+    public int cached() {
+        return pricing.quote( promotions, nextTally() );
+    }
+
+
+}
@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketQuote;
+import uk.gov.dwp.uc.pairtest.TicketQuoteService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * TicketQuoteService per basket: a TicketQuote reused by each thread against a new one per quote.
+ * Run with -prof gc, the reused form should show 0 B/op for every basket, including the rejected ones.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 4 )
+@State( Scope.Benchmark )
+public class QuoteBenchmark {
+
+
+    @Param( { "VALID", "INVALID_NO_ADULT", "INVALID_OVER_LIMIT" } )
+    public Baskets basket;
+
+    private final TicketQuoteService quoteService = new TicketQuoteService();
+
+    private TicketTypeRequest[] requests;
+
+
+    @State( Scope.Thread )
+    public static class PerThread {
+        final TicketQuote quote = new TicketQuote();
+    }
+
+
+    @Setup
+    public void setUp() {
+        requests = basket.requests();
+    }
+
+
+    @Benchmark
+    public TicketQuote reusedQuote( PerThread perThread ) {
+        return quoteService.quote( 1L, requests, perThread.quote );
+    }
+
+
+    @Benchmark
+    public TicketQuote newQuote() {
+        return quoteService.quote( 1L, requests );
+    }
+
+
+}
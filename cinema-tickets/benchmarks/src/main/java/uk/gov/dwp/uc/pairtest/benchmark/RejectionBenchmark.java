@@ -0,0 +1,52 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cost of building a rejection: the original debugging constructor ( message, stderr, stack trace )
+ * against the RejectionReason constructor ( no stack trace, lazy message ).
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 4 )
+@State( Scope.Benchmark )
+public class RejectionBenchmark {
+
+
+    private final TicketTypeRequest[] requests = Baskets.INVALID_NO_ADULT.requests();
+    private final Long accountId = 1L;
+
+
+    @Benchmark
+    public InvalidPurchaseException debugConstructor() {
+        return new InvalidPurchaseException( accountId, requests );
+    }
+
+
+    @Benchmark
+    public InvalidPurchaseException reasonConstructor() {
+        return new InvalidPurchaseException( RejectionReason.NO_ADULT, accountId, requests );
+    }
+
+
+}
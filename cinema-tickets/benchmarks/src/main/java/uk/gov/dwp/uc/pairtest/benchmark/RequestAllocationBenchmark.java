@@ -0,0 +1,76 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Turning a parsed basket ( type and count per line ) into a tally, three ways. Run with -prof gc and compare
+ * gc.alloc.rate.norm ( bytes per basket ); multiply by the peak purchase rate for the GC pressure it adds.
+ *
+ *     allocating  new TicketTypeRequest per line plus the array, as callers do today
+ *     flyweight   TicketTypeRequest.of per line, only the array is allocated
+ *     packed      packed ints into a reused buffer, nothing is allocated
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RequestAllocationBenchmark {
+
+
+    // A parsed family basket: 2 adults, 2 children, 1 infant.
+    private final TicketTypeRequest.Type[] types = { TicketTypeRequest.Type.ADULT, TicketTypeRequest.Type.CHILD, TicketTypeRequest.Type.INFANT };
+    private final int[] counts = { 2, 2, 1 };
+
+    private final int[] packedBuffer = new int[ TicketTally.MAX_TICKETS ];
+
+
+    @Benchmark
+    public int allocating() {
+
+        TicketTypeRequest[] requests = new TicketTypeRequest[ types.length ];
+        for ( int i = 0; i < types.length; i++ ) requests[i] = new TicketTypeRequest( types[i], counts[i] );
+
+        return TicketTally.of( requests );
+
+    }
+
+
+    @Benchmark
+    public int flyweight() {
+
+        TicketTypeRequest[] requests = new TicketTypeRequest[ types.length ];
+        for ( int i = 0; i < types.length; i++ ) requests[i] = TicketTypeRequest.of( types[i], counts[i] );
+
+        return TicketTally.of( requests );
+
+    }
+
+
+    @Benchmark
+    public int packed() {
+
+        for ( int i = 0; i < types.length; i++ ) packedBuffer[i] = TicketTypeRequest.pack( types[i], counts[i] );
+
+        return TicketTally.ofPacked( packedBuffer, types.length );
+
+    }
+
+
+}
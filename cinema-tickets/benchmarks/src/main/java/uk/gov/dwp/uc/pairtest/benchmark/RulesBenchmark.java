@@ -0,0 +1,96 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.RuleSet;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Validating a basket against a venue's rules, with extraRules added to the standard set:
+ *
+ *     hardCoded    PurchaseEvaluator's fixed checks, the standard rules only
+ *     interpreted  RuleSet.rejectionReason, every rule object per purchase
+ *     compiled     PricingTable built from the RuleSet, what purchases actually use
+ *
+ * Baskets are drawn from a fixed random mix so branches cannot be predicted perfectly.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RulesBenchmark {
+
+
+    @Param( { "0", "8" } )
+    public int extraRules;
+
+    private final int[] tallies = new int[ 1024 ];
+    private int next;
+
+    private PurchaseEvaluator evaluator;
+    private RuleSet ruleSet;
+    private PricingTable table;
+
+
+    @Setup
+    public void setUp() {
+
+        Random random = new Random( 42 );
+        for ( int i = 0; i < tallies.length; i++ ) tallies[i] = TicketTally.of( random.nextInt( 6 ), random.nextInt( 6 ), random.nextInt( 3 ) );
+
+        ruleSet = RuleSet.standard();
+        for ( int r = 0; r < extraRules; r++ ) {
+            int limit = 20 - r;
+            ruleSet = ruleSet.and( "cap" + limit, ( a, c, i ) -> a + c > limit ? RejectionReason.OVER_LIMIT : null );
+        }
+
+        evaluator = PurchaseEvaluator.standardPrices();
+        table = PricingTable.build( evaluator, ruleSet );
+
+    }
+
+
+    private int nextTally() {
+        return tallies[ next++ & ( tallies.length - 1 ) ];
+    }
+
+
+    @Benchmark
+    public RejectionReason hardCoded() {
+        return evaluator.rejectionReason( 1L, nextTally() );
+    }
+
+
+    @Benchmark
+    public RejectionReason interpreted() {
+        return ruleSet.rejectionReason( nextTally() );
+    }
+
+
+    @Benchmark
+    public RejectionReason compiled() {
+        return table.rejectionReason( 1L, nextTally() );
+    }
+
+
+}
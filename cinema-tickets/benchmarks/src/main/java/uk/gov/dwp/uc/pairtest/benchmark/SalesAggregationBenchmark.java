@@ -0,0 +1,87 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.sales.SalesAggregator;
+import uk.gov.dwp.uc.pairtest.sales.SalesTotals;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * SalesAggregator ingest cost with no readers against the same writers with six threads querying the last hour
+ * and a screening flat out. Compare the ingest scores of the two groups: queries only read the counters, so
+ * ingest should cost the same either way.
+ *
+ * On a machine with fewer than eight cores the groups share CPUs and the comparison measures the scheduler.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Group )
+public class SalesAggregationBenchmark {
+
+
+    private static final int SCREENINGS = 16;
+
+    private static final PricingTable PRICES = PricingTable.standardPrices();
+    private static final int BASKET = TicketTally.of( 2, 1, 1 );
+    private static final int BASKET_COST = PRICES.totalCost( BASKET );
+
+
+    private SalesAggregator aggregator;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+        aggregator = new SalesAggregator();
+    }
+
+
+    @Benchmark
+    @Group( "ingestOnly" )
+    @GroupThreads( 2 )
+    public void ingestAlone() {
+        aggregator.record( ThreadLocalRandom.current().nextInt( SCREENINGS ), BASKET, PRICES, BASKET_COST );
+    }
+
+
+    @Benchmark
+    @Group( "ingestWhileQuerying" )
+    @GroupThreads( 2 )
+    public void ingest() {
+        aggregator.record( ThreadLocalRandom.current().nextInt( SCREENINGS ), BASKET, PRICES, BASKET_COST );
+    }
+
+
+    @Benchmark
+    @Group( "ingestWhileQuerying" )
+    @GroupThreads( 6 )
+    public SalesTotals query() {
+
+        aggregator.screening( ThreadLocalRandom.current().nextInt( SCREENINGS ) );
+
+        return aggregator.lastMinutes( SalesAggregator.DEFAULT_WINDOW_MINUTES );
+
+    }
+
+
+}
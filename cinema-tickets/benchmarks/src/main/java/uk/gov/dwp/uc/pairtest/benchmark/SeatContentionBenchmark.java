@@ -0,0 +1,60 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.inventory.ScreeningCapacity;
+import uk.gov.dwp.uc.pairtest.inventory.SeatInventory;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Every thread buying three seats for the same screening and handing them back, so the screening never
+ * sells out. One stripe is a single shared compare-and-set counter, the baseline. Raise -t towards the
+ * machine's core count to see the striped counter stay flat while the single one degrades.
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 32 )
+@State( Scope.Benchmark )
+public class SeatContentionBenchmark {
+
+
+    @Param( { "1", "16", "64" } )
+    public int stripes;
+
+    private ScreeningCapacity screening;
+
+
+    @Setup
+    public void setUp() {
+        screening = new SeatInventory( stripes ).open( 1L, 1_000_000 );
+    }
+
+
+    @Benchmark
+    public boolean takeAndRelease() {
+
+        boolean taken = screening.tryTake( 3 );
+        if ( taken ) screening.release( 3 );
+        return taken;
+
+    }
+
+
+}
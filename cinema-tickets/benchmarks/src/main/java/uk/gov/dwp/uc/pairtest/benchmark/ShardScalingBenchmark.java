@@ -0,0 +1,97 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.dispatch.OverflowPolicy;
+import uk.gov.dwp.uc.pairtest.dispatch.ShardedPurchaseExecutor;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * ShardedPurchaseExecutor throughput from 1 shard up, with 8 callers buying for random accounts.
+ *
+ * With no gateway latency this measures the rings and hand-off, and should scale with shards up to the number
+ * of cores. With latency each shard is one purchase at a time, so throughput scales with shards regardless.
+ * Each invocation submits BURST purchases and waits for all of them, the score is purchases completed per second.
+ *
+ *     java -jar target/benchmarks.jar ShardScalingBenchmark -p shards=1,2,4,8,16
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@Threads( 8 )
+@State( Scope.Benchmark )
+public class ShardScalingBenchmark {
+
+
+    private static final int BURST = 64;
+
+
+    @Param( { "1", "2", "4", "8" } )
+    public int shards;
+
+    @Param( { "0", "20" } )
+    public long gatewayLatencyMicros;
+
+
+    private final TicketTypeRequest[] requests = Baskets.VALID.requests();
+
+    private ShardedPurchaseExecutor executor;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos( gatewayLatencyMicros );
+
+        executor = new ShardedPurchaseExecutor( new LatencySeatReservationService( latencyNanos ), new LatencyTicketPaymentService( latencyNanos ),
+                PricingTable.standardPrices(), shards, 1024, OverflowPolicy.BLOCK );
+
+    }
+
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        executor.close();
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation( BURST )
+    public Object purchase() {
+
+        @SuppressWarnings( "unchecked" )
+        CompletableFuture<PurchaseResult>[] futures = new CompletableFuture[ BURST ];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for ( int i = 0; i < BURST; i++ ) futures[i] = executor.purchaseTickets( 1 + random.nextInt( 1_000_000 ), requests );
+
+        return CompletableFuture.allOf( futures ).join();
+
+    }
+
+
+}
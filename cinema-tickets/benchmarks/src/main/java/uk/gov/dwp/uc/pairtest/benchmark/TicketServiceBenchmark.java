@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Baseline throughput of TicketServiceImpl.purchaseTickets.
+ *
+ * Run with the GC profiler to see allocation per call:
+ *
+ *     java -jar target/benchmarks.jar TicketServiceBenchmark -prof gc
+ *
+ * gatewayLatencyMicros is applied to both makePayment and reserveSeat, so a value of 50 adds ~100us per valid purchase.
+ */
+
+
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class TicketServiceBenchmark {
+
+
+    @Param( { "VALID", "AT_LIMIT", "INVALID_NO_ADULT", "INVALID_OVER_LIMIT" } )
+    public Baskets basket;
+
+    @Param( { "0", "50" } )
+    public long gatewayLatencyMicros;
+
+    private TicketServiceImpl ticketService;
+    private TicketTypeRequest[] requests;
+    private final Long accountId = 1L;
+
+
+    @Setup( Level.Trial )
+    public void setUp() {
+
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos( gatewayLatencyMicros );
+
+        ticketService = new TicketServiceImpl(
+                new LatencySeatReservationService( latencyNanos ),
+                new LatencyTicketPaymentService( latencyNanos ) );
+
+        requests = basket.requests();
+
+    }
+
+
+    @Benchmark
+    public void purchaseTickets( Blackhole blackhole ) {
+
+        try {
+            ticketService.purchaseTickets( accountId, requests );
+        } catch ( InvalidPurchaseException e ) {
+            blackhole.consume( e );
+        }
+
+    }
+
+
+    // Same call from several threads at once, as during a box-office rush.
+    @Benchmark
+    @Threads( 4 )
+    public void purchaseTicketsContended( Blackhole blackhole ) {
+        purchaseTickets( blackhole );
+    }
+
+
+}
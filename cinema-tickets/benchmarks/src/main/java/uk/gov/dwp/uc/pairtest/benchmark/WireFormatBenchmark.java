@@ -0,0 +1,90 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.wire.BasketCodec;
+import uk.gov.dwp.uc.pairtest.wire.BinaryPurchaseService;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A valid family basket ( 2 adults, 2 children, 1 infant ) purchased from a direct buffer of BasketCodec
+ * records, against decoding the same record into TicketTypeRequests for TicketServiceImpl. Run with
+ * -prof gc: the binary path should show 0 B/op.
+ */
+
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class WireFormatBenchmark {
+
+
+    private static final int RECORDS = 1024;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    private BinaryPurchaseService binaryPurchaseService;
+    private TicketServiceImpl ticketService;
+
+
+    @Setup
+    public void setUp() {
+
+        buffer = ByteBuffer.allocateDirect( RECORDS * BasketCodec.RECORD_SIZE );
+        for ( int i = 0; i < RECORDS; i++ ) BasketCodec.write( buffer, 1L + i, 2, 2, 1 );
+
+        binaryPurchaseService = new BinaryPurchaseService( new LatencySeatReservationService( 0 ), new LatencyTicketPaymentService( 0 ), PricingTable.standardPrices() );
+        ticketService = new TicketServiceImpl( new LatencySeatReservationService( 0 ), new LatencyTicketPaymentService( 0 ) );
+
+    }
+
+
+    private int nextOffset() {
+
+        int current = offset;
+        offset = ( current + BasketCodec.RECORD_SIZE ) % ( RECORDS * BasketCodec.RECORD_SIZE );
+        return current;
+
+    }
+
+
+    @Benchmark
+    public Object binary() {
+
+        return binaryPurchaseService.purchase( buffer, nextOffset() );
+
+    }
+
+
+    @Benchmark
+    public void decodedToRequests() {
+
+        int at = nextOffset();
+
+        ticketService.purchaseTickets( BasketCodec.accountId( buffer, at ), new TicketTypeRequest[] {
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, BasketCodec.adults( buffer, at ) ),
+                new TicketTypeRequest( TicketTypeRequest.Type.CHILD, BasketCodec.children( buffer, at ) ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, BasketCodec.infants( buffer, at ) ) } );
+
+    }
+
+
+}
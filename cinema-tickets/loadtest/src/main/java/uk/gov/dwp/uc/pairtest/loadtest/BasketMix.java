@@ -0,0 +1,93 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.Random;
+
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.ADULT;
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.CHILD;
+import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.INFANT;
+
+
+/**
+ * The baskets a load test buys, roughly as a box office sees them: mostly couples and families, the odd group
+ * booking, and a share of invalid purchases split evenly between the ways a basket can be refused.
+ *
+ * Requests are TicketTypeRequest flyweights, so picking a basket allocates nothing and the load generator
+ * does not add its own garbage to the GC figures.
+ */
+
+
+final class BasketMix {
+
+
+    /**
+     * One kind of basket. A bad account is bought with account id 0, otherwise a random valid account.
+     */
+    static final class Basket {
+
+        final String name;
+        final TicketTypeRequest[] requests;
+        final boolean badAccount;
+
+        Basket( String name, boolean badAccount, TicketTypeRequest... requests ) {
+            this.name = name;
+            this.requests = requests;
+            this.badAccount = badAccount;
+        }
+
+    }
+
+
+    private static final Basket[] VALID = {
+            new Basket( "single", false, TicketTypeRequest.of( ADULT, 1 ) ),
+            new Basket( "couple", false, TicketTypeRequest.of( ADULT, 2 ) ),
+            new Basket( "family", false, TicketTypeRequest.of( ADULT, 2 ), TicketTypeRequest.of( CHILD, 2 ) ),
+            new Basket( "family with infant", false, TicketTypeRequest.of( ADULT, 2 ), TicketTypeRequest.of( CHILD, 1 ), TicketTypeRequest.of( INFANT, 1 ) ),
+            new Basket( "group", false, TicketTypeRequest.of( ADULT, 4 ), TicketTypeRequest.of( CHILD, 6 ) ),
+            new Basket( "at limit", false, TicketTypeRequest.of( ADULT, 10 ), TicketTypeRequest.of( CHILD, 5 ), TicketTypeRequest.of( INFANT, 5 ) ) };
+
+    // How often each valid basket is bought, out of the total of these weights.
+    private static final int[] VALID_WEIGHTS = { 20, 35, 25, 10, 8, 2 };
+
+    private static final Basket[] INVALID = {
+            new Basket( "no adult", false, TicketTypeRequest.of( CHILD, 2 ) ),
+            new Basket( "too many infants", false, TicketTypeRequest.of( ADULT, 1 ), TicketTypeRequest.of( INFANT, 2 ) ),
+            new Basket( "over limit", false, TicketTypeRequest.of( ADULT, 15 ), TicketTypeRequest.of( CHILD, 6 ) ),
+            new Basket( "bad account", true, TicketTypeRequest.of( ADULT, 2 ) ) };
+
+
+    // Baskets repeated in proportion to their weight, so picking one is a single random index.
+    private static final int SLOTS = 1000;
+
+    private final Basket[] slots = new Basket[ SLOTS ];
+
+
+    BasketMix( double invalidRatio ) {
+
+        if ( invalidRatio < 0.0 || invalidRatio > 1.0 ) throw new IllegalArgumentException( "Invalid ratio must be between 0 and 1: " + invalidRatio );
+
+        int invalidSlots = (int) Math.round( SLOTS * invalidRatio );
+        for ( int s = 0; s < invalidSlots; s++ ) slots[s] = INVALID[ s % INVALID.length ];
+
+        int totalWeight = 0;
+        for ( int w: VALID_WEIGHTS ) totalWeight += w;
+
+        int s = invalidSlots;
+        for ( int b = 0; b < VALID.length; b++ ) {
+            int n = ( SLOTS - invalidSlots ) * VALID_WEIGHTS[b] / totalWeight;
+            for ( int k = 0; k < n; k++ ) slots[ s++ ] = VALID[b];
+        }
+
+        // Rounding leftovers go to the most common basket.
+        while ( s < SLOTS ) slots[ s++ ] = VALID[1];
+
+    }
+
+
+    Basket next( Random random ) {
+        return slots[ random.nextInt( SLOTS ) ];
+    }
+
+
+}
@@ -0,0 +1,111 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Outcomes and end-to-end latency of every purchase the load test makes, for the whole run and per report line.
+ *
+ * Workers only add to LongAdders and a striped LatencyHistogram, so recording does not become the bottleneck
+ * being measured. The interval histogram is swapped for a fresh one at each report, a purchase that records
+ * into the old one after it has been read is simply left out of that line.
+ */
+
+
+final class LoadRecorder {
+
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[ REASONS.length ];
+
+    private volatile LatencyHistogram total = new LatencyHistogram();
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>( new LatencyHistogram() );
+
+
+    LoadRecorder() {
+        for ( int r = 0; r < rejected.length; r++ ) rejected[r] = new LongAdder();
+    }
+
+
+    void accepted( long nanos ) {
+        accepted.increment();
+        record( nanos );
+    }
+
+
+    void rejected( RejectionReason reason, long nanos ) {
+        rejected[ reason.ordinal() ].increment();
+        record( nanos );
+    }
+
+
+    void failed( long nanos ) {
+        failed.increment();
+        record( nanos );
+    }
+
+
+    /**
+     * Forgets everything so far, at the end of the warm-up.
+     */
+    void reset() {
+
+        accepted.reset();
+        failed.reset();
+        for ( LongAdder r: rejected ) r.reset();
+
+        total = new LatencyHistogram();
+        interval.set( new LatencyHistogram() );
+
+    }
+
+
+    // Latencies since the last call, then starts a new interval.
+    LatencyHistogram.Snapshot nextInterval() {
+        return interval.getAndSet( new LatencyHistogram() ).snapshot();
+    }
+
+
+    LatencyHistogram.Snapshot total() {
+        return total.snapshot();
+    }
+
+
+    long getAccepted() {
+        return accepted.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    long getRejected( RejectionReason reason ) {
+        return rejected[ reason.ordinal() ].sum();
+    }
+
+    long getRejected() {
+        long sum = 0;
+        for ( LongAdder r: rejected ) sum += r.sum();
+        return sum;
+    }
+
+    long getCount() {
+        return getAccepted() + getRejected() + getFailed();
+    }
+
+
+    private void record( long nanos ) {
+        total.record( nanos );
+        interval.get().record( nanos );
+    }
+
+
+}
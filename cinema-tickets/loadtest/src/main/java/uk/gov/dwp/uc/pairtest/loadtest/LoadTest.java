@@ -0,0 +1,291 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionLog;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Drives TicketServiceImpl.purchaseTickets as hard as the given number of purchasers can, each buying one
+ * basket after another from BasketMix, against stand-in gateways. Runs offline, nothing leaves the JVM.
+ *
+ * Every few seconds prints throughput, latency percentiles, rejections, failures and GC activity for the
+ * interval, then a summary for the whole run. Latency is end to end, from calling purchaseTickets to it
+ * returning or throwing. Purchasers start the next basket as soon as one finishes ( a closed loop ), so when
+ * the service slows down they offer less load rather than queueing: look at throughput and latency together.
+ */
+
+
+public final class LoadTest {
+
+
+    // Held so the level set below is not lost when the logger is garbage collected.
+    private static final Logger REJECTIONS = Logger.getLogger( RejectionLog.LOGGER_NAME );
+
+
+    private final LoadTestOptions options;
+    private final LoadRecorder recorder = new LoadRecorder();
+    private final BasketMix basketMix;
+    private final TicketServiceImpl ticketService;
+
+    private volatile boolean running = true;
+
+
+    LoadTest( LoadTestOptions options ) {
+
+        this.options = options;
+        this.basketMix = new BasketMix( options.invalidRatio );
+        this.ticketService = new TicketServiceImpl(
+                new StandInSeatReservationService( options.reservationLatencyNanos, options.reservationErrorRate ),
+                new StandInTicketPaymentService( options.paymentLatencyNanos, options.paymentErrorRate ) );
+
+    }
+
+
+    public static void main( String[] args ) throws InterruptedException {
+
+        if ( args.length > 0 && ( args[0].equals( "--help" ) || args[0].equals( "-h" ) ) ) {
+            System.out.println( LoadTestOptions.USAGE );
+            return;
+        }
+
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse( args );
+        } catch ( IllegalArgumentException e ) {
+            System.err.println( e.getMessage() );
+            System.err.println( LoadTestOptions.USAGE );
+            System.exit( 2 );
+            return;
+        }
+
+        // Unless asked for, rejections are not logged at all: they are logged at FINE and RejectionLog checks the
+        // level before queueing, so neither the queueing nor the writing is measured. --log-rejections=true turns
+        // them on and writes them to the console, as a production run that logs rejections would.
+        if ( options.logRejections ) logRejectionsToConsole();
+
+        new LoadTest( options ).run();
+
+    }
+
+
+    private static void logRejectionsToConsole() {
+
+        ConsoleHandler console = new ConsoleHandler();
+        console.setLevel( Level.FINE );
+
+        REJECTIONS.setLevel( Level.FINE );
+        REJECTIONS.setUseParentHandlers( false );
+        REJECTIONS.addHandler( console );
+
+    }
+
+
+    void run() throws InterruptedException {
+
+        ExecutorService purchasers = purchasers();
+
+        for ( int t = 0; t < options.threads; t++ ) purchasers.execute( this::purchaseUntilStopped );
+
+        try {
+
+            if ( options.warmupNanos > 0 ) {
+                System.out.println( "Warming up for " + TimeUnit.NANOSECONDS.toSeconds( options.warmupNanos ) + "s" );
+                TimeUnit.NANOSECONDS.sleep( options.warmupNanos );
+            }
+
+            recorder.reset();
+            report();
+
+        } finally {
+            running = false;
+            purchasers.shutdown();
+            purchasers.awaitTermination( 1, TimeUnit.MINUTES );
+        }
+
+    }
+
+
+    private ExecutorService purchasers() {
+
+        if ( options.virtual ) {
+
+            try {
+                Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+                System.out.println( options.threads + " purchasers on virtual threads" );
+                return PurchaseExecutors.virtualThreadsOrFixedPool( options.threads );
+            } catch ( NoSuchMethodException e ) {
+                System.out.println( "Virtual threads need Java 21, falling back to platform threads" );
+            }
+
+        }
+
+        System.out.println( options.threads + " purchasers on platform threads" );
+        return Executors.newFixedThreadPool( options.threads, PurchaseExecutors.daemonThreads( "purchaser" ) );
+
+    }
+
+
+    private void purchaseUntilStopped() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while ( running ) {
+
+            BasketMix.Basket basket = basketMix.next( random );
+            long accountId = basket.badAccount ? 0L : 1L + random.nextInt( options.accounts );
+
+            long start = System.nanoTime();
+
+            try {
+                ticketService.purchaseTickets( accountId, basket.requests );
+                recorder.accepted( System.nanoTime() - start );
+            } catch ( InvalidPurchaseException e ) {
+                recorder.rejected( e.getReason(), System.nanoTime() - start );
+            } catch ( RuntimeException e ) {
+                recorder.failed( System.nanoTime() - start );
+            }
+
+        }
+
+    }
+
+
+    private void report() throws InterruptedException {
+
+        GcTotals gcAtStart = GcTotals.now();
+        GcTotals gcBefore = gcAtStart;
+        long start = System.nanoTime();
+        long before = start;
+        long countBefore = 0;
+
+        System.out.println( String.format( "%8s %10s %9s %9s %9s %9s %9s %8s %5s %7s %8s",
+                "time", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us", "rejected", "failed", "gcs", "gc ms", "heap MB" ) );
+
+        long rejectedBefore = 0;
+        long failedBefore = 0;
+
+        while ( System.nanoTime() - start < options.durationNanos ) {
+
+            long remaining = options.durationNanos - ( System.nanoTime() - start );
+            TimeUnit.NANOSECONDS.sleep( Math.min( options.reportNanos, remaining ) );
+
+            long now = System.nanoTime();
+            LatencyHistogram.Snapshot latency = recorder.nextInterval();
+            GcTotals gc = GcTotals.now();
+
+            long count = recorder.getCount();
+            long rejected = recorder.getRejected();
+            long failed = recorder.getFailed();
+            long ops = count - countBefore;
+
+            System.out.println( String.format( "%7ds %10.0f %9d %9d %9d %9d %8.2f%% %7.2f%% %5d %7d %8d",
+                    TimeUnit.NANOSECONDS.toSeconds( now - start ),
+                    ops * 1e9 / ( now - before ),
+                    micros( latency.valueAtPercentile( 50.0 ) ), micros( latency.valueAtPercentile( 99.0 ) ),
+                    micros( latency.valueAtPercentile( 99.9 ) ), micros( latency.getMaxValue() ),
+                    percent( rejected - rejectedBefore, ops ), percent( failed - failedBefore, ops ),
+                    gc.collections - gcBefore.collections, gc.millis - gcBefore.millis, gc.heapUsedBytes >> 20 ) );
+
+            before = now;
+            countBefore = count;
+            rejectedBefore = rejected;
+            failedBefore = failed;
+            gcBefore = gc;
+
+        }
+
+        summary( System.nanoTime() - start, gcAtStart, GcTotals.now() );
+
+    }
+
+
+    private void summary( long elapsedNanos, GcTotals gcAtStart, GcTotals gc ) {
+
+        LatencyHistogram.Snapshot latency = recorder.total();
+        long count = recorder.getCount();
+        long gcMillis = gc.millis - gcAtStart.millis;
+
+        System.out.println();
+        System.out.println( String.format( "Purchases   %d in %ds, %.0f/s", count, TimeUnit.NANOSECONDS.toSeconds( elapsedNanos ), count * 1e9 / elapsedNanos ) );
+        System.out.println( String.format( "Latency us  p50 %d, p90 %d, p99 %d, p99.9 %d, p99.99 %d, max %d",
+                micros( latency.valueAtPercentile( 50.0 ) ), micros( latency.valueAtPercentile( 90.0 ) ), micros( latency.valueAtPercentile( 99.0 ) ),
+                micros( latency.valueAtPercentile( 99.9 ) ), micros( latency.valueAtPercentile( 99.99 ) ), micros( latency.getMaxValue() ) ) );
+        System.out.println( String.format( "Accepted    %d ( %.2f%% )", recorder.getAccepted(), percent( recorder.getAccepted(), count ) ) );
+        System.out.println( String.format( "Rejected    %d ( %.2f%% )", recorder.getRejected(), percent( recorder.getRejected(), count ) ) );
+
+        for ( RejectionReason reason: RejectionReason.values() ) {
+            long rejected = recorder.getRejected( reason );
+            if ( rejected > 0 ) System.out.println( String.format( "  %-18s %d ( %.2f%% )", reason, rejected, percent( rejected, count ) ) );
+        }
+
+        System.out.println( String.format( "Failed      %d ( %.2f%% )", recorder.getFailed(), percent( recorder.getFailed(), count ) ) );
+        System.out.println( String.format( "GC          %d collections, %dms ( %.2f%% of the run ), heap %dMB of %dMB",
+                gc.collections - gcAtStart.collections, gcMillis, percent( TimeUnit.MILLISECONDS.toNanos( gcMillis ), elapsedNanos ),
+                gc.heapUsedBytes >> 20, gc.heapMaxBytes >> 20 ) );
+
+    }
+
+
+    private static long micros( long nanos ) {
+        return nanos / 1000;
+    }
+
+
+    private static double percent( long part, long whole ) {
+        return whole == 0 ? 0.0 : part * 100.0 / whole;
+    }
+
+
+    /**
+     * Collections and collection time summed over every collector, and heap use, at one point in time.
+     */
+    private static final class GcTotals {
+
+        final long collections;
+        final long millis;
+        final long heapUsedBytes;
+        final long heapMaxBytes;
+
+        private GcTotals( long collections, long millis, long heapUsedBytes, long heapMaxBytes ) {
+            this.collections = collections;
+            this.millis = millis;
+            this.heapUsedBytes = heapUsedBytes;
+            this.heapMaxBytes = heapMaxBytes;
+        }
+
+        static GcTotals now() {
+
+            long collections = 0;
+            long millis = 0;
+
+            for ( GarbageCollectorMXBean gc: ManagementFactory.getGarbageCollectorMXBeans() ) {
+                // -1 when a collector does not report it.
+                collections += Math.max( 0, gc.getCollectionCount() );
+                millis += Math.max( 0, gc.getCollectionTime() );
+            }
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+            return new GcTotals( collections, millis, memory.getHeapMemoryUsage().getUsed(), memory.getHeapMemoryUsage().getMax() );
+
+        }
+
+    }
+
+
+}
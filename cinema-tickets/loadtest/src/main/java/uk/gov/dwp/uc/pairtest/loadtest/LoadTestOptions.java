@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Command line options, each --name=value. Durations take a unit: 500ms, 30s, 10m, 8h.
+ */
+
+
+final class LoadTestOptions {
+
+
+    static final String USAGE = String.join( "\n",
+            "java -jar target/loadtest.jar [options]",
+            "",
+            "  --threads=200                 concurrent purchasers",
+            "  --virtual=true                virtual threads ( Java 21+ ), false for platform threads",
+            "  --duration=60s                how long to measure for, e.g. 8h for a soak",
+            "  --warmup=10s                  run first without counting, for the JIT",
+            "  --report=5s                   print a line this often",
+            "  --payment-latency=5ms         stand-in payment gateway round trip",
+            "  --reservation-latency=5ms     stand-in seat reservation round trip",
+            "  --payment-error-rate=0        fraction of payments that fail, 0 to 1",
+            "  --reservation-error-rate=0    fraction of reservations that fail, 0 to 1",
+            "  --invalid-ratio=0.1           fraction of baskets that break a rule, 0 to 1",
+            "  --accounts=100000             distinct account ids to buy with",
+            "  --log-rejections=false        write each rejection to the console at FINE" );
+
+
+    int threads = 200;
+    boolean virtual = true;
+    long durationNanos = TimeUnit.SECONDS.toNanos( 60 );
+    long warmupNanos = TimeUnit.SECONDS.toNanos( 10 );
+    long reportNanos = TimeUnit.SECONDS.toNanos( 5 );
+    long paymentLatencyNanos = TimeUnit.MILLISECONDS.toNanos( 5 );
+    long reservationLatencyNanos = TimeUnit.MILLISECONDS.toNanos( 5 );
+    double paymentErrorRate = 0.0;
+    double reservationErrorRate = 0.0;
+    double invalidRatio = 0.1;
+    int accounts = 100_000;
+    boolean logRejections = false;
+
+
+    /**
+     * Throws IllegalArgumentException for an unknown option or a value that does not parse.
+     */
+    static LoadTestOptions parse( String... args ) {
+
+        LoadTestOptions options = new LoadTestOptions();
+
+        for ( String arg: args ) {
+
+            int equals = arg.indexOf( '=' );
+            if ( !arg.startsWith( "--" ) || equals < 0 ) throw new IllegalArgumentException( "Expected --name=value: " + arg );
+
+            String name = arg.substring( 2, equals );
+            String value = arg.substring( equals + 1 ).trim();
+
+            try {
+                switch ( name ) {
+                    case "threads": options.threads = positive( name, Integer.parseInt( value ) ); break;
+                    case "virtual": options.virtual = Boolean.parseBoolean( value ); break;
+                    case "duration": options.durationNanos = positive( name, duration( value ) ); break;
+                    case "warmup": options.warmupNanos = duration( value ); break;
+                    case "report": options.reportNanos = positive( name, duration( value ) ); break;
+                    case "payment-latency": options.paymentLatencyNanos = duration( value ); break;
+                    case "reservation-latency": options.reservationLatencyNanos = duration( value ); break;
+                    case "payment-error-rate": options.paymentErrorRate = Double.parseDouble( value ); break;
+                    case "reservation-error-rate": options.reservationErrorRate = Double.parseDouble( value ); break;
+                    case "invalid-ratio": options.invalidRatio = Double.parseDouble( value ); break;
+                    case "accounts": options.accounts = positive( name, Integer.parseInt( value ) ); break;
+                    case "log-rejections": options.logRejections = Boolean.parseBoolean( value ); break;
+                    default: throw new IllegalArgumentException( "Unknown option: --" + name );
+                }
+            } catch ( NumberFormatException e ) {
+                throw new IllegalArgumentException( "--" + name + " is not a number: " + value );
+            }
+
+        }
+
+        return options;
+
+    }
+
+
+    static long duration( String value ) {
+
+        TimeUnit unit;
+        String digits;
+
+        if ( value.endsWith( "ms" ) ) { unit = TimeUnit.MILLISECONDS; digits = value.substring( 0, value.length() - 2 ); }
+        else if ( value.endsWith( "us" ) ) { unit = TimeUnit.MICROSECONDS; digits = value.substring( 0, value.length() - 2 ); }
+        else if ( value.endsWith( "s" ) ) { unit = TimeUnit.SECONDS; digits = value.substring( 0, value.length() - 1 ); }
+        else if ( value.endsWith( "m" ) ) { unit = TimeUnit.MINUTES; digits = value.substring( 0, value.length() - 1 ); }
+        else if ( value.endsWith( "h" ) ) { unit = TimeUnit.HOURS; digits = value.substring( 0, value.length() - 1 ); }
+        else throw new IllegalArgumentException( "Duration needs a unit ( us, ms, s, m or h ): " + value );
+
+        long n = Long.parseLong( digits );
+        if ( n < 0 ) throw new IllegalArgumentException( "Duration cannot be negative: " + value );
+
+        return unit.toNanos( n );
+
+    }
+
+
+    private static int positive( String name, int n ) {
+        return (int) positive( name, (long) n );
+    }
+
+
+    private static long positive( String name, long n ) {
+
+        if ( n <= 0 ) throw new IllegalArgumentException( "--" + name + " must be greater than 0: " + n );
+
+        return n;
+
+    }
+
+
+}
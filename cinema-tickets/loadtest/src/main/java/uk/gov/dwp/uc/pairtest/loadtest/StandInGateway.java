@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * What the stand-in gateways share: park for a while, as a remote round trip would, then fail at a given rate.
+ * Parking rather than spinning, so a virtual thread unmounts from its carrier just as it would on a socket read.
+ */
+
+
+final class StandInGateway {
+
+
+    private final String name;
+    private final long latencyNanos;
+    private final double errorRate;
+
+
+    StandInGateway( String name, long latencyNanos, double errorRate ) {
+
+        if ( latencyNanos < 0 ) throw new IllegalArgumentException( name + " latency cannot be negative" );
+        if ( errorRate < 0.0 || errorRate > 1.0 ) throw new IllegalArgumentException( name + " error rate must be between 0 and 1: " + errorRate );
+
+        this.name = name;
+        this.latencyNanos = latencyNanos;
+        this.errorRate = errorRate;
+
+    }
+
+
+    void call() {
+
+        if ( latencyNanos > 0 ) LockSupport.parkNanos( latencyNanos );
+
+        if ( errorRate > 0.0 && ThreadLocalRandom.current().nextDouble() < errorRate ) throw new SimulatedGatewayException( name );
+
+    }
+
+
+    /**
+     * Thrown for a simulated failure. No stack trace, filling one in would be most of the cost at high error rates.
+     */
+    static final class SimulatedGatewayException extends RuntimeException {
+
+        SimulatedGatewayException( String gateway ) {
+            super( "Simulated " + gateway + " failure", null, false, false );
+        }
+
+    }
+
+
+}
@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+
+/**
+ * Offline seat reservation gateway with a fixed latency and a random failure rate.
+ */
+
+
+public class StandInSeatReservationService implements SeatReservationService {
+
+
+    private final StandInGateway gateway;
+
+
+    public StandInSeatReservationService( long latencyNanos, double errorRate ) {
+        this.gateway = new StandInGateway( "reservation", latencyNanos, errorRate );
+    }
+
+
+    @Override
+    public void reserveSeat( long accountId, int totalSeatsToAllocate ) {
+        gateway.call();
+    }
+
+
+}
@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+
+/**
+ * Offline payment gateway with a fixed latency and a random failure rate.
+ */
+
+
+public class StandInTicketPaymentService implements TicketPaymentService {
+
+
+    private final StandInGateway gateway;
+
+
+    public StandInTicketPaymentService( long latencyNanos, double errorRate ) {
+        this.gateway = new StandInGateway( "payment", latencyNanos, errorRate );
+    }
+
+
+    @Override
+    public void makePayment( long accountId, int totalAmountToPay ) {
+        gateway.call();
+    }
+
+
+}
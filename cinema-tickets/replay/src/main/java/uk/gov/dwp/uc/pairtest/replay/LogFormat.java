@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import java.nio.file.Path;
+
+
+/**
+ * The layouts a purchase log can be replayed from.
+ *
+ *     CSV     one purchase a line, account,adults,children,infants. A header line may name the columns, in
+ *             which case account can be anywhere as long as adults, children and infants follow it, so an
+ *             EventFileAppender log replays as it is. Other columns are ignored.
+ *     BINARY  back-to-back BasketCodec records, 12 bytes each.
+ */
+
+
+enum LogFormat {
+
+    CSV,
+    BINARY;
+
+
+    static LogFormat forFile( Path file ) {
+        return file.getFileName().toString().toLowerCase().endsWith( ".csv" ) ? CSV : BINARY;
+    }
+
+}
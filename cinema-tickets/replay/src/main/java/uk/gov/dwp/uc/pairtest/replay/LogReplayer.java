@@ -0,0 +1,137 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.wire.BasketCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Replays one purchase log under a baseline and a candidate PricingTable. Safe to run once per instance.
+ *
+ * The file is never read through a stream: ReplayTask splits it into chunks of about chunkBytes, and each
+ * chunk is memory-mapped and parsed in place by whichever fork-join worker takes it. Splitting is by byte
+ * offset alone, so it costs nothing up front. A CSV chunk owns the lines that start inside it, reading on past
+ * its end to finish its last one, so a line split between two chunks is replayed exactly once.
+ */
+
+
+final class LogReplayer {
+
+
+    // Longest CSV line replayed. Anything longer is counted as malformed.
+    static final int MAX_LINE_BYTES = 4096;
+
+
+    final FileChannel channel;
+    final long size;
+    final LogFormat format;
+    final int chunkBytes;
+    final PricingTable baseline;
+    final PricingTable candidate;
+
+    // CSV only: whether the first line names the columns, and which column is the account.
+    final boolean header;
+    final int accountColumn;
+
+
+    LogReplayer( FileChannel channel, LogFormat format, int chunkBytes, PricingTable baseline, PricingTable candidate ) throws IOException {
+
+        if ( channel == null || format == null || baseline == null || candidate == null ) throw new NullPointerException();
+        if ( chunkBytes < MAX_LINE_BYTES ) throw new IllegalArgumentException( "Chunks must be at least " + MAX_LINE_BYTES + " bytes" );
+
+        this.channel = channel;
+        this.size = channel.size();
+        this.format = format;
+        this.baseline = baseline;
+        this.candidate = candidate;
+
+        if ( format == LogFormat.BINARY ) {
+            // Whole records per chunk, so no record straddles two.
+            this.chunkBytes = chunkBytes - chunkBytes % BasketCodec.RECORD_SIZE;
+            this.header = false;
+            this.accountColumn = 0;
+            return;
+        }
+
+        this.chunkBytes = chunkBytes;
+
+        String firstLine = firstLine();
+        this.header = !firstLine.isEmpty() && !isNumberStart( firstLine.charAt( 0 ) );
+        this.accountColumn = header ? accountColumn( firstLine ) : 0;
+
+    }
+
+
+    static ReplayResult replay( Path log, LogFormat format, int chunkBytes, int parallelism, PricingTable baseline, PricingTable candidate ) throws IOException {
+
+        try ( FileChannel channel = FileChannel.open( log, StandardOpenOption.READ ) ) {
+
+            LogReplayer replayer = new LogReplayer( channel, format, chunkBytes, baseline, candidate );
+            ForkJoinPool pool = new ForkJoinPool( parallelism );
+
+            try {
+                return pool.invoke( new ReplayTask( replayer, 0, replayer.size ) );
+            } catch ( UncheckedIOException e ) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+
+        }
+
+    }
+
+
+    private String firstLine() throws IOException {
+
+        ByteBuffer start = ByteBuffer.allocate( (int) Math.min( size, MAX_LINE_BYTES ) );
+        int read;
+        do {
+            read = channel.read( start, start.position() );
+        } while ( read > 0 && start.hasRemaining() );
+
+        String text = new String( start.array(), 0, start.position(), StandardCharsets.US_ASCII );
+        int end = text.indexOf( '\n' );
+
+        return ( end < 0 ? text : text.substring( 0, end ) ).trim();
+
+    }
+
+
+    static boolean isNumberStart( char c ) {
+        return c == '-' || ( c >= '0' && c <= '9' );
+    }
+
+
+    // The account column's index, checking adults, children and infants follow it.
+    private static int accountColumn( String header ) {
+
+        String[] columns = header.split( "," );
+
+        for ( int i = 0; i < columns.length; i++ ) {
+
+            if ( !columns[i].trim().equalsIgnoreCase( "account" ) ) continue;
+
+            if ( i + 3 >= columns.length || !columns[ i + 1 ].trim().equalsIgnoreCase( "adults" )
+                    || !columns[ i + 2 ].trim().equalsIgnoreCase( "children" ) || !columns[ i + 3 ].trim().equalsIgnoreCase( "infants" ) ) {
+                throw new IllegalArgumentException( "Expected adults,children,infants after the account column: " + header );
+            }
+
+            return i;
+
+        }
+
+        throw new IllegalArgumentException( "CSV header has no account column: " + header );
+
+    }
+
+
+}
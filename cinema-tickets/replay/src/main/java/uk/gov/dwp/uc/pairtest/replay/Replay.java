@@ -0,0 +1,108 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.RejectionLog;
+import uk.gov.dwp.uc.pairtest.pricing.PriceFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Replays a recorded purchase log through TicketServiceImpl under two price files, a baseline and a
+ * candidate, and reports what the candidate would have changed: purchases accepted and rejected by reason,
+ * revenue, and how many purchases moved from one outcome to another. Runs offline, nothing leaves the JVM.
+ *
+ * The log is read through memory-mapped chunks spread over a fork-join pool, see LogReplayer, so it runs as
+ * fast as the cores can validate and price and the log is never all on the heap at once.
+ */
+
+
+public final class Replay {
+
+
+    // Held so the level set below is not lost when the logger is garbage collected.
+    private static final Logger REJECTIONS = Logger.getLogger( RejectionLog.LOGGER_NAME );
+
+
+    private Replay() {
+    }
+
+
+    public static void main( String[] args ) throws IOException {
+
+        if ( args.length > 0 && ( args[0].equals( "--help" ) || args[0].equals( "-h" ) ) ) {
+            System.out.println( ReplayOptions.USAGE );
+            return;
+        }
+
+        ReplayOptions options;
+        PricingTable baseline;
+        PricingTable candidate;
+        try {
+            options = ReplayOptions.parse( args );
+            baseline = options.baseline == null ? PricingTable.standardPrices() : PriceFile.load( options.baseline );
+            candidate = PriceFile.load( options.candidate );
+        } catch ( IllegalArgumentException e ) {
+            System.err.println( e.getMessage() );
+            System.err.println( ReplayOptions.USAGE );
+            System.exit( 2 );
+            return;
+        }
+
+        // Rejections are logged at FINE, but where logging is configured to show them every rejection replayed would
+        // be queued for the log, and most of a log can be rejections.
+        REJECTIONS.setLevel( Level.WARNING );
+
+        long start = System.nanoTime();
+        ReplayResult result = LogReplayer.replay( options.log, options.format, options.chunkBytes, options.parallelism, baseline, candidate );
+        long elapsedNanos = System.nanoTime() - start;
+
+        System.out.println( String.format( "Replayed %,d purchases from %s in %.2fs, %,.0f/s, %,d malformed skipped",
+                result.getPurchases(), options.log, elapsedNanos / 1e9, result.getPurchases() * 1e9 / Math.max( 1, elapsedNanos ), result.getMalformed() ) );
+        System.out.println( "Baseline   " + ( options.baseline == null ? "standard prices" : options.baseline ) + ", " + baseline.getRuleSet() );
+        System.out.println( "Candidate  " + options.candidate + ", " + candidate.getRuleSet() );
+        System.out.println();
+
+        report( result, System.out );
+
+    }
+
+
+    static void report( ReplayResult result, PrintStream out ) {
+
+        out.println( String.format( "%-20s %15s %15s %15s", "", "baseline", "candidate", "change" ) );
+        row( out, "revenue", result.getBaselineRevenue(), result.getCandidateRevenue() );
+        row( out, "accepted", result.getBaseline( ReplayResult.ACCEPTED ), result.getCandidate( ReplayResult.ACCEPTED ) );
+
+        long baselineRejected = result.getPurchases() - result.getBaseline( ReplayResult.ACCEPTED );
+        long candidateRejected = result.getPurchases() - result.getCandidate( ReplayResult.ACCEPTED );
+        row( out, "rejected", baselineRejected, candidateRejected );
+
+        for ( int outcome = 1; outcome < ReplayResult.OUTCOMES; outcome++ ) {
+            if ( result.getBaseline( outcome ) == 0 && result.getCandidate( outcome ) == 0 ) continue;
+            row( out, "  " + ReplayResult.name( outcome ), result.getBaseline( outcome ), result.getCandidate( outcome ) );
+        }
+
+        out.println();
+        out.println( String.format( "%,d purchases ( %.2f%% ) would have a different outcome", result.getChanged(),
+                result.getPurchases() == 0 ? 0.0 : result.getChanged() * 100.0 / result.getPurchases() ) );
+
+        for ( int from = 0; from < ReplayResult.OUTCOMES; from++ ) {
+            for ( int to = 0; to < ReplayResult.OUTCOMES; to++ ) {
+                long moved = result.getTransitions( from, to );
+                if ( from != to && moved > 0 ) out.println( String.format( "  %-18s -> %-18s %,15d", ReplayResult.name( from ), ReplayResult.name( to ), moved ) );
+            }
+        }
+
+    }
+
+
+    private static void row( PrintStream out, String label, long baseline, long candidate ) {
+        out.println( String.format( "%-20s %,15d %,15d %+,15d", label, baseline, candidate, candidate - baseline ) );
+    }
+
+
+}
@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+/**
+ * Command line options, each --name=value. Sizes take an optional unit: 512k, 8m, 1g.
+ */
+
+
+final class ReplayOptions {
+
+
+    static final String USAGE = String.join( "\n",
+            "java -jar target/replay.jar --log=FILE --candidate=FILE [options]",
+            "",
+            "  --log=FILE                    purchase log to replay, CSV or BasketCodec records",
+            "  --candidate=FILE              price file to try, see PriceFile",
+            "  --baseline=FILE               price file to compare against, the standard prices if left out",
+            "  --format=auto                 csv, binary, or auto: csv for a .csv file, binary otherwise",
+            "  --parallelism=CORES           fork-join worker threads, default one per core",
+            "  --chunk=8m                    bytes of log per task, mapped and parsed in one go" );
+
+
+    Path log;
+    Path candidate;
+    Path baseline;
+    LogFormat format;
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    int chunkBytes = 8 << 20;
+
+
+    /**
+     * Throws IllegalArgumentException for an unknown option, a missing required one or a value that does not parse.
+     */
+    static ReplayOptions parse( String... args ) {
+
+        ReplayOptions options = new ReplayOptions();
+
+        for ( String arg: args ) {
+
+            int equals = arg.indexOf( '=' );
+            if ( !arg.startsWith( "--" ) || equals < 0 ) throw new IllegalArgumentException( "Expected --name=value: " + arg );
+
+            String name = arg.substring( 2, equals );
+            String value = arg.substring( equals + 1 ).trim();
+
+            try {
+                switch ( name ) {
+                    case "log": options.log = Paths.get( value ); break;
+                    case "candidate": options.candidate = Paths.get( value ); break;
+                    case "baseline": options.baseline = Paths.get( value ); break;
+                    case "format": options.format = "auto".equals( value ) ? null : LogFormat.valueOf( value.toUpperCase() ); break;
+                    case "parallelism": options.parallelism = positive( name, Integer.parseInt( value ) ); break;
+                    case "chunk": options.chunkBytes = positive( name, size( value ) ); break;
+                    default: throw new IllegalArgumentException( "Unknown option: --" + name );
+                }
+            } catch ( NumberFormatException e ) {
+                throw new IllegalArgumentException( "--" + name + " is not a number: " + value );
+            }
+
+        }
+
+        if ( options.log == null ) throw new IllegalArgumentException( "--log is required" );
+        if ( options.candidate == null ) throw new IllegalArgumentException( "--candidate is required" );
+        if ( options.format == null ) options.format = LogFormat.forFile( options.log );
+
+        return options;
+
+    }
+
+
+    static int size( String value ) {
+
+        int shift = 0;
+        String digits = value;
+
+        switch ( Character.toLowerCase( value.charAt( value.length() - 1 ) ) ) {
+            case 'k': shift = 10; break;
+            case 'm': shift = 20; break;
+            case 'g': shift = 30; break;
+            default: break;
+        }
+        if ( shift > 0 ) digits = value.substring( 0, value.length() - 1 );
+
+        long bytes = Long.parseLong( digits ) << shift;
+        if ( bytes > Integer.MAX_VALUE ) throw new IllegalArgumentException( "Size must be under 2g: " + value );
+
+        return (int) bytes;
+
+    }
+
+
+    private static int positive( String name, int n ) {
+
+        if ( n <= 0 ) throw new IllegalArgumentException( "--" + name + " must be greater than 0: " + n );
+
+        return n;
+
+    }
+
+
+}
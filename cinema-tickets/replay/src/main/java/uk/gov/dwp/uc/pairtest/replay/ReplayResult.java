@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * What replaying part of a log under a baseline and a candidate configuration came to. Each fork-join task
+ * fills its own, and results are merged on the way back up, so nothing is shared while replaying.
+ *
+ * An outcome is ACCEPTED, or 1 + the RejectionReason's ordinal for a rejection. transitions counts every
+ * purchase by its baseline and candidate outcome together, the diagonal being those that did not change.
+ */
+
+
+final class ReplayResult {
+
+
+    static final int ACCEPTED = 0;
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+    static final int OUTCOMES = 1 + REASONS.length;
+
+
+    private long purchases;
+    private long malformed;
+
+    private long baselineRevenue;
+    private long candidateRevenue;
+    private final long[] baselineOutcomes = new long[ OUTCOMES ];
+    private final long[] candidateOutcomes = new long[ OUTCOMES ];
+    private final long[] transitions = new long[ OUTCOMES * OUTCOMES ];
+
+
+    static int rejected( RejectionReason reason ) {
+        return 1 + reason.ordinal();
+    }
+
+
+    static String name( int outcome ) {
+        return outcome == ACCEPTED ? "ACCEPTED" : REASONS[ outcome - 1 ].name();
+    }
+
+
+    void add( int baselineOutcome, int baselineCost, int candidateOutcome, int candidateCost ) {
+
+        purchases++;
+        baselineRevenue += baselineCost;
+        candidateRevenue += candidateCost;
+        baselineOutcomes[ baselineOutcome ]++;
+        candidateOutcomes[ candidateOutcome ]++;
+        transitions[ baselineOutcome * OUTCOMES + candidateOutcome ]++;
+
+    }
+
+
+    void malformed() {
+        malformed++;
+    }
+
+
+    // Adds other into this and returns this.
+    ReplayResult merge( ReplayResult other ) {
+
+        purchases += other.purchases;
+        malformed += other.malformed;
+        baselineRevenue += other.baselineRevenue;
+        candidateRevenue += other.candidateRevenue;
+
+        for ( int i = 0; i < OUTCOMES; i++ ) {
+            baselineOutcomes[i] += other.baselineOutcomes[i];
+            candidateOutcomes[i] += other.candidateOutcomes[i];
+        }
+        for ( int i = 0; i < transitions.length; i++ ) transitions[i] += other.transitions[i];
+
+        return this;
+
+    }
+
+
+    long getPurchases() {
+        return purchases;
+    }
+
+    // Lines or records skipped because they could not be read as a purchase.
+    long getMalformed() {
+        return malformed;
+    }
+
+    long getBaselineRevenue() {
+        return baselineRevenue;
+    }
+
+    long getCandidateRevenue() {
+        return candidateRevenue;
+    }
+
+    long getBaseline( int outcome ) {
+        return baselineOutcomes[ outcome ];
+    }
+
+    long getCandidate( int outcome ) {
+        return candidateOutcomes[ outcome ];
+    }
+
+    long getTransitions( int baselineOutcome, int candidateOutcome ) {
+        return transitions[ baselineOutcome * OUTCOMES + candidateOutcome ];
+    }
+
+    // Purchases whose outcome differs between the two configurations.
+    long getChanged() {
+
+        long unchanged = 0;
+        for ( int i = 0; i < OUTCOMES; i++ ) unchanged += getTransitions( i, i );
+
+        return purchases - unchanged;
+
+    }
+
+
+}
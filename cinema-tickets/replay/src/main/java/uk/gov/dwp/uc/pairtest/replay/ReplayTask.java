@@ -0,0 +1,300 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.wire.BasketCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Replays the part of a log from start to end, splitting it in two until it is no bigger than a chunk.
+ *
+ * A chunk is mapped and parsed straight from the mapping, and each purchase in it is put through a
+ * TicketServiceImpl per configuration, with gateways that do nothing, so validation and pricing are exactly
+ * what production runs. The services and their request arrays belong to the chunk, so workers share nothing.
+ */
+
+
+final class ReplayTask extends RecursiveTask<ReplayResult> {
+
+
+    private static final SeatReservationService NO_SEATS = ( accountId, totalSeatsToAllocate ) -> { };
+    private static final TicketPaymentService NO_PAYMENTS = ( accountId, totalAmountToPay ) -> { };
+
+    // Replays any basket over the ticket limit: whatever the counts were, the outcome is the same.
+    private static final TicketTypeRequest[] OVER_LIMIT = new TicketTypeRequest[] {
+            TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, TicketTypeRequest.MAX_TICKETS_PER_REQUEST ),
+            TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, 1 )
+    };
+
+
+    private final LogReplayer replayer;
+    private final long start;
+    private final long end;
+
+    // Set by replayChunk, for the replay of each purchase.
+    private Configuration baseline;
+    private Configuration candidate;
+    private ReplayResult result;
+    private TicketTypeRequest[][] requests;
+    private long[] values;
+
+
+    ReplayTask( LogReplayer replayer, long start, long end ) {
+
+        this.replayer = replayer;
+        this.start = start;
+        this.end = end;
+
+    }
+
+
+    @Override
+    protected ReplayResult compute() {
+
+        if ( end - start <= replayer.chunkBytes ) return replayChunk();
+
+        // Binary chunks stay whole records, CSV ones can split anywhere.
+        long middle = start + replayer.chunkBytes * Math.max( 1, ( end - start ) / replayer.chunkBytes / 2 );
+
+        ReplayTask first = new ReplayTask( replayer, start, middle );
+        first.fork();
+
+        ReplayResult second = new ReplayTask( replayer, middle, end ).compute();
+
+        return first.join().merge( second );
+
+    }
+
+
+    private ReplayResult replayChunk() {
+
+        baseline = new Configuration( replayer.baseline );
+        candidate = new Configuration( replayer.candidate );
+        result = new ReplayResult();
+        values = new long[4];
+        requests = new TicketTypeRequest[4][];
+        for ( int i = 0; i < requests.length; i++ ) requests[i] = new TicketTypeRequest[i];
+
+        try {
+            if ( replayer.format == LogFormat.BINARY ) replayRecords();
+            else replayLines();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+        return result;
+
+    }
+
+
+    private void replayRecords() throws IOException {
+
+        MappedByteBuffer chunk = replayer.channel.map( FileChannel.MapMode.READ_ONLY, start, end - start );
+        int length = chunk.limit();
+
+        int offset = 0;
+        for ( ; offset + BasketCodec.RECORD_SIZE <= length; offset += BasketCodec.RECORD_SIZE ) {
+            replay( BasketCodec.accountId( chunk, offset ), BasketCodec.adults( chunk, offset ), BasketCodec.children( chunk, offset ), BasketCodec.infants( chunk, offset ) );
+        }
+
+        // A file cut off part way through its last record.
+        if ( offset < length ) result.malformed();
+
+    }
+
+
+    private void replayLines() throws IOException {
+
+        // From a byte early, to see whether a line starts exactly at start, and on past end to finish the last line.
+        long from = start == 0 ? 0 : start - 1;
+        long to = Math.min( replayer.size, end + LogReplayer.MAX_LINE_BYTES );
+
+        MappedByteBuffer chunk = replayer.channel.map( FileChannel.MapMode.READ_ONLY, from, to - from );
+        int limit = chunk.limit();
+        int owned = (int) ( end - from );
+
+        int pos = 0;
+
+        // The line running into this chunk belongs to the one before, as does a header at the very start.
+        if ( start > 0 || replayer.header ) {
+            pos = nextLine( chunk, 0, limit );
+        }
+
+        while ( pos < owned ) {
+
+            int lineEnd = pos;
+            while ( lineEnd < limit && chunk.get( lineEnd ) != '\n' ) lineEnd++;
+
+            // Ran out of mapping before the line ended, and it is not the end of the file.
+            if ( lineEnd == limit && to < replayer.size ) {
+                result.malformed();
+                return;
+            }
+
+            replayLine( chunk, pos, lineEnd );
+            pos = lineEnd + 1;
+
+        }
+
+    }
+
+
+    private static int nextLine( MappedByteBuffer chunk, int pos, int limit ) {
+
+        while ( pos < limit && chunk.get( pos ) != '\n' ) pos++;
+
+        return pos + 1;
+
+    }
+
+
+    // Parses account,adults,children,infants from the columns at replayer.accountColumn on, ignoring the rest.
+    private void replayLine( MappedByteBuffer chunk, int start, int end ) {
+
+        if ( end > start && chunk.get( end - 1 ) == '\r' ) end--;
+        if ( end == start ) return;
+
+        int first = replayer.accountColumn;
+        int column = 0;
+        int fieldStart = start;
+
+        for ( int i = start; i <= end && column <= first + 3; i++ ) {
+
+            if ( i < end && chunk.get( i ) != ',' ) continue;
+
+            if ( column >= first ) {
+                if ( !parse( chunk, fieldStart, i, values, column - first ) ) {
+                    result.malformed();
+                    return;
+                }
+            }
+
+            column++;
+            fieldStart = i + 1;
+
+        }
+
+        if ( column < first + 4 ) {
+            result.malformed();
+            return;
+        }
+
+        replay( values[0], values[1], values[2], values[3] );
+
+    }
+
+
+    // A signed decimal of at most 18 digits into values[index].
+    private static boolean parse( MappedByteBuffer chunk, int start, int end, long[] values, int index ) {
+
+        boolean negative = start < end && chunk.get( start ) == '-';
+        if ( negative ) start++;
+
+        if ( start == end || end - start > 18 ) return false;
+
+        long n = 0;
+        for ( int i = start; i < end; i++ ) {
+            int digit = chunk.get( i ) - '0';
+            if ( digit < 0 || digit > 9 ) return false;
+            n = n * 10 + digit;
+        }
+
+        values[index] = negative ? -n : n;
+        return true;
+
+    }
+
+
+    private void replay( long accountId, long adults, long children, long infants ) {
+
+        TicketTypeRequest[] basket = basket( adults, children, infants );
+
+        int baselineOutcome = baseline.replay( accountId, basket );
+        int baselineCost = baseline.cost;
+        int candidateOutcome = candidate.replay( accountId, basket );
+
+        result.add( baselineOutcome, baselineCost, candidateOutcome, candidate.cost );
+
+    }
+
+
+    // The requests to replay, in one of this task's arrays. Negative counts, as an EventFileAppender writes for
+    // an over-limit basket, are over the limit too.
+    private TicketTypeRequest[] basket( long adults, long children, long infants ) {
+
+        if ( adults < 0 || children < 0 || infants < 0 || adults + children + infants > TicketTally.MAX_TICKETS ) return OVER_LIMIT;
+
+        int count = ( adults > 0 ? 1 : 0 ) + ( children > 0 ? 1 : 0 ) + ( infants > 0 ? 1 : 0 );
+        TicketTypeRequest[] basket = requests[count];
+
+        int r = 0;
+        if ( adults > 0 ) basket[ r++ ] = TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, (int) adults );
+        if ( children > 0 ) basket[ r++ ] = TicketTypeRequest.of( TicketTypeRequest.Type.CHILD, (int) children );
+        if ( infants > 0 ) basket[ r ] = TicketTypeRequest.of( TicketTypeRequest.Type.INFANT, (int) infants );
+
+        return basket;
+
+    }
+
+
+    /**
+     * A TicketServiceImpl on one configuration's prices, listening to itself for each purchase's outcome and cost.
+     */
+    private static final class Configuration implements PurchaseListener {
+
+        private final TicketServiceImpl ticketService;
+
+        int outcome;
+        int cost;
+
+        Configuration( PricingTable pricingTable ) {
+            this.ticketService = new TicketServiceImpl( NO_SEATS, NO_PAYMENTS, pricingTable, this );
+        }
+
+        int replay( long accountId, TicketTypeRequest[] basket ) {
+
+            try {
+                ticketService.purchaseTickets( accountId, basket );
+            } catch ( InvalidPurchaseException rejected ) {
+                // Already recorded by onRejected.
+            }
+
+            return outcome;
+
+        }
+
+        @Override
+        public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+            outcome = ReplayResult.ACCEPTED;
+            cost = totalCost;
+        }
+
+        @Override
+        public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+            outcome = ReplayResult.rejected( reason );
+            cost = 0;
+        }
+
+        // The gateways do nothing, so cannot fail. Were one to, purchaseTickets throws and the replay stops.
+        @Override
+        public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+        }
+
+    }
+
+
+}
@@ -0,0 +1,203 @@
+package uk.gov.dwp.uc.pairtest.replay;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.RuleSet;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.wire.BasketCodec;
+
+import java.io.BufferedWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class LogReplayerTest {
+
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static final int PURCHASES = 20_000;
+
+    // Chunks far smaller than the log, so lines and records are split across many tasks.
+    static final int CHUNK_BYTES = LogReplayer.MAX_LINE_BYTES;
+
+    PricingTable standard = PricingTable.standardPrices();
+    PricingTable matinee = PricingTable.build( new PurchaseEvaluator( 22, 10, 0 ), RuleSet.fromProperties( adultNotRequired() ) );
+
+    long[][] baskets = baskets( PURCHASES );
+
+
+    /** Section : Formats */
+
+
+    @Test
+    public void givenCsvWithHeaderInManyChunks_whenReplayed_thenEveryLineOnceAndAsTheTableSays() throws Exception {
+
+        Path log = folder.getRoot().toPath().resolve( "purchases.csv" );
+
+        try ( BufferedWriter writer = Files.newBufferedWriter( log ) ) {
+            writer.write( "account,adults,children,infants\r\n" );
+            for ( long[] b: baskets ) writer.write( b[0] + "," + b[1] + "," + b[2] + "," + b[3] + "\r\n" );
+        }
+
+        assertMatchesTable( LogReplayer.replay( log, LogFormat.CSV, CHUNK_BYTES, 4, standard, matinee ) );
+
+    }
+
+
+    @Test
+    public void givenBinaryRecordsInManyChunks_whenReplayed_thenEveryRecordOnceAndAsTheTableSays() throws Exception {
+
+        Path log = folder.getRoot().toPath().resolve( "purchases.bin" );
+        ByteBuffer buffer = ByteBuffer.allocate( PURCHASES * BasketCodec.RECORD_SIZE );
+        for ( long[] b: baskets ) BasketCodec.write( buffer, b[0], (int) b[1], (int) b[2], (int) b[3] );
+        Files.write( log, buffer.array() );
+
+        assertMatchesTable( LogReplayer.replay( log, LogFormat.BINARY, CHUNK_BYTES, 4, standard, matinee ) );
+
+    }
+
+
+    @Test
+    public void givenPurchaseEventLog_whenReplayed_thenAccountAndCountsFoundByHeaderAndOverLimitKept() throws Exception {
+
+        Path log = folder.getRoot().toPath().resolve( "events.csv" );
+        Files.write( log, String.join( "\n",
+                "sequence,timestamp,account,adults,children,infants,status,reason,failedStage,totalCost,totalSeats,validationNanos,paymentNanos,reservationNanos",
+                "0,1700000000000,42,2,1,0,ACCEPTED,,,50,3,812,20411,18030",
+                "1,1700000000001,7,0,2,0,REJECTED,NO_ADULT,,0,0,640,0,0",
+                "2,1700000000002,9,-1,-1,-1,REJECTED,OVER_LIMIT,,0,0,300,0,0" ).getBytes() );
+
+        ReplayResult result = LogReplayer.replay( log, LogFormat.CSV, CHUNK_BYTES, 1, standard, matinee );
+
+        assertEquals( 3, result.getPurchases() );
+        assertEquals( 0, result.getMalformed() );
+        assertEquals( 50, result.getBaselineRevenue() );
+        assertEquals( 44 + 10 + 20, result.getCandidateRevenue() );
+        assertEquals( 1, result.getTransitions( ReplayResult.rejected( RejectionReason.NO_ADULT ), ReplayResult.ACCEPTED ) );
+        assertEquals( 1, result.getTransitions( ReplayResult.rejected( RejectionReason.OVER_LIMIT ), ReplayResult.rejected( RejectionReason.OVER_LIMIT ) ) );
+
+    }
+
+
+    @Test
+    public void givenMalformedLines_whenReplayed_thenSkippedAndCounted() throws Exception {
+
+        Path log = folder.getRoot().toPath().resolve( "purchases.csv" );
+        Files.write( log, String.join( "\n", "1,2,0,0", "not,a,purchase,line", "2,1", "", "3,1,1,x", "4,1,1,1" ).getBytes() );
+
+        ReplayResult result = LogReplayer.replay( log, LogFormat.CSV, CHUNK_BYTES, 1, standard, standard );
+
+        assertEquals( 2, result.getPurchases() );
+        assertEquals( 3, result.getMalformed() );
+        assertEquals( 0, result.getChanged() );
+
+    }
+
+
+    @Test( expected = IllegalArgumentException.class )
+    public void givenHeaderWithoutCountsAfterAccount_whenReplayed_thenIllegalArgument() throws Exception {
+
+        Path log = folder.getRoot().toPath().resolve( "purchases.csv" );
+        Files.write( log, "account,children,adults,infants\n1,1,1,0\n".getBytes() );
+
+        LogReplayer.replay( log, LogFormat.CSV, CHUNK_BYTES, 1, standard, standard );
+
+    }
+
+
+    /** Section : Report */
+
+
+    @Test
+    public void givenReplay_whenReported_thenRevenueOutcomesAndTransitionsShown() throws Exception {
+
+        ReplayResult result = new ReplayResult();
+        result.add( ReplayResult.ACCEPTED, 20, ReplayResult.ACCEPTED, 22 );
+        result.add( ReplayResult.rejected( RejectionReason.NO_ADULT ), 0, ReplayResult.ACCEPTED, 10 );
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        Replay.report( result, new java.io.PrintStream( bytes, true, "UTF-8" ) );
+        String report = bytes.toString( "UTF-8" );
+
+        assertTrue( report, report.contains( "revenue" ) && report.contains( "+12" ) );
+        assertTrue( report, report.contains( "NO_ADULT" ) );
+        assertTrue( report, report.contains( "1 purchases ( 50.00% ) would have a different outcome" ) );
+
+    }
+
+
+    private void assertMatchesTable( ReplayResult result ) {
+
+        ReplayResult expected = new ReplayResult();
+        for ( long[] b: baskets ) {
+            int tally = TicketTally.of( (int) b[1], (int) b[2], (int) b[3] );
+            expected.add( outcome( standard, b[0], tally ), cost( standard, b[0], tally ), outcome( matinee, b[0], tally ), cost( matinee, b[0], tally ) );
+        }
+
+        assertEquals( PURCHASES, result.getPurchases() );
+        assertEquals( 0, result.getMalformed() );
+        assertEquals( expected.getBaselineRevenue(), result.getBaselineRevenue() );
+        assertEquals( expected.getCandidateRevenue(), result.getCandidateRevenue() );
+
+        for ( int from = 0; from < ReplayResult.OUTCOMES; from++ ) {
+            for ( int to = 0; to < ReplayResult.OUTCOMES; to++ ) assertEquals( expected.getTransitions( from, to ), result.getTransitions( from, to ) );
+        }
+
+        assertTrue( result.getChanged() > 0 );
+
+    }
+
+
+    private static int outcome( PricingTable table, long accountId, int tally ) {
+
+        RejectionReason reason = table.rejectionReason( accountId, tally );
+
+        return reason == null ? ReplayResult.ACCEPTED : ReplayResult.rejected( reason );
+
+    }
+
+
+    private static int cost( PricingTable table, long accountId, int tally ) {
+        return table.rejectionReason( accountId, tally ) == null ? table.totalCost( tally ) : 0;
+    }
+
+
+    // Mostly small baskets, some without an adult, over the limit or with a bad account.
+    private static long[][] baskets( int n ) {
+
+        Random random = new Random( 7 );
+        long[][] baskets = new long[n][];
+
+        for ( int i = 0; i < n; i++ ) {
+            long accountId = random.nextInt( 50 ) == 0 ? 0 : 1 + random.nextInt( 1_000_000 );
+            baskets[i] = new long[] { accountId, random.nextInt( 5 ), random.nextInt( 4 ), random.nextInt( 2 ) };
+            if ( random.nextInt( 100 ) == 0 ) baskets[i][2] = 20;
+        }
+
+        return baskets;
+
+    }
+
+
+    private static Properties adultNotRequired() {
+
+        Properties properties = new Properties();
+        properties.setProperty( "rules.adultRequired", "false" );
+        return properties;
+
+    }
+
+
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Fixed-size byte buffers for reading request bodies, shared by every request thread.
+ *
+ * A ThreadLocal would not pool anything with a virtual thread per request, so buffers are handed out from a
+ * lock-free queue instead. At most maxPooled idle buffers are kept; when the pool is empty a new buffer is
+ * allocated, so a burst never blocks, it just makes some garbage.
+ */
+
+
+final class BufferPool {
+
+
+    private final int bufferSize;
+    private final int maxPooled;
+
+    private final ConcurrentLinkedQueue<byte[]> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+
+    BufferPool( int bufferSize, int maxPooled ) {
+
+        if ( bufferSize < 1 || maxPooled < 0 ) throw new IllegalArgumentException( "Buffer size must be greater than 0 and pool size at least 0" );
+
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+
+    }
+
+
+    byte[] acquire() {
+
+        byte[] buffer = idle.poll();
+        if ( buffer == null ) return new byte[ bufferSize ];
+
+        idleCount.decrementAndGet();
+        return buffer;
+
+    }
+
+
+    void release( byte[] buffer ) {
+
+        if ( buffer.length != bufferSize ) throw new IllegalArgumentException( "Not one of this pool's buffers" );
+
+        // Reserve a place first so the pool never grows past maxPooled under a race.
+        if ( idleCount.incrementAndGet() > maxPooled ) {
+            idleCount.decrementAndGet();
+            return;
+        }
+
+        idle.offer( buffer );
+
+    }
+
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+
+    int getIdleCount() {
+        return idleCount.get();
+    }
+
+
+}
@@ -0,0 +1,18 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+
+/**
+ * A request body that is not a purchase form. Answered with 400, the message goes back to the client.
+ */
+
+
+final class MalformedRequestException extends RuntimeException {
+
+
+    MalformedRequestException( String message ) {
+        // Bad input is routine for a public endpoint, skip the stack trace.
+        super( message, null, false, false );
+    }
+
+
+}
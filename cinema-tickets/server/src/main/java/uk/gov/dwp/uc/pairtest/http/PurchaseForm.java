@@ -0,0 +1,131 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+
+/**
+ * A purchase as posted in a form-encoded body, e.g.
+ *
+ *     account=42&adult=2&child=1&infant=1
+ *
+ * Names are case-insensitive. Each adult, child or infant pair is one TicketTypeRequest and may repeat; a count
+ * of 0 is left out. Parsed straight from the body bytes, with no Strings and only TicketTypeRequest flyweights,
+ * so the only allocation is the request array itself.
+ *
+ * Counts are passed on for the service to judge: an empty basket or too many tickets is its rejection to make,
+ * not a malformed request. Anything that does not fit the format throws a MalformedRequestException.
+ */
+
+
+final class PurchaseForm {
+
+
+    // This many pairs is over the ticket limit whatever their counts, so later ones are dropped. Bounds the array.
+    static final int MAX_PAIRS = TicketTypeRequest.MAX_TICKETS_PER_REQUEST + 1;
+
+    private static final TicketTypeRequest[] NO_REQUESTS = new TicketTypeRequest[0];
+
+
+    final long accountId;
+    final TicketTypeRequest[] requests;
+
+
+    private PurchaseForm( long accountId, TicketTypeRequest[] requests ) {
+        this.accountId = accountId;
+        this.requests = requests;
+    }
+
+
+    static PurchaseForm parse( byte[] body, int length ) {
+
+        long accountId = 0;
+        boolean hasAccount = false;
+
+        // Packed requests first, so the array is allocated once at the right size.
+        int[] packed = new int[ MAX_PAIRS ];
+        int count = 0;
+
+        int pos = 0;
+        while ( pos < length ) {
+
+            int nameStart = pos;
+            while ( pos < length && body[pos] != '=' && body[pos] != '&' ) pos++;
+            if ( pos == length || body[pos] != '=' ) throw new MalformedRequestException( "Expected name=value" );
+            int nameEnd = pos++;
+
+            int valueStart = pos;
+            while ( pos < length && body[pos] != '&' ) pos++;
+            long value = number( body, valueStart, pos );
+            pos++;
+
+            if ( is( body, nameStart, nameEnd, "account" ) ) {
+                if ( hasAccount ) throw new MalformedRequestException( "account given twice" );
+                accountId = value;
+                hasAccount = true;
+                continue;
+            }
+
+            TicketTypeRequest.Type type = type( body, nameStart, nameEnd );
+            if ( value == 0 ) continue;
+            if ( value > TicketTypeRequest.MAX_TICKETS_PER_REQUEST ) throw new MalformedRequestException( "At most " + TicketTypeRequest.MAX_TICKETS_PER_REQUEST + " tickets of a type per pair" );
+
+            // MAX_PAIRS pairs are already over the ticket limit, more cannot change the outcome.
+            if ( count < MAX_PAIRS ) packed[ count++ ] = TicketTypeRequest.pack( type, (int) value );
+
+        }
+
+        if ( !hasAccount ) throw new MalformedRequestException( "account is required" );
+
+        if ( count == 0 ) return new PurchaseForm( accountId, NO_REQUESTS );
+
+        TicketTypeRequest[] requests = new TicketTypeRequest[ count ];
+        for ( int r = 0; r < count; r++ ) requests[r] = TicketTypeRequest.fromPacked( packed[r] );
+
+        return new PurchaseForm( accountId, requests );
+
+    }
+
+
+    private static TicketTypeRequest.Type type( byte[] body, int start, int end ) {
+
+        if ( is( body, start, end, "adult" ) ) return TicketTypeRequest.Type.ADULT;
+        if ( is( body, start, end, "child" ) ) return TicketTypeRequest.Type.CHILD;
+        if ( is( body, start, end, "infant" ) ) return TicketTypeRequest.Type.INFANT;
+
+        throw new MalformedRequestException( "Unknown name, expected account, adult, child or infant" );
+
+    }
+
+
+    // Non-negative decimal, at most 18 digits so it cannot overflow.
+    private static long number( byte[] body, int start, int end ) {
+
+        if ( start == end || end - start > 18 ) throw new MalformedRequestException( "Expected a whole number" );
+
+        long n = 0;
+        for ( int i = start; i < end; i++ ) {
+            int digit = body[i] - '0';
+            if ( digit < 0 || digit > 9 ) throw new MalformedRequestException( "Expected a whole number" );
+            n = n * 10 + digit;
+        }
+
+        return n;
+
+    }
+
+
+    // ASCII case-insensitive match, name is lower case.
+    private static boolean is( byte[] body, int start, int end, String name ) {
+
+        if ( end - start != name.length() ) return false;
+
+        for ( int i = 0; i < name.length(); i++ ) {
+            if ( ( body[ start + i ] | 0x20 ) != name.charAt( i ) ) return false;
+        }
+
+        return true;
+
+    }
+
+
+}
@@ -0,0 +1,261 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.TicketQuote;
+import uk.gov.dwp.uc.pairtest.TicketQuoteService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.resilience.GatewayUnavailableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * TicketService over HTTP/1.1 on the JDK's built-in HttpServer, for shops that only need the one call.
+ *
+ *     POST /purchase    account=42&adult=2&child=1    204, or an error below
+ *     POST /quote       account=42&adult=2&child=1    200 {"accountId":42,"valid":true,"totalCost":50,"totalSeats":3,"reasons":[]}
+ *
+ * Bodies are form-encoded, see PurchaseForm, and read into pooled buffers. Each exchange runs on its own
+ * virtual thread where the JDK has them, so a purchase blocked on a gateway holds no platform thread.
+ *
+ * Start the JVM with -Dsun.net.httpserver.nodelay=true. HttpServer writes the headers and the body of a response
+ * separately, and with Nagle's algorithm on the body waits for the client's delayed ACK, ~40ms a response. The
+ * property is JVM-wide and read once, before the first HttpServer, so it is left to whoever owns the JVM.
+ *
+ * Errors are a status and a one-line JSON body, never a stack trace:
+ *
+ *     400 {"error":"..."}              malformed body
+ *     413 {"error":"..."}              body over MAX_BODY_BYTES
+ *     422 {"reason":"NO_ADULT"}        purchase rejected by the rules, or a bad account
+ *     409 {"reason":"SOLD_OUT"}        rejected because of other purchases, also DUPLICATE
+ *     429 {"reason":"RATE_LIMITED"}
+ *     503 {"error":"..."}              a gateway refused by a GatewayGuard
+ *     500 {"error":"purchase failed"}  anything else, logged here, "quote failed" for a quote
+ */
+
+
+public final class PurchaseHttpServer implements AutoCloseable {
+
+
+    public static final int MAX_BODY_BYTES = 1024;
+
+    private static final Logger LOGGER = Logger.getLogger( PurchaseHttpServer.class.getName() );
+
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_NO_CONTENT = 204;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_NOT_ALLOWED = 405;
+    private static final int STATUS_CONFLICT = 409;
+    private static final int STATUS_TOO_LARGE = 413;
+    private static final int STATUS_UNPROCESSABLE = 422;
+    private static final int STATUS_TOO_MANY = 429;
+    private static final int STATUS_ERROR = 500;
+    private static final int STATUS_UNAVAILABLE = 503;
+
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TicketService ticketService;
+    private final TicketQuoteService quoteService;
+
+    // Room for a whole body plus one byte, to tell a full buffer from one that overflowed.
+    private final BufferPool buffers = new BufferPool( MAX_BODY_BYTES + 1, 256 );
+
+
+    /**
+     * Binds to address, port 0 for any free port. Call start() to begin serving.
+     */
+    public PurchaseHttpServer( InetSocketAddress address, TicketService ticketService, TicketQuoteService quoteService ) throws IOException {
+        this( address, ticketService, quoteService, PurchaseExecutors.virtualThreadsOrFixedPool() );
+    }
+
+
+    /**
+     * As above on the given executor, which is shut down by close().
+     */
+    public PurchaseHttpServer( InetSocketAddress address, TicketService ticketService, TicketQuoteService quoteService,
+                               ExecutorService executor ) throws IOException {
+
+        if ( ticketService == null || quoteService == null || executor == null ) throw new NullPointerException();
+
+        this.ticketService = ticketService;
+        this.quoteService = quoteService;
+        this.executor = executor;
+
+        this.server = HttpServer.create( address, 0 );
+        this.server.setExecutor( executor );
+        this.server.createContext( "/purchase", exchange -> handle( exchange, true ) );
+        this.server.createContext( "/quote", exchange -> handle( exchange, false ) );
+
+    }
+
+
+    public void start() {
+        server.start();
+    }
+
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+
+    /**
+     * Stops accepting, gives exchanges in flight up to a second to finish, then shuts the executor down.
+     */
+    @Override
+    public void close() {
+
+        server.stop( 1 );
+        executor.shutdown();
+
+    }
+
+
+    private void handle( HttpExchange exchange, boolean purchase ) throws IOException {
+
+        byte[] buffer = buffers.acquire();
+
+        try {
+
+            if ( !"POST".equals( exchange.getRequestMethod() ) ) {
+                exchange.getResponseHeaders().set( "Allow", "POST" );
+                respond( exchange, STATUS_NOT_ALLOWED, error( "POST only" ) );
+                return;
+            }
+
+            int length = readBody( exchange.getRequestBody(), buffer );
+            if ( length > MAX_BODY_BYTES ) {
+                respond( exchange, STATUS_TOO_LARGE, error( "Body over " + MAX_BODY_BYTES + " bytes" ) );
+                return;
+            }
+
+            PurchaseForm form = PurchaseForm.parse( buffer, length );
+
+            if ( purchase ) purchase( exchange, form );
+            else quote( exchange, form );
+
+        } catch ( MalformedRequestException e ) {
+            respond( exchange, STATUS_BAD_REQUEST, error( e.getMessage() ) );
+        } finally {
+            buffers.release( buffer );
+            exchange.close();
+        }
+
+    }
+
+
+    private void purchase( HttpExchange exchange, PurchaseForm form ) throws IOException {
+
+        try {
+            ticketService.purchaseTickets( form.accountId, form.requests );
+        } catch ( InvalidPurchaseException e ) {
+            respond( exchange, status( e.getReason() ), "{\"reason\":\"" + ( e.getReason() == null ? "INVALID" : e.getReason().name() ) + "\"}" );
+            return;
+        } catch ( GatewayUnavailableException e ) {
+            respond( exchange, STATUS_UNAVAILABLE, error( e.getGateway() + " unavailable" ) );
+            return;
+        } catch ( RuntimeException e ) {
+            LOGGER.log( Level.WARNING, "Purchase failed for account " + form.accountId, e );
+            respond( exchange, STATUS_ERROR, error( "purchase failed" ) );
+            return;
+        }
+
+        exchange.sendResponseHeaders( STATUS_NO_CONTENT, -1 );
+
+    }
+
+
+    private void quote( HttpExchange exchange, PurchaseForm form ) throws IOException {
+
+        TicketQuote quote;
+
+        try {
+            quote = quoteService.quote( form.accountId, form.requests, new TicketQuote() );
+        } catch ( RuntimeException e ) {
+            LOGGER.log( Level.WARNING, "Quote failed for account " + form.accountId, e );
+            respond( exchange, STATUS_ERROR, error( "quote failed" ) );
+            return;
+        }
+
+        StringBuilder json = new StringBuilder( 128 )
+                .append( "{\"accountId\":" ).append( quote.getAccountId() )
+                .append( ",\"valid\":" ).append( quote.isValid() )
+                .append( ",\"totalCost\":" ).append( quote.getTotalCost() )
+                .append( ",\"totalSeats\":" ).append( quote.getTotalSeats() )
+                .append( ",\"reasons\":[" );
+
+        String separator = "";
+        for ( RejectionReason reason: RejectionReason.values() ) {
+            if ( !quote.hasReason( reason ) ) continue;
+            json.append( separator ).append( '"' ).append( reason.name() ).append( '"' );
+            separator = ",";
+        }
+
+        respond( exchange, STATUS_OK, json.append( "]}" ).toString() );
+
+    }
+
+
+    static int status( RejectionReason reason ) {
+
+        if ( reason == null ) return STATUS_UNPROCESSABLE;
+
+        switch ( reason ) {
+            case RATE_LIMITED: return STATUS_TOO_MANY;
+            case DUPLICATE:
+            case SOLD_OUT: return STATUS_CONFLICT;
+            default: return STATUS_UNPROCESSABLE;
+        }
+
+    }
+
+
+    // Reads up to buffer.length bytes. Returns buffer.length if the body did not fit, the rest is left unread.
+    private static int readBody( InputStream in, byte[] buffer ) throws IOException {
+
+        int length = 0;
+
+        while ( length < buffer.length ) {
+            int n = in.read( buffer, length, buffer.length - length );
+            if ( n < 0 ) break;
+            length += n;
+        }
+
+        return length;
+
+    }
+
+
+    private static void respond( HttpExchange exchange, int status, String json ) throws IOException {
+
+        byte[] body = json.getBytes( StandardCharsets.UTF_8 );
+
+        exchange.getResponseHeaders().set( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( status, body.length );
+
+        try ( OutputStream out = exchange.getResponseBody() ) {
+            out.write( body );
+        }
+
+    }
+
+
+    // Messages are ours or PurchaseForm's, none contain a quote or backslash.
+    private static String error( String message ) {
+        return "{\"error\":\"" + message + "\"}";
+    }
+
+
+}
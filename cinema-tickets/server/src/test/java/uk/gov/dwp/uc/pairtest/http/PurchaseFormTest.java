@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+
+public class PurchaseFormTest {
+
+
+    @Test
+    public void givenForm_whenParsed_thenRequestsAreFlyweights() {
+
+        PurchaseForm form = parse( "account=42&adult=2&Child=1&INFANT=1&child=0" );
+
+        assertEquals( 42L, form.accountId );
+        assertEquals( 3, form.requests.length );
+        assertSame( TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, 2 ), form.requests[0] );
+        assertSame( TicketTypeRequest.of( TicketTypeRequest.Type.CHILD, 1 ), form.requests[1] );
+        assertSame( TicketTypeRequest.of( TicketTypeRequest.Type.INFANT, 1 ), form.requests[2] );
+
+    }
+
+
+    @Test
+    public void givenMorePairsThanCouldBeLegal_whenParsed_thenStillOverTheLimit() {
+
+        StringBuilder body = new StringBuilder( "account=1" );
+        for ( int i = 0; i < 50; i++ ) body.append( "&adult=1" );
+
+        assertEquals( PurchaseForm.MAX_PAIRS, parse( body.toString() ).requests.length );
+
+    }
+
+
+    @Test(expected = MalformedRequestException.class)
+    public void givenNoAccount_whenParsed_thenThrow() {
+        parse( "adult=1" );
+    }
+
+
+    @Test(expected = MalformedRequestException.class)
+    public void givenUnknownName_whenParsed_thenThrow() {
+        parse( "account=1&senior=1" );
+    }
+
+
+    @Test(expected = MalformedRequestException.class)
+    public void givenNegativeCount_whenParsed_thenThrow() {
+        parse( "account=1&adult=-1" );
+    }
+
+
+    @Test(expected = MalformedRequestException.class)
+    public void givenCountOverPerRequestLimit_whenParsed_thenThrow() {
+        parse( "account=1&adult=21" );
+    }
+
+
+    private static PurchaseForm parse( String body ) {
+        byte[] bytes = body.getBytes( StandardCharsets.US_ASCII );
+        return PurchaseForm.parse( bytes, bytes.length );
+    }
+
+
+}
@@ -0,0 +1,208 @@
+package uk.gov.dwp.uc.pairtest.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketQuoteService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+
+public class PurchaseHttpServerTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    PurchaseHttpServer server;
+    HttpClient client;
+
+
+    @Before
+    public void setUp() throws IOException {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+        server = new PurchaseHttpServer( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ),
+                new TicketServiceImpl( seatReservationService, ticketPaymentService ), new TicketQuoteService(),
+                Executors.newFixedThreadPool( 4 ) );
+        server.start();
+
+        client = HttpClient.newBuilder().version( HttpClient.Version.HTTP_1_1 ).build();
+
+    }
+
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+
+    /** Purchases : */
+
+
+    @Test
+    public void givenValidForm_whenPurchase_thenPaidReservedAndNoContent() throws Exception {
+
+        HttpResponse<String> response = post( "/purchase", "account=42&adult=2&child=1&infant=1" );
+
+        assertEquals( 204, response.statusCode() );
+        verify( ticketPaymentService ).makePayment( 42L, 50 );
+        verify( seatReservationService ).reserveSeat( 42L, 3 );
+
+    }
+
+
+    @Test
+    public void givenRejectedBasket_whenPurchase_thenUnprocessableWithReason() throws Exception {
+
+        HttpResponse<String> response = post( "/purchase", "account=42&child=2" );
+
+        assertEquals( 422, response.statusCode() );
+        assertEquals( "{\"reason\":\"NO_ADULT\"}", response.body() );
+        verifyNoInteractions( ticketPaymentService );
+
+    }
+
+
+    @Test
+    public void givenFailingGateway_whenPurchase_thenServerErrorWithoutDetail() throws Exception {
+
+        doThrow( new IllegalStateException( "card declined at host 10.0.0.7" ) ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        HttpResponse<String> response = post( "/purchase", "account=42&adult=1" );
+
+        assertEquals( 500, response.statusCode() );
+        assertEquals( "{\"error\":\"purchase failed\"}", response.body() );
+
+    }
+
+
+    @Test
+    public void givenRejectionReasons_whenMapped_thenClientErrors() {
+
+        assertEquals( 422, PurchaseHttpServer.status( RejectionReason.BAD_ACCOUNT ) );
+        assertEquals( 409, PurchaseHttpServer.status( RejectionReason.SOLD_OUT ) );
+        assertEquals( 409, PurchaseHttpServer.status( RejectionReason.DUPLICATE ) );
+        assertEquals( 429, PurchaseHttpServer.status( RejectionReason.RATE_LIMITED ) );
+
+    }
+
+
+    /** Quotes : */
+
+
+    @Test
+    public void givenInvalidForm_whenQuote_thenEveryReasonAndNoSideEffects() throws Exception {
+
+        HttpResponse<String> response = post( "/quote", "account=0&child=1&infant=2" );
+
+        assertEquals( 200, response.statusCode() );
+        assertEquals( "{\"accountId\":0,\"valid\":false,\"totalCost\":0,\"totalSeats\":0,\"reasons\":[\"BAD_ACCOUNT\",\"NO_ADULT\",\"TOO_MANY_INFANTS\"]}", response.body() );
+        verifyNoInteractions( ticketPaymentService, seatReservationService );
+
+    }
+
+
+    @Test
+    public void givenValidForm_whenQuote_thenCostAndSeats() throws Exception {
+
+        HttpResponse<String> response = post( "/quote", "account=7&adult=2&child=1" );
+
+        assertEquals( "{\"accountId\":7,\"valid\":true,\"totalCost\":50,\"totalSeats\":3,\"reasons\":[]}", response.body() );
+
+    }
+
+
+    @Test
+    public void givenFailingQuoteService_whenQuote_thenServerErrorWithoutDetail() throws Exception {
+
+        server.close();
+        server = new PurchaseHttpServer( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ),
+                new TicketServiceImpl( seatReservationService, ticketPaymentService ),
+                new TicketQuoteService( () -> { throw new IllegalStateException( "prices not loaded from /etc/prices" ); } ),
+                Executors.newFixedThreadPool( 4 ) );
+        server.start();
+
+        HttpResponse<String> response = post( "/quote", "account=7&adult=2" );
+
+        assertEquals( 500, response.statusCode() );
+        assertEquals( "{\"error\":\"quote failed\"}", response.body() );
+
+    }
+
+
+    /** Bad requests : */
+
+
+    @Test
+    public void givenMalformedForm_whenPurchase_thenBadRequest() throws Exception {
+
+        HttpResponse<String> response = post( "/purchase", "account=42&senior=1" );
+
+        assertEquals( 400, response.statusCode() );
+        verifyNoInteractions( ticketPaymentService );
+
+    }
+
+
+    @Test
+    public void givenOversizedBody_whenPurchase_thenTooLarge() throws Exception {
+
+        StringBuilder body = new StringBuilder( "account=42" );
+        while ( body.length() <= PurchaseHttpServer.MAX_BODY_BYTES ) body.append( "&adult=1" );
+
+        assertEquals( 413, post( "/purchase", body.toString() ).statusCode() );
+
+    }
+
+
+    @Test
+    public void givenGet_whenPurchase_thenMethodNotAllowed() throws Exception {
+
+        HttpResponse<String> response = client.send( HttpRequest.newBuilder( uri( "/purchase" ) ).GET().build(), HttpResponse.BodyHandlers.ofString() );
+
+        assertEquals( 405, response.statusCode() );
+        assertEquals( "POST", response.headers().firstValue( "Allow" ).orElse( null ) );
+
+    }
+
+
+    private HttpResponse<String> post( String path, String body ) throws Exception {
+
+        HttpRequest request = HttpRequest.newBuilder( uri( path ) )
+                .header( "Content-Type", "application/x-www-form-urlencoded" )
+                .POST( HttpRequest.BodyPublishers.ofString( body ) )
+                .build();
+
+        return client.send( request, HttpResponse.BodyHandlers.ofString() );
+
+    }
+
+
+    private URI uri( String path ) {
+        return URI.create( "http://127.0.0.1:" + server.getPort() + path );
+    }
+
+
+}
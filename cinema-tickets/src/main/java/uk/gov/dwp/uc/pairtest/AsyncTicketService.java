@@ -0,0 +1,21 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Non-blocking counterpart of TicketService.
+ *
+ * Never throws: an invalid purchase completes the future exceptionally with an InvalidPurchaseException,
+ * and a failing payment or reservation completes it with that failure.
+ */
+
+
+public interface AsyncTicketService {
+
+    CompletableFuture<PurchaseResult> purchaseTickets( long accountId, TicketTypeRequest... ticketTypeRequests );
+
+}
@@ -0,0 +1,74 @@
+package uk.gov.dwp.uc.pairtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Validates on the caller's thread, then takes the payment and reserves the seats on the executor.
+ *
+ * Validation is cheap, so rejected purchases never occupy an executor thread.
+ * The seat reservation only runs once the payment has succeeded, as in TicketServiceImpl. Both go through a
+ * PurchasePipeline, so its listener and journal see these purchases too.
+ */
+
+
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+
+
+    private final PurchasePipeline purchasePipeline;
+    private final Executor executor;
+
+
+    public AsyncTicketServiceImpl( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService, Executor executor ) {
+        this( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), executor );
+    }
+
+
+    public AsyncTicketServiceImpl( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                                   PricingSource pricingSource, Executor executor ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ), executor );
+    }
+
+
+    public AsyncTicketServiceImpl( PurchasePipeline purchasePipeline, Executor executor ) {
+
+        if ( purchasePipeline == null || executor == null ) throw new NullPointerException();
+
+        this.purchasePipeline = purchasePipeline;
+        this.executor = executor;
+
+    }
+
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+
+        PricedPurchase purchase;
+
+        try {
+            purchase = purchasePipeline.price( accountId, ticketTypeRequests );
+        } catch ( RuntimeException e ) {
+            // Rejections and null requests.
+            return CompletableFuture.failedFuture( e );
+        }
+
+        try {
+            return CompletableFuture.supplyAsync( () -> purchasePipeline.settle( purchase ), executor );
+        } catch ( RuntimeException e ) {
+            // An executor that refuses work.
+            purchasePipeline.fail( purchase, e );
+            return CompletableFuture.failedFuture( e );
+        }
+
+    }
+
+
+}
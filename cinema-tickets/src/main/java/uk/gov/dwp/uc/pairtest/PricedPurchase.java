@@ -0,0 +1,86 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * A purchase validated and priced by a PurchasePipeline, to be paid for and reserved later, perhaps on another
+ * thread. Carries how far it has got between the pipeline's steps.
+ *
+ * Not thread safe: hand it from thread to thread, as an executor or queue does, but only one may use it at a time.
+ */
+
+
+public final class PricedPurchase {
+
+
+    private final long accountId;
+    private final int tally;
+    private final PricingTable pricingTable;
+    private final RejectionReason rejectionReason;
+    private final int totalCost;
+    private final int totalSeats;
+    final long validationNanos;
+
+    // Set by the pipeline as the purchase moves on.
+    long purchaseId = -1L;
+    PurchaseStage stage = PurchaseStage.VALIDATION;
+    long paymentStarted;
+    long paid;
+    long reservationStarted;
+    long reserved;
+
+
+    PricedPurchase( long accountId, int tally, PricingTable pricingTable, RejectionReason rejectionReason, long validationNanos ) {
+
+        this.accountId = accountId;
+        this.tally = tally;
+        this.pricingTable = pricingTable;
+        this.rejectionReason = rejectionReason;
+        this.totalCost = rejectionReason == null ? pricingTable.totalCost( tally ) : 0;
+        this.totalSeats = rejectionReason == null ? pricingTable.totalSeats( tally ) : 0;
+        this.validationNanos = validationNanos;
+
+    }
+
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public int getTally() {
+        return tally;
+    }
+
+    // The snapshot it was priced against.
+    public PricingTable getPricingTable() {
+        return pricingTable;
+    }
+
+    // Null if it may be paid for.
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    // The last step started.
+    public PurchaseStage getStage() {
+        return stage;
+    }
+
+
+    public PurchaseResult toResult() {
+        return new PurchaseResult( accountId, totalCost, totalSeats );
+    }
+
+
+}
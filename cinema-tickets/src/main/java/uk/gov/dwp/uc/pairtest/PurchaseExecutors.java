@@ -0,0 +1,56 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Executors for running blocking third-party calls off the request thread.
+ */
+
+
+public final class PurchaseExecutors {
+
+
+    private PurchaseExecutors() {
+    }
+
+
+    /**
+     * A virtual thread per task when the JDK supports it (21+), otherwise a fixed pool of daemon platform threads.
+     * Looked up reflectively so the project still builds and runs on Java 11.
+     */
+    public static ExecutorService virtualThreadsOrFixedPool( int fallbackPoolSize ) {
+
+        try {
+            Method factory = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return (ExecutorService) factory.invoke( null );
+        } catch ( ReflectiveOperationException e ) {
+            return Executors.newFixedThreadPool( fallbackPoolSize, daemonThreads( "purchase" ) );
+        }
+
+    }
+
+
+    public static ExecutorService virtualThreadsOrFixedPool() {
+        return virtualThreadsOrFixedPool( Runtime.getRuntime().availableProcessors() * 8 );
+    }
+
+
+    public static ThreadFactory daemonThreads( String prefix ) {
+
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread( runnable, prefix + "-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        };
+
+    }
+
+
+}
@@ -0,0 +1,81 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Told about every purchase that goes through a PurchasePipeline, whichever service it came in by, on the
+ * thread that settled it.
+ *
+ * Exactly one method is called per purchase. Implementations must be thread safe, fast and must not throw:
+ * anything slow belongs on another thread. Arguments are primitives or already exist, so notifying allocates nothing.
+ * A tally is a TicketTally, or TicketTally.OVER_LIMIT.
+ */
+
+
+public interface PurchaseListener {
+
+
+    PurchaseListener NONE = new PurchaseListener() {
+
+        @Override
+        public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+        }
+
+        @Override
+        public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+        }
+
+        @Override
+        public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+        }
+
+    };
+
+
+    // Paid for and seats reserved, at the prices in pricingTable, the snapshot the purchase was priced against.
+    void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos );
+
+    // Failed validation, no third-party call was made.
+    void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos );
+
+    // A third-party call threw. For RESERVATION the payment has already been taken, for VALIDATION the purchase
+    // was valid but could not be handed on to be paid for.
+    void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure );
+
+
+    /**
+     * One listener that tells each of listeners in turn, e.g. PurchaseMetrics and a PurchaseEventPublisher.
+     */
+    static PurchaseListener all( PurchaseListener... listeners ) {
+
+        PurchaseListener[] copy = listeners.clone();
+        for ( PurchaseListener listener: copy ) if ( listener == null ) throw new NullPointerException();
+
+        if ( copy.length == 0 ) return NONE;
+        if ( copy.length == 1 ) return copy[0];
+
+        return new PurchaseListener() {
+
+            @Override
+            public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+                for ( PurchaseListener listener: copy ) listener.onAccepted( accountId, tally, pricingTable, totalCost, totalSeats, validationNanos, paymentNanos, reservationNanos );
+            }
+
+            @Override
+            public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+                for ( PurchaseListener listener: copy ) listener.onRejected( accountId, tally, reason, validationNanos );
+            }
+
+            @Override
+            public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+                for ( PurchaseListener listener: copy ) listener.onFailed( accountId, tally, stage, failure );
+            }
+
+        };
+
+    }
+
+
+}
@@ -0,0 +1,343 @@
+package uk.gov.dwp.uc.pairtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionLog;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * The steps every way in to a purchase shares: validate and price against one PricingTable snapshot, journal the
+ * intent, take the payment, reserve the seats, and tell the PurchaseListener how it went.
+ *
+ * TicketServiceImpl and BinaryPurchaseService run the steps back to back on the caller's thread with purchase().
+ * The asynchronous services price() on the caller's thread and pay() and reserve() later, on threads of their own.
+ * Either way a purchase goes through the same steps, so metrics, the journal and events see every purchase
+ * whichever service it came in by. Build one pipeline and hand it to each of them.
+ *
+ * Only the intent and the third-party calls can fail a purchase. Once a gateway has taken the payment or the seats,
+ * a journal that cannot record it is logged at SEVERE and the purchase carries on: the customer has been served, and
+ * the record is left at its last step, just as a crash at that point would leave it.
+ */
+
+
+public final class PurchasePipeline {
+
+
+    private static final Logger LOGGER = Logger.getLogger( PurchasePipeline.class.getName() );
+
+
+    private final SeatReservationService seatReservationService;
+    private final TicketPaymentService ticketPaymentService;
+
+    // Immutable price snapshots, every legal basket priced up front. See PricingTable.
+    private final PricingSource pricingSource;
+
+    private final PurchaseListener purchaseListener;
+
+    // Records each purchase's progress so one cut short by a crash can be finished. See JournalRecovery.
+    private final PurchaseJournal purchaseJournal;
+
+    // System.nanoTime() is not free, only read the clock when someone is listening.
+    private final boolean timed;
+
+
+    public PurchasePipeline( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService, PricingSource pricingSource ) {
+        this( seatReservationService, ticketPaymentService, pricingSource, PurchaseListener.NONE, PurchaseJournal.NONE );
+    }
+
+
+    public PurchasePipeline( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                             PricingSource pricingSource, PurchaseListener purchaseListener, PurchaseJournal purchaseJournal ) {
+
+        if ( seatReservationService == null || ticketPaymentService == null || pricingSource == null
+                || purchaseListener == null || purchaseJournal == null ) throw new NullPointerException();
+
+        this.seatReservationService = seatReservationService;
+        this.ticketPaymentService = ticketPaymentService;
+        this.pricingSource = pricingSource;
+        this.purchaseListener = purchaseListener;
+        this.purchaseJournal = purchaseJournal;
+        this.timed = purchaseListener != PurchaseListener.NONE;
+
+    }
+
+
+    public PricingSource getPricingSource() {
+        return pricingSource;
+    }
+
+
+    /**
+     * Validates, pays and reserves. A rejection is logged and thrown, a third-party failure is thrown as it was.
+     */
+    public void purchase( long accountId, TicketTypeRequest[] ticketTypeRequests ) throws InvalidPurchaseException {
+
+        long start = now();
+
+        // One pass over the requests, then a single table lookup for validity, cost and seats.
+        int tally = TicketTally.of( ticketTypeRequests );
+        PricingTable pricingTable = pricingSource.current();
+
+        RejectionReason reason = validate( accountId, tally, pricingTable, start );
+        if ( reason != null ) throw RejectionLog.shared().reject( reason, accountId, ticketTypeRequests );
+
+        payAndReserve( accountId, tally, pricingTable, now() - start );
+
+    }
+
+
+    /**
+     * As purchase(), for a tally decoded straight off the wire. A rejection is returned rather than thrown or
+     * logged, so neither outcome allocates. Returns null once paid for and reserved.
+     */
+    public RejectionReason purchase( long accountId, int tally ) {
+
+        long start = now();
+        PricingTable pricingTable = pricingSource.current();
+
+        RejectionReason reason = validate( accountId, tally, pricingTable, start );
+        if ( reason != null ) return reason;
+
+        payAndReserve( accountId, tally, pricingTable, now() - start );
+        return null;
+
+    }
+
+
+    /**
+     * Validates and prices, for paying and reserving later. A rejection is logged and thrown.
+     */
+    public PricedPurchase price( long accountId, TicketTypeRequest[] ticketTypeRequests ) throws InvalidPurchaseException {
+
+        long start = now();
+
+        int tally = TicketTally.of( ticketTypeRequests );
+        PricingTable pricingTable = pricingSource.current();
+
+        RejectionReason reason = validate( accountId, tally, pricingTable, start );
+        if ( reason != null ) throw RejectionLog.shared().reject( reason, accountId, ticketTypeRequests );
+
+        return new PricedPurchase( accountId, tally, pricingTable, null, now() - start );
+
+    }
+
+
+    /**
+     * Validates and prices against a snapshot the caller holds, so a batch can share one. A rejection is neither
+     * logged nor thrown, it is returned as the purchase's rejection reason.
+     */
+    public PricedPurchase price( long accountId, int tally, PricingTable pricingTable ) {
+
+        long start = now();
+
+        RejectionReason reason = validate( accountId, tally, pricingTable, start );
+
+        return new PricedPurchase( accountId, tally, pricingTable, reason, now() - start );
+
+    }
+
+
+    /**
+     * Journals the intent, unless already done, and takes the payment. A payment that throws is left to the
+     * caller, to retry or to fail().
+     */
+    public void pay( PricedPurchase purchase ) {
+
+        if ( purchase.getRejectionReason() != null ) throw new IllegalStateException( "Purchase was rejected: " + purchase.getRejectionReason() );
+
+        purchase.stage = PurchaseStage.PAYMENT;
+        if ( purchase.purchaseId < 0 ) {
+            purchase.purchaseId = purchaseJournal.intent( purchase.getAccountId(), purchase.getTally(), purchase.getTotalCost(), purchase.getTotalSeats() );
+        }
+
+        purchase.paymentStarted = now();
+        paymentWith3rdParty( purchase.getAccountId(), purchase.getTotalCost() );
+        journalPaid( purchase.purchaseId );
+        purchase.paid = now();
+
+    }
+
+
+    /**
+     * Reserves the seats of a purchase pay() has paid for, journals it complete and tells the listener. A
+     * reservation that throws is left to the caller, to retry or to fail().
+     */
+    public void reserve( PricedPurchase purchase ) {
+
+        reserveSeats( purchase );
+        accept( purchase );
+
+    }
+
+
+    /**
+     * reserve() without completing the purchase, for a caller that may stop waiting on the seat reservation
+     * service. Follow it with accept() once it returns, or fail() if the purchase is given up on.
+     */
+    public void reserveSeats( PricedPurchase purchase ) {
+
+        if ( purchase.stage == PurchaseStage.VALIDATION ) throw new IllegalStateException( "Purchase has not been paid for" );
+
+        purchase.stage = PurchaseStage.RESERVATION;
+        purchase.reservationStarted = now();
+        reserveSeatsWith3rdParty( purchase.getAccountId(), purchase.getTotalSeats() );
+        purchase.reserved = now();
+
+    }
+
+
+    /**
+     * Journals a purchase reserveSeats() has reserved as complete and tells the listener.
+     */
+    public void accept( PricedPurchase purchase ) {
+
+        if ( purchase.stage != PurchaseStage.RESERVATION ) throw new IllegalStateException( "Purchase has not been reserved" );
+
+        journalReserved( purchase.purchaseId );
+
+        purchaseListener.onAccepted( purchase.getAccountId(), purchase.getTally(), purchase.getPricingTable(), purchase.getTotalCost(), purchase.getTotalSeats(),
+                purchase.validationNanos, purchase.paid - purchase.paymentStarted, purchase.reserved - purchase.reservationStarted );
+
+    }
+
+
+    /**
+     * pay() then reserve(), failing the purchase if either throws. Returns what was charged and reserved.
+     */
+    public PurchaseResult settle( PricedPurchase purchase ) {
+
+        try {
+            pay( purchase );
+            reserve( purchase );
+        } catch ( RuntimeException e ) {
+            fail( purchase, e );
+            throw e;
+        }
+
+        return purchase.toResult();
+
+    }
+
+
+    /**
+     * Gives up on a purchase at the step it reached: journals it failed and tells the listener.
+     */
+    public void fail( PricedPurchase purchase, RuntimeException failure ) {
+
+        if ( purchase.purchaseId >= 0 ) failInJournal( purchase.purchaseId, failure );
+        purchaseListener.onFailed( purchase.getAccountId(), purchase.getTally(), purchase.getStage(), failure );
+
+    }
+
+
+    // Tells the listener about a rejection. Nothing else, logging and throwing is up to the caller.
+    private RejectionReason validate( long accountId, int tally, PricingTable pricingTable, long start ) {
+
+        RejectionReason reason = pricingTable.rejectionReason( accountId, tally );
+        if ( reason != null ) purchaseListener.onRejected( accountId, tally, reason, now() - start );
+
+        return reason;
+
+    }
+
+
+    // settle(), with no PricedPurchase to allocate.
+    private void payAndReserve( long accountId, int tally, PricingTable pricingTable, long validationNanos ) {
+
+        int totalCost = pricingTable.totalCost( tally );
+        int totalSeats = pricingTable.totalSeats( tally );
+
+        PurchaseStage stage = PurchaseStage.PAYMENT;
+        long purchaseId = -1L;
+        long paying;
+        long paid;
+        long reserved;
+
+        try {
+
+            purchaseId = purchaseJournal.intent( accountId, tally, totalCost, totalSeats );
+
+            paying = now();
+            paymentWith3rdParty( accountId, totalCost );
+            journalPaid( purchaseId );
+            paid = now();
+
+            stage = PurchaseStage.RESERVATION;
+            reserveSeatsWith3rdParty( accountId, totalSeats );
+            journalReserved( purchaseId );
+            reserved = now();
+
+        } catch ( RuntimeException e ) {
+            if ( purchaseId >= 0 ) failInJournal( purchaseId, e );
+            purchaseListener.onFailed( accountId, tally, stage, e );
+            throw e;
+        }
+
+        purchaseListener.onAccepted( accountId, tally, pricingTable, totalCost, totalSeats, validationNanos, paid - paying, reserved - paid );
+
+    }
+
+
+    // The payment has been taken, so a journal failure must not fail the purchase. Recovery will see it unpaid.
+    private void journalPaid( long purchaseId ) {
+
+        try {
+            purchaseJournal.paid( purchaseId );
+        } catch ( RuntimeException e ) {
+            LOGGER.log( Level.SEVERE, "Could not journal purchase " + purchaseId + " as paid, it will need reconciliation", e );
+        }
+
+    }
+
+
+    // The sale is complete, so a journal failure must not fail it. Recovery will see it as it last recorded it.
+    private void journalReserved( long purchaseId ) {
+
+        try {
+            purchaseJournal.reserved( purchaseId );
+        } catch ( RuntimeException e ) {
+            LOGGER.log( Level.SEVERE, "Could not journal purchase " + purchaseId + " as reserved, it will need reconciliation", e );
+        }
+
+    }
+
+
+    private void failInJournal( long purchaseId, RuntimeException failure ) {
+
+        try {
+            purchaseJournal.failed( purchaseId );
+        } catch ( RuntimeException e ) {
+            failure.addSuppressed( e );
+        }
+
+    }
+
+
+    private long now() {
+        return timed ? System.nanoTime() : 0L;
+    }
+
+
+    private void paymentWith3rdParty( long accountId, int totalCost ) {
+        ticketPaymentService.makePayment( accountId, totalCost );
+    }
+
+
+    private void reserveSeatsWith3rdParty( long accountId, int totalSeats ) {
+        // reserveSeat() takes the total of seats to reserve not just a single seat!
+        seatReservationService.reserveSeat( accountId, totalSeats );
+    }
+
+
+}
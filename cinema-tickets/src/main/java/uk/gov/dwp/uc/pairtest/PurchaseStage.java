@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest;
+
+
+/**
+ * The steps of a purchase, in order.
+ */
+
+
+public enum PurchaseStage {
+
+    VALIDATION,
+    PAYMENT,
+    RESERVATION
+
+}
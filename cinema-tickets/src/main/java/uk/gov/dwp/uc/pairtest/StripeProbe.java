@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * The per-thread probe striped counters pick their stripe by, as LongAdder does.
+ *
+ * Thread ids are handed out in sequence, so a pool's ids crowd onto a few stripes, and a virtual thread's id says
+ * nothing about the carrier it runs on. A random probe spreads threads out whatever they are. One probe is shared
+ * by every striped structure, so a thread keeps to the stripe it has settled on wherever it is counting.
+ */
+
+
+public final class StripeProbe {
+
+
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial( () -> new int[] { ThreadLocalRandom.current().nextInt() | 1 } );
+
+
+    private StripeProbe() {
+    }
+
+
+    // Never zero. Mask it for a stripe.
+    public static int get() {
+        return PROBE.get()[0];
+    }
+
+
+    /**
+     * Moves this thread to another stripe, for when a failed compare-and-set shows another thread is on its own.
+     */
+    public static void advance() {
+
+        int[] probe = PROBE.get();
+
+        // Xorshift, never zero for a non-zero probe.
+        int p = probe[0];
+        p ^= p << 13;
+        p ^= p >>> 17;
+        p ^= p << 5;
+        probe[0] = p;
+
+    }
+
+
+}
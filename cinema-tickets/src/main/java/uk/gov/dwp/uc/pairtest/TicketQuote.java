@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.EnumSet;
+
+
+/**
+ * What a purchase would cost and why it would be refused, filled in by TicketQuoteService.
+ *
+ * Mutable and reusable on purpose: a caller quoting at a high rate keeps one per thread and passes it back in,
+ * so quoting allocates nothing. Not thread-safe, do not share one between threads.
+ */
+
+
+public final class TicketQuote {
+
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+
+    private long accountId;
+    private int totalCost;
+    private int totalSeats;
+    private RejectionReason reason;
+    private int reasonMask;
+
+
+    void set( long accountId, int totalCost, int totalSeats, RejectionReason reason, int reasonMask ) {
+
+        this.accountId = accountId;
+        this.totalCost = totalCost;
+        this.totalSeats = totalSeats;
+        this.reason = reason;
+        this.reasonMask = reasonMask;
+
+    }
+
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    // 0 for a basket that would be rejected.
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    // 0 for a basket that would be rejected.
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public boolean isValid() {
+        return reasonMask == 0;
+    }
+
+    /**
+     * The reason purchaseTickets would throw with, the first rule broken. null if valid.
+     */
+    public RejectionReason getReason() {
+        return reason;
+    }
+
+    /**
+     * Every reason the purchase breaks, bit reason.ordinal() set for each.
+     */
+    public int getReasonMask() {
+        return reasonMask;
+    }
+
+    public boolean hasReason( RejectionReason reason ) {
+        return ( reasonMask & 1 << reason.ordinal() ) != 0;
+    }
+
+    // Allocates, for display. Hot callers should use hasReason or getReasonMask.
+    public EnumSet<RejectionReason> getReasons() {
+
+        EnumSet<RejectionReason> reasons = EnumSet.noneOf( RejectionReason.class );
+        for ( RejectionReason r: REASONS ) if ( hasReason( r ) ) reasons.add( r );
+
+        return reasons;
+
+    }
+
+    @Override
+    public String toString() {
+        return "TicketQuote{accountId=" + accountId + ", totalCost=" + totalCost + ", totalSeats=" + totalSeats + ", reasons=" + getReasons() + "}";
+    }
+
+
+}
@@ -0,0 +1,129 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Prices and validates a purchase without making it: no payment, no reservation, no listener or rejection log.
+ *
+ * Reads the same PricingTable as TicketServiceImpl, so a quote's cost, seats and first reason are exactly
+ * what purchaseTickets would charge or throw, and it also reports every other rule the basket breaks.
+ * A legal basket is two array reads. Only a basket over the ticket limit, which a tally cannot hold, counts
+ * its tickets again and checks the rules one by one.
+ *
+ * Thread-safe. The quote( ..., TicketQuote ) forms allocate nothing.
+ */
+
+
+public final class TicketQuoteService {
+
+
+    // Counts saturate here when a basket is far over the limit, small enough that no rule's arithmetic overflows.
+    private static final int MAX_COUNT = Integer.MAX_VALUE / 64;
+
+
+    private final PricingSource pricingSource;
+
+
+    public TicketQuoteService() {
+        this( PricingTable.standardPrices() );
+    }
+
+
+    public TicketQuoteService( PricingSource pricingSource ) {
+
+        if ( pricingSource == null ) throw new NullPointerException();
+
+        this.pricingSource = pricingSource;
+
+    }
+
+
+    public TicketQuote quote( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+        return quote( accountId, ticketTypeRequests, new TicketQuote() );
+    }
+
+
+    /**
+     * Fills in and returns quote. Null requests throw a NullPointerException, as they would on purchase.
+     */
+    public TicketQuote quote( long accountId, TicketTypeRequest[] ticketTypeRequests, TicketQuote quote ) {
+
+        int tally = TicketTally.of( ticketTypeRequests );
+        if ( tally != TicketTally.OVER_LIMIT ) return quote( accountId, tally, pricingSource.current(), quote );
+
+        long adults = 0, children = 0, infants = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+            switch ( t.getTicketType() ) {
+                case ADULT: adults += t.getNoOfTickets(); break;
+                case CHILD: children += t.getNoOfTickets(); break;
+                default: infants += t.getNoOfTickets();
+            }
+        }
+
+        return overLimit( accountId, saturate( adults ), saturate( children ), saturate( infants ), pricingSource.current(), quote );
+
+    }
+
+
+    /**
+     * Same as quote( accountId, requests, quote ) for plain counts, for callers with no request objects.
+     */
+    public TicketQuote quote( long accountId, int adults, int children, int infants, TicketQuote quote ) {
+
+        if ( adults < 0 || children < 0 || infants < 0 ) throw new IllegalArgumentException( "Ticket counts cannot be negative" );
+
+        PricingTable pricingTable = pricingSource.current();
+
+        if ( (long) adults + children + infants > TicketTally.MAX_TICKETS ) {
+            return overLimit( accountId, Math.min( adults, MAX_COUNT ), Math.min( children, MAX_COUNT ), Math.min( infants, MAX_COUNT ), pricingTable, quote );
+        }
+
+        return quote( accountId, TicketTally.of( adults, children, infants ), pricingTable, quote );
+
+    }
+
+
+    private static TicketQuote quote( long accountId, int tally, PricingTable pricingTable, TicketQuote quote ) {
+
+        RejectionReason reason = pricingTable.rejectionReason( accountId, tally );
+
+        if ( reason != null ) {
+            quote.set( accountId, 0, 0, reason, pricingTable.rejectionMask( accountId, tally ) );
+        } else {
+            quote.set( accountId, pricingTable.totalCost( tally ), pricingTable.totalSeats( tally ), null, 0 );
+        }
+
+        return quote;
+
+    }
+
+
+    private static TicketQuote overLimit( long accountId, int adults, int children, int infants, PricingTable pricingTable, TicketQuote quote ) {
+
+        int mask = pricingTable.getRuleSet().rejectionMask( adults, children, infants );
+        RejectionReason reason = RejectionReason.OVER_LIMIT;
+
+        if ( accountId <= 0 ) {
+            mask |= 1 << RejectionReason.BAD_ACCOUNT.ordinal();
+            reason = RejectionReason.BAD_ACCOUNT;
+        }
+
+        quote.set( accountId, 0, 0, reason, mask );
+
+        return quote;
+
+    }
+
+
+    private static int saturate( long count ) {
+        return (int) Math.min( count, MAX_COUNT );
+    }
+
+
+}
@@ -3,7 +3,10 @@ package uk.gov.dwp.uc.pairtest;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
 
 
 /**
@@ -15,163 +18,65 @@ import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 public class TicketServiceImpl implements TicketService {
 
 
-    private int adultTicketCost = 20;
-    private int childTicketCost = 10;
-    private int infantTicketCost = 0;
-
-    private SeatReservationService seatReservationService;
-    private TicketPaymentService ticketPaymentService;
+    // Validation, pricing, journal, third-party calls and listener, shared with the asynchronous services.
+    private final PurchasePipeline purchasePipeline;
 
 
     public TicketServiceImpl ( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService ) {
-
-        this.seatReservationService = seatReservationService;
-        this.ticketPaymentService = ticketPaymentService;
-
+        this( seatReservationService, ticketPaymentService, PricingTable.standardPrices() );
     }
 
 
-    public int getAdultTicketCost() {
-        return adultTicketCost;
-    }
-
-    public int getChildTicketCost() {
-        return childTicketCost;
-    }
-
-    public int getInfantTicketCost() {
-        return infantTicketCost;
-    }
-
-
-    /**
-     * Should only have private methods other than the one below.
-     */
-
-
-    @Override
-    public void purchaseTickets( Long accountId, TicketTypeRequest[] ticketTypeRequests ) throws InvalidPurchaseException {
-
-        if ( !validRequest( accountId, ticketTypeRequests ) ) throw new InvalidPurchaseException( accountId, ticketTypeRequests );
-
-        int totalCost = calculateTotalTicketCost( ticketTypeRequests );
-        int totalSeats = calculateTotalSeatsToReserve( ticketTypeRequests );
-
-        paymentWith3rdParty( accountId, totalCost);
-        reserveSeatsWith3rdParty( accountId, totalSeats );
-
+    public TicketServiceImpl ( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService, PricingSource pricingSource ) {
+        this( seatReservationService, ticketPaymentService, pricingSource, PurchaseListener.NONE );
     }
 
 
-    private boolean validRequest( Long accountID, TicketTypeRequest[] ticketTypeRequests ) {
-
-        // Java uses short-circuit evaluation. Will return false upon the first false conditional.
-
-        return accountID > 0 &&
-                validTicketTypeRequest(ticketTypeRequests) &&
-                validTicketTotal(ticketTypeRequests) &&
-                validTicketTypes(ticketTypeRequests);
-
+    public TicketServiceImpl ( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                               PricingSource pricingSource, PurchaseListener purchaseListener ) {
+        this( seatReservationService, ticketPaymentService, pricingSource, purchaseListener, PurchaseJournal.NONE );
     }
 
 
-    private boolean validTicketTypeRequest( TicketTypeRequest[] ticketTypeRequests ) throws NullPointerException {
-
-        if ( ticketTypeRequests == null ) throw new NullPointerException();
-
-        if ( ticketTypeRequests.length > 0 && ticketTypeRequests.length <= 20 ) return true;
-        else return false;
-
+    public TicketServiceImpl ( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                               PricingSource pricingSource, PurchaseListener purchaseListener, PurchaseJournal purchaseJournal ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource, purchaseListener, purchaseJournal ) );
     }
 
 
-    private boolean validTicketTotal( TicketTypeRequest[] ticketTypeRequests ) {
+    public TicketServiceImpl ( PurchasePipeline purchasePipeline ) {
 
-        int totalTickets = 0;
+        if ( purchasePipeline == null ) throw new NullPointerException();
 
-        for (TicketTypeRequest t: ticketTypeRequests) {
-            totalTickets += t.getNoOfTickets();
-            if (totalTickets > 20) return false;
-        }
-
-        if ( totalTickets > 0 && totalTickets <= 20 ) return true;
-        else return false;
+        this.purchasePipeline = purchasePipeline;
 
     }
 
 
-    private boolean validTicketTypes( TicketTypeRequest[] ticketTypeRequests ) {
-
-        int totalAdults = 0;
-        int totalInfants = 0;
-
-        for (TicketTypeRequest t: ticketTypeRequests) {
-            if (t.getTicketType() == TicketTypeRequest.Type.ADULT) totalAdults += t.getNoOfTickets();
-            else if (t.getTicketType() == TicketTypeRequest.Type.INFANT ) totalInfants += t.getNoOfTickets();
-        }
-
-        return ( totalAdults > 0 && totalInfants <= totalAdults );
-
-        // An adult ticket must be purchased to purchase a Child or Infant ticket (Business Requirement).
-        // Assumes 1 infant per lap. Infants cannot exceed Adults laps to sit on. Infants are not reserved a seat and sit on laps (Business Objective).
-
+    public int getAdultTicketCost() {
+        return purchasePipeline.getPricingSource().current().getEvaluator().getAdultTicketCost();
     }
 
-
-    private int calculateTotalTicketCost( TicketTypeRequest[] ticketTypeRequests ) {
-
-        int totalCost = 0;
-
-        for ( TicketTypeRequest t: ticketTypeRequests ) {
-
-            if ( t.getTicketType() == TicketTypeRequest.Type.ADULT ) totalCost += ( this.adultTicketCost * t.getNoOfTickets() );
-
-            else if ( t.getTicketType() == TicketTypeRequest.Type.CHILD ) totalCost += ( this.childTicketCost * t.getNoOfTickets() );
-
-            // Infant tickets are free.
-
-        }
-
-        return totalCost;
-
+    public int getChildTicketCost() {
+        return purchasePipeline.getPricingSource().current().getEvaluator().getChildTicketCost();
     }
 
-
-    private int calculateTotalSeatsToReserve( TicketTypeRequest[] ticketTypeRequests ) {
-
-        int totalSeats = 0;
-
-        for ( TicketTypeRequest t: ticketTypeRequests ) {
-
-            if ( t.getTicketType() == TicketTypeRequest.Type.ADULT || t.getTicketType() == TicketTypeRequest.Type.CHILD ) {
-
-                totalSeats += t.getNoOfTickets();
-
-                // Infant tickets are not allocated a seat.
-
-            }
-
-        }
-
-        return totalSeats;
-
+    public int getInfantTicketCost() {
+        return purchasePipeline.getPricingSource().current().getEvaluator().getInfantTicketCost();
     }
 
 
-    private void paymentWith3rdParty(Long accountId, int totalCost ) {
-        ticketPaymentService.makePayment( accountId, totalCost );
-    }
+    /**
+     * Should only have private methods other than the one below.
+     */
 
 
-    private void reserveSeatsWith3rdParty( Long accountId, int totalSeats ) {
-        // reserveSeat() takes the total of seats to reserve not just a single seat!
-        seatReservationService.reserveSeat( accountId, totalSeats );
+    @Override
+    public void purchaseTickets( Long accountId, TicketTypeRequest[] ticketTypeRequests ) throws InvalidPurchaseException {
+        purchasePipeline.purchase( accountId, ticketTypeRequests );
     }
 
 
 
 
 }
-
-
-
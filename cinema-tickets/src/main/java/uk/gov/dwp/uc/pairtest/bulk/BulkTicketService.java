@@ -0,0 +1,142 @@
+package uk.gov.dwp.uc.pairtest.bulk;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricedPurchase;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+/**
+ * Purchases many accounts' baskets in one call, for group bookings and school trips.
+ *
+ * Every basket is validated and priced in parallel on the fork-join pool against one price snapshot. Accepted
+ * baskets are then paid for and reserved concurrently on the gateway executor, which should suit blocking calls
+ * ( virtual threads, or a pool sized for I/O ), not the CPU-sized fork-join pool.
+ *
+ * Validation and settlement both go through the PurchasePipeline, so its listener and journal see every basket.
+ *
+ * Nothing is thrown for an individual basket: the result has one PurchaseOutcome per request, in order. A null
+ * request is FAILED with a NullPointerException under account 0, the rest of the list is still purchased.
+ */
+
+
+public class BulkTicketService {
+
+
+    // Below this many baskets splitting the work costs more than it saves.
+    private static final int PARALLEL_THRESHOLD = 64;
+
+
+    private final PurchasePipeline purchasePipeline;
+    private final ForkJoinPool validationPool;
+    private final Executor gatewayExecutor;
+
+
+    public BulkTicketService( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                              PricingSource pricingSource, ForkJoinPool validationPool, Executor gatewayExecutor ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ), validationPool, gatewayExecutor );
+    }
+
+
+    public BulkTicketService( PurchasePipeline purchasePipeline, ForkJoinPool validationPool, Executor gatewayExecutor ) {
+
+        if ( purchasePipeline == null || validationPool == null || gatewayExecutor == null ) throw new NullPointerException();
+
+        this.purchasePipeline = purchasePipeline;
+        this.validationPool = validationPool;
+        this.gatewayExecutor = gatewayExecutor;
+
+    }
+
+
+    public PurchaseOutcome[] purchaseAll( List<PurchaseRequest> purchaseRequests ) {
+
+        // Copied once: get(i) on a LinkedList would make the loops below quadratic.
+        PurchaseRequest[] requests = purchaseRequests.toArray( new PurchaseRequest[0] );
+
+        int n = requests.length;
+        PurchaseOutcome[] outcomes = new PurchaseOutcome[n];
+        PricedPurchase[] priced = new PricedPurchase[n];
+        PricingTable pricingTable = purchasePipeline.getPricingSource().current();
+
+        IntStream indices = IntStream.range( 0, n );
+        IntConsumer evaluate = i -> priced[i] = evaluate( pricingTable, requests[i], outcomes, i );
+
+        if ( n < PARALLEL_THRESHOLD ) indices.forEach( evaluate );
+        else validationPool.submit( () -> indices.parallel().forEach( evaluate ) ).join();
+
+        CompletableFuture<?>[] dispatched = new CompletableFuture<?>[n];
+        int accepted = 0;
+
+        for ( int i = 0; i < n; i++ ) {
+            PricedPurchase purchase = priced[i];
+            if ( purchase == null ) continue;
+            int index = i;
+            try {
+                dispatched[ accepted ] = CompletableFuture.runAsync( () -> outcomes[index] = settle( purchase ), gatewayExecutor );
+                accepted++;
+            } catch ( RejectedExecutionException e ) {
+                purchasePipeline.fail( purchase, e );
+                outcomes[i] = PurchaseOutcome.failed( purchase.getAccountId(), e );
+            }
+        }
+
+        for ( int i = 0; i < accepted; i++ ) dispatched[i].join();
+
+        return outcomes;
+
+    }
+
+
+    // Returns the purchase to settle, or null having set its outcome if there is nothing to settle.
+    private PricedPurchase evaluate( PricingTable pricingTable, PurchaseRequest request, PurchaseOutcome[] outcomes, int index ) {
+
+        if ( request == null ) {
+            outcomes[ index ] = PurchaseOutcome.failed( 0L, new NullPointerException( "Purchase request is null" ) );
+            return null;
+        }
+
+        long accountId = request.getAccountId();
+
+        try {
+
+            PricedPurchase purchase = purchasePipeline.price( accountId, TicketTally.of( request.getTicketTypeRequests() ), pricingTable );
+            if ( purchase.getRejectionReason() == null ) return purchase;
+
+            outcomes[ index ] = PurchaseOutcome.rejected( accountId, purchase.getRejectionReason() );
+
+        } catch ( RuntimeException e ) {
+            outcomes[ index ] = PurchaseOutcome.failed( accountId, e );
+        }
+
+        return null;
+
+    }
+
+
+    private PurchaseOutcome settle( PricedPurchase purchase ) {
+
+        try {
+            purchasePipeline.settle( purchase );
+            return PurchaseOutcome.accepted( purchase.getAccountId(), purchase.getTotalCost(), purchase.getTotalSeats() );
+        } catch ( RuntimeException e ) {
+            return PurchaseOutcome.failed( purchase.getAccountId(), e );
+        }
+
+    }
+
+
+}
@@ -0,0 +1,211 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Collects validated purchases into batches and drains each batch to the payment gateway and then the seat booking
+ * service from a small set of dispatcher threads.
+ *
+ * A batch is closed when it holds maxBatchSize purchases or when maxDelay has passed since its first purchase.
+ * Within a batch all payments are made first, then seats are reserved for every purchase whose payment succeeded.
+ * Each caller's future completes with its own outcome, so one failed payment does not fail the rest of the batch.
+ * Every step goes through the PurchasePipeline, so its listener and journal see batched purchases too.
+ *
+ * Cancelling or completing the future a caller was given withdraws its purchase, provided no dispatcher thread has
+ * taken it yet: it is failed and never charged. A purchase already taken is paid for and reserved regardless.
+ *
+ * The queue is bounded. When it is full, submit waits up to enqueueTimeout and then fails the purchase with a
+ * RejectedExecutionException, pushing back on callers instead of growing without limit.
+ */
+
+
+public class BatchingPurchaseDispatcher implements AsyncTicketService, AutoCloseable {
+
+
+    private final PurchasePipeline purchasePipeline;
+
+    private final BlockingQueue<QueuedPurchase> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutNanos;
+
+    private final Thread[] dispatchers;
+    private volatile boolean closed;
+
+
+    public BatchingPurchaseDispatcher( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                                       PricingSource pricingSource, int queueCapacity, int maxBatchSize,
+                                       long maxDelay, long enqueueTimeout, TimeUnit unit, int dispatcherThreads ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ), queueCapacity, maxBatchSize,
+                maxDelay, enqueueTimeout, unit, dispatcherThreads );
+    }
+
+
+    public BatchingPurchaseDispatcher( PurchasePipeline purchasePipeline, int queueCapacity, int maxBatchSize,
+                                       long maxDelay, long enqueueTimeout, TimeUnit unit, int dispatcherThreads ) {
+
+        if ( purchasePipeline == null || unit == null ) throw new NullPointerException();
+        if ( queueCapacity < 1 || maxBatchSize < 1 || dispatcherThreads < 1 ) throw new IllegalArgumentException( "Capacity, batch size and dispatcher threads must be greater than 0" );
+        if ( maxDelay < 0 || enqueueTimeout < 0 ) throw new IllegalArgumentException( "Delays cannot be negative" );
+
+        this.purchasePipeline = purchasePipeline;
+
+        this.queue = new ArrayBlockingQueue<>( queueCapacity );
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos( maxDelay );
+        this.enqueueTimeoutNanos = unit.toNanos( enqueueTimeout );
+
+        ThreadFactory threadFactory = PurchaseExecutors.daemonThreads( "purchase-dispatcher" );
+
+        this.dispatchers = new Thread[ dispatcherThreads ];
+        for ( int i = 0; i < dispatcherThreads; i++ ) {
+            dispatchers[i] = threadFactory.newThread( this::dispatchLoop );
+            dispatchers[i].start();
+        }
+
+    }
+
+
+    // Batches of up to 64 purchases, closed after at most 1ms, one dispatcher thread.
+    public BatchingPurchaseDispatcher( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService ) {
+        this( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), 4096, 64,
+                1, 10, TimeUnit.MILLISECONDS, 1 );
+    }
+
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+
+        QueuedPurchase purchase;
+
+        try {
+            purchase = new QueuedPurchase( purchasePipeline, purchasePipeline.price( accountId, ticketTypeRequests ) );
+        } catch ( RuntimeException e ) {
+            // Rejections and null requests.
+            return CompletableFuture.failedFuture( e );
+        }
+
+        try {
+
+            if ( closed || !queue.offer( purchase, enqueueTimeoutNanos, TimeUnit.NANOSECONDS ) ) {
+                purchase.failUnclaimed( new RejectedExecutionException( closed ? "Dispatcher is closed" : "Dispatch queue is full" ) );
+            }
+
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            purchase.failUnclaimed( new RejectedExecutionException( "Interrupted waiting for room in the dispatch queue", e ) );
+        }
+
+        // close() may have drained the queue between the check and the offer. Whoever claims the purchase decides.
+        if ( closed ) purchase.failUnclaimed( new RejectedExecutionException( "Dispatcher is closed" ) );
+
+        return purchase.forCaller();
+
+    }
+
+
+    public int getQueuedPurchases() {
+        return queue.size();
+    }
+
+
+    /**
+     * Stops the dispatcher threads. Purchases still queued are failed, a batch already being drained is finished.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+
+        for ( Thread dispatcher: dispatchers ) dispatcher.interrupt();
+
+        failQueued();
+
+    }
+
+
+    private void dispatchLoop() {
+
+        List<QueuedPurchase> batch = new ArrayList<>( maxBatchSize );
+
+        while ( !closed ) {
+
+            try {
+                collectBatch( batch );
+            } catch ( InterruptedException e ) {
+                // close() was called. Anything collected so far still gets dispatched.
+            }
+
+            drain( batch );
+            batch.clear();
+
+        }
+
+        failQueued();
+
+    }
+
+
+    private void collectBatch( List<QueuedPurchase> batch ) throws InterruptedException {
+
+        batch.add( queue.take() );
+
+        long deadline = System.nanoTime() + maxDelayNanos;
+
+        while ( batch.size() < maxBatchSize ) {
+
+            // Take whatever is already waiting without blocking, then wait out the rest of the window.
+            if ( queue.drainTo( batch, maxBatchSize - batch.size() ) > 0 ) continue;
+
+            long remaining = deadline - System.nanoTime();
+            if ( remaining <= 0 ) return;
+
+            QueuedPurchase next = queue.poll( remaining, TimeUnit.NANOSECONDS );
+            if ( next == null ) return;
+            batch.add( next );
+
+        }
+
+    }
+
+
+    private void drain( List<QueuedPurchase> batch ) {
+
+        // Anything already claimed has been failed by close() or given up on by its caller, so must not be charged.
+        batch.removeIf( p -> !p.claim() );
+
+        // Only those whose payment went through are left to reserve.
+        batch.removeIf( p -> !p.pay() );
+
+        for ( QueuedPurchase p: batch ) p.reserve();
+
+    }
+
+
+    private void failQueued() {
+
+        QueuedPurchase p;
+        while ( ( p = queue.poll() ) != null ) p.failUnclaimed( new RejectedExecutionException( "Dispatcher is closed" ) );
+
+    }
+
+
+}
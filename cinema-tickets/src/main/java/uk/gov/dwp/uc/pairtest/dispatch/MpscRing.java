@@ -0,0 +1,150 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, in the style of the LMAX ring buffer.
+ *
+ * Slots are a preallocated power-of-two array, each with a sequence number saying whose turn it is: a producer
+ * claims the next slot with a compare-and-set on the tail, fills it, then publishes it by advancing its sequence.
+ * The consumer reads slots in order as their sequences show them published. Nothing is allocated per item, and
+ * producers only contend with each other on the tail, never with the consumer.
+ *
+ * offer fails rather than waits when the ring is full, what to do then is up to the caller. See OverflowPolicy.
+ * poll must only ever be called from one thread at a time.
+ */
+
+
+public final class MpscRing<E> {
+
+
+    // Longs per 64 byte cache line. The tail, written by producers, and the head, by the consumer, get a line each.
+    private static final int PADDING = 8;
+    private static final int TAIL = PADDING - 1;
+    private static final int HEAD = 3 * PADDING - 1;
+
+    private static final int SPINS = 64;
+    private static final int YIELDS = 128;
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 100 );
+
+
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray counters = new AtomicLongArray( 4 * PADDING );
+
+
+    /**
+     * Capacity is rounded up to a power of two, and to at least 2: with one slot its free and published sequence
+     * numbers would be the same.
+     */
+    public MpscRing( int capacity ) {
+
+        if ( capacity < 1 || capacity > 1 << 30 ) throw new IllegalArgumentException( "Capacity must be between 1 and 2^30" );
+
+        int size = Math.max( 2, Integer.highestOneBit( capacity - 1 ) << 1 );
+
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>( size );
+        this.sequences = new AtomicLongArray( size );
+
+        // Slot i is free for the producer whose claim on the tail is i.
+        for ( int i = 0; i < size; i++ ) sequences.set( i, i );
+
+    }
+
+
+    /**
+     * Adds item and returns true, or returns false straight away if the ring is full.
+     */
+    public boolean offer( E item ) {
+
+        if ( item == null ) throw new NullPointerException();
+
+        while ( true ) {
+
+            long tail = counters.get( TAIL );
+            int slot = (int) tail & mask;
+            long sequence = sequences.get( slot );
+
+            if ( sequence == tail ) {
+                if ( counters.compareAndSet( TAIL, tail, tail + 1 ) ) {
+                    items.lazySet( slot, item );
+                    // Publishes the item: the consumer reads the sequence before the item.
+                    sequences.set( slot, tail + 1 );
+                    return true;
+                }
+            } else if ( sequence < tail ) {
+                // Still holds an item from a lap ago that the consumer has not taken.
+                return false;
+            }
+
+            // Another producer claimed this slot first, try the next.
+
+        }
+
+    }
+
+
+    /**
+     * The oldest item, or null if there is none. Single consumer only.
+     */
+    public E poll() {
+
+        long head = counters.get( HEAD );
+        int slot = (int) head & mask;
+
+        if ( sequences.get( slot ) != head + 1 ) return null;
+
+        E item = items.get( slot );
+        items.lazySet( slot, null );
+
+        // Frees the slot for the producer a lap ahead.
+        sequences.set( slot, head + mask + 1 );
+        counters.lazySet( HEAD, head + 1 );
+
+        return item;
+
+    }
+
+
+    /**
+     * Approximate while producers or the consumer are active.
+     */
+    public int size() {
+
+        long size = counters.get( TAIL ) - counters.get( HEAD );
+
+        return (int) Math.max( 0, Math.min( size, capacity() ) );
+
+    }
+
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+
+    /**
+     * One step of waiting for a ring, by a producer for room or a consumer for items: spins first, then yields,
+     * then parks for longer each time up to 100us. attempt counts from 0 and starts again once the wait is over.
+     */
+    public static void idle( int attempt ) {
+
+        if ( attempt < SPINS ) Thread.onSpinWait();
+        else if ( attempt < YIELDS ) Thread.yield();
+        else LockSupport.parkNanos( Math.min( MAX_PARK_NANOS, 1000L << Math.min( 20, attempt - YIELDS ) ) );
+
+    }
+
+
+}
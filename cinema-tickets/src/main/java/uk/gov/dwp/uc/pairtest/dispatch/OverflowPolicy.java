@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+
+/**
+ * What a producer does when the bounded queue it is handing work to is full.
+ */
+
+
+public enum OverflowPolicy {
+
+    // Give up on the item at once: a purchase fails with a RejectedExecutionException, an event is dropped and counted.
+    REJECT,
+
+    // Wait for room, backing off from spinning to parking. Pushes back on callers rather than losing anything.
+    BLOCK
+
+}
@@ -0,0 +1,113 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import uk.gov.dwp.uc.pairtest.PricedPurchase;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+
+/**
+ * A priced purchase waiting on a dispatcher or shard thread. Claimed exactly once: by that thread to pay for it, by
+ * close() to fail it, or by its caller giving up on it. Only the claimant pays for it or fails it.
+ *
+ * The caller gets a copy of the result, never the result itself. Cancelling or completing the copy claims the
+ * purchase if nobody has yet, so one given up on is never charged. Once the thread running it has it, it is paid
+ * for and reserved whatever happens to the copy.
+ */
+
+
+final class QueuedPurchase {
+
+
+    private static final AtomicIntegerFieldUpdater<QueuedPurchase> CLAIMED = AtomicIntegerFieldUpdater.newUpdater( QueuedPurchase.class, "claimed" );
+
+
+    final PricedPurchase purchase;
+
+    private final PurchasePipeline purchasePipeline;
+    private final CompletableFuture<PurchaseResult> result = new CompletableFuture<>();
+    private final CompletableFuture<PurchaseResult> forCaller;
+
+    private volatile int claimed;
+
+
+    QueuedPurchase( PurchasePipeline purchasePipeline, PricedPurchase purchase ) {
+
+        this.purchasePipeline = purchasePipeline;
+        this.purchase = purchase;
+
+        this.forCaller = result.copy();
+        forCaller.whenComplete( ( r, e ) -> {
+            if ( !result.isDone() ) failUnclaimed( new CancellationException( "Given up on before it was dispatched" ) );
+        } );
+
+    }
+
+
+    CompletableFuture<PurchaseResult> forCaller() {
+        return forCaller;
+    }
+
+
+    boolean claim() {
+        return CLAIMED.compareAndSet( this, 0, 1 );
+    }
+
+
+    // Fails it, unless it has already been claimed.
+    void failUnclaimed( RuntimeException failure ) {
+        if ( claim() ) fail( failure );
+    }
+
+
+    /**
+     * Pays for a claimed purchase. Returns false, having failed it, if the payment threw.
+     */
+    boolean pay() {
+
+        try {
+            purchasePipeline.pay( purchase );
+            return true;
+        } catch ( RuntimeException e ) {
+            fail( e );
+            return false;
+        }
+
+    }
+
+
+    /**
+     * Reserves the seats for a claimed purchase that pay() has paid for, and completes it either way.
+     */
+    void reserve() {
+
+        try {
+            purchasePipeline.reserve( purchase );
+        } catch ( RuntimeException e ) {
+            fail( e );
+            return;
+        }
+
+        result.complete( purchase.toResult() );
+
+    }
+
+
+    // pay() then reserve(), for a purchase claimed on its own rather than in a batch.
+    void settle() {
+        if ( pay() ) reserve();
+    }
+
+
+    private void fail( RuntimeException failure ) {
+
+        purchasePipeline.fail( purchase, failure );
+        result.completeExceptionally( failure );
+
+    }
+
+
+}
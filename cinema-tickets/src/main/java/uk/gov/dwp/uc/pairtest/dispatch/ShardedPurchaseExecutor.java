@@ -0,0 +1,248 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.PricedPurchase;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Runs each purchase on the shard its account hashes to, one thread per shard, so purchases for the same account
+ * never interleave their payment and reservation while different accounts run in parallel, all without a lock.
+ *
+ * Validation happens on the caller's thread, as in AsyncTicketServiceImpl, so rejected purchases never queue.
+ * Valid ones go into the shard's MpscRing. The shard thread runs them in the order they were queued, payment
+ * then reservation, spinning briefly and then parking when its ring is empty.
+ *
+ * When a ring is full the OverflowPolicy decides: REJECT fails the purchase with a RejectedExecutionException,
+ * BLOCK waits for room. Futures complete on the shard thread, keep anything chained onto them short.
+ *
+ * Callers get a copy of the queued purchase's future, see QueuedPurchase. Cancelling it before the shard thread
+ * reaches the purchase means it is never charged. Purchases go through the PurchasePipeline, so its listener and
+ * journal see every one.
+ */
+
+
+public class ShardedPurchaseExecutor implements AsyncTicketService, AutoCloseable {
+
+
+    private final PurchasePipeline purchasePipeline;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Shard[] shards;
+    private final LongAdder overflowed = new LongAdder();
+    private volatile boolean closed;
+
+
+    public ShardedPurchaseExecutor( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                                    PricingSource pricingSource, int shardCount, int queueDepth, OverflowPolicy overflowPolicy ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ), shardCount, queueDepth, overflowPolicy );
+    }
+
+
+    public ShardedPurchaseExecutor( PurchasePipeline purchasePipeline, int shardCount, int queueDepth, OverflowPolicy overflowPolicy ) {
+
+        if ( purchasePipeline == null || overflowPolicy == null ) throw new NullPointerException();
+        if ( shardCount < 1 || queueDepth < 1 ) throw new IllegalArgumentException( "Shard count and queue depth must be greater than 0" );
+
+        this.purchasePipeline = purchasePipeline;
+        this.overflowPolicy = overflowPolicy;
+
+        ThreadFactory threadFactory = PurchaseExecutors.daemonThreads( "purchase-shard" );
+
+        this.shards = new Shard[ shardCount ];
+        for ( int i = 0; i < shardCount; i++ ) shards[i] = new Shard( queueDepth );
+        for ( Shard shard: shards ) {
+            shard.thread = threadFactory.newThread( shard::run );
+            shard.thread.start();
+        }
+
+    }
+
+
+    // A shard per core, 1024 purchases deep, callers wait when a shard is full.
+    public ShardedPurchaseExecutor( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService ) {
+        this( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                Runtime.getRuntime().availableProcessors(), 1024, OverflowPolicy.BLOCK );
+    }
+
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+
+        PricedPurchase purchase;
+
+        try {
+            purchase = purchasePipeline.price( accountId, ticketTypeRequests );
+        } catch ( RuntimeException e ) {
+            // Rejected, or null requests.
+            return CompletableFuture.failedFuture( e );
+        }
+
+        QueuedPurchase queued = new QueuedPurchase( purchasePipeline, purchase );
+        Shard shard = shards[ shardFor( accountId ) ];
+
+        if ( closed || !enqueue( shard, queued ) ) {
+            if ( !closed ) overflowed.increment();
+            queued.failUnclaimed( new RejectedExecutionException( closed ? "Executor is closed" : "Shard queue is full" ) );
+            return queued.forCaller();
+        }
+
+        shard.wake();
+
+        // close() may have stopped the shard between the check and the offer. Whoever claims the purchase decides.
+        if ( closed ) queued.failUnclaimed( new RejectedExecutionException( "Executor is closed" ) );
+
+        return queued.forCaller();
+
+    }
+
+
+    /**
+     * The shard an account's purchases run on. Account ids are often sequential, so they are mixed first.
+     */
+    public int shardFor( long accountId ) {
+
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+
+        return (int) ( ( h & Long.MAX_VALUE ) % shards.length );
+
+    }
+
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+
+    public int getQueuedPurchases() {
+
+        int queued = 0;
+        for ( Shard shard: shards ) queued += shard.ring.size();
+
+        return queued;
+
+    }
+
+
+    // Purchases refused under OverflowPolicy.REJECT because their shard was full.
+    public long getOverflowCount() {
+        return overflowed.sum();
+    }
+
+
+    /**
+     * Stops accepting purchases and waits for the shard threads to stop. A purchase already running finishes,
+     * those still queued are failed with a RejectedExecutionException.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+
+        for ( Shard shard: shards ) LockSupport.unpark( shard.thread );
+
+        boolean interrupted = false;
+        for ( Shard shard: shards ) {
+            while ( true ) {
+                try {
+                    shard.thread.join();
+                    break;
+                } catch ( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if ( interrupted ) Thread.currentThread().interrupt();
+
+    }
+
+
+    private boolean enqueue( Shard shard, QueuedPurchase queued ) {
+
+        int attempt = 0;
+
+        while ( !shard.ring.offer( queued ) ) {
+            if ( overflowPolicy == OverflowPolicy.REJECT || closed ) return false;
+            MpscRing.idle( attempt++ );
+        }
+
+        return true;
+
+    }
+
+
+    // Unless its caller has given up on it already.
+    private static void execute( QueuedPurchase queued ) {
+        if ( queued.claim() ) queued.settle();
+    }
+
+
+    /**
+     * A single-threaded lane with its own ring. Only its thread polls the ring.
+     */
+    private final class Shard {
+
+        final MpscRing<QueuedPurchase> ring;
+        Thread thread;
+
+        // Set while the thread is parked or about to be, so producers know to unpark it.
+        volatile boolean waiting;
+
+        Shard( int queueDepth ) {
+            this.ring = new MpscRing<>( queueDepth );
+        }
+
+        void run() {
+
+            int attempt = 0;
+
+            while ( !closed ) {
+
+                QueuedPurchase queued = ring.poll();
+
+                if ( queued != null ) {
+                    execute( queued );
+                    attempt = 0;
+                    continue;
+                }
+
+                // Spin and yield for a while first, purchases tend to arrive in bursts.
+                if ( attempt < 128 ) {
+                    MpscRing.idle( attempt++ );
+                    continue;
+                }
+
+                waiting = true;
+                if ( ring.isEmpty() && !closed ) LockSupport.park( this );
+                waiting = false;
+
+            }
+
+            QueuedPurchase queued;
+            while ( ( queued = ring.poll() ) != null ) queued.failUnclaimed( new RejectedExecutionException( "Executor is closed" ) );
+
+        }
+
+        void wake() {
+            if ( waiting ) LockSupport.unpark( thread );
+        }
+
+    }
+
+
+}
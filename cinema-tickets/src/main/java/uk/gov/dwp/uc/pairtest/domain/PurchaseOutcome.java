@@ -0,0 +1,87 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * What happened to one purchase when the caller asked not to be thrown at.
+ *
+ * Immutable Object.
+ *     ACCEPTED  paid for and seats reserved, cost and seats are set
+ *     REJECTED  failed validation, reason is set, nothing was charged
+ *     FAILED    a third-party call threw, failure is set
+ */
+
+
+public final class PurchaseOutcome {
+
+    public enum Status {
+        ACCEPTED, REJECTED, FAILED
+    }
+
+    private final long accountId;
+    private final Status status;
+    private final int totalCost;
+    private final int totalSeats;
+    private final RejectionReason reason;
+    private final Throwable failure;
+
+    private PurchaseOutcome( long accountId, Status status, int totalCost, int totalSeats, RejectionReason reason, Throwable failure ) {
+
+        this.accountId = accountId;
+        this.status = status;
+        this.totalCost = totalCost;
+        this.totalSeats = totalSeats;
+        this.reason = reason;
+        this.failure = failure;
+
+    }
+
+    public static PurchaseOutcome accepted( long accountId, int totalCost, int totalSeats ) {
+        return new PurchaseOutcome( accountId, Status.ACCEPTED, totalCost, totalSeats, null, null );
+    }
+
+    public static PurchaseOutcome rejected( long accountId, RejectionReason reason ) {
+        return new PurchaseOutcome( accountId, Status.REJECTED, 0, 0, reason, null );
+    }
+
+    public static PurchaseOutcome failed( long accountId, Throwable failure ) {
+        return new PurchaseOutcome( accountId, Status.FAILED, 0, 0, null, failure );
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isAccepted() {
+        return status == Status.ACCEPTED;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseOutcome{accountId=" + accountId + ", status=" + status + ", totalCost=" + totalCost +
+                ", totalSeats=" + totalSeats + ", reason=" + reason + ", failure=" + failure + "}";
+    }
+
+
+}
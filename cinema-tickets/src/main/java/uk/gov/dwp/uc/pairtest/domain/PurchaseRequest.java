@@ -0,0 +1,34 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+
+/**
+ * One account's basket, as submitted to a bulk purchase.
+ *
+ * Immutable Object. The request array is not copied, callers must not change it after submitting.
+ */
+
+
+public final class PurchaseRequest {
+
+    private final long accountId;
+    private final TicketTypeRequest[] ticketTypeRequests;
+
+    public PurchaseRequest( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+
+        if ( ticketTypeRequests == null ) throw new NullPointerException( "TicketTypeRequests cannot be null" );
+
+        this.accountId = accountId;
+        this.ticketTypeRequests = ticketTypeRequests;
+
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public TicketTypeRequest[] getTicketTypeRequests() {
+        return ticketTypeRequests;
+    }
+
+
+}
@@ -0,0 +1,43 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+
+/**
+ * Outcome of a completed purchase: what was charged and how many seats were reserved.
+ *
+ * Immutable Object
+ */
+
+
+public final class PurchaseResult {
+
+    private final long accountId;
+    private final int totalCost;
+    private final int totalSeats;
+
+    public PurchaseResult( long accountId, int totalCost, int totalSeats ) {
+
+        this.accountId = accountId;
+        this.totalCost = totalCost;
+        this.totalSeats = totalSeats;
+
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseResult{accountId=" + accountId + ", totalCost=" + totalCost + ", totalSeats=" + totalSeats + "}";
+    }
+
+
+}
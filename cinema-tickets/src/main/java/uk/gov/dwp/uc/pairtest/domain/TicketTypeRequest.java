@@ -13,6 +13,12 @@ package uk.gov.dwp.uc.pairtest.domain;
 
 public final class TicketTypeRequest {
 
+    public static final int MAX_TICKETS_PER_REQUEST = 20;
+
+    // Packed form: ( type.ordinal() << COUNT_BITS ) | noOfTickets
+    private static final int COUNT_BITS = 5;
+    private static final int COUNT_MASK = ( 1 << COUNT_BITS ) - 1;
+
     private final int noOfTickets;
     private final Type type;
 
@@ -20,16 +26,67 @@ public final class TicketTypeRequest {
         ADULT, CHILD , INFANT
     }
 
+    private static final Type[] TYPES = Type.values();
+
+    // Every legal request, 3 types x 20 counts, indexed by packed form. Built once, shared by of().
+    private static final TicketTypeRequest[] FLYWEIGHTS = new TicketTypeRequest[ TYPES.length << COUNT_BITS ];
+
+    static {
+        for ( Type t: TYPES ) {
+            for ( int n = 1; n <= MAX_TICKETS_PER_REQUEST; n++ ) FLYWEIGHTS[ pack( t, n ) ] = new TicketTypeRequest( t, n );
+        }
+    }
+
     public TicketTypeRequest( Type type, int noOfTickets ) {
 
         if ( type == null ) throw new NullPointerException("Type cannot be null");
-        if ( noOfTickets < 1 || noOfTickets > 20 ) throw new IllegalArgumentException("Number of tickets must be greater than 0 and <= 20");
+        if ( noOfTickets < 1 || noOfTickets > MAX_TICKETS_PER_REQUEST ) throw new IllegalArgumentException("Number of tickets must be greater than 0 and <= 20");
 
         this.type = type;
         this.noOfTickets = noOfTickets;
 
     }
 
+    /**
+     * The shared instance for this type and count. Same validation as the constructor, no allocation.
+     */
+    public static TicketTypeRequest of( Type type, int noOfTickets ) {
+
+        if ( type == null ) throw new NullPointerException("Type cannot be null");
+        if ( noOfTickets < 1 || noOfTickets > MAX_TICKETS_PER_REQUEST ) throw new IllegalArgumentException("Number of tickets must be greater than 0 and <= 20");
+
+        return FLYWEIGHTS[ pack( type, noOfTickets ) ];
+
+    }
+
+    public static TicketTypeRequest fromPacked( int packed ) {
+        return of( packedType( packed ), packedCount( packed ) );
+    }
+
+    /**
+     * Type and count in a single int, for callers that want no objects at all. Not validated.
+     */
+    public static int pack( Type type, int noOfTickets ) {
+        return ( type.ordinal() << COUNT_BITS ) | noOfTickets;
+    }
+
+    public static boolean isPacked( int packed ) {
+        int n = packedCount( packed );
+        return packed >= 0 && ( packed >>> COUNT_BITS ) < TYPES.length && n >= 1 && n <= MAX_TICKETS_PER_REQUEST;
+    }
+
+    public static Type packedType( int packed ) {
+        return TYPES[ packed >>> COUNT_BITS ];
+    }
+
+    public static int packedCount( int packed ) {
+        return packed & COUNT_MASK;
+    }
+
+    public int packed() {
+        return pack( type, noOfTickets );
+    }
+
     public int getNoOfTickets() {
         return noOfTickets;
     }
@@ -38,6 +95,24 @@ public final class TicketTypeRequest {
         return type;
     }
 
+    @Override
+    public boolean equals( Object o ) {
+        if ( this == o ) return true;
+        if ( !( o instanceof TicketTypeRequest ) ) return false;
+        TicketTypeRequest other = (TicketTypeRequest) o;
+        return type == other.type && noOfTickets == other.noOfTickets;
+    }
+
+    @Override
+    public int hashCode() {
+        return packed();
+    }
+
+    @Override
+    public String toString() {
+        return "TicketTypeRequest{type=" + type + ", noOfTickets=" + noOfTickets + "}";
+    }
+
 
 }
 
@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+
+/**
+ * Supplies the prices in force right now.
+ *
+ * Callers should read current() once per purchase and use that table throughout, so a price change
+ * part way through a purchase cannot mix old and new prices.
+ */
+
+
+@FunctionalInterface
+public interface PricingSource {
+
+    PricingTable current();
+
+}
@@ -0,0 +1,177 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Every legal basket evaluated once, up front.
+ *
+ * A TicketTally is already an index in [0, TicketTally.SIZE), so the table holds one int per possible tally:
+ * ( cost << 5 ) | seats for a valid basket, or -( reason.ordinal() + 1 ) for a rejected one.
+ * Evaluating a purchase is then an account check and a single array read.
+ * A second array holds every reason each basket breaks, for quotes. See rejectionMask.
+ *
+ * Validity comes from a RuleSet and prices from a PurchaseEvaluator, so a venue's rules cost nothing extra
+ * per purchase however many there are. Tables are immutable: a price or rule change means building a new one.
+ * A table is also a PricingSource that never changes.
+ */
+
+
+public final class PricingTable implements PurchaseRules, PricingSource {
+
+
+    private static final int SEAT_BITS = 5;
+    private static final int SEAT_MASK = ( 1 << SEAT_BITS ) - 1;
+    private static final int MAX_COST = Integer.MAX_VALUE >> SEAT_BITS;
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+
+    private static final PricingTable STANDARD_PRICES = build( PurchaseEvaluator.standardPrices() );
+
+
+    private final int[] entries;
+    private final short[] reasonMasks;
+    private final PurchaseEvaluator evaluator;
+    private final RuleSet ruleSet;
+    private final long buildNanos;
+
+
+    private PricingTable( int[] entries, short[] reasonMasks, PurchaseEvaluator evaluator, RuleSet ruleSet, long buildNanos ) {
+
+        this.entries = entries;
+        this.reasonMasks = reasonMasks;
+        this.evaluator = evaluator;
+        this.ruleSet = ruleSet;
+        this.buildNanos = buildNanos;
+
+    }
+
+
+    public static PricingTable build( PurchaseEvaluator evaluator ) {
+        return build( evaluator, RuleSet.standard() );
+    }
+
+
+    public static PricingTable build( PurchaseEvaluator evaluator, RuleSet ruleSet ) {
+
+        if ( evaluator == null || ruleSet == null ) throw new NullPointerException();
+
+        long start = System.nanoTime();
+
+        int[] entries = new int[ TicketTally.SIZE ];
+        short[] reasonMasks = new short[ TicketTally.SIZE ];
+
+        for ( int tally = 0; tally < TicketTally.SIZE; tally++ ) {
+
+            int mask = ruleSet.rejectionMask( TicketTally.adults( tally ), TicketTally.children( tally ), TicketTally.infants( tally ) );
+            if ( ( mask & ~0xFFFF ) != 0 ) throw new IllegalArgumentException( "Too many rejection reasons to tabulate" );
+            reasonMasks[tally] = (short) mask;
+
+            // Tallies above the ticket limit are never produced by TicketTally, mark them rejected anyway.
+            if ( TicketTally.total( tally ) > TicketTally.MAX_TICKETS ) {
+                entries[tally] = rejected( RejectionReason.OVER_LIMIT );
+                continue;
+            }
+
+            // The account is checked separately on lookup.
+            RejectionReason reason = ruleSet.rejectionReason( tally );
+
+            if ( reason != null ) {
+                entries[tally] = rejected( reason );
+                continue;
+            }
+
+            int cost = ruleSet.discountedCost( tally, evaluator.totalCost( tally ) );
+            if ( cost > MAX_COST ) throw new IllegalArgumentException( "Ticket costs too high to tabulate: " + cost );
+
+            entries[tally] = ( cost << SEAT_BITS ) | evaluator.totalSeats( tally );
+
+        }
+
+        return new PricingTable( entries, reasonMasks, evaluator, ruleSet, System.nanoTime() - start );
+
+    }
+
+
+    public static PricingTable standardPrices() {
+        return STANDARD_PRICES;
+    }
+
+
+    @Override
+    public RejectionReason rejectionReason( long accountId, int tally ) {
+
+        if ( accountId <= 0 ) return RejectionReason.BAD_ACCOUNT;
+        if ( tally == TicketTally.OVER_LIMIT ) return RejectionReason.OVER_LIMIT;
+
+        int entry = entries[tally];
+
+        return entry < 0 ? REASONS[ -entry - 1 ] : null;
+
+    }
+
+
+    /**
+     * Every reason the purchase would be rejected for, not just the first: bit reason.ordinal() is set for each.
+     * 0 if it is valid. Over the ticket limit only OVER_LIMIT can be reported, the counts are not known.
+     */
+    public int rejectionMask( long accountId, int tally ) {
+
+        int mask = accountId <= 0 ? 1 << RejectionReason.BAD_ACCOUNT.ordinal() : 0;
+
+        return tally == TicketTally.OVER_LIMIT ? mask | 1 << RejectionReason.OVER_LIMIT.ordinal() : mask | ( reasonMasks[tally] & 0xFFFF );
+
+    }
+
+
+    @Override
+    public int totalCost( int tally ) {
+        return entries[tally] >> SEAT_BITS;
+    }
+
+
+    @Override
+    public int totalSeats( int tally ) {
+        return entries[tally] & SEAT_MASK;
+    }
+
+
+    @Override
+    public PricingTable current() {
+        return this;
+    }
+
+
+    public PurchaseEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+
+    // The two arrays: a 16 byte header each, plus an int and a short per tally.
+    public long getFootprintBytes() {
+        return 32L + 6L * entries.length;
+    }
+
+
+    @Override
+    public String toString() {
+        return "PricingTable{entries=" + entries.length + ", footprintBytes=" + getFootprintBytes() + ", buildMicros=" + buildNanos / 1000 + ", " + ruleSet + "}";
+    }
+
+
+    private static int rejected( RejectionReason reason ) {
+        return -( reason.ordinal() + 1 );
+    }
+
+
+}
@@ -0,0 +1,95 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Derives validity, cost and seats from a TicketTally.
+ *
+ * Instances are immutable and allocation free, so a single evaluator can be shared by any number of threads
+ * and entry points.
+ */
+
+
+public final class PurchaseEvaluator implements PurchaseRules {
+
+
+    // Prices from the business rules: ADULT GBP 20, CHILD GBP 10, INFANT GBP 0.
+    private static final PurchaseEvaluator STANDARD_PRICES = new PurchaseEvaluator( 20, 10, 0 );
+
+
+    private final int adultTicketCost;
+    private final int childTicketCost;
+    private final int infantTicketCost;
+
+
+    public PurchaseEvaluator( int adultTicketCost, int childTicketCost, int infantTicketCost ) {
+
+        if ( adultTicketCost < 0 || childTicketCost < 0 || infantTicketCost < 0 ) throw new IllegalArgumentException( "Ticket costs cannot be negative" );
+
+        this.adultTicketCost = adultTicketCost;
+        this.childTicketCost = childTicketCost;
+        this.infantTicketCost = infantTicketCost;
+
+    }
+
+
+    public static PurchaseEvaluator standardPrices() {
+        return STANDARD_PRICES;
+    }
+
+
+    public int getAdultTicketCost() {
+        return adultTicketCost;
+    }
+
+    public int getChildTicketCost() {
+        return childTicketCost;
+    }
+
+    public int getInfantTicketCost() {
+        return infantTicketCost;
+    }
+
+
+    @Override
+    public RejectionReason rejectionReason( long accountId, int tally ) {
+
+        if ( accountId <= 0 ) return RejectionReason.BAD_ACCOUNT;
+        if ( tally == TicketTally.OVER_LIMIT ) return RejectionReason.OVER_LIMIT;
+        if ( tally == TicketTally.EMPTY ) return RejectionReason.NO_TICKETS;
+
+        // An adult ticket must be purchased to purchase a Child or Infant ticket (Business Requirement).
+        // Infants sit on an adult's lap, so infants cannot exceed adults.
+
+        int adults = TicketTally.adults( tally );
+
+        if ( adults == 0 ) return RejectionReason.NO_ADULT;
+        if ( TicketTally.infants( tally ) > adults ) return RejectionReason.TOO_MANY_INFANTS;
+
+        return null;
+
+    }
+
+
+    @Override
+    public int totalCost( int tally ) {
+
+        return adultTicketCost * TicketTally.adults( tally ) +
+                childTicketCost * TicketTally.children( tally ) +
+                infantTicketCost * TicketTally.infants( tally );
+
+    }
+
+
+    @Override
+    public int totalSeats( int tally ) {
+
+        // Infant tickets are not allocated a seat.
+
+        return TicketTally.adults( tally ) + TicketTally.children( tally );
+
+    }
+
+
+}
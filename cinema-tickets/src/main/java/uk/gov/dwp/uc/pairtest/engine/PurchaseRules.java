@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Validity, cost and seats of a purchase, given its account and TicketTally.
+ *
+ * Cost and seats are only meaningful for a tally that passed validation.
+ */
+
+
+public interface PurchaseRules {
+
+    /**
+     * The first rule the purchase breaks, or null if it is valid.
+     */
+    RejectionReason rejectionReason( long accountId, int tally );
+
+    int totalCost( int tally );
+
+    int totalSeats( int tally );
+
+    default boolean isValid( long accountId, int tally ) {
+        return rejectionReason( accountId, tally ) == null;
+    }
+
+}
@@ -0,0 +1,22 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * One purchase rule over per-type ticket counts, see RuleSet. Called while a PricingTable is being built, never
+ * per purchase, so rules can be as simple to read as they like. The one exception is a quote for a basket over
+ * the ticket limit, whose counts are too large for the table: TicketQuoteService runs every rule on it to report
+ * all its reasons. A rule must therefore accept any non-negative counts and must not allocate.
+ */
+
+
+@FunctionalInterface
+public interface Rule {
+
+    /**
+     * Why a basket with these counts breaks the rule, or null if it does not.
+     */
+    RejectionReason check( int adults, int children, int infants );
+
+}
@@ -0,0 +1,222 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * A venue's purchase rules, declared in config and compiled into a PricingTable.
+ *
+ * Every key is optional and defaults to the standard rules:
+ *
+ *     rules.maxTickets=20                  OVER_LIMIT above this many tickets in total ( at most 20 )
+ *     rules.maxAdults=20                   OVER_LIMIT above this many of one type
+ *     rules.maxChildren=20
+ *     rules.maxInfants=20
+ *     rules.minTickets=1                   NO_TICKETS below this many tickets
+ *     rules.adultRequired=true             NO_ADULT without an adult, false for child-only matinees
+ *     rules.infantsPerAdult=1              TOO_MANY_INFANTS above this many infants per adult
+ *     rules.groupDiscount.minTickets=0     from this many tickets, 0 for no discount ...
+ *     rules.groupDiscount.percent=0        ... take this percentage off, rounded in the customer's favour
+ *
+ * A basket is rejected for the first rule it breaks, in the order above, then any rules added with and().
+ *
+ * The rules are evaluated while a PricingTable is built, once per possible basket. Purchases read the answer
+ * from the table, so however many rules a venue has, checking one costs the same single array read. Only a
+ * quote for a basket over the limit, which has no entry in the table, runs the rules itself, see rejectionMask.
+ */
+
+
+public final class RuleSet {
+
+
+    public static final String PREFIX = "rules.";
+
+    private static final RuleSet STANDARD = fromProperties( new Properties() );
+
+
+    private final List<Rule> rules;
+    private final List<String> names;
+    private final int groupMinTickets;
+    private final int groupDiscountPercent;
+
+
+    private RuleSet( List<Rule> rules, List<String> names, int groupMinTickets, int groupDiscountPercent ) {
+
+        this.rules = Collections.unmodifiableList( rules );
+        this.names = Collections.unmodifiableList( names );
+        this.groupMinTickets = groupMinTickets;
+        this.groupDiscountPercent = groupDiscountPercent;
+
+    }
+
+
+    // The business rules: at most 20 tickets, an adult with every booking and an adult lap per infant.
+    public static RuleSet standard() {
+        return STANDARD;
+    }
+
+
+    /**
+     * Reads the rules.* keys, ignoring any others. Throws IllegalArgumentException for a value that is not
+     * a number or boolean, or is out of range.
+     */
+    public static RuleSet fromProperties( Properties properties ) {
+
+        int maxTickets = integer( properties, "maxTickets", TicketTally.MAX_TICKETS, 1, TicketTally.MAX_TICKETS );
+        int maxAdults = integer( properties, "maxAdults", TicketTally.MAX_TICKETS, 0, TicketTally.MAX_TICKETS );
+        int maxChildren = integer( properties, "maxChildren", TicketTally.MAX_TICKETS, 0, TicketTally.MAX_TICKETS );
+        int maxInfants = integer( properties, "maxInfants", TicketTally.MAX_TICKETS, 0, TicketTally.MAX_TICKETS );
+        int minTickets = integer( properties, "minTickets", 1, 1, TicketTally.MAX_TICKETS );
+        boolean adultRequired = bool( properties, "adultRequired", true );
+        int infantsPerAdult = integer( properties, "infantsPerAdult", 1, 0, TicketTally.MAX_TICKETS );
+        int groupMinTickets = integer( properties, "groupDiscount.minTickets", 0, 0, TicketTally.MAX_TICKETS );
+        int groupDiscountPercent = integer( properties, "groupDiscount.percent", 0, 0, 100 );
+
+        List<Rule> rules = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        if ( maxTickets < TicketTally.MAX_TICKETS ) {
+            rules.add( ( a, c, i ) -> a + c + i > maxTickets ? RejectionReason.OVER_LIMIT : null );
+            names.add( "maxTickets=" + maxTickets );
+        }
+
+        if ( maxAdults < TicketTally.MAX_TICKETS || maxChildren < TicketTally.MAX_TICKETS || maxInfants < TicketTally.MAX_TICKETS ) {
+            rules.add( ( a, c, i ) -> a > maxAdults || c > maxChildren || i > maxInfants ? RejectionReason.OVER_LIMIT : null );
+            names.add( "maxPerType=" + maxAdults + "/" + maxChildren + "/" + maxInfants );
+        }
+
+        rules.add( ( a, c, i ) -> a + c + i < minTickets ? RejectionReason.NO_TICKETS : null );
+        names.add( "minTickets=" + minTickets );
+
+        if ( adultRequired ) {
+            rules.add( ( a, c, i ) -> a == 0 ? RejectionReason.NO_ADULT : null );
+            names.add( "adultRequired" );
+        }
+
+        rules.add( ( a, c, i ) -> i > a * infantsPerAdult ? RejectionReason.TOO_MANY_INFANTS : null );
+        names.add( "infantsPerAdult=" + infantsPerAdult );
+
+        return new RuleSet( rules, names, groupDiscountPercent == 0 ? 0 : groupMinTickets, groupDiscountPercent );
+
+    }
+
+
+    /**
+     * These rules followed by one more, checked after all the others.
+     */
+    public RuleSet and( String name, Rule rule ) {
+
+        if ( name == null || rule == null ) throw new NullPointerException();
+
+        List<Rule> moreRules = new ArrayList<>( rules );
+        List<String> moreNames = new ArrayList<>( names );
+        moreRules.add( rule );
+        moreNames.add( name );
+
+        return new RuleSet( moreRules, moreNames, groupMinTickets, groupDiscountPercent );
+
+    }
+
+
+    /**
+     * Checks each rule in turn. Slow by design, PricingTable calls it once per tally and purchases use the table.
+     */
+    public RejectionReason rejectionReason( int tally ) {
+
+        if ( tally == TicketTally.OVER_LIMIT || TicketTally.total( tally ) > TicketTally.MAX_TICKETS ) return RejectionReason.OVER_LIMIT;
+
+        int adults = TicketTally.adults( tally );
+        int children = TicketTally.children( tally );
+        int infants = TicketTally.infants( tally );
+
+        for ( Rule rule: rules ) {
+            RejectionReason reason = rule.check( adults, children, infants );
+            if ( reason != null ) return reason;
+        }
+
+        return null;
+
+    }
+
+
+    /**
+     * Every reason the counts break a rule for, as a bit per RejectionReason ordinal. Unlike rejectionReason
+     * the counts may add up to more than 20, which sets the OVER_LIMIT bit and still checks every rule.
+     */
+    public int rejectionMask( int adults, int children, int infants ) {
+
+        int mask = adults + children + infants > TicketTally.MAX_TICKETS ? 1 << RejectionReason.OVER_LIMIT.ordinal() : 0;
+
+        // Indexed rather than an iterator, quotes of baskets over the limit come through here and should not allocate.
+        for ( int r = 0; r < rules.size(); r++ ) {
+            RejectionReason reason = rules.get( r ).check( adults, children, infants );
+            if ( reason != null ) mask |= 1 << reason.ordinal();
+        }
+
+        return mask;
+
+    }
+
+
+    /**
+     * The cost of a valid basket after any group discount.
+     */
+    public int discountedCost( int tally, int cost ) {
+
+        if ( groupMinTickets == 0 || TicketTally.total( tally ) < groupMinTickets ) return cost;
+
+        return (int) ( cost - ( (long) cost * groupDiscountPercent + 99 ) / 100 );
+
+    }
+
+
+    public int size() {
+        return rules.size();
+    }
+
+
+    @Override
+    public String toString() {
+        return "RuleSet" + names + ( groupMinTickets == 0 ? "" : ", " + groupDiscountPercent + "% off from " + groupMinTickets + " tickets" );
+    }
+
+
+    private static int integer( Properties properties, String key, int defaultValue, int min, int max ) {
+
+        String value = properties.getProperty( PREFIX + key );
+        if ( value == null ) return defaultValue;
+
+        int n;
+        try {
+            n = Integer.parseInt( value.trim() );
+        } catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( PREFIX + key + " is not a whole number: " + value );
+        }
+
+        if ( n < min || n > max ) throw new IllegalArgumentException( PREFIX + key + " must be between " + min + " and " + max + ": " + n );
+
+        return n;
+
+    }
+
+
+    private static boolean bool( Properties properties, String key, boolean defaultValue ) {
+
+        String value = properties.getProperty( PREFIX + key );
+        if ( value == null ) return defaultValue;
+
+        switch ( value.trim().toLowerCase() ) {
+            case "true": return true;
+            case "false": return false;
+            default: throw new IllegalArgumentException( PREFIX + key + " is not true or false: " + value );
+        }
+
+    }
+
+
+}
@@ -0,0 +1,124 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+
+/**
+ * Per-type ticket counts packed into a single int.
+ *
+ * Counts are stored as base-21 digits ( adults * 441 + children * 21 + infants ), so every legal purchase
+ * maps to a value in [0, SIZE) and can be used directly as an array index.
+ * OVER_LIMIT marks a basket with more than MAX_TICKETS tickets in total.
+ */
+
+
+public final class TicketTally {
+
+
+    public static final int MAX_TICKETS = 20;
+
+    public static final int RADIX = MAX_TICKETS + 1;
+
+    public static final int SIZE = RADIX * RADIX * RADIX;
+
+    public static final int EMPTY = 0;
+
+    public static final int OVER_LIMIT = -1;
+
+
+    // Indexed by TicketTypeRequest.Type.ordinal(): ADULT, CHILD, INFANT.
+    private static final int[] WEIGHTS = { RADIX * RADIX, RADIX, 1 };
+
+
+    private TicketTally() {
+    }
+
+
+    /**
+     * Counts every request in a single pass.
+     * Returns OVER_LIMIT as soon as the running total passes MAX_TICKETS.
+     */
+    public static int of( TicketTypeRequest[] ticketTypeRequests ) throws NullPointerException {
+
+        if ( ticketTypeRequests == null ) throw new NullPointerException();
+        if ( ticketTypeRequests.length > MAX_TICKETS ) return OVER_LIMIT;
+
+        int tally = EMPTY;
+        int totalTickets = 0;
+
+        for ( TicketTypeRequest t: ticketTypeRequests ) {
+
+            int noOfTickets = t.getNoOfTickets();
+
+            totalTickets += noOfTickets;
+            if ( totalTickets > MAX_TICKETS ) return OVER_LIMIT;
+
+            tally += WEIGHTS[ t.getTicketType().ordinal() ] * noOfTickets;
+
+        }
+
+        return tally;
+
+    }
+
+
+    /**
+     * Same as of( TicketTypeRequest[] ) over requests in TicketTypeRequest's packed form, reading
+     * packedRequests[ 0, length ). Counts outside 1..20 or unknown types are rejected with an IllegalArgumentException.
+     */
+    public static int ofPacked( int[] packedRequests, int length ) {
+
+        if ( length < 0 || length > packedRequests.length ) throw new IndexOutOfBoundsException( "length " + length );
+        if ( length > MAX_TICKETS ) return OVER_LIMIT;
+
+        int tally = EMPTY;
+        int totalTickets = 0;
+
+        for ( int i = 0; i < length; i++ ) {
+
+            int packed = packedRequests[i];
+
+            if ( !TicketTypeRequest.isPacked( packed ) ) throw new IllegalArgumentException( "Not a packed TicketTypeRequest: " + packed );
+
+            int noOfTickets = TicketTypeRequest.packedCount( packed );
+
+            totalTickets += noOfTickets;
+            if ( totalTickets > MAX_TICKETS ) return OVER_LIMIT;
+
+            tally += WEIGHTS[ TicketTypeRequest.packedType( packed ).ordinal() ] * noOfTickets;
+
+        }
+
+        return tally;
+
+    }
+
+
+    public static int of( int adults, int children, int infants ) {
+
+        if ( adults < 0 || children < 0 || infants < 0 ) throw new IllegalArgumentException( "Counts cannot be negative" );
+        if ( adults + children + infants > MAX_TICKETS ) return OVER_LIMIT;
+
+        return adults * WEIGHTS[0] + children * WEIGHTS[1] + infants;
+
+    }
+
+
+    public static int adults( int tally ) {
+        return tally / ( RADIX * RADIX );
+    }
+
+    public static int children( int tally ) {
+        return ( tally / RADIX ) % RADIX;
+    }
+
+    public static int infants( int tally ) {
+        return tally % RADIX;
+    }
+
+    public static int total( int tally ) {
+        return adults( tally ) + children( tally ) + infants( tally );
+    }
+
+
+}
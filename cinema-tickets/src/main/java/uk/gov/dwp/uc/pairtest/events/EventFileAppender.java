@@ -0,0 +1,112 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A PurchaseEventSink that appends each event to a local file as a line of CSV, e.g.
+ *
+ *     sequence,timestamp,account,adults,children,infants,status,reason,failedStage,totalCost,totalSeats,validationNanos,paymentNanos,reservationNanos
+ *     0,1700000000000,42,2,1,0,ACCEPTED,,,50,3,812,20411,18030
+ *     1,1700000000001,7,0,2,0,REJECTED,NO_ADULT,,0,0,640,0,0
+ *
+ * The header is written when the file is new or empty. Lines are buffered and written out at the end of each
+ * batch the publisher drains, not forced to disk: this is a feed for dashboards, PurchaseJournal is the record.
+ */
+
+
+public class EventFileAppender implements PurchaseEventSink {
+
+
+    static final String HEADER = "sequence,timestamp,account,adults,children,infants,status,reason,failedStage,"
+            + "totalCost,totalSeats,validationNanos,paymentNanos,reservationNanos";
+
+
+    private final Path file;
+    private final BufferedWriter writer;
+
+    // Reused for every line, only the publisher's thread writes.
+    private final StringBuilder line = new StringBuilder( 128 );
+
+
+    public EventFileAppender( Path file ) throws IOException {
+
+        this.file = file;
+        this.writer = Files.newBufferedWriter( file, StandardCharsets.US_ASCII, StandardOpenOption.CREATE, StandardOpenOption.APPEND );
+
+        if ( Files.size( file ) == 0 ) {
+            writer.write( HEADER );
+            writer.newLine();
+        }
+
+    }
+
+
+    @Override
+    public void accept( PurchaseEvent event ) {
+
+        line.setLength( 0 );
+        line.append( event.getSequence() ).append( ',' )
+                .append( event.getTimestampMillis() ).append( ',' )
+                .append( event.getAccountId() ).append( ',' )
+                .append( event.getAdults() ).append( ',' )
+                .append( event.getChildren() ).append( ',' )
+                .append( event.getInfants() ).append( ',' )
+                .append( event.getStatus() ).append( ',' );
+        if ( event.getReason() != null ) line.append( event.getReason() );
+        line.append( ',' );
+        if ( event.getFailedStage() != null ) line.append( event.getFailedStage() );
+        line.append( ',' )
+                .append( event.getTotalCost() ).append( ',' )
+                .append( event.getTotalSeats() ).append( ',' )
+                .append( event.getValidationNanos() ).append( ',' )
+                .append( event.getPaymentNanos() ).append( ',' )
+                .append( event.getReservationNanos() );
+
+        try {
+            writer.append( line );
+            writer.newLine();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+    }
+
+
+    @Override
+    public void endOfBatch() {
+
+        try {
+            writer.flush();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+    }
+
+
+    @Override
+    public void close() {
+
+        try {
+            writer.close();
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+    }
+
+
+    @Override
+    public String toString() {
+        return "EventFileAppender{" + file + "}";
+    }
+
+
+}
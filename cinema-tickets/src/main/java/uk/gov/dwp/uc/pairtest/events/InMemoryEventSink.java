@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * A PurchaseEventSink that keeps the most recent events in memory and passes each one on to a subscriber, e.g.
+ * a fraud check or a dashboard feed in the same process.
+ *
+ * Holds at most capacity events, overwriting the oldest, so memory stays bounded however long it runs.
+ * recent() can be called from any thread. The subscriber runs on the publisher's thread like any sink.
+ */
+
+
+public class InMemoryEventSink implements PurchaseEventSink {
+
+
+    private final PurchaseEvent[] events;
+    private final Consumer<PurchaseEvent> subscriber;
+
+    // Guarded by this. Events ever received, the next is written at received % events.length.
+    private long received;
+
+
+    public InMemoryEventSink( int capacity ) {
+        this( capacity, event -> { } );
+    }
+
+
+    public InMemoryEventSink( int capacity, Consumer<PurchaseEvent> subscriber ) {
+
+        if ( subscriber == null ) throw new NullPointerException();
+        if ( capacity < 1 ) throw new IllegalArgumentException( "Capacity must be greater than 0" );
+
+        this.events = new PurchaseEvent[ capacity ];
+        this.subscriber = subscriber;
+
+    }
+
+
+    @Override
+    public void accept( PurchaseEvent event ) {
+
+        synchronized ( this ) {
+            events[ (int) ( received++ % events.length ) ] = event;
+        }
+
+        subscriber.accept( event );
+
+    }
+
+
+    // Events kept, oldest first.
+    public synchronized List<PurchaseEvent> recent() {
+
+        int count = (int) Math.min( received, events.length );
+        List<PurchaseEvent> recent = new ArrayList<>( count );
+
+        for ( long i = received - count; i < received; i++ ) recent.add( events[ (int) ( i % events.length ) ] );
+
+        return recent;
+
+    }
+
+
+    public synchronized long getReceived() {
+        return received;
+    }
+
+
+}
@@ -0,0 +1,139 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * One purchase as published by a PurchaseEventPublisher, whatever its outcome.
+ *
+ * Primitives and enums only, so it is cheap to queue and safe to hand to any number of sinks. Immutable once
+ * delivered: the publisher numbers each event as it takes it off the ring, before any sink sees it.
+ *     ACCEPTED  cost, seats and all three stage timings are set
+ *     REJECTED  reason and the validation timing are set, nothing was charged
+ *     FAILED    stage is the third-party call that threw, for RESERVATION the payment was taken, or
+ *               VALIDATION if it was never handed on to be paid for
+ *
+ * Timings are 0 unless the PurchasePipeline was timing its purchases, which it does whenever it has a listener.
+ */
+
+
+public final class PurchaseEvent {
+
+
+    // Set by the publisher's thread, the only one to touch the event until it is delivered.
+    long sequence = -1L;
+
+    private final long timestampMillis;
+    private final long accountId;
+    private final int tally;
+    private final PurchaseOutcome.Status status;
+    private final RejectionReason reason;
+    private final PurchaseStage failedStage;
+    private final int totalCost;
+    private final int totalSeats;
+    private final long validationNanos;
+    private final long paymentNanos;
+    private final long reservationNanos;
+
+
+    PurchaseEvent( long timestampMillis, long accountId, int tally, PurchaseOutcome.Status status, RejectionReason reason,
+                   PurchaseStage failedStage, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+
+        this.timestampMillis = timestampMillis;
+        this.accountId = accountId;
+        this.tally = tally;
+        this.status = status;
+        this.reason = reason;
+        this.failedStage = failedStage;
+        this.totalCost = totalCost;
+        this.totalSeats = totalSeats;
+        this.validationNanos = validationNanos;
+        this.paymentNanos = paymentNanos;
+        this.reservationNanos = reservationNanos;
+
+    }
+
+
+    // Strictly increasing in delivery order from 0. A gap shows that many events were dropped before this one.
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    // A TicketTally, or TicketTally.OVER_LIMIT.
+    public int getTally() {
+        return tally;
+    }
+
+    public boolean isOverLimit() {
+        return tally == TicketTally.OVER_LIMIT;
+    }
+
+    // Ticket counts are -1 for an over-limit basket, whose counts were never totalled.
+    public int getAdults() {
+        return isOverLimit() ? -1 : TicketTally.adults( tally );
+    }
+
+    public int getChildren() {
+        return isOverLimit() ? -1 : TicketTally.children( tally );
+    }
+
+    public int getInfants() {
+        return isOverLimit() ? -1 : TicketTally.infants( tally );
+    }
+
+    public PurchaseOutcome.Status getStatus() {
+        return status;
+    }
+
+    public boolean isAccepted() {
+        return status == PurchaseOutcome.Status.ACCEPTED;
+    }
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+
+    public PurchaseStage getFailedStage() {
+        return failedStage;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public long getValidationNanos() {
+        return validationNanos;
+    }
+
+    public long getPaymentNanos() {
+        return paymentNanos;
+    }
+
+    public long getReservationNanos() {
+        return reservationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseEvent{sequence=" + sequence + ", accountId=" + accountId + ", adults=" + getAdults() + ", children=" + getChildren() +
+                ", infants=" + getInfants() + ", status=" + status + ", reason=" + reason + ", failedStage=" + failedStage +
+                ", totalCost=" + totalCost + ", totalSeats=" + totalSeats + "}";
+    }
+
+
+}
@@ -0,0 +1,267 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.dispatch.MpscRing;
+import uk.gov.dwp.uc.pairtest.dispatch.OverflowPolicy;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Turns every purchase into a PurchaseEvent for sinks to consume. Pass to TicketServiceImpl as its
+ * PurchaseListener, alongside PurchaseMetrics with PurchaseListener.all if need be.
+ *
+ * The purchasing thread only builds the event and offers it to a bounded MpscRing. One thread of the
+ * publisher's own drains the ring and hands each event to every sink in turn, so however slow a sink is, a
+ * purchase never waits on one directly.
+ *
+ * When the ring is full the OverflowPolicy decides: REJECT drops the event and counts it, the purchase carries
+ * on; BLOCK waits for room, so nothing is lost but purchases slow to the pace of the slowest sink. Either way
+ * purchases are never failed by publishing.
+ *
+ * Events are numbered as the drainer takes them off the ring, not as they are offered: two purchasing threads
+ * can reach the ring in the opposite order to the one they took a number in. Each number is the events delivered
+ * plus the events dropped so far, so sinks see them in order, and a gap is where drops happened.
+ */
+
+
+public class PurchaseEventPublisher implements PurchaseListener, AutoCloseable {
+
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final Logger LOGGER = Logger.getLogger( PurchaseEventPublisher.class.getName() );
+
+    // Drainer spins and yields this long after the last event before parking.
+    private static final int IDLE_ATTEMPTS = 128;
+
+
+    private final MpscRing<PurchaseEvent> ring;
+    private final OverflowPolicy overflowPolicy;
+    private final PurchaseEventSink[] sinks;
+    private final Thread drainer;
+
+    private final LongAdder published = new LongAdder();
+    // Read for every event delivered, and only written when one is dropped.
+    private final AtomicLong dropped = new AtomicLong();
+    private final LongAdder sinkFailures = new LongAdder();
+    private volatile long delivered;
+
+    private volatile boolean closed;
+
+    // Set while the drainer is parked or about to be, so publishers know to unpark it.
+    private volatile boolean waiting;
+
+
+    public PurchaseEventPublisher( int capacity, OverflowPolicy overflowPolicy, PurchaseEventSink... sinks ) {
+
+        if ( overflowPolicy == null ) throw new NullPointerException();
+        if ( sinks.length == 0 ) throw new IllegalArgumentException( "At least one sink is required" );
+
+        this.ring = new MpscRing<>( capacity );
+        this.overflowPolicy = overflowPolicy;
+        this.sinks = sinks.clone();
+        for ( PurchaseEventSink sink: this.sinks ) if ( sink == null ) throw new NullPointerException();
+
+        this.drainer = PurchaseExecutors.daemonThreads( "purchase-events" ).newThread( this::drain );
+        this.drainer.start();
+
+    }
+
+
+    // 8192 events deep, dropping rather than slowing purchases when sinks fall behind.
+    public PurchaseEventPublisher( PurchaseEventSink... sinks ) {
+        this( DEFAULT_CAPACITY, OverflowPolicy.REJECT, sinks );
+    }
+
+
+    @Override
+    public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+        publish( accountId, tally, PurchaseOutcome.Status.ACCEPTED, null, null, totalCost, totalSeats, validationNanos, paymentNanos, reservationNanos );
+    }
+
+
+    @Override
+    public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+        publish( accountId, tally, PurchaseOutcome.Status.REJECTED, reason, null, 0, 0, validationNanos, 0L, 0L );
+    }
+
+
+    @Override
+    public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+        publish( accountId, tally, PurchaseOutcome.Status.FAILED, null, stage, 0, 0, 0L, 0L, 0L );
+    }
+
+
+    // Events offered so far, delivered or not.
+    public long getPublished() {
+        return published.sum();
+    }
+
+
+    // Events every sink has been given.
+    public long getDelivered() {
+        return delivered;
+    }
+
+
+    // Events lost to a full ring under OverflowPolicy.REJECT, or published after close().
+    public long getDropped() {
+        return dropped.get();
+    }
+
+
+    public long getSinkFailures() {
+        return sinkFailures.sum();
+    }
+
+
+    public int getPending() {
+        return ring.size();
+    }
+
+
+    /**
+     * Stops taking events, delivers those already queued, then closes the sinks and waits for all of that to
+     * finish. An event published while close() runs may be dropped.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        LockSupport.unpark( drainer );
+
+        boolean interrupted = false;
+        while ( true ) {
+            try {
+                drainer.join();
+                break;
+            } catch ( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+
+        if ( interrupted ) Thread.currentThread().interrupt();
+
+    }
+
+
+    private void publish( long accountId, int tally, PurchaseOutcome.Status status, RejectionReason reason, PurchaseStage failedStage,
+                          int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+
+        published.increment();
+
+        PurchaseEvent event = new PurchaseEvent( System.currentTimeMillis(), accountId, tally, status, reason,
+                failedStage, totalCost, totalSeats, validationNanos, paymentNanos, reservationNanos );
+
+        int attempt = 0;
+
+        while ( closed || !ring.offer( event ) ) {
+            if ( closed || overflowPolicy == OverflowPolicy.REJECT ) {
+                dropped.incrementAndGet();
+                return;
+            }
+            MpscRing.idle( attempt++ );
+        }
+
+        if ( waiting ) LockSupport.unpark( drainer );
+
+    }
+
+
+    private void drain() {
+
+        int attempt = 0;
+        boolean batched = false;
+
+        while ( true ) {
+
+            PurchaseEvent event = ring.poll();
+
+            if ( event != null ) {
+                deliver( event );
+                attempt = 0;
+                batched = true;
+                continue;
+            }
+
+            if ( batched ) {
+                for ( PurchaseEventSink sink: sinks ) endOfBatch( sink );
+                batched = false;
+            }
+
+            if ( closed ) {
+                if ( ring.isEmpty() ) break;
+                continue;
+            }
+
+            // Spin and yield for a while first, purchases tend to arrive in bursts.
+            if ( attempt < IDLE_ATTEMPTS ) {
+                MpscRing.idle( attempt++ );
+                continue;
+            }
+
+            waiting = true;
+            if ( ring.isEmpty() && !closed ) LockSupport.park( this );
+            waiting = false;
+
+        }
+
+        for ( PurchaseEventSink sink: sinks ) {
+            try {
+                sink.close();
+            } catch ( RuntimeException e ) {
+                failed( sink, e );
+            }
+        }
+
+    }
+
+
+    private void deliver( PurchaseEvent event ) {
+
+        event.sequence = delivered + dropped.get();
+
+        for ( PurchaseEventSink sink: sinks ) {
+            try {
+                sink.accept( event );
+            } catch ( RuntimeException e ) {
+                failed( sink, e );
+            }
+        }
+
+        // Only this thread writes it.
+        delivered = delivered + 1;
+
+    }
+
+
+    private void endOfBatch( PurchaseEventSink sink ) {
+
+        try {
+            sink.endOfBatch();
+        } catch ( RuntimeException e ) {
+            failed( sink, e );
+        }
+
+    }
+
+
+    private void failed( PurchaseEventSink sink, RuntimeException e ) {
+
+        sinkFailures.increment();
+        LOGGER.log( Level.WARNING, "Purchase event sink " + sink + " failed", e );
+
+    }
+
+
+}
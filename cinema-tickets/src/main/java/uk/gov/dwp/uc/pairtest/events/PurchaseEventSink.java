@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+
+/**
+ * Somewhere a PurchaseEventPublisher delivers events, e.g. EventFileAppender or InMemoryEventSink.
+ *
+ * Called only from the publisher's own thread, one event at a time in the order they left the ring, so
+ * implementations need no locking of their own for the calls below. Sequence numbers are assigned in that same
+ * order, so they only ever increase, and skip one for each event dropped in between. A sink may be slow, it only holds up other sinks, never a
+ * purchase. Anything it throws is logged and counted by the publisher and the event goes on to the next sink.
+ */
+
+
+public interface PurchaseEventSink extends AutoCloseable {
+
+
+    void accept( PurchaseEvent event );
+
+
+    // The ring is empty for now. A sink that buffers, such as a file, should write out what it has.
+    default void endOfBatch() {
+    }
+
+
+    // Called once, from the publisher's thread, after the last event.
+    @Override
+    default void close() {
+    }
+
+
+}
@@ -12,41 +12,114 @@ import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 public class InvalidPurchaseException extends RuntimeException {
 
 
+    private final RejectionReason reason;
+    private final long accountId;
+    // A copy, the message may be built on the logging thread after the caller has reused its array.
+    private final TicketTypeRequest[] ticketTypeRequests;
+
+    // Built on first use by getMessage(). Strings are immutable, so a racy double build is harmless.
+    private String message;
+
+
 
     public InvalidPurchaseException( String message ) {
         super(message);
+        this.reason = null;
+        this.accountId = 0;
+        this.ticketTypeRequests = null;
+        this.message = message;
     }
 
 
 
-    // Used for debugging
+    /**
+     * Lightweight rejection used on the purchase path.
+     * No stack trace is captured and the message is only built if someone asks for it.
+     */
+    public InvalidPurchaseException( RejectionReason reason, long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+
+        super( null, null, false, false );
+
+        this.reason = reason;
+        this.accountId = accountId;
+        this.ticketTypeRequests = copyOf( ticketTypeRequests );
+
+    }
+
+
+
+    // Used for debugging. Prefer the RejectionReason constructor, this one prints synchronously and captures a stack trace.
     public InvalidPurchaseException( Long accountId, TicketTypeRequest[] ticketTypeRequests ) {
 
         super( "Invalid Purchase Exception" );
 
-        StringBuilder sb = new StringBuilder();
-        sb.append("Invalid Purchase Request for AccountID:" + "\t");
-        sb.append(accountId.toString() + ",\t");
-        sb.append("TicketTypeRequest[]:" + "\t");
-
-        sb.append("[ ");
-        for ( TicketTypeRequest t: ticketTypeRequests) {
-            sb.append("{");
-            sb.append("ticketType: " +t.getTicketType() + ", ");
-            sb.append("#ofTickets: " + t.getNoOfTickets() + " ");
-            sb.append("}, ");
+        this.reason = null;
+        this.accountId = accountId;
+        this.ticketTypeRequests = copyOf( ticketTypeRequests );
+        this.message = "Invalid Purchase Exception";
+
+        System.err.println( describe( null, accountId, ticketTypeRequests ) );
+
+    }
+
+
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+
+    @Override
+    public String getMessage() {
+
+        String m = message;
+
+        if ( m == null ) {
+            m = describe( reason, accountId, ticketTypeRequests );
+            message = m;
         }
-        sb.append("]");
 
-        String message = sb.toString();
+        return m;
+
+    }
+
 
-        System.err.println(message);
 
+    // TicketTypeRequest is immutable, so copying the array is enough.
+    private static TicketTypeRequest[] copyOf( TicketTypeRequest[] ticketTypeRequests ) {
+        return ticketTypeRequests == null ? null : ticketTypeRequests.clone();
     }
 
 
 
+    private static String describe( RejectionReason reason, long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+
+        StringBuilder sb = new StringBuilder( 128 );
+
+        if ( reason != null ) sb.append( reason ).append( ": " );
+
+        sb.append( "Invalid Purchase Request for AccountID:\t" );
+        sb.append( accountId ).append( ",\t" );
+        sb.append( "TicketTypeRequest[]:\t" );
 
+        sb.append( "[ " );
+        if ( ticketTypeRequests != null ) {
+            for ( TicketTypeRequest t: ticketTypeRequests ) {
+                sb.append( "{" );
+                sb.append( "ticketType: " ).append( t.getTicketType() ).append( ", " );
+                sb.append( "#ofTickets: " ).append( t.getNoOfTickets() ).append( " " );
+                sb.append( "}, " );
+            }
+        }
+        sb.append( "]" );
+
+        return sb.toString();
+
+    }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,190 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+
+/**
+ * Logs rejected purchases from a background daemon thread.
+ *
+ * Request threads only enqueue the exception, the message is built and written by the logging thread.
+ * The queue is bounded: once capacity rejections are waiting, further ones are dropped and counted rather than
+ * slowing the purchase path down.
+ *
+ * Rejections are logged at FINE. They are routine, so with the default logging configuration they are not even
+ * queued; turn the rejections logger up to FINE, with a handler that passes FINE, to see them.
+ *
+ * Close an instance to write out what is still queued and stop its thread. The shared instance lives as long
+ * as the JVM, so closing it does nothing.
+ */
+
+
+public class RejectionLog implements AutoCloseable {
+
+
+    public static final String LOGGER_NAME = "uk.gov.dwp.uc.pairtest.rejections";
+
+    private static final Level LEVEL = Level.FINE;
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 10 );
+
+
+    private final Logger logger;
+    private final int capacity;
+
+    private final Queue<InvalidPurchaseException> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread drainer;
+    private final boolean shared;
+    private volatile boolean closed;
+
+
+    private static final class Shared {
+        static final RejectionLog INSTANCE = new RejectionLog( Logger.getLogger( LOGGER_NAME ), DEFAULT_CAPACITY, true );
+    }
+
+
+    public static RejectionLog shared() {
+        return Shared.INSTANCE;
+    }
+
+
+    public RejectionLog( Logger logger, int capacity ) {
+        this( logger, capacity, false );
+    }
+
+
+    private RejectionLog( Logger logger, int capacity, boolean shared ) {
+
+        if ( capacity < 1 ) throw new IllegalArgumentException( "Capacity must be greater than 0" );
+
+        this.logger = logger;
+        this.capacity = capacity;
+        this.shared = shared;
+
+        this.drainer = new Thread( this::drain, "rejection-log" );
+        this.drainer.setDaemon( true );
+        this.drainer.start();
+
+    }
+
+
+    /**
+     * Never blocks. Returns false if the rejection was not queued, either because the logger
+     * would discard it anyway or because the queue is full or closed.
+     */
+    public boolean log( InvalidPurchaseException rejection ) {
+
+        if ( !logger.isLoggable( LEVEL ) ) return false;
+
+        if ( closed ) {
+            dropped.increment();
+            return false;
+        }
+
+        if ( size.incrementAndGet() > capacity ) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+
+        pending.offer( rejection );
+        return true;
+
+    }
+
+
+    /**
+     * Builds the lightweight rejection for a purchase and queues it for logging.
+     */
+    public InvalidPurchaseException reject( RejectionReason reason, long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+
+        InvalidPurchaseException rejection = new InvalidPurchaseException( reason, accountId, ticketTypeRequests );
+        log( rejection );
+        return rejection;
+
+    }
+
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+
+    /**
+     * Writes out the rejections already queued, then stops and joins the logging thread. Rejections logged
+     * after this are dropped. Does nothing on the shared instance.
+     */
+    @Override
+    public void close() {
+
+        if ( shared ) return;
+
+        closed = true;
+        LockSupport.unpark( drainer );
+
+        boolean interrupted = false;
+        while ( true ) {
+            try {
+                drainer.join();
+                break;
+            } catch ( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+
+        if ( interrupted ) Thread.currentThread().interrupt();
+
+    }
+
+
+    private void drain() {
+
+        while ( true ) {
+
+            // Read before polling, so a rejection queued before close is never left behind.
+            boolean stopping = closed;
+            InvalidPurchaseException rejection = pending.poll();
+
+            if ( rejection == null ) {
+                if ( stopping ) return;
+                LockSupport.parkNanos( IDLE_PARK_NANOS );
+                continue;
+            }
+
+            size.decrementAndGet();
+
+            try {
+                logger.log( record( rejection ) );
+            } catch ( RuntimeException e ) {
+                // A broken handler must not kill the logging thread.
+            }
+
+        }
+
+    }
+
+
+    // The message reads as before, the reason and account id travel as parameters for structured handlers.
+    private LogRecord record( InvalidPurchaseException rejection ) {
+
+        LogRecord record = new LogRecord( LEVEL, rejection.getMessage() );
+        record.setLoggerName( logger.getName() );
+        record.setParameters( new Object[] { rejection.getReason(), rejection.getAccountId() } );
+        return record;
+
+    }
+
+
+}
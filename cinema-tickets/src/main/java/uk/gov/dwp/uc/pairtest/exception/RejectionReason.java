@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+
+/**
+ * Why a purchase was rejected. Carried by InvalidPurchaseException so callers can react without parsing messages.
+ */
+
+
+public enum RejectionReason {
+
+    BAD_ACCOUNT,
+    NO_TICKETS,
+    OVER_LIMIT,
+    NO_ADULT,
+    TOO_MANY_INFANTS,
+    RATE_LIMITED,
+    DUPLICATE,
+    SOLD_OUT
+
+}
@@ -0,0 +1,93 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Per-account token bucket, lock free.
+ *
+ * Implemented as the generic cell rate algorithm, which admits exactly what a token bucket of the same rate and
+ * burst admits but needs a single timestamp per account instead of a token count and a refill time.
+ * Each slot of a fixed, power-of-two table packs a 32 bit account tag with a 32 bit microsecond timestamp into
+ * one long, so checking and updating an account is a single compare-and-set.
+ *
+ * The table is direct mapped: an account whose slot is held by a different account takes the slot over and starts
+ * with a full bucket. Memory stays fixed however many accounts appear, at the cost of letting a rare colliding
+ * pair of accounts through more often than their rate.
+ */
+
+
+public class AccountRateLimiter {
+
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final LongSupplier nanoClock;
+
+
+    public AccountRateLimiter( double permitsPerSecond, int burst, int minimumSlots, LongSupplier nanoClock ) {
+
+        if ( !( permitsPerSecond > 0 ) || burst < 1 ) throw new IllegalArgumentException( "Rate and burst must be greater than 0" );
+        if ( nanoClock == null ) throw new NullPointerException();
+
+        this.slots = new AtomicLongArray( Slots.tableSize( minimumSlots ) );
+        this.mask = slots.length() - 1;
+
+        this.intervalMicros = Math.max( 1, (long) ( TimeUnit.SECONDS.toMicros( 1 ) / permitsPerSecond ) );
+        this.burstMicros = intervalMicros * ( burst - 1 );
+        this.nanoClock = nanoClock;
+
+        if ( intervalMicros + burstMicros >= Integer.MAX_VALUE ) throw new IllegalArgumentException( "Rate too low or burst too large" );
+
+    }
+
+
+    public AccountRateLimiter( double permitsPerSecond, int burst ) {
+        this( permitsPerSecond, burst, 1 << 16, System::nanoTime );
+    }
+
+
+    /**
+     * Takes a permit for the account if one is available.
+     */
+    public boolean tryAcquire( long accountId ) {
+
+        long hash = Slots.mix( accountId );
+        int slot = (int) hash & mask;
+        int tag = (int) ( hash >>> 32 );
+
+        int now = (int) ( nanoClock.getAsLong() / 1000 );
+
+        while ( true ) {
+
+            long current = slots.get( slot );
+
+            // Theoretical arrival time: when the bucket would next be full again.
+            int tat = now;
+
+            if ( current != 0 && (int) ( current >>> 32 ) == tag ) {
+
+                int ahead = (int) current - now;
+
+                // A timestamp further ahead than any legal state can only be a wrapped, long-idle entry.
+                if ( ahead > 0 && ahead <= intervalMicros + burstMicros ) tat = (int) current;
+
+            }
+
+            if ( tat - now > burstMicros ) return false;
+
+            long next = ( (long) tag << 32 ) | ( ( tat + intervalMicros ) & 0xFFFFFFFFL );
+
+            if ( slots.compareAndSet( slot, current, next ) ) return true;
+
+        }
+
+    }
+
+
+}
@@ -0,0 +1,116 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Short-lived idempotency window keyed on account and basket contents, lock free.
+ *
+ * Each slot of a fixed, power-of-two table packs a 40 bit purchase fingerprint with a 24 bit millisecond expiry
+ * into one long, so claiming a purchase is a single compare-and-set and two identical requests racing each other
+ * cannot both get through.
+ *
+ * Like AccountRateLimiter the table is direct mapped and fails open: a colliding purchase overwrites the slot,
+ * which can only let a duplicate through, never reject a new purchase.
+ */
+
+
+public class DuplicatePurchaseGuard {
+
+
+    private static final long EXPIRY_MASK = ( 1L << 24 ) - 1;
+    private static final long MAX_TTL_MILLIS = EXPIRY_MASK >>> 1;
+
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    private final long ttlMillis;
+    private final LongSupplier nanoClock;
+
+
+    public DuplicatePurchaseGuard( long ttl, TimeUnit unit, int minimumSlots, LongSupplier nanoClock ) {
+
+        if ( nanoClock == null ) throw new NullPointerException();
+
+        this.ttlMillis = unit.toMillis( ttl );
+        if ( ttlMillis < 1 || ttlMillis > MAX_TTL_MILLIS ) throw new IllegalArgumentException( "TTL must be between 1ms and " + MAX_TTL_MILLIS + "ms" );
+
+        this.slots = new AtomicLongArray( Slots.tableSize( minimumSlots ) );
+        this.mask = slots.length() - 1;
+        this.nanoClock = nanoClock;
+
+    }
+
+
+    public DuplicatePurchaseGuard( long ttl, TimeUnit unit ) {
+        this( ttl, unit, 1 << 16, System::nanoTime );
+    }
+
+
+    /**
+     * Claims the purchase for the TTL. Returns false if the same account bought the same basket within the window.
+     */
+    public boolean tryClaim( long accountId, int tally ) {
+
+        long hash = hash( accountId, tally );
+        int slot = (int) hash & mask;
+        long fingerprint = hash >>> 24;
+
+        long now = nowMillis();
+
+        while ( true ) {
+
+            long current = slots.get( slot );
+
+            if ( current != 0 && ( current >>> 24 ) == fingerprint && live( current, now ) ) return false;
+
+            long next = ( fingerprint << 24 ) | ( ( now + ttlMillis ) & EXPIRY_MASK );
+
+            if ( slots.compareAndSet( slot, current, next ) ) return true;
+
+        }
+
+    }
+
+
+    /**
+     * Gives up a claim early, for example when the purchase failed and the customer should be free to retry.
+     * Does nothing if the slot has since been taken by another purchase.
+     */
+    public void release( long accountId, int tally ) {
+
+        long hash = hash( accountId, tally );
+        int slot = (int) hash & mask;
+        long fingerprint = hash >>> 24;
+
+        long current = slots.get( slot );
+
+        if ( ( current >>> 24 ) == fingerprint ) slots.compareAndSet( slot, current, 0 );
+
+    }
+
+
+    private boolean live( long entry, long now ) {
+
+        // 24 bit wrapping difference between expiry and now.
+        long remaining = ( ( entry & EXPIRY_MASK ) - now ) & EXPIRY_MASK;
+
+        return remaining > 0 && remaining <= ttlMillis;
+
+    }
+
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis( nanoClock.getAsLong() ) & EXPIRY_MASK;
+    }
+
+
+    private static long hash( long accountId, int tally ) {
+        return Slots.mix( Slots.mix( accountId ) + tally );
+    }
+
+
+}
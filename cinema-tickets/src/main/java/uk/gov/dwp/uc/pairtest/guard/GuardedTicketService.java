@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionLog;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Puts a per-account rate limit and a duplicate-purchase window in front of another TicketService.
+ *
+ * Both checks run before the delegate, so a retry storm never reaches the payment gateway.
+ * If the delegate rejects the purchase as invalid the duplicate claim is released: nothing was bought, so retrying
+ * the basket gets its real rejection reason again rather than DUPLICATE. Any other failure keeps the claim, since
+ * a reservation fails after the payment was taken and a retry would charge the customer twice.
+ */
+
+
+public class GuardedTicketService implements TicketService {
+
+
+    private final TicketService delegate;
+    private final AccountRateLimiter rateLimiter;
+    private final DuplicatePurchaseGuard duplicateGuard;
+
+
+    public GuardedTicketService( TicketService delegate, AccountRateLimiter rateLimiter, DuplicatePurchaseGuard duplicateGuard ) {
+
+        if ( delegate == null || rateLimiter == null || duplicateGuard == null ) throw new NullPointerException();
+
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.duplicateGuard = duplicateGuard;
+
+    }
+
+
+    @Override
+    public void purchaseTickets( Long accountId, TicketTypeRequest... ticketTypeRequests ) throws InvalidPurchaseException {
+
+        if ( !rateLimiter.tryAcquire( accountId ) ) throw RejectionLog.shared().reject( RejectionReason.RATE_LIMITED, accountId, ticketTypeRequests );
+
+        int tally = TicketTally.of( ticketTypeRequests );
+
+        if ( !duplicateGuard.tryClaim( accountId, tally ) ) throw RejectionLog.shared().reject( RejectionReason.DUPLICATE, accountId, ticketTypeRequests );
+
+        try {
+            delegate.purchaseTickets( accountId, ticketTypeRequests );
+        } catch ( InvalidPurchaseException e ) {
+            duplicateGuard.release( accountId, tally );
+            throw e;
+        }
+
+    }
+
+
+}
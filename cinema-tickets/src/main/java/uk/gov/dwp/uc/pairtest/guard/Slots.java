@@ -0,0 +1,36 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+
+/**
+ * Hashing shared by the guard tables.
+ */
+
+
+final class Slots {
+
+
+    private Slots() {
+    }
+
+
+    // SplitMix64 finaliser. Spreads sequential account ids across the whole table.
+    static long mix( long x ) {
+
+        x = ( x ^ ( x >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+        x = ( x ^ ( x >>> 27 ) ) * 0x94d049bb133111ebL;
+        return x ^ ( x >>> 31 );
+
+    }
+
+
+    static int tableSize( int minimumSlots ) {
+
+        if ( minimumSlots < 1 || minimumSlots > ( 1 << 30 ) ) throw new IllegalArgumentException( "Slots must be between 1 and 2^30" );
+
+        // Rounded up to a power of two so the slot is a mask rather than a modulo.
+        return minimumSlots == 1 ? 1 : Integer.highestOneBit( minimumSlots - 1 ) << 1;
+
+    }
+
+
+}
@@ -0,0 +1,62 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionLog;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * Sells one screening's seats through another TicketService, rejecting with SOLD_OUT before the delegate
+ * takes any payment if there are not enough left.
+ *
+ * The seats are taken before the delegate sees the basket and given back if it rejects the basket or fails.
+ * They are counted straight from the tickets, an adult or child a seat and an infant on a lap, so the inventory
+ * has no rules of its own to disagree with the delegate's: whatever the delegate sells has been taken here first.
+ * A basket with no seats, or too many tickets for any rules to allow, goes straight to the delegate.
+ */
+
+
+public class InventoryTicketService implements TicketService {
+
+
+    private final TicketService delegate;
+    private final ScreeningCapacity screening;
+
+
+    public InventoryTicketService( TicketService delegate, ScreeningCapacity screening ) {
+
+        if ( delegate == null || screening == null ) throw new NullPointerException();
+
+        this.delegate = delegate;
+        this.screening = screening;
+
+    }
+
+
+    @Override
+    public void purchaseTickets( Long accountId, TicketTypeRequest... ticketTypeRequests ) throws InvalidPurchaseException {
+
+        int tally = TicketTally.of( ticketTypeRequests );
+        int seats = tally == TicketTally.OVER_LIMIT ? 0 : TicketTally.adults( tally ) + TicketTally.children( tally );
+
+        if ( seats == 0 ) {
+            delegate.purchaseTickets( accountId, ticketTypeRequests );
+            return;
+        }
+
+        if ( !screening.tryTake( seats ) ) throw RejectionLog.shared().reject( RejectionReason.SOLD_OUT, accountId, ticketTypeRequests );
+
+        try {
+            delegate.purchaseTickets( accountId, ticketTypeRequests );
+        } catch ( RuntimeException e ) {
+            screening.release( seats );
+            throw e;
+        }
+
+    }
+
+
+}
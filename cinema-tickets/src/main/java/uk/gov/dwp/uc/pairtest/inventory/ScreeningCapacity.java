@@ -0,0 +1,149 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import uk.gov.dwp.uc.pairtest.StripeProbe;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+/**
+ * The unsold seats of one screening, split across stripes so that many threads buying for the same screening
+ * rarely touch the same cache line.
+ *
+ * A thread takes seats with a compare-and-set on its own stripe, picked by StripeProbe. If that stripe is short
+ * it tries the others, and only if none of them can cover the purchase alone does it lock, gather every stripe
+ * and share what is left back out evenly. The locked path only runs near the end of a screening, and it never
+ * oversells or rejects while enough seats remain: callers short on their own stripe wait for it rather than
+ * seeing seats another caller is holding while it gathers.
+ *
+ * A compare-and-set that fails because another thread got there first moves this thread to another stripe.
+ */
+
+
+public final class ScreeningCapacity {
+
+
+    // Ints per 64 byte cache line, each stripe gets a line to itself.
+    private static final int PADDING = 16;
+
+
+    private final long screeningId;
+    private final int capacity;
+    private final int stripes;
+    private final int stripeMask;
+    private final AtomicIntegerArray seats;
+    private final Object gathering = new Object();
+
+
+    ScreeningCapacity( long screeningId, int capacity, int stripes ) {
+
+        if ( capacity < 0 ) throw new IllegalArgumentException( "Capacity must not be negative" );
+        if ( stripes < 1 || Integer.bitCount( stripes ) != 1 ) throw new IllegalArgumentException( "Stripes must be a power of two" );
+
+        this.screeningId = screeningId;
+        this.capacity = capacity;
+        this.stripes = stripes;
+        this.stripeMask = stripes - 1;
+        this.seats = new AtomicIntegerArray( stripes * PADDING );
+
+        share( capacity );
+
+    }
+
+
+    public long getScreeningId() {
+        return screeningId;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * Takes the seats if there are enough left, otherwise takes none and returns false.
+     */
+    public boolean tryTake( int count ) {
+
+        if ( count < 1 ) throw new IllegalArgumentException( "Must take at least one seat" );
+
+        int home = StripeProbe.get() & stripeMask;
+
+        for ( int i = 0; i < stripes; i++ ) {
+            if ( tryTakeFrom( ( home + i ) & stripeMask, count ) ) return true;
+        }
+
+        return gatherAndTake( count );
+
+    }
+
+
+    /**
+     * Gives back seats taken by tryTake, when the purchase they were for did not go through.
+     */
+    public void release( int count ) {
+
+        if ( count < 1 ) throw new IllegalArgumentException( "Must release at least one seat" );
+
+        seats.addAndGet( ( StripeProbe.get() & stripeMask ) * PADDING, count );
+
+    }
+
+
+    // Exact when nothing is being taken or released.
+    public int getRemaining() {
+
+        int remaining = 0;
+        for ( int i = 0; i < stripes; i++ ) remaining += seats.get( i * PADDING );
+        return remaining;
+
+    }
+
+
+    private boolean tryTakeFrom( int stripe, int count ) {
+
+        int index = stripe * PADDING;
+
+        while ( true ) {
+            int available = seats.get( index );
+            if ( available < count ) return false;
+            if ( seats.compareAndSet( index, available, available - count ) ) return true;
+            StripeProbe.advance();
+        }
+
+    }
+
+
+    private boolean gatherAndTake( int count ) {
+
+        synchronized ( gathering ) {
+
+            int gathered = 0;
+            for ( int i = 0; i < stripes; i++ ) gathered += seats.getAndSet( i * PADDING, 0 );
+
+            boolean taken = gathered >= count;
+            share( taken ? gathered - count : gathered );
+
+            return taken;
+
+        }
+
+    }
+
+
+    private void share( int total ) {
+
+        int each = total / stripes;
+        int extra = total % stripes;
+
+        for ( int i = 0; i < stripes; i++ ) seats.addAndGet( i * PADDING, i < extra ? each + 1 : each );
+
+    }
+
+
+    @Override
+    public String toString() {
+        return "Screening " + screeningId + ": " + getRemaining() + " of " + capacity + " seats left";
+    }
+
+
+}
@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Unsold seats for every screening on sale, by screening id. See ScreeningCapacity.
+ */
+
+
+public class SeatInventory {
+
+
+    private final ConcurrentHashMap<Long, ScreeningCapacity> screenings = new ConcurrentHashMap<>();
+    private final int stripes;
+
+
+    // Two stripes per processor, rounded up to a power of two.
+    public SeatInventory() {
+        this( Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 2 - 1 ) << 1 );
+    }
+
+
+    public SeatInventory( int stripes ) {
+
+        if ( stripes < 1 || Integer.bitCount( stripes ) != 1 ) throw new IllegalArgumentException( "Stripes must be a power of two" );
+
+        this.stripes = stripes;
+
+    }
+
+
+    /**
+     * Puts a screening on sale with every seat unsold.
+     */
+    public ScreeningCapacity open( long screeningId, int capacity ) {
+
+        ScreeningCapacity screening = new ScreeningCapacity( screeningId, capacity, stripes );
+
+        if ( screenings.putIfAbsent( screeningId, screening ) != null ) throw new IllegalStateException( "Screening " + screeningId + " is already open" );
+
+        return screening;
+
+    }
+
+
+    // Null if the screening is not on sale.
+    public ScreeningCapacity screening( long screeningId ) {
+        return screenings.get( screeningId );
+    }
+
+
+    // Takes the screening off sale, returns it or null if it was not on sale.
+    public ScreeningCapacity close( long screeningId ) {
+        return screenings.remove( screeningId );
+    }
+
+
+}
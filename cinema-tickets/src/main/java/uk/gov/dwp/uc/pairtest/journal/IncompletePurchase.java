@@ -0,0 +1,67 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+
+/**
+ * A purchase found in the journal with an intent but neither reserved nor failed: the process died part way.
+ */
+
+
+public final class IncompletePurchase {
+
+
+    private final long purchaseId;
+    private final long accountId;
+    private final int tally;
+    private final int totalCost;
+    private final int totalSeats;
+    private final boolean paid;
+
+
+    IncompletePurchase( long purchaseId, long accountId, int tally, int totalCost, int totalSeats, boolean paid ) {
+        this.purchaseId = purchaseId;
+        this.accountId = accountId;
+        this.tally = tally;
+        this.totalCost = totalCost;
+        this.totalSeats = totalSeats;
+        this.paid = paid;
+    }
+
+
+    public long getPurchaseId() {
+        return purchaseId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public int getTally() {
+        return tally;
+    }
+
+    public int getTotalCost() {
+        return totalCost;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    // The payment service returned, so the customer has been charged.
+    public boolean isPaid() {
+        return paid;
+    }
+
+
+    IncompletePurchase withPaid() {
+        return new IncompletePurchase( purchaseId, accountId, tally, totalCost, totalSeats, true );
+    }
+
+
+    @Override
+    public String toString() {
+        return "Purchase " + purchaseId + " for AccountID " + accountId + ": cost " + totalCost + ", seats " + totalSeats + ( paid ? ", paid" : ", payment unknown" );
+    }
+
+
+}
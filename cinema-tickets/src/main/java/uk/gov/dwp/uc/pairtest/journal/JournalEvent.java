@@ -0,0 +1,22 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+
+/**
+ * The kinds of journal record, one per PurchaseJournal method.
+ */
+
+
+public enum JournalEvent {
+
+    INTENT,
+    PAID,
+    RESERVED,
+    FAILED;
+
+
+    // No further records are expected for the purchase.
+    public boolean isFinal() {
+        return this == RESERVED || this == FAILED;
+    }
+
+}
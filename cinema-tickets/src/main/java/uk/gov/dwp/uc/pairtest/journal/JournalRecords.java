@@ -0,0 +1,146 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+
+/**
+ * Journal segment files and the fixed-width records inside them.
+ *
+ *     offset  size  field
+ *          0     8  purchase id
+ *          8     8  account id           INTENT only, otherwise 0
+ *         16     4  tally                INTENT only
+ *         20     4  total cost           INTENT only
+ *         24     1  JournalEvent ordinal + 1, so 0 marks the unwritten end of a segment
+ *         25     1  total seats          INTENT only
+ *         26     2  reserved, 0
+ *         28     4  CRC32C of bytes 0 to 27
+ *
+ * Segments are preallocated and zero filled. Reading a segment stops at the first record that is unwritten
+ * or fails its checksum, which is where a write was torn.
+ */
+
+
+final class JournalRecords {
+
+
+    static final int RECORD_SIZE = 32;
+
+    private static final int CHECKSUMMED_BYTES = 28;
+
+    private static final String PREFIX = "purchases-";
+    private static final String SUFFIX = ".journal";
+
+    private static final JournalEvent[] EVENTS = JournalEvent.values();
+
+
+    interface Visitor {
+        void visit( long purchaseId, JournalEvent event, long accountId, int tally, int totalCost, int totalSeats );
+    }
+
+
+    private JournalRecords() {
+    }
+
+
+    static void encode( ByteBuffer record, CRC32C crc, long purchaseId, JournalEvent event, long accountId, int tally, int totalCost, int totalSeats ) {
+
+        record.putLong( 0, purchaseId )
+              .putLong( 8, accountId )
+              .putInt( 16, tally )
+              .putInt( 20, totalCost )
+              .put( 24, (byte) ( event.ordinal() + 1 ) )
+              .put( 25, (byte) totalSeats )
+              .putShort( 26, (short) 0 );
+
+        crc.reset();
+        crc.update( record.array(), record.arrayOffset(), CHECKSUMMED_BYTES );
+        record.putInt( CHECKSUMMED_BYTES, (int) crc.getValue() );
+
+    }
+
+
+    /**
+     * Visits every intact record in the segment, in the order written. Returns how many there were.
+     */
+    static int read( Path segment, Visitor visitor ) throws IOException {
+
+        try ( FileChannel channel = FileChannel.open( segment, StandardOpenOption.READ ) ) {
+
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            ByteBuffer cursor = buffer.duplicate();
+            byte[] record = new byte[ RECORD_SIZE ];
+            CRC32C crc = new CRC32C();
+
+            int count = 0;
+            for ( int offset = 0; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE ) {
+
+                int event = buffer.get( offset + 24 );
+                if ( event < 1 || event > EVENTS.length ) break;
+
+                cursor.position( offset );
+                cursor.get( record );
+                crc.reset();
+                crc.update( record, 0, CHECKSUMMED_BYTES );
+                if ( (int) crc.getValue() != buffer.getInt( offset + CHECKSUMMED_BYTES ) ) break;
+
+                visitor.visit( buffer.getLong( offset ), EVENTS[ event - 1 ], buffer.getLong( offset + 8 ),
+                        buffer.getInt( offset + 16 ), buffer.getInt( offset + 20 ), buffer.get( offset + 25 ) & 0xFF );
+                count++;
+
+            }
+
+            return count;
+
+        }
+
+    }
+
+
+    static Path segmentPath( Path directory, int index ) {
+        return directory.resolve( String.format( "%s%010d%s", PREFIX, index, SUFFIX ) );
+    }
+
+
+    // -1 if the file is not a segment.
+    static int segmentIndex( Path file ) {
+
+        String name = file.getFileName().toString();
+        if ( !name.startsWith( PREFIX ) || !name.endsWith( SUFFIX ) ) return -1;
+
+        try {
+            return Integer.parseInt( name.substring( PREFIX.length(), name.length() - SUFFIX.length() ) );
+        } catch ( NumberFormatException e ) {
+            return -1;
+        }
+
+    }
+
+
+    // Oldest first.
+    static List<Path> segments( Path directory ) throws IOException {
+
+        List<Path> segments = new ArrayList<>();
+        if ( !Files.isDirectory( directory ) ) return segments;
+
+        try ( Stream<Path> files = Files.list( directory ) ) {
+            files.filter( file -> segmentIndex( file ) >= 0 ).forEach( segments::add );
+        }
+
+        segments.sort( ( a, b ) -> Integer.compare( segmentIndex( a ), segmentIndex( b ) ) );
+        return segments;
+
+    }
+
+
+}
@@ -0,0 +1,108 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Finds and finishes the purchases a previous process left incomplete. At startup, before taking purchases:
+ *
+ *     List<IncompletePurchase> incomplete = JournalRecovery.scan( directory );
+ *     MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, policy );
+ *     List<IncompletePurchase> unresolved = JournalRecovery.replay( incomplete, journal, seatReservationService );
+ *
+ * A purchase that was paid for has its seats reserved. One that never recorded its payment cannot be
+ * finished safely: the payment service may or may not have charged the customer, and the journal cannot
+ * tell which. Those, and any whose reservation fails again, are logged, recorded as failed and returned for
+ * reconciliation with the payment provider.
+ */
+
+
+public final class JournalRecovery {
+
+
+    private static final Logger LOGGER = Logger.getLogger( JournalRecovery.class.getName() );
+
+
+    private JournalRecovery() {
+    }
+
+
+    /**
+     * The incomplete purchases in the directory, oldest first. Empty if there is no journal there.
+     */
+    public static List<IncompletePurchase> scan( Path directory ) throws IOException {
+
+        Map<Long, IncompletePurchase> open = new LinkedHashMap<>();
+
+        for ( Path segment: JournalRecords.segments( directory ) ) {
+
+            JournalRecords.read( segment, ( purchaseId, event, accountId, tally, totalCost, totalSeats ) -> {
+
+                switch ( event ) {
+                    case INTENT:
+                        open.put( purchaseId, new IncompletePurchase( purchaseId, accountId, tally, totalCost, totalSeats, false ) );
+                        break;
+                    case PAID:
+                        open.computeIfPresent( purchaseId, ( id, purchase ) -> purchase.withPaid() );
+                        break;
+                    default:
+                        open.remove( purchaseId );
+                }
+
+            } );
+
+        }
+
+        return new ArrayList<>( open.values() );
+
+    }
+
+
+    /**
+     * Reserves seats for the paid purchases and records the outcome of every one in the new journal, then
+     * deletes the segments they came from. Returns the purchases that still need someone to look at them.
+     */
+    public static List<IncompletePurchase> replay( List<IncompletePurchase> incomplete, MappedPurchaseJournal journal,
+                                                   SeatReservationService seatReservationService ) throws IOException {
+
+        List<IncompletePurchase> unresolved = new ArrayList<>();
+
+        for ( IncompletePurchase purchase: incomplete ) {
+
+            if ( purchase.isPaid() ) {
+
+                try {
+                    seatReservationService.reserveSeat( purchase.getAccountId(), purchase.getTotalSeats() );
+                    journal.reserved( purchase.getPurchaseId() );
+                    LOGGER.log( Level.INFO, "Recovered {0}", purchase );
+                    continue;
+                } catch ( RuntimeException e ) {
+                    LOGGER.log( Level.WARNING, "Could not reserve seats for " + purchase, e );
+                }
+
+            } else {
+                LOGGER.log( Level.WARNING, "Needs reconciliation, payment outcome unknown: {0}", purchase );
+            }
+
+            journal.failed( purchase.getPurchaseId() );
+            unresolved.add( purchase );
+
+        }
+
+        journal.retirePreviousSegments();
+
+        return unresolved;
+
+    }
+
+
+}
@@ -0,0 +1,416 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+
+/**
+ * An append-only PurchaseJournal in memory-mapped segment files of fixed size, see JournalRecords for the
+ * layout. Safe for any number of purchasing threads.
+ *
+ * Appends copy one 32 byte record into the current segment under a short lock and allocate nothing. A full
+ * segment is forced to disk and a new one mapped. A segment is deleted once it is no longer the newest and
+ * every purchase whose intent it holds has finished, so the directory stays small while purchases complete.
+ * Segments left by an earlier process are kept until JournalRecovery.replay has dealt with them.
+ *
+ * How long an append waits for the disk is set by the SyncPolicy. Should the GROUP_COMMIT thread fail, every
+ * append waiting on it and every later append throws IllegalStateException, as nothing more can be made durable.
+ */
+
+
+public class MappedPurchaseJournal implements PurchaseJournal, AutoCloseable {
+
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    private static final Logger LOGGER = Logger.getLogger( MappedPurchaseJournal.class.getName() );
+
+
+    private final Path directory;
+    private final SyncPolicy syncPolicy;
+    private final int segmentBytes;
+
+    // Lowest segment index written by this journal, anything below was left by an earlier process.
+    private final int firstSegmentIndex;
+
+    // Guarded by this.
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ByteBuffer record = ByteBuffer.allocate( JournalRecords.RECORD_SIZE );
+    private final CRC32C crc = new CRC32C();
+    private Segment current;
+    private long nextPurchaseId;
+    private boolean closed;
+
+    // Records appended, and records known to be on disk. Guarded by syncMonitor for GROUP_COMMIT waits.
+    private volatile long written;
+    private volatile long synced;
+    private final Object syncMonitor = new Object();
+    private boolean stopping;
+
+    // Why the GROUP_COMMIT thread died, if it has.
+    private volatile Throwable syncFailure;
+
+
+    private static final class Segment {
+
+        final int index;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        // Purchase id of the first intent in this segment, and how many of its intents are unfinished.
+        long firstPurchaseId = -1;
+        int open;
+
+        Segment( int index, Path path, FileChannel channel, MappedByteBuffer buffer ) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+    }
+
+
+    public MappedPurchaseJournal( Path directory, SyncPolicy syncPolicy ) throws IOException {
+        this( directory, syncPolicy, DEFAULT_SEGMENT_BYTES );
+    }
+
+
+    /**
+     * Opens a new segment after any already in the directory, creating the directory if needed. Purchase ids
+     * carry on from the highest one found.
+     */
+    public MappedPurchaseJournal( Path directory, SyncPolicy syncPolicy, int segmentBytes ) throws IOException {
+
+        if ( syncPolicy == null ) throw new NullPointerException();
+        if ( segmentBytes < JournalRecords.RECORD_SIZE ) throw new IllegalArgumentException( "Segment must hold at least one record" );
+
+        this.directory = Files.createDirectories( directory );
+        this.syncPolicy = syncPolicy;
+        this.segmentBytes = segmentBytes - segmentBytes % JournalRecords.RECORD_SIZE;
+
+        long[] highest = { -1L };
+        int lastIndex = -1;
+        for ( Path segment: JournalRecords.segments( this.directory ) ) {
+            JournalRecords.read( segment, ( purchaseId, event, accountId, tally, totalCost, totalSeats ) -> highest[0] = Math.max( highest[0], purchaseId ) );
+            lastIndex = JournalRecords.segmentIndex( segment );
+        }
+
+        this.nextPurchaseId = highest[0] + 1;
+        this.firstSegmentIndex = lastIndex + 1;
+        this.current = openSegment( firstSegmentIndex );
+        segments.addLast( current );
+
+        if ( syncPolicy == SyncPolicy.GROUP_COMMIT ) {
+            Thread syncer = new Thread( this::sync, "purchase-journal-sync" );
+            syncer.setDaemon( true );
+            syncer.start();
+        }
+
+    }
+
+
+    @Override
+    public long intent( long accountId, int tally, int totalCost, int totalSeats ) {
+
+        long purchaseId;
+        long sequence;
+
+        synchronized ( this ) {
+
+            purchaseId = nextPurchaseId++;
+            sequence = append( purchaseId, JournalEvent.INTENT, accountId, tally, totalCost, totalSeats );
+
+            if ( current.firstPurchaseId < 0 ) current.firstPurchaseId = purchaseId;
+            current.open++;
+
+        }
+
+        awaitSynced( sequence );
+        return purchaseId;
+
+    }
+
+
+    @Override
+    public void paid( long purchaseId ) {
+        record( purchaseId, JournalEvent.PAID );
+    }
+
+
+    @Override
+    public void reserved( long purchaseId ) {
+        record( purchaseId, JournalEvent.RESERVED );
+    }
+
+
+    @Override
+    public void failed( long purchaseId ) {
+        record( purchaseId, JournalEvent.FAILED );
+    }
+
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+
+    @Override
+    public void close() {
+
+        synchronized ( this ) {
+
+            if ( closed ) return;
+            closed = true;
+
+            current.buffer.force();
+            for ( Segment segment: segments ) closeQuietly( segment );
+
+        }
+
+        synchronized ( syncMonitor ) {
+            synced = written;
+            stopping = true;
+            syncMonitor.notifyAll();
+        }
+
+    }
+
+
+    /**
+     * Deletes the segments left by earlier processes. Called by JournalRecovery once it has finished or failed
+     * every purchase they left incomplete.
+     */
+    void retirePreviousSegments() throws IOException {
+
+        for ( Path segment: JournalRecords.segments( directory ) ) {
+            if ( JournalRecords.segmentIndex( segment ) < firstSegmentIndex ) Files.deleteIfExists( segment );
+        }
+
+    }
+
+
+    private void record( long purchaseId, JournalEvent event ) {
+
+        long sequence;
+
+        synchronized ( this ) {
+
+            sequence = append( purchaseId, event, 0L, 0, 0, 0 );
+
+            if ( event.isFinal() ) {
+                Segment segment = segmentOf( purchaseId );
+                if ( segment != null ) segment.open--;
+            }
+
+        }
+
+        awaitSynced( sequence );
+
+    }
+
+
+    // Under this. Returns the record's sequence number.
+    private long append( long purchaseId, JournalEvent event, long accountId, int tally, int totalCost, int totalSeats ) {
+
+        if ( closed ) throw new IllegalStateException( "Journal is closed" );
+        if ( syncFailure != null ) throw new IllegalStateException( "Journal sync failed", syncFailure );
+
+        if ( current.buffer.remaining() < JournalRecords.RECORD_SIZE ) roll();
+
+        JournalRecords.encode( record, crc, purchaseId, event, accountId, tally, totalCost, totalSeats );
+        current.buffer.put( record.array() );
+
+        long sequence = written + 1;
+        written = sequence;
+
+        if ( syncPolicy == SyncPolicy.EVERY_RECORD ) {
+            current.buffer.force();
+            synced = sequence;
+        }
+
+        return sequence;
+
+    }
+
+
+    // Under this. The segment holding the purchase's intent, null if it was written by an earlier process.
+    private Segment segmentOf( long purchaseId ) {
+
+        Iterator<Segment> newestFirst = segments.descendingIterator();
+        while ( newestFirst.hasNext() ) {
+            Segment segment = newestFirst.next();
+            if ( segment.firstPurchaseId >= 0 && segment.firstPurchaseId <= purchaseId ) return segment;
+        }
+
+        return null;
+
+    }
+
+
+    // Under this.
+    private void roll() {
+
+        current.buffer.force();
+
+        try {
+            current = openSegment( current.index + 1 );
+        } catch ( IOException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+        segments.addLast( current );
+
+        while ( segments.size() > 1 && segments.peekFirst().open == 0 ) {
+
+            Segment finished = segments.removeFirst();
+            closeQuietly( finished );
+
+            try {
+                Files.deleteIfExists( finished.path );
+            } catch ( IOException e ) {
+                LOGGER.log( Level.WARNING, "Could not delete finished journal segment " + finished.path, e );
+            }
+
+        }
+
+    }
+
+
+    private Segment openSegment( int index ) throws IOException {
+
+        Path path = JournalRecords.segmentPath( directory, index );
+        FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE );
+
+        try {
+            return new Segment( index, path, channel, channel.map( FileChannel.MapMode.READ_WRITE, 0, segmentBytes ) );
+        } catch ( IOException | RuntimeException e ) {
+            channel.close();
+            throw e;
+        }
+
+    }
+
+
+    private void awaitSynced( long sequence ) {
+
+        if ( syncPolicy != SyncPolicy.GROUP_COMMIT || synced >= sequence ) return;
+
+        boolean interrupted = false;
+
+        synchronized ( syncMonitor ) {
+
+            syncMonitor.notifyAll();
+
+            while ( synced < sequence && syncFailure == null ) {
+                try {
+                    syncMonitor.wait();
+                } catch ( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+
+        }
+
+        if ( interrupted ) Thread.currentThread().interrupt();
+
+        if ( synced < sequence ) throw new IllegalStateException( "Journal sync failed", syncFailure );
+
+    }
+
+
+    // The GROUP_COMMIT thread. Should it fail, its waiters are released with the failure rather than left waiting.
+    private void sync() {
+
+        try {
+            syncLoop();
+        } catch ( RuntimeException | Error e ) {
+
+            LOGGER.log( Level.SEVERE, "Journal sync thread failed, no further purchases can be journaled", e );
+
+            synchronized ( syncMonitor ) {
+                syncFailure = e;
+                syncMonitor.notifyAll();
+            }
+
+        }
+
+    }
+
+
+    // Force whatever has been written since the last force, then release its waiters.
+    private void syncLoop() {
+
+        while ( true ) {
+
+            synchronized ( syncMonitor ) {
+
+                while ( synced == written && !stopping ) {
+                    try {
+                        syncMonitor.wait();
+                    } catch ( InterruptedException e ) {
+                        throw new IllegalStateException( "Journal sync thread interrupted", e );
+                    }
+                }
+
+                if ( stopping ) return;
+
+            }
+
+            long target;
+            MappedByteBuffer buffer;
+
+            // Earlier segments were forced when they were rolled, so forcing the current one covers everything up to target.
+            synchronized ( this ) {
+                if ( closed ) return;
+                target = written;
+                buffer = current.buffer;
+            }
+
+            force( buffer );
+
+            synchronized ( syncMonitor ) {
+                if ( target > synced ) synced = target;
+                syncMonitor.notifyAll();
+            }
+
+        }
+
+    }
+
+
+    // Package-private so tests can fail the GROUP_COMMIT thread.
+    void force( MappedByteBuffer buffer ) {
+        buffer.force();
+    }
+
+
+    private static void closeQuietly( Segment segment ) {
+
+        try {
+            segment.channel.close();
+        } catch ( IOException e ) {
+            LOGGER.log( Level.FINE, "Could not close journal segment " + segment.path, e );
+        }
+
+    }
+
+
+}
@@ -0,0 +1,55 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+
+/**
+ * Where a PurchasePipeline records how far each purchase got, so a purchase interrupted by the process dying
+ * can be found and finished at the next startup. See MappedPurchaseJournal and JournalRecovery.
+ *
+ * Each method returns once its record is as durable as the journal promises. Every intent is followed by
+ * exactly one of reserved or failed, with paid in between if the payment was taken.
+ *
+ * A method may throw. If intent throws the purchase fails before anything is charged. If paid or reserved throws
+ * the third-party call has already gone through, so the pipeline logs it and carries on, leaving the record
+ * where a crash would have, for JournalRecovery to find.
+ */
+
+
+public interface PurchaseJournal {
+
+
+    PurchaseJournal NONE = new PurchaseJournal() {
+
+        @Override
+        public long intent( long accountId, int tally, int totalCost, int totalSeats ) {
+            return 0L;
+        }
+
+        @Override
+        public void paid( long purchaseId ) {
+        }
+
+        @Override
+        public void reserved( long purchaseId ) {
+        }
+
+        @Override
+        public void failed( long purchaseId ) {
+        }
+
+    };
+
+
+    // Validated, about to take payment. Returns the id the later records refer to.
+    long intent( long accountId, int tally, int totalCost, int totalSeats );
+
+    // The payment service returned.
+    void paid( long purchaseId );
+
+    // The seat reservation service returned, the purchase is complete.
+    void reserved( long purchaseId );
+
+    // A third-party call threw and the caller was told, nothing is left for recovery to do.
+    void failed( long purchaseId );
+
+
+}
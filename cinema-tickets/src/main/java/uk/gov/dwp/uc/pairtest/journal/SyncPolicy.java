@@ -0,0 +1,25 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+
+/**
+ * When MappedPurchaseJournal forces records to disk.
+ *
+ * Records are written straight into the mapped segment, so from the moment a journal method returns they
+ * survive the process dying whatever the policy. The policy decides whether they also survive the machine
+ * losing power, and what that costs each purchase.
+ */
+
+
+public enum SyncPolicy {
+
+    // Left to the operating system to write back. Fastest, lost on power failure.
+    NONE,
+
+    // A background thread forces everything written so far and releases every caller waiting on it, so
+    // concurrent purchases share one fsync. Callers wait for the fsync covering their record.
+    GROUP_COMMIT,
+
+    // Forced by the caller after every record, under the journal lock. Slowest, for comparison.
+    EVERY_RECORD
+
+}
@@ -0,0 +1,159 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.StripeProbe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ *
+ * Values below 16ns get a bucket each. Above that every power of two is split into 16 equal buckets, so any
+ * recorded value is known to within 1/16 ( ~6% ) of its true value. Values over MAX_TRACKABLE_NANOS ( ~18 minutes )
+ * are counted in the last bucket.
+ *
+ * Recording is a single atomic increment into one of several stripes, picked by StripeProbe rather than by
+ * thread id so pooled and virtual threads spread out too. A thread that finds its stripe contended moves to
+ * another for its next value, so threads recording at the same time rarely touch the same cache line.
+ * Snapshots sum the stripes.
+ */
+
+
+public class LatencyHistogram {
+
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    public static final long MAX_TRACKABLE_NANOS = ( 1L << ( MAX_EXPONENT + 1 ) ) - 1;
+
+    static final int BUCKETS = ( MAX_EXPONENT - SUB_BUCKET_BITS + 2 ) * SUB_BUCKETS;
+
+
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+
+
+    public LatencyHistogram( int stripes ) {
+
+        if ( stripes < 1 || Integer.bitCount( stripes ) != 1 ) throw new IllegalArgumentException( "Stripes must be a power of two" );
+
+        this.counts = new AtomicLongArray( stripes * BUCKETS );
+        this.stripeMask = stripes - 1;
+
+    }
+
+
+    public LatencyHistogram() {
+        this( Integer.highestOneBit( Math.max( 1, Runtime.getRuntime().availableProcessors() ) ) );
+    }
+
+
+    public void record( long nanos ) {
+
+        int index = ( StripeProbe.get() & stripeMask ) * BUCKETS + bucket( nanos );
+
+        // A failed compare-and-set means another thread is recording here: count anyway, and move for next time.
+        long count = counts.get( index );
+        if ( !counts.compareAndSet( index, count, count + 1 ) ) {
+            StripeProbe.advance();
+            counts.incrementAndGet( index );
+        }
+
+    }
+
+
+    public Snapshot snapshot() {
+
+        long[] summed = new long[ BUCKETS ];
+
+        for ( int i = 0; i < counts.length(); i++ ) summed[ i % BUCKETS ] += counts.get( i );
+
+        return new Snapshot( summed );
+
+    }
+
+
+    static int bucket( long nanos ) {
+
+        if ( nanos < SUB_BUCKETS ) return nanos < 0 ? 0 : (int) nanos;
+        if ( nanos > MAX_TRACKABLE_NANOS ) nanos = MAX_TRACKABLE_NANOS;
+
+        int exponent = 63 - Long.numberOfLeadingZeros( nanos );
+        int subBucket = (int) ( nanos >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + subBucket;
+
+    }
+
+
+    // Smallest value that lands in the bucket.
+    static long lowestValue( int bucket ) {
+
+        if ( bucket < SUB_BUCKETS ) return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+
+        return ( 1L << exponent ) | ( subBucket << ( exponent - SUB_BUCKET_BITS ) );
+
+    }
+
+
+    /**
+     * Immutable copy of the counts at one point in time.
+     */
+    public static final class Snapshot {
+
+
+        private final long[] counts;
+        private final long totalCount;
+
+
+        Snapshot( long[] counts ) {
+
+            long total = 0;
+            for ( long c: counts ) total += c;
+
+            this.counts = counts;
+            this.totalCount = total;
+
+        }
+
+
+        public long getCount() {
+            return totalCount;
+        }
+
+
+        /**
+         * The value at or below which the given percentage of recorded values fall, e.g. 99.0 for p99.
+         * Reported as the highest value of the bucket it falls in. 0 if nothing has been recorded.
+         */
+        public long valueAtPercentile( double percentile ) {
+
+            if ( totalCount == 0 ) return 0;
+
+            long target = Math.max( 1, (long) Math.ceil( totalCount * Math.min( 100.0, Math.max( 0.0, percentile ) ) / 100.0 ) );
+            long seen = 0;
+
+            for ( int i = 0; i < counts.length; i++ ) {
+                seen += counts[i];
+                if ( seen >= target ) return i + 1 < BUCKETS ? lowestValue( i + 1 ) - 1 : MAX_TRACKABLE_NANOS;
+            }
+
+            return MAX_TRACKABLE_NANOS;
+
+        }
+
+
+        public long getMaxValue() {
+            return valueAtPercentile( 100.0 );
+        }
+
+
+    }
+
+
+}
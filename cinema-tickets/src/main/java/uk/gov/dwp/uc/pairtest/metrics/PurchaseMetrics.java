@@ -0,0 +1,126 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counts and times purchases. Pass to TicketServiceImpl as its PurchaseListener.
+ *
+ * Counters are LongAdders, which stripe under contention, and latencies go into striped LatencyHistograms,
+ * so recording a purchase never blocks and rarely contends. Read everything at once through snapshot(),
+ * or register as an MXBean for JMX.
+ */
+
+
+public class PurchaseMetrics implements PurchaseListener {
+
+
+    private static final PurchaseStage[] STAGES = PurchaseStage.values();
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+    private static final TicketTypeRequest.Type[] TYPES = TicketTypeRequest.Type.values();
+
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder revenue = new LongAdder();
+    private final LongAdder[] rejected = adders( REASONS.length );
+    private final LongAdder[] failed = adders( STAGES.length );
+    private final LongAdder[] ticketsSold = adders( TYPES.length );
+
+    private final LatencyHistogram[] stageLatency = new LatencyHistogram[ STAGES.length ];
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+
+    public PurchaseMetrics() {
+        for ( int i = 0; i < STAGES.length; i++ ) stageLatency[i] = new LatencyHistogram();
+    }
+
+
+    @Override
+    public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+
+        accepted.increment();
+        revenue.add( totalCost );
+
+        ticketsSold[ TicketTypeRequest.Type.ADULT.ordinal() ].add( TicketTally.adults( tally ) );
+        ticketsSold[ TicketTypeRequest.Type.CHILD.ordinal() ].add( TicketTally.children( tally ) );
+        ticketsSold[ TicketTypeRequest.Type.INFANT.ordinal() ].add( TicketTally.infants( tally ) );
+
+        stageLatency[ PurchaseStage.VALIDATION.ordinal() ].record( validationNanos );
+        stageLatency[ PurchaseStage.PAYMENT.ordinal() ].record( paymentNanos );
+        stageLatency[ PurchaseStage.RESERVATION.ordinal() ].record( reservationNanos );
+        totalLatency.record( validationNanos + paymentNanos + reservationNanos );
+
+    }
+
+
+    @Override
+    public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+
+        rejected[ reason.ordinal() ].increment();
+        stageLatency[ PurchaseStage.VALIDATION.ordinal() ].record( validationNanos );
+
+    }
+
+
+    @Override
+    public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+        failed[ stage.ordinal() ].increment();
+    }
+
+
+    public PurchaseMetricsSnapshot snapshot() {
+
+        LatencyHistogram.Snapshot[] stages = new LatencyHistogram.Snapshot[ STAGES.length ];
+        for ( int i = 0; i < STAGES.length; i++ ) stages[i] = stageLatency[i].snapshot();
+
+        return new PurchaseMetricsSnapshot( accepted.sum(), revenue.sum(), sums( rejected ), sums( failed ), sums( ticketsSold ),
+                stages, totalLatency.snapshot() );
+
+    }
+
+
+    /**
+     * Registers an MXBean view of these metrics, e.g. under "uk.gov.dwp.uc.pairtest:type=PurchaseMetrics".
+     */
+    public ObjectName registerMBean( String objectName ) throws JMException {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName( objectName );
+
+        server.registerMBean( new PurchaseMetricsMXBeanImpl( this ), name );
+
+        return name;
+
+    }
+
+
+    private static LongAdder[] adders( int n ) {
+
+        LongAdder[] adders = new LongAdder[n];
+        for ( int i = 0; i < n; i++ ) adders[i] = new LongAdder();
+        return adders;
+
+    }
+
+
+    private static long[] sums( LongAdder[] adders ) {
+
+        long[] sums = new long[ adders.length ];
+        for ( int i = 0; i < adders.length; i++ ) sums[i] = adders[i].sum();
+        return sums;
+
+    }
+
+
+}
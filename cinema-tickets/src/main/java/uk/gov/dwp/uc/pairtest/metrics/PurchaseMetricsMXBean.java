@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.Map;
+
+
+/**
+ * JMX view of PurchaseMetrics. Latencies are in nanoseconds, maps are keyed by enum name.
+ */
+
+
+public interface PurchaseMetricsMXBean {
+
+    long getAccepted();
+
+    long getRejected();
+
+    long getRevenue();
+
+    Map<String, Long> getRejectedByReason();
+
+    Map<String, Long> getFailedByStage();
+
+    Map<String, Long> getTicketsSoldByType();
+
+    Map<String, Long> getP50LatencyByStage();
+
+    Map<String, Long> getP99LatencyByStage();
+
+    long getP99TotalLatency();
+
+}
@@ -0,0 +1,98 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Takes a fresh snapshot for every attribute read. JMX clients poll, so this is never on the purchase path.
+ */
+
+
+class PurchaseMetricsMXBeanImpl implements PurchaseMetricsMXBean {
+
+
+    private final PurchaseMetrics metrics;
+
+
+    PurchaseMetricsMXBeanImpl( PurchaseMetrics metrics ) {
+        this.metrics = metrics;
+    }
+
+
+    @Override
+    public long getAccepted() {
+        return metrics.snapshot().getAccepted();
+    }
+
+    @Override
+    public long getRejected() {
+        return metrics.snapshot().getRejected();
+    }
+
+    @Override
+    public long getRevenue() {
+        return metrics.snapshot().getRevenue();
+    }
+
+    @Override
+    public Map<String, Long> getRejectedByReason() {
+
+        PurchaseMetricsSnapshot snapshot = metrics.snapshot();
+        Map<String, Long> map = new LinkedHashMap<>();
+        for ( RejectionReason reason: RejectionReason.values() ) map.put( reason.name(), snapshot.getRejected( reason ) );
+        return map;
+
+    }
+
+    @Override
+    public Map<String, Long> getFailedByStage() {
+
+        PurchaseMetricsSnapshot snapshot = metrics.snapshot();
+        Map<String, Long> map = new LinkedHashMap<>();
+        for ( PurchaseStage stage: PurchaseStage.values() ) map.put( stage.name(), snapshot.getFailed( stage ) );
+        return map;
+
+    }
+
+    @Override
+    public Map<String, Long> getTicketsSoldByType() {
+
+        PurchaseMetricsSnapshot snapshot = metrics.snapshot();
+        Map<String, Long> map = new LinkedHashMap<>();
+        for ( TicketTypeRequest.Type type: TicketTypeRequest.Type.values() ) map.put( type.name(), snapshot.getTicketsSold( type ) );
+        return map;
+
+    }
+
+    @Override
+    public Map<String, Long> getP50LatencyByStage() {
+        return latencyByStage( 50.0 );
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyByStage() {
+        return latencyByStage( 99.0 );
+    }
+
+    @Override
+    public long getP99TotalLatency() {
+        return metrics.snapshot().getTotalLatency().valueAtPercentile( 99.0 );
+    }
+
+
+    private Map<String, Long> latencyByStage( double percentile ) {
+
+        PurchaseMetricsSnapshot snapshot = metrics.snapshot();
+        Map<String, Long> map = new LinkedHashMap<>();
+        for ( PurchaseStage stage: PurchaseStage.values() ) map.put( stage.name(), snapshot.getLatency( stage ).valueAtPercentile( percentile ) );
+        return map;
+
+    }
+
+
+}
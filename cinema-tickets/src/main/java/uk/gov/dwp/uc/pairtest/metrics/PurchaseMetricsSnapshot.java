@@ -0,0 +1,75 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+
+/**
+ * PurchaseMetrics at one point in time.
+ *
+ * Immutable Object. Counters are read one after another rather than atomically together, so under load
+ * the totals can be a purchase or two apart from each other.
+ */
+
+
+public final class PurchaseMetricsSnapshot {
+
+    private final long accepted;
+    private final long revenue;
+    private final long[] rejected;
+    private final long[] failed;
+    private final long[] ticketsSold;
+    private final LatencyHistogram.Snapshot[] stageLatency;
+    private final LatencyHistogram.Snapshot totalLatency;
+
+    PurchaseMetricsSnapshot( long accepted, long revenue, long[] rejected, long[] failed, long[] ticketsSold,
+                             LatencyHistogram.Snapshot[] stageLatency, LatencyHistogram.Snapshot totalLatency ) {
+
+        this.accepted = accepted;
+        this.revenue = revenue;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.ticketsSold = ticketsSold;
+        this.stageLatency = stageLatency;
+        this.totalLatency = totalLatency;
+
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRevenue() {
+        return revenue;
+    }
+
+    public long getRejected( RejectionReason reason ) {
+        return rejected[ reason.ordinal() ];
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for ( long r: rejected ) total += r;
+        return total;
+    }
+
+    public long getFailed( PurchaseStage stage ) {
+        return failed[ stage.ordinal() ];
+    }
+
+    public long getTicketsSold( TicketTypeRequest.Type type ) {
+        return ticketsSold[ type.ordinal() ];
+    }
+
+    public LatencyHistogram.Snapshot getLatency( PurchaseStage stage ) {
+        return stageLatency[ stage.ordinal() ];
+    }
+
+    // Validation, payment and reservation together, accepted purchases only.
+    public LatencyHistogram.Snapshot getTotalLatency() {
+        return totalLatency;
+    }
+
+
+}
@@ -0,0 +1,69 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.RuleSet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+
+/**
+ * Reads a price table from a properties file with one whole-pound price per ticket type:
+ *
+ *     ADULT=20
+ *     CHILD=10
+ *     INFANT=0
+ *
+ * Every type must be present. Anything missing, negative or not a number fails the whole file,
+ * so a half-edited file is never published.
+ *
+ * The same file can set the venue's rules with the rules.* keys described in RuleSet, for example
+ * rules.adultRequired=false for a child-only matinee. Prices and rules are published together.
+ */
+
+
+public final class PriceFile {
+
+
+    private PriceFile() {
+    }
+
+
+    public static PricingTable load( Path file ) throws IOException {
+
+        Properties properties = new Properties();
+
+        try ( Reader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) ) {
+            properties.load( reader );
+        }
+
+        return PricingTable.build( new PurchaseEvaluator(
+                price( properties, TicketTypeRequest.Type.ADULT ),
+                price( properties, TicketTypeRequest.Type.CHILD ),
+                price( properties, TicketTypeRequest.Type.INFANT ) ), RuleSet.fromProperties( properties ) );
+
+    }
+
+
+    private static int price( Properties properties, TicketTypeRequest.Type type ) {
+
+        String value = properties.getProperty( type.name() );
+
+        if ( value == null ) throw new IllegalArgumentException( "No price for " + type );
+
+        try {
+            return Integer.parseInt( value.trim() );
+        } catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( "Price for " + type + " is not a whole number: " + value );
+        }
+
+    }
+
+
+}
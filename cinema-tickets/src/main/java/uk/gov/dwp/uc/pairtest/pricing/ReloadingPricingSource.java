@@ -0,0 +1,115 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Prices loaded from a PriceFile and reloaded whenever the file changes.
+ *
+ * Each load builds a complete PricingTable and publishes it with a single atomic reference write, so purchases
+ * never see a half-updated price list and reading the current prices never takes a lock.
+ * A file that fails to load is logged and ignored, the previous prices stay in force.
+ */
+
+
+public class ReloadingPricingSource implements PricingSource, AutoCloseable {
+
+
+    private static final Logger LOGGER = Logger.getLogger( ReloadingPricingSource.class.getName() );
+
+
+    private final Path file;
+    private final AtomicReference<PricingTable> current;
+    private final WatchService watchService;
+
+
+    /**
+     * Loads the file straight away and fails if it cannot, then watches it from a daemon thread.
+     */
+    public ReloadingPricingSource( Path file ) throws IOException {
+
+        this.file = file.toAbsolutePath();
+        this.current = new AtomicReference<>( PriceFile.load( this.file ) );
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register( watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY );
+
+        Thread watcher = new Thread( this::watch, "price-file-watcher" );
+        watcher.setDaemon( true );
+        watcher.start();
+
+    }
+
+
+    @Override
+    public PricingTable current() {
+        return current.get();
+    }
+
+
+    /**
+     * Loads the file now rather than waiting for the watcher. Returns true if new prices were published.
+     */
+    public boolean reload() {
+
+        try {
+            PricingTable table = PriceFile.load( file );
+            current.set( table );
+            LOGGER.log( Level.INFO, "Published prices from {0}: {1}", new Object[] { file, table } );
+            return true;
+        } catch ( IOException | RuntimeException e ) {
+            LOGGER.log( Level.WARNING, "Kept previous prices, could not load " + file, e );
+            return false;
+        }
+
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+
+    private void watch() {
+
+        try {
+
+            while ( true ) {
+
+                WatchKey key = watchService.take();
+
+                boolean changed = false;
+                for ( WatchEvent<?> event: key.pollEvents() ) {
+                    Object context = event.context();
+                    if ( context instanceof Path && file.getFileName().equals( context ) ) changed = true;
+                }
+
+                if ( changed ) reload();
+
+                if ( !key.reset() ) return;
+
+            }
+
+        } catch ( InterruptedException | ClosedWatchServiceException e ) {
+            // Closed, stop watching.
+        }
+
+    }
+
+
+}
@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+
+
+/**
+ * One promotion in a PromotionSet. See Promotions for the ones we run.
+ */
+
+
+@FunctionalInterface
+public interface Promotion {
+
+    /**
+     * How much to take off a basket already priced at cost by the base prices and earlier promotions.
+     * Anything below 0 or above cost is clamped.
+     */
+    int discount( int adults, int children, int infants, PurchaseEvaluator prices, int cost );
+
+}
@@ -0,0 +1,66 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+
+/**
+ * Prices baskets under a PromotionSet, remembering each quote in a QuoteCache.
+ *
+ * There are only a few thousand possible baskets, so popular ones stay cached and a repeat quote costs one
+ * lookup however many promotions are stacked. A new PromotionSet has a new version, so its quotes are
+ * computed afresh and the old set's entries are evicted as they are overwritten.
+ */
+
+
+public class PromotionPricing {
+
+
+    // Room for every basket of about three sets.
+    public static final int DEFAULT_CACHE_SLOTS = 1 << 15;
+
+
+    private final QuoteCache cache;
+
+
+    public PromotionPricing() {
+        this( DEFAULT_CACHE_SLOTS );
+    }
+
+
+    public PromotionPricing( int cacheSlots ) {
+        this.cache = new QuoteCache( cacheSlots );
+    }
+
+
+    /**
+     * The price of the basket under the promotions. The basket is not validated, so quote valid baskets only.
+     */
+    public int quote( PromotionSet promotions, int tally ) {
+
+        if ( tally < 0 || tally >= TicketTally.SIZE ) throw new IllegalArgumentException( "Not a TicketTally within the ticket limit: " + tally );
+
+        long key = QuoteCache.key( promotions.getVersion(), tally );
+
+        int cost = cache.get( key );
+        if ( cost >= 0 ) return cost;
+
+        cost = promotions.price( tally );
+        cache.put( key, cost );
+
+        return cost;
+
+    }
+
+
+    public int quote( PromotionSet promotions, TicketTypeRequest... ticketTypeRequests ) {
+        return quote( promotions, TicketTally.of( ticketTypeRequests ) );
+    }
+
+
+    public QuoteCache getCache() {
+        return cache;
+    }
+
+
+}
@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Base prices and the promotions stacked on them, applied in order. For example off-peak, members and
+ * peak would each be a set, chosen per purchase.
+ *
+ * Immutable. Every set gets a new version number, which is what PromotionPricing caches quotes under,
+ * so changing prices or promotions means making a new set and old quotes are never served for it.
+ */
+
+
+public final class PromotionSet {
+
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+
+    private final String name;
+    private final long version;
+    private final PurchaseEvaluator prices;
+    private final List<Promotion> promotions;
+
+
+    public PromotionSet( String name, PurchaseEvaluator prices, List<Promotion> promotions ) {
+
+        if ( name == null || prices == null || promotions == null ) throw new NullPointerException();
+
+        this.name = name;
+        this.version = VERSIONS.incrementAndGet();
+        this.prices = prices;
+        this.promotions = Collections.unmodifiableList( new ArrayList<>( promotions ) );
+
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PurchaseEvaluator getPrices() {
+        return prices;
+    }
+
+    public List<Promotion> getPromotions() {
+        return promotions;
+    }
+
+
+    /**
+     * The basket's price with every promotion applied, computed from scratch. Prefer PromotionPricing.quote.
+     */
+    public int price( int tally ) {
+
+        int adults = TicketTally.adults( tally );
+        int children = TicketTally.children( tally );
+        int infants = TicketTally.infants( tally );
+
+        int cost = prices.totalCost( tally );
+
+        for ( Promotion promotion: promotions ) {
+            int discount = promotion.discount( adults, children, infants, prices, cost );
+            cost -= Math.max( 0, Math.min( cost, discount ) );
+        }
+
+        return cost;
+
+    }
+
+
+    @Override
+    public String toString() {
+        return "PromotionSet{" + name + " v" + version + ", " + promotions.size() + " promotions}";
+    }
+
+
+}
@@ -0,0 +1,93 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+
+
+/**
+ * The promotions we run, to stack in a PromotionSet.
+ */
+
+
+public final class Promotions {
+
+
+    private Promotions() {
+    }
+
+
+    /**
+     * Each complete group of the given adults and children costs bundlePrice, e.g. familyBundle( 2, 2, 50 ).
+     */
+    public static Promotion familyBundle( int adults, int children, int bundlePrice ) {
+
+        if ( adults < 1 || children < 0 || bundlePrice < 0 ) throw new IllegalArgumentException( "A bundle needs an adult and a price" );
+
+        return ( a, c, i, prices, cost ) -> {
+
+            int bundles = children == 0 ? a / adults : Math.min( a / adults, c / children );
+            int saving = adults * prices.getAdultTicketCost() + children * prices.getChildTicketCost() - bundlePrice;
+
+            return saving > 0 ? bundles * saving : 0;
+
+        };
+
+    }
+
+
+    /**
+     * A percentage off the whole basket, rounded down, e.g. off-peak screenings.
+     */
+    public static Promotion percentOff( int percent ) {
+
+        if ( percent < 0 || percent > 100 ) throw new IllegalArgumentException( "Percent must be between 0 and 100" );
+
+        return ( a, c, i, prices, cost ) -> (int) ( (long) cost * percent / 100 );
+
+    }
+
+
+    /**
+     * One ticket type at a lower price, e.g. members' adult tickets. Never raises a price.
+     */
+    public static Promotion typePrice( TicketTypeRequest.Type type, int price ) {
+
+        if ( type == null ) throw new NullPointerException();
+        if ( price < 0 ) throw new IllegalArgumentException( "Price cannot be negative" );
+
+        return ( a, c, i, prices, cost ) -> {
+
+            int count = type == TicketTypeRequest.Type.ADULT ? a : type == TicketTypeRequest.Type.CHILD ? c : i;
+            int saving = basePrice( prices, type ) - price;
+
+            return saving > 0 ? count * saving : 0;
+
+        };
+
+    }
+
+
+    /**
+     * A fixed amount off baskets of at least minTickets tickets.
+     */
+    public static Promotion amountOff( int minTickets, int amount ) {
+
+        if ( minTickets < 1 || amount < 0 ) throw new IllegalArgumentException( "Needs at least one ticket and a positive amount" );
+
+        return ( a, c, i, prices, cost ) -> a + c + i >= minTickets ? amount : 0;
+
+    }
+
+
+    private static int basePrice( PurchaseEvaluator prices, TicketTypeRequest.Type type ) {
+
+        switch ( type ) {
+            case ADULT: return prices.getAdultTicketCost();
+            case CHILD: return prices.getChildTicketCost();
+            default: return prices.getInfantTicketCost();
+        }
+
+    }
+
+
+}
@@ -0,0 +1,96 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A bounded, thread-safe cache of basket prices keyed on ( promotion set version, TicketTally ).
+ *
+ * Direct mapped: each key hashes to one slot, and a new entry evicts whatever was there. Entries are small
+ * immutable objects swapped in whole, so a reader sees a complete entry or none and never takes a lock.
+ * A hit allocates nothing.
+ */
+
+
+public final class QuoteCache {
+
+
+    private static final class Entry {
+
+        final long key;
+        final int cost;
+
+        Entry( long key, int cost ) {
+            this.key = key;
+            this.cost = cost;
+        }
+
+    }
+
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+
+    public QuoteCache( int slots ) {
+
+        if ( slots < 1 || Integer.bitCount( slots ) != 1 ) throw new IllegalArgumentException( "Slots must be a power of two" );
+
+        this.slots = new AtomicReferenceArray<>( slots );
+        this.mask = slots - 1;
+
+    }
+
+
+    static long key( long version, int tally ) {
+        return version * TicketTally.SIZE + tally;
+    }
+
+
+    // The cached cost, or -1.
+    int get( long key ) {
+
+        Entry entry = slots.get( slot( key ) );
+
+        if ( entry != null && entry.key == key ) {
+            hits.increment();
+            return entry.cost;
+        }
+
+        misses.increment();
+        return -1;
+
+    }
+
+
+    void put( long key, int cost ) {
+        slots.set( slot( key ), new Entry( key, cost ) );
+    }
+
+
+    public int getSlots() {
+        return mask + 1;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+
+    // Fibonacci hashing, neighbouring tallies and versions land far apart.
+    private int slot( long key ) {
+        return (int) ( ( key * 0x9E3779B97F4A7C15L ) >>> 32 ) & mask;
+    }
+
+
+}
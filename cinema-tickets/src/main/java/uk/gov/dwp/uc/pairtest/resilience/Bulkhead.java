@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A limit on concurrent calls to one dependency. Callers over the limit are refused straight away rather
+ * than queued, so a slow dependency can hold at most that many threads.
+ */
+
+
+public final class Bulkhead {
+
+
+    private final int maxConcurrentCalls;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+
+    public Bulkhead( int maxConcurrentCalls ) {
+
+        if ( maxConcurrentCalls < 1 ) throw new IllegalArgumentException( "At least one concurrent call is needed" );
+
+        this.maxConcurrentCalls = maxConcurrentCalls;
+
+    }
+
+
+    public boolean tryAcquire() {
+
+        while ( true ) {
+            int current = inFlight.get();
+            if ( current >= maxConcurrentCalls ) return false;
+            if ( inFlight.compareAndSet( current, current + 1 ) ) return true;
+        }
+
+    }
+
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+
+}
@@ -0,0 +1,159 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Opens after a run of consecutive failures, refuses calls while open, then lets a single probe through to
+ * decide whether to close again. See CircuitState.
+ *
+ * The whole state is one AtomicLong, updated by compare-and-set:
+ *
+ *     CLOSED      failures << 2 | 0
+ *     OPEN        openedAt << 2 | 1     nanoseconds since the breaker was created
+ *     HALF_OPEN   openedAt << 2 | 2     of the opening being probed
+ *
+ * A closed breaker with no failures is never written to, so the common path is a single volatile read.
+ *
+ * tryAcquire returns the state word it admitted the call under as the call's permit, and the outcome is reported
+ * with it. While half open only the probe's permit matches the state, so a call admitted before the breaker
+ * opened cannot close it, or open it again, when it finally returns.
+ */
+
+
+public final class CircuitBreaker {
+
+
+    private static final long CLOSED = 0L;
+    private static final long OPEN = 1L;
+    private static final long HALF_OPEN = 2L;
+
+    /**
+     * Returned by tryAcquire when the call must not go ahead. Never a state word, as those never have both low bits set.
+     */
+    public static final long REFUSED = -1L;
+
+    private static final CircuitState[] STATES = CircuitState.values();
+
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    private final AtomicLong state = new AtomicLong( CLOSED );
+    private final AtomicLong timesOpened = new AtomicLong();
+
+
+    public CircuitBreaker( int failureThreshold, long openDuration, TimeUnit unit ) {
+        this( failureThreshold, openDuration, unit, System::nanoTime );
+    }
+
+
+    public CircuitBreaker( int failureThreshold, long openDuration, TimeUnit unit, LongSupplier nanoClock ) {
+
+        if ( failureThreshold < 1 ) throw new IllegalArgumentException( "Failure threshold must be at least 1" );
+        if ( openDuration < 0 ) throw new IllegalArgumentException( "Open duration must not be negative" );
+
+        this.failureThreshold = failureThreshold;
+        this.openNanos = unit.toNanos( openDuration );
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+
+    }
+
+
+    /**
+     * The call's permit if it may go ahead, in which case exactly one of onSuccess, onFailure or onAbandoned must
+     * follow with that permit. REFUSED if not.
+     */
+    public long tryAcquire() {
+
+        long current = state.get();
+
+        if ( ( current & 3L ) == CLOSED ) return current;
+        if ( ( current & 3L ) == HALF_OPEN ) return REFUSED;
+
+        long openedAt = current >>> 2;
+        if ( elapsed() - openedAt < openNanos ) return REFUSED;
+
+        // Open long enough, the first caller to get here becomes the probe.
+        long probe = ( current & ~3L ) | HALF_OPEN;
+
+        return state.compareAndSet( current, probe ) ? probe : REFUSED;
+
+    }
+
+
+    public void onSuccess( long permit ) {
+
+        long current = state.get();
+
+        // Nothing to reset, a call that started before the breaker opened, or one from before this probe.
+        if ( current == CLOSED || ( current & 3L ) == OPEN || isStale( current, permit ) ) return;
+
+        state.compareAndSet( current, CLOSED );
+
+    }
+
+
+    public void onFailure( long permit ) {
+
+        while ( true ) {
+
+            long current = state.get();
+
+            if ( ( current & 3L ) == OPEN || isStale( current, permit ) ) return;
+
+            long failures = ( current & 3L ) == HALF_OPEN ? failureThreshold : ( current >>> 2 ) + 1;
+            long next = failures >= failureThreshold ? elapsed() << 2 | OPEN : failures << 2 | CLOSED;
+
+            if ( state.compareAndSet( current, next ) ) {
+                if ( ( next & 3L ) == OPEN ) timesOpened.incrementAndGet();
+                return;
+            }
+
+        }
+
+    }
+
+
+    /**
+     * The call was acquired but never made, for example because it was refused a bulkhead slot. A probe
+     * hands its turn back so the next caller can probe straight away.
+     */
+    public void onAbandoned( long permit ) {
+
+        long current = state.get();
+
+        if ( ( current & 3L ) == HALF_OPEN && current == permit ) state.compareAndSet( current, ( elapsed() - openNanos ) << 2 | OPEN );
+
+    }
+
+
+    public CircuitState getState() {
+
+        return STATES[ (int) ( state.get() & 3L ) ];
+
+    }
+
+
+    public long getTimesOpened() {
+        return timesOpened.get();
+    }
+
+
+    // Half open, but not for the call holding this permit.
+    private static boolean isStale( long current, long permit ) {
+        return ( current & 3L ) == HALF_OPEN && current != permit;
+    }
+
+
+    private long elapsed() {
+        return nanoClock.getAsLong() - origin;
+    }
+
+
+}
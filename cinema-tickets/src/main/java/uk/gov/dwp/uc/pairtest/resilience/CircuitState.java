@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+
+/**
+ * The states of a CircuitBreaker.
+ */
+
+
+public enum CircuitState {
+
+    // Calls go through. Consecutive failures are counted.
+    CLOSED,
+
+    // Calls are refused without trying, until the open duration has passed.
+    OPEN,
+
+    // One probe call has been let through, the rest are refused until it succeeds ( CLOSED ) or fails ( OPEN ).
+    HALF_OPEN
+
+}
@@ -0,0 +1,240 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseExecutors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Protects callers from one third-party dependency with a Bulkhead, a CircuitBreaker and a call timeout.
+ * Wrap a gateway with protectPayments() or protectSeats() and pass the result to TicketServiceImpl:
+ *
+ *     new TicketServiceImpl( seatGuard.protectSeats( seatReservationService ), paymentGuard.protectPayments( ticketPaymentService ) )
+ *
+ * A call refused by the bulkhead or breaker throws GatewayUnavailableException without touching the gateway.
+ * With a timeout, the call runs on the guard's executor while the caller waits at most that long. A call
+ * that times out keeps its bulkhead slot until it really returns, so a hung gateway can never hold more
+ * threads than the bulkhead allows. Note a payment that timed out may still go through.
+ *
+ * Timeouts and gateway exceptions count as breaker failures.
+ */
+
+
+public class GatewayGuard implements AutoCloseable {
+
+
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final long callTimeoutNanos;
+    private final ExecutorService executor;
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder refusedOpen = new LongAdder();
+    private final LongAdder refusedFull = new LongAdder();
+
+
+    /**
+     * Calls run on virtual threads, or a pool the size of the bulkhead before Java 21.
+     */
+    public GatewayGuard( String name, int maxConcurrentCalls, long callTimeout, TimeUnit unit, CircuitBreaker circuitBreaker ) {
+        this( name, new Bulkhead( maxConcurrentCalls ), circuitBreaker, callTimeout, unit,
+                PurchaseExecutors.virtualThreadsOrFixedPool( maxConcurrentCalls ) );
+    }
+
+
+    /**
+     * A callTimeout of 0 runs calls on the caller's thread with no timeout, and the executor may be null.
+     */
+    public GatewayGuard( String name, Bulkhead bulkhead, CircuitBreaker circuitBreaker, long callTimeout, TimeUnit unit, ExecutorService executor ) {
+
+        if ( name == null || bulkhead == null || circuitBreaker == null ) throw new NullPointerException();
+        if ( callTimeout < 0 ) throw new IllegalArgumentException( "Call timeout must not be negative" );
+        if ( callTimeout > 0 && executor == null ) throw new NullPointerException( "A timeout needs an executor" );
+
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.callTimeoutNanos = unit.toNanos( callTimeout );
+        this.executor = executor;
+
+    }
+
+
+    public ResilientTicketPaymentService protectPayments( TicketPaymentService ticketPaymentService ) {
+        return new ResilientTicketPaymentService( ticketPaymentService, this );
+    }
+
+
+    public ResilientSeatReservationService protectSeats( SeatReservationService seatReservationService ) {
+        return new ResilientSeatReservationService( seatReservationService, this );
+    }
+
+
+    /**
+     * Runs the call if the bulkhead and breaker allow it. Exceptions from the call are rethrown as they are.
+     */
+    public void call( Runnable call ) {
+
+        if ( !bulkhead.tryAcquire() ) {
+            refusedFull.increment();
+            throw new GatewayUnavailableException( name, GatewayUnavailableException.Reason.BULKHEAD_FULL, null );
+        }
+
+        long permit = circuitBreaker.tryAcquire();
+
+        if ( permit == CircuitBreaker.REFUSED ) {
+            bulkhead.release();
+            refusedOpen.increment();
+            throw new GatewayUnavailableException( name, GatewayUnavailableException.Reason.CIRCUIT_OPEN, null );
+        }
+
+        if ( callTimeoutNanos == 0 ) callInline( call, permit );
+        else callWithTimeout( call, permit );
+
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitState getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public long getTimesOpened() {
+        return circuitBreaker.getTimesOpened();
+    }
+
+    public int getInFlight() {
+        return bulkhead.getInFlight();
+    }
+
+    public long getSucceeded() {
+        return succeeded.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public long getRefusedOpen() {
+        return refusedOpen.sum();
+    }
+
+    public long getRefusedFull() {
+        return refusedFull.sum();
+    }
+
+
+    /**
+     * Registers an MXBean view of this guard, e.g. under "uk.gov.dwp.uc.pairtest:type=GatewayGuard,name=payment".
+     */
+    public ObjectName registerMBean( String objectName ) throws JMException {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName( objectName );
+
+        server.registerMBean( new GatewayGuardMXBeanImpl( this ), name );
+
+        return name;
+
+    }
+
+
+    @Override
+    public void close() {
+        if ( executor != null ) executor.shutdown();
+    }
+
+
+    private void callInline( Runnable call, long permit ) {
+
+        try {
+            call.run();
+        } catch ( RuntimeException e ) {
+            failed.increment();
+            circuitBreaker.onFailure( permit );
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+
+        succeeded.increment();
+        circuitBreaker.onSuccess( permit );
+
+    }
+
+
+    private void callWithTimeout( Runnable call, long permit ) {
+
+        Future<?> running;
+
+        try {
+            running = executor.submit( () -> {
+                try {
+                    call.run();
+                } finally {
+                    bulkhead.release();
+                }
+            } );
+        } catch ( RejectedExecutionException e ) {
+            bulkhead.release();
+            circuitBreaker.onAbandoned( permit );
+            throw e;
+        }
+
+        try {
+
+            running.get( callTimeoutNanos, TimeUnit.NANOSECONDS );
+
+        } catch ( ExecutionException e ) {
+
+            failed.increment();
+            circuitBreaker.onFailure( permit );
+
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+            if ( cause instanceof Error ) throw (Error) cause;
+            throw new IllegalStateException( cause );
+
+        } catch ( TimeoutException e ) {
+
+            timedOut.increment();
+            circuitBreaker.onFailure( permit );
+            throw new GatewayUnavailableException( name, GatewayUnavailableException.Reason.TIMEOUT, e );
+
+        } catch ( InterruptedException e ) {
+
+            Thread.currentThread().interrupt();
+            circuitBreaker.onAbandoned( permit );
+            throw new GatewayUnavailableException( name, GatewayUnavailableException.Reason.INTERRUPTED, e );
+
+        }
+
+        succeeded.increment();
+        circuitBreaker.onSuccess( permit );
+
+    }
+
+
+}
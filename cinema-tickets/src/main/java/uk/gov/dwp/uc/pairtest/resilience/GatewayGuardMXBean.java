@@ -0,0 +1,27 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+
+/**
+ * JMX view of a GatewayGuard. CircuitState is the CircuitState name.
+ */
+
+
+public interface GatewayGuardMXBean {
+
+    String getCircuitState();
+
+    long getTimesOpened();
+
+    int getInFlight();
+
+    long getSucceeded();
+
+    long getFailed();
+
+    long getTimedOut();
+
+    long getRefusedOpen();
+
+    long getRefusedFull();
+
+}
@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+
+/**
+ * Reads the guard's live counters on every attribute read.
+ */
+
+
+class GatewayGuardMXBeanImpl implements GatewayGuardMXBean {
+
+
+    private final GatewayGuard guard;
+
+
+    GatewayGuardMXBeanImpl( GatewayGuard guard ) {
+        this.guard = guard;
+    }
+
+
+    @Override
+    public String getCircuitState() {
+        return guard.getCircuitState().name();
+    }
+
+    @Override
+    public long getTimesOpened() {
+        return guard.getTimesOpened();
+    }
+
+    @Override
+    public int getInFlight() {
+        return guard.getInFlight();
+    }
+
+    @Override
+    public long getSucceeded() {
+        return guard.getSucceeded();
+    }
+
+    @Override
+    public long getFailed() {
+        return guard.getFailed();
+    }
+
+    @Override
+    public long getTimedOut() {
+        return guard.getTimedOut();
+    }
+
+    @Override
+    public long getRefusedOpen() {
+        return guard.getRefusedOpen();
+    }
+
+    @Override
+    public long getRefusedFull() {
+        return guard.getRefusedFull();
+    }
+
+
+}
@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+
+/**
+ * A third-party call refused or abandoned by a GatewayGuard. Unlike a failure from the gateway itself,
+ * for every reason except TIMEOUT the call was never made.
+ */
+
+
+public class GatewayUnavailableException extends RuntimeException {
+
+
+    private static final long serialVersionUID = 1L;
+
+
+    public enum Reason {
+        CIRCUIT_OPEN,
+        BULKHEAD_FULL,
+        TIMEOUT,
+        INTERRUPTED
+    }
+
+
+    private final String gateway;
+    private final Reason reason;
+
+
+    public GatewayUnavailableException( String gateway, Reason reason, Throwable cause ) {
+
+        // Refusals are routine while a gateway is down, so skip the stack trace like InvalidPurchaseException does.
+        super( gateway + ": " + reason, cause, false, false );
+
+        this.gateway = gateway;
+        this.reason = reason;
+
+    }
+
+
+    public String getGateway() {
+        return gateway;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+
+}
@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+
+/**
+ * A SeatReservationService behind a GatewayGuard. Made with GatewayGuard.protect.
+ */
+
+
+public class ResilientSeatReservationService implements SeatReservationService {
+
+
+    private final SeatReservationService delegate;
+    private final GatewayGuard guard;
+
+
+    ResilientSeatReservationService( SeatReservationService delegate, GatewayGuard guard ) {
+
+        if ( delegate == null ) throw new NullPointerException();
+
+        this.delegate = delegate;
+        this.guard = guard;
+
+    }
+
+
+    @Override
+    public void reserveSeat( long accountId, int totalSeatsToAllocate ) {
+        guard.call( () -> delegate.reserveSeat( accountId, totalSeatsToAllocate ) );
+    }
+
+
+    public GatewayGuard getGuard() {
+        return guard;
+    }
+
+
+}
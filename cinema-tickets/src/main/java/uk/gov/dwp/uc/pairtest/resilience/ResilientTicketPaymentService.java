@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+
+/**
+ * A TicketPaymentService behind a GatewayGuard. Made with GatewayGuard.protect.
+ */
+
+
+public class ResilientTicketPaymentService implements TicketPaymentService {
+
+
+    private final TicketPaymentService delegate;
+    private final GatewayGuard guard;
+
+
+    ResilientTicketPaymentService( TicketPaymentService delegate, GatewayGuard guard ) {
+
+        if ( delegate == null ) throw new NullPointerException();
+
+        this.delegate = delegate;
+        this.guard = guard;
+
+    }
+
+
+    @Override
+    public void makePayment( long accountId, int totalAmountToPay ) {
+        guard.call( () -> delegate.makePayment( accountId, totalAmountToPay ) );
+    }
+
+
+    public GatewayGuard getGuard() {
+        return guard;
+    }
+
+
+}
@@ -0,0 +1,23 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+
+/**
+ * Undoes the third-party calls for SagaTicketService. The third-party services have no way to do this
+ * themselves, so the application supplies it, for example by raising a refund request with finance.
+ *
+ * Called on the saga's executor and retried under its RetryPolicy, so implementations may block and throw,
+ * but should be safe to repeat.
+ */
+
+
+public interface Compensations {
+
+
+    // Give back a payment that was taken for a purchase that did not complete.
+    void refund( long accountId, int totalCost );
+
+    // Give back seats reserved for a purchase that did not complete.
+    void releaseSeats( long accountId, int totalSeats );
+
+
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+
+/**
+ * A purchase that SagaTicketService could not complete, after retrying the failed step where that was safe.
+ *
+ * The stage is the step that failed. The compensation undoes whatever the purchase got as far as doing, and
+ * may still be pending when the purchase fails: a call that timed out is only compensated if and when it goes
+ * through after all. It completes exceptionally if a compensation failed, which has been logged and needs
+ * someone to look at it. Not serialized, a deserialized exception reports its compensation as pending.
+ */
+
+
+public class PurchaseSagaException extends RuntimeException {
+
+
+    private static final long serialVersionUID = 1L;
+
+
+    private final long accountId;
+    private final PurchaseStage stage;
+    private final transient CompletableFuture<Void> compensation;
+
+
+    public PurchaseSagaException( long accountId, PurchaseStage stage, CompletableFuture<Void> compensation, Throwable cause ) {
+
+        super( stage + " failed for AccountID " + accountId + describe( compensation ), cause );
+
+        this.accountId = accountId;
+        this.stage = stage;
+        this.compensation = compensation;
+
+    }
+
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public PurchaseStage getStage() {
+        return stage;
+    }
+
+    // Completes once everything the purchase did has been undone.
+    public CompletionStage<Void> getCompensation() {
+        return compensation == null ? new CompletableFuture<Void>().minimalCompletionStage() : compensation.minimalCompletionStage();
+    }
+
+    // True once compensation has finished without failing.
+    public boolean isCompensated() {
+        return compensation != null && compensation.isDone() && !compensation.isCompletedExceptionally();
+    }
+
+    public boolean isCompensationPending() {
+        return compensation == null || !compensation.isDone();
+    }
+
+
+    private static String describe( CompletableFuture<Void> compensation ) {
+
+        if ( !compensation.isDone() ) return ", compensation pending";
+        return compensation.isCompletedExceptionally() ? ", compensation failed" : "";
+
+    }
+
+
+}
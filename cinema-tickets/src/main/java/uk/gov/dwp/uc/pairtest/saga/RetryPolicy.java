@@ -0,0 +1,69 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * How SagaTicketService retries a step: how many attempts, how long each may take, and how long to wait
+ * between them.
+ *
+ * The wait is full jitter exponential backoff, a random time up to initialBackoff doubled for every failed
+ * attempt and capped at maxBackoff, so purchases that failed together do not all retry together.
+ */
+
+
+public final class RetryPolicy {
+
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long callTimeoutNanos;
+
+
+    public RetryPolicy( int maxAttempts, long initialBackoff, long maxBackoff, long callTimeout, TimeUnit unit ) {
+
+        if ( maxAttempts < 1 ) throw new IllegalArgumentException( "At least one attempt is needed" );
+        if ( initialBackoff < 0 || maxBackoff < initialBackoff ) throw new IllegalArgumentException( "Backoff must be 0 <= initial <= max" );
+        if ( callTimeout <= 0 ) throw new IllegalArgumentException( "Call timeout must be positive" );
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = unit.toNanos( initialBackoff );
+        this.maxBackoffNanos = unit.toNanos( maxBackoff );
+        this.callTimeoutNanos = unit.toNanos( callTimeout );
+
+    }
+
+
+    // 3 attempts, 50ms doubling to at most 1s between them, 5s per call.
+    public static RetryPolicy standard() {
+        return new RetryPolicy( 3, 50, 1000, 5000, TimeUnit.MILLISECONDS );
+    }
+
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getCallTimeoutNanos() {
+        return callTimeoutNanos;
+    }
+
+
+    /**
+     * How long to wait before the next attempt, after failedAttempts ( 1 or more ) have failed.
+     */
+    public long backoffNanos( int failedAttempts ) {
+
+        if ( initialBackoffNanos == 0 ) return 0L;
+
+        int doublings = Math.min( failedAttempts - 1, 62 - ( 63 - Long.numberOfLeadingZeros( initialBackoffNanos ) ) );
+        long ceiling = Math.min( maxBackoffNanos, initialBackoffNanos << Math.max( 0, doublings ) );
+
+        return ThreadLocalRandom.current().nextLong( ceiling + 1 );
+
+    }
+
+
+}
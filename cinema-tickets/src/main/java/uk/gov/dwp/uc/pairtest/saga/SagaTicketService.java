@@ -0,0 +1,272 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.PricedPurchase;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Runs each purchase as a saga of two steps, payment then reservation, each with a compensation: a refund
+ * for the payment and a seat release for the reservation. See Compensations.
+ *
+ * The payment gets one attempt. The payment service cannot tell a retry from a second purchase, so a payment
+ * that throws or times out is never tried again: one that throws is taken not to have charged anything, as
+ * everywhere else, and one that times out is refunded if it goes through after all.
+ *
+ * A reservation that throws is retried under the RetryPolicy. If it still fails, or times out, the payment is
+ * refunded, again with retries, and the purchase fails with a PurchaseSagaException. A timed out reservation
+ * that goes through later has its seats released. Compensation for a call that timed out is reported as pending
+ * until that call has finished and, if it went through, been undone.
+ *
+ * Purchases go through the PurchasePipeline, so its listener and journal see them. A purchase whose call timed
+ * out is only failed in the journal once that call has returned, so one that never does is left for recovery.
+ *
+ * Validation runs on the caller's thread. Calls and compensations run on the call executor and waits
+ * between retries on the scheduler, so no request thread ever blocks on them.
+ */
+
+
+public class SagaTicketService implements AsyncTicketService {
+
+
+    private static final Logger LOGGER = Logger.getLogger( SagaTicketService.class.getName() );
+
+    private static final CompletableFuture<Void> NOTHING_TO_UNDO = CompletableFuture.completedFuture( null );
+
+
+    private final PurchasePipeline purchasePipeline;
+    private final Compensations compensations;
+    private final RetryPolicy retryPolicy;
+    private final Executor callExecutor;
+    private final ScheduledExecutorService scheduler;
+
+
+    public SagaTicketService( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+                              Compensations compensations, Executor callExecutor, ScheduledExecutorService scheduler ) {
+        this( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), compensations, RetryPolicy.standard(), callExecutor, scheduler );
+    }
+
+
+    public SagaTicketService( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService, PricingSource pricingSource,
+                              Compensations compensations, RetryPolicy retryPolicy, Executor callExecutor, ScheduledExecutorService scheduler ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ), compensations, retryPolicy, callExecutor, scheduler );
+    }
+
+
+    public SagaTicketService( PurchasePipeline purchasePipeline, Compensations compensations, RetryPolicy retryPolicy,
+                              Executor callExecutor, ScheduledExecutorService scheduler ) {
+
+        if ( purchasePipeline == null || compensations == null || retryPolicy == null || callExecutor == null || scheduler == null ) {
+            throw new NullPointerException();
+        }
+
+        this.purchasePipeline = purchasePipeline;
+        this.compensations = compensations;
+        this.retryPolicy = retryPolicy;
+        this.callExecutor = callExecutor;
+        this.scheduler = scheduler;
+
+    }
+
+
+    @Override
+    public CompletableFuture<PurchaseResult> purchaseTickets( long accountId, TicketTypeRequest... ticketTypeRequests ) {
+
+        PricedPurchase purchase;
+
+        try {
+            purchase = purchasePipeline.price( accountId, ticketTypeRequests );
+        } catch ( RuntimeException e ) {
+            // Rejected, or null requests.
+            return CompletableFuture.failedFuture( e );
+        }
+
+        CompletableFuture<PurchaseResult> result = new CompletableFuture<>();
+        CompletableFuture<Void> latePayment = new CompletableFuture<>();
+
+        step( () -> purchasePipeline.pay( purchase ), 1, latePayment ).whenComplete( ( paid, paymentFailure ) -> {
+
+            if ( paymentFailure == null ) {
+                reserve( purchase, result );
+                return;
+            }
+
+            CompletableFuture<Void> compensation = NOTHING_TO_UNDO;
+
+            if ( paymentFailure instanceof TimeoutException ) {
+                compensation = compensateIfLate( latePayment, () -> compensations.refund( accountId, purchase.getTotalCost() ) );
+                latePayment.whenComplete( ( done, lateFailure ) -> purchasePipeline.fail( purchase, asRuntime( paymentFailure ) ) );
+            } else {
+                purchasePipeline.fail( purchase, asRuntime( paymentFailure ) );
+            }
+
+            result.completeExceptionally( new PurchaseSagaException( accountId, PurchaseStage.PAYMENT, compensation, paymentFailure ) );
+
+        } );
+
+        return result;
+
+    }
+
+
+    // The second step, once the payment has been taken.
+    private void reserve( PricedPurchase purchase, CompletableFuture<PurchaseResult> result ) {
+
+        long accountId = purchase.getAccountId();
+        CompletableFuture<Void> lateReservation = new CompletableFuture<>();
+
+        step( () -> purchasePipeline.reserveSeats( purchase ), retryPolicy.getMaxAttempts(), lateReservation ).whenComplete( ( reserved, reservationFailure ) -> {
+
+            if ( reservationFailure == null ) {
+                try {
+                    purchasePipeline.accept( purchase );
+                } finally {
+                    result.complete( purchase.toResult() );
+                }
+                return;
+            }
+
+            CompletableFuture<Void> refunded = step( () -> compensations.refund( accountId, purchase.getTotalCost() ), retryPolicy.getMaxAttempts(), null );
+            CompletableFuture<Void> compensation = refunded;
+
+            if ( reservationFailure instanceof TimeoutException ) {
+                compensation = CompletableFuture.allOf( refunded,
+                        compensateIfLate( lateReservation, () -> compensations.releaseSeats( accountId, purchase.getTotalSeats() ) ) );
+                lateReservation.whenComplete( ( done, lateFailure ) -> purchasePipeline.fail( purchase, asRuntime( reservationFailure ) ) );
+            } else {
+                purchasePipeline.fail( purchase, asRuntime( reservationFailure ) );
+            }
+
+            CompletableFuture<Void> undone = compensation;
+
+            // The caller hears once the refund has been tried, a late reservation may still be waiting to be released.
+            refunded.whenComplete( ( done, refundFailure ) -> {
+
+                if ( refundFailure != null ) {
+                    LOGGER.log( Level.SEVERE, "Could not refund " + purchase.getTotalCost() + " to AccountID " + accountId + " after its reservation failed", refundFailure );
+                    reservationFailure.addSuppressed( refundFailure );
+                }
+
+                result.completeExceptionally( new PurchaseSagaException( accountId, PurchaseStage.RESERVATION, undone, reservationFailure ) );
+
+            } );
+
+        } );
+
+    }
+
+
+    /**
+     * Runs the call, making up to attempts attempts while it throws. Completes normally once an attempt succeeds,
+     * or with the last failure. An attempt that times out is not retried: the step fails with the TimeoutException
+     * and late, if given, completes as that attempt does when it finally returns.
+     */
+    private CompletableFuture<Void> step( Runnable call, int attempts, CompletableFuture<Void> late ) {
+
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        attempt( call, attempts, late, 1, outcome );
+        return outcome;
+
+    }
+
+
+    private void attempt( Runnable call, int attempts, CompletableFuture<Void> late, int attempt, CompletableFuture<Void> outcome ) {
+
+        CompletableFuture<Void> running;
+        CompletableFuture<Void> timed = new CompletableFuture<>();
+        ScheduledFuture<?> timeout;
+
+        try {
+            running = CompletableFuture.runAsync( call, callExecutor );
+            timeout = scheduler.schedule( () -> timed.completeExceptionally( new TimeoutException( "No answer after " + retryPolicy.getCallTimeoutNanos() + "ns" ) ),
+                    retryPolicy.getCallTimeoutNanos(), TimeUnit.NANOSECONDS );
+        } catch ( RuntimeException e ) {
+            // An executor that refuses work, usually because it has been shut down.
+            outcome.completeExceptionally( e );
+            return;
+        }
+
+        running.whenComplete( ( done, failure ) -> {
+            timeout.cancel( false );
+            if ( failure == null ) timed.complete( null );
+            else timed.completeExceptionally( unwrap( failure ) );
+        } );
+
+        timed.whenComplete( ( done, failure ) -> {
+
+            if ( failure == null ) {
+                outcome.complete( null );
+                return;
+            }
+
+            if ( failure instanceof TimeoutException ) {
+                if ( late != null ) running.whenComplete( ( lateDone, lateFailure ) -> {
+                    if ( lateFailure == null ) late.complete( null );
+                    else late.completeExceptionally( unwrap( lateFailure ) );
+                } );
+                outcome.completeExceptionally( failure );
+                return;
+            }
+
+            if ( attempt >= attempts ) {
+                outcome.completeExceptionally( failure );
+                return;
+            }
+
+            try {
+                scheduler.schedule( () -> attempt( call, attempts, late, attempt + 1, outcome ), retryPolicy.backoffNanos( attempt ), TimeUnit.NANOSECONDS );
+            } catch ( RuntimeException e ) {
+                failure.addSuppressed( e );
+                outcome.completeExceptionally( failure );
+            }
+
+        } );
+
+    }
+
+
+    // Runs the compensation, with retries, if and when the call that timed out goes through after all.
+    private CompletableFuture<Void> compensateIfLate( CompletableFuture<Void> late, Runnable compensation ) {
+
+        CompletableFuture<Void> compensated = late
+                .handle( ( done, failure ) -> failure == null )
+                .thenCompose( wentThrough -> wentThrough ? step( compensation, retryPolicy.getMaxAttempts(), null ) : NOTHING_TO_UNDO );
+
+        compensated.whenComplete( ( done, failure ) -> {
+            if ( failure != null ) LOGGER.log( Level.SEVERE, "Could not compensate a call that succeeded after timing out", unwrap( failure ) );
+        } );
+
+        return compensated;
+
+    }
+
+
+    private static Throwable unwrap( Throwable failure ) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+
+    // PurchasePipeline.fail() takes the failure as thrown, a timeout or an Error is wrapped.
+    private static RuntimeException asRuntime( Throwable failure ) {
+        return failure instanceof RuntimeException ? (RuntimeException) failure : new CompletionException( failure );
+    }
+
+
+}
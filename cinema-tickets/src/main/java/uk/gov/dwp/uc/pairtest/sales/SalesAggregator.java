@@ -0,0 +1,273 @@
+package uk.gov.dwp.uc.pairtest.sales;
+
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Live tickets sold and revenue by ticket type: in total, per minute over a rolling window, and per screening.
+ * Pass to TicketServiceImpl as its PurchaseListener, or forScreening(id) for a screening's own service.
+ *
+ * Only accepted purchases are counted, revenue by type at the prices of the PricingTable each was priced against,
+ * so a price change never reprices a purchase already made. Each is added to striped SalesCounters, see there, so
+ * recording never blocks and stripes never share a cache line. Minutes are a fixed ring of windowMinutes buckets:
+ * the first purchase of a new minute swaps a fresh bucket in for the one a full window old, so memory stays the
+ * same however long it runs. Queries only read, they never hold up a purchase.
+ *
+ * Screenings are kept until forgetScreening, so forget them once they are over.
+ */
+
+
+public class SalesAggregator implements PurchaseListener {
+
+
+    public static final int DEFAULT_WINDOW_MINUTES = 60;
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+
+    private final LongSupplier millisClock;
+    private final int stripes;
+
+    private final SalesCounters total;
+    private final AtomicReferenceArray<Bucket> minutes;
+    private final ConcurrentHashMap<Long, SalesCounters> screenings = new ConcurrentHashMap<>();
+
+
+    private static final class Bucket {
+
+        final long minute;
+        final SalesCounters counters;
+
+        Bucket( long minute, int stripes ) {
+            this.minute = minute;
+            this.counters = new SalesCounters( stripes );
+        }
+
+    }
+
+
+    public SalesAggregator( int windowMinutes, LongSupplier millisClock ) {
+
+        if ( millisClock == null ) throw new NullPointerException();
+        if ( windowMinutes < 1 ) throw new IllegalArgumentException( "Window must be at least a minute" );
+
+        this.millisClock = millisClock;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.stripes = cores <= 1 ? 1 : Integer.highestOneBit( cores - 1 ) << 1;
+
+        this.total = new SalesCounters( stripes );
+        this.minutes = new AtomicReferenceArray<>( windowMinutes );
+
+    }
+
+
+    // The last hour by wall clock minute.
+    public SalesAggregator() {
+        this( DEFAULT_WINDOW_MINUTES, System::currentTimeMillis );
+    }
+
+
+    @Override
+    public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+        add( null, tally, pricingTable, totalCost );
+    }
+
+
+    @Override
+    public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+    }
+
+
+    @Override
+    public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+    }
+
+
+    /**
+     * A listener that counts towards the screening as well as the totals and minutes, for the TicketServiceImpl
+     * selling that screening. Looks the screening up once, here, rather than per purchase.
+     */
+    public PurchaseListener forScreening( long screeningId ) {
+
+        SalesCounters screening = screenings.computeIfAbsent( screeningId, id -> new SalesCounters( stripes ) );
+
+        return new PurchaseListener() {
+
+            @Override
+            public void onAccepted( long accountId, int tally, PricingTable pricingTable, int totalCost, int totalSeats, long validationNanos, long paymentNanos, long reservationNanos ) {
+                add( screening, tally, pricingTable, totalCost );
+            }
+
+            @Override
+            public void onRejected( long accountId, int tally, RejectionReason reason, long validationNanos ) {
+            }
+
+            @Override
+            public void onFailed( long accountId, int tally, PurchaseStage stage, RuntimeException failure ) {
+            }
+
+        };
+
+    }
+
+
+    /**
+     * Counts an accepted purchase of a TicketTally priced against pricingTable and charged totalCost, for a screening
+     * or none if screeningId is negative. For purchases made outside a TicketServiceImpl.
+     */
+    public void record( long screeningId, int tally, PricingTable pricingTable, int totalCost ) {
+
+        if ( pricingTable == null ) throw new NullPointerException();
+
+        add( screeningId < 0 ? null : screenings.computeIfAbsent( screeningId, id -> new SalesCounters( stripes ) ), tally, pricingTable, totalCost );
+
+    }
+
+
+    public SalesTotals totals() {
+        return totalsOf( total );
+    }
+
+
+    // ZERO for a screening never sold or already forgotten.
+    public SalesTotals screening( long screeningId ) {
+
+        SalesCounters counters = screenings.get( screeningId );
+
+        return counters == null ? SalesTotals.ZERO : totalsOf( counters );
+
+    }
+
+
+    /**
+     * Everything sold in the current minute and the minutes - 1 before it.
+     */
+    public SalesTotals lastMinutes( int minutes ) {
+
+        long now = currentMinute();
+        long[] sums = new long[ SalesCounters.FIELDS ];
+
+        for ( long minute = now - window( minutes ) + 1; minute <= now; minute++ ) {
+            Bucket bucket = bucket( minute );
+            if ( bucket != null ) bucket.counters.sumInto( sums );
+        }
+
+        return new SalesTotals( sums );
+
+    }
+
+
+    /**
+     * One SalesTotals a minute for the last minutes, oldest first and ending with the current minute.
+     */
+    public SalesTotals[] perMinute( int minutes ) {
+
+        long now = currentMinute();
+        SalesTotals[] totals = new SalesTotals[ window( minutes ) ];
+
+        for ( int i = 0; i < totals.length; i++ ) {
+            Bucket bucket = bucket( now - totals.length + 1 + i );
+            totals[i] = bucket == null ? SalesTotals.ZERO : totalsOf( bucket.counters );
+        }
+
+        return totals;
+
+    }
+
+
+    public void forgetScreening( long screeningId ) {
+        screenings.remove( screeningId );
+    }
+
+
+    public int getWindowMinutes() {
+        return minutes.length();
+    }
+
+
+    private void add( SalesCounters screening, int tally, PricingTable pricingTable, int totalCost ) {
+
+        if ( tally == TicketTally.OVER_LIMIT ) return;
+
+        int adults = TicketTally.adults( tally );
+        int children = TicketTally.children( tally );
+        int infants = TicketTally.infants( tally );
+
+        PurchaseEvaluator prices = pricingTable.getEvaluator();
+        int adultRevenue = adults * prices.getAdultTicketCost();
+        int childRevenue = children * prices.getChildTicketCost();
+        int infantRevenue = infants * prices.getInfantTicketCost();
+
+        total.add( adults, children, infants, totalCost, adultRevenue, childRevenue, infantRevenue );
+        currentBucket().counters.add( adults, children, infants, totalCost, adultRevenue, childRevenue, infantRevenue );
+        if ( screening != null ) screening.add( adults, children, infants, totalCost, adultRevenue, childRevenue, infantRevenue );
+
+    }
+
+
+    // The bucket for this minute, swapping it in over the one a window ago if this is the minute's first purchase.
+    private Bucket currentBucket() {
+
+        long minute = currentMinute();
+        int index = (int) Math.floorMod( minute, (long) minutes.length() );
+
+        while ( true ) {
+
+            Bucket bucket = minutes.get( index );
+
+            // A bucket already newer only means another thread read the clock a moment later.
+            if ( bucket != null && bucket.minute >= minute ) return bucket;
+
+            Bucket fresh = new Bucket( minute, stripes );
+            if ( minutes.compareAndSet( index, bucket, fresh ) ) return fresh;
+
+        }
+
+    }
+
+
+    private Bucket bucket( long minute ) {
+
+        Bucket bucket = minutes.get( (int) Math.floorMod( minute, (long) minutes.length() ) );
+
+        return bucket != null && bucket.minute == minute ? bucket : null;
+
+    }
+
+
+    private long currentMinute() {
+        return Math.floorDiv( millisClock.getAsLong(), MINUTE_MILLIS );
+    }
+
+
+    private int window( int minutes ) {
+
+        if ( minutes < 1 || minutes > this.minutes.length() ) throw new IllegalArgumentException( "Minutes must be between 1 and " + this.minutes.length() );
+
+        return minutes;
+
+    }
+
+
+    private static SalesTotals totalsOf( SalesCounters counters ) {
+
+        long[] sums = new long[ SalesCounters.FIELDS ];
+        counters.sumInto( sums );
+
+        return new SalesTotals( sums );
+
+    }
+
+
+}
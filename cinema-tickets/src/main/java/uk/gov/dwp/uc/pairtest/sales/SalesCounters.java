@@ -0,0 +1,88 @@
+package uk.gov.dwp.uc.pairtest.sales;
+
+import uk.gov.dwp.uc.pairtest.StripeProbe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Purchases, revenue and tickets by type, summed the way a LongAdder is: each thread adds to a stripe of its own
+ * and a read adds the stripes up. Adding never retries or blocks.
+ *
+ * A stripe's eight counters are followed by eight longs of padding, and the first stripe starts eight longs in,
+ * so whatever the array's alignment no 64 byte cache line holds counters of two stripes, or of a stripe and the
+ * array header.
+ *
+ * Threads pick a stripe by StripeProbe rather than by thread id, so pooled and virtual threads spread out too.
+ * A thread that finds its stripe contended moves to another for its next purchase.
+ */
+
+
+final class SalesCounters {
+
+
+    static final int PURCHASES = 0;
+    static final int REVENUE = 1;
+    // Three each, in TicketTypeRequest.Type order.
+    static final int TICKETS = 2;
+    static final int TYPE_REVENUE = 5;
+    static final int FIELDS = 8;
+
+    // Longs from one stripe to the next, and before the first.
+    private static final int STRIDE = 2 * FIELDS;
+    private static final int LEADING_PAD = FIELDS;
+
+
+    private final AtomicLongArray cells;
+    private final int stripeMask;
+
+
+    SalesCounters( int stripes ) {
+
+        if ( stripes < 1 || Integer.bitCount( stripes ) != 1 ) throw new IllegalArgumentException( "Stripes must be a power of two" );
+
+        this.cells = new AtomicLongArray( LEADING_PAD + stripes * STRIDE );
+        this.stripeMask = stripes - 1;
+
+    }
+
+
+    void add( int adults, int children, int infants, int revenue, int adultRevenue, int childRevenue, int infantRevenue ) {
+
+        int base = LEADING_PAD + ( StripeProbe.get() & stripeMask ) * STRIDE;
+
+        // A failed compare-and-set means another thread is adding here: count anyway, and move for next time.
+        long purchases = cells.get( base + PURCHASES );
+        if ( !cells.compareAndSet( base + PURCHASES, purchases, purchases + 1 ) ) {
+            StripeProbe.advance();
+            cells.getAndIncrement( base + PURCHASES );
+        }
+
+        cells.getAndAdd( base + REVENUE, revenue );
+        if ( adults > 0 ) {
+            cells.getAndAdd( base + TICKETS, adults );
+            cells.getAndAdd( base + TYPE_REVENUE, adultRevenue );
+        }
+        if ( children > 0 ) {
+            cells.getAndAdd( base + TICKETS + 1, children );
+            cells.getAndAdd( base + TYPE_REVENUE + 1, childRevenue );
+        }
+        if ( infants > 0 ) {
+            cells.getAndAdd( base + TICKETS + 2, infants );
+            cells.getAndAdd( base + TYPE_REVENUE + 2, infantRevenue );
+        }
+
+    }
+
+
+    // Adds every stripe into sums, FIELDS long.
+    void sumInto( long[] sums ) {
+
+        for ( int base = LEADING_PAD; base < cells.length(); base += STRIDE ) {
+            for ( int field = 0; field < FIELDS; field++ ) sums[ field ] += cells.get( base + field );
+        }
+
+    }
+
+
+}
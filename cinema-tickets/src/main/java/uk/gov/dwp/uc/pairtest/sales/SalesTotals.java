@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest.sales;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+
+/**
+ * Accepted purchases over some span, as answered by a SalesAggregator query.
+ *
+ * Immutable Object. Counters are read one after another rather than atomically together, so under load
+ * the totals can be a purchase or two apart from each other.
+ */
+
+
+public final class SalesTotals {
+
+
+    public static final SalesTotals ZERO = new SalesTotals( new long[ SalesCounters.FIELDS ] );
+
+
+    private final long[] sums;
+
+
+    SalesTotals( long[] sums ) {
+        this.sums = sums;
+    }
+
+
+    public long getPurchases() {
+        return sums[ SalesCounters.PURCHASES ];
+    }
+
+    // What was charged.
+    public long getRevenue() {
+        return sums[ SalesCounters.REVENUE ];
+    }
+
+    public long getTicketsSold( TicketTypeRequest.Type type ) {
+        return sums[ SalesCounters.TICKETS + type.ordinal() ];
+    }
+
+    public long getTicketsSold() {
+        return getTicketsSold( TicketTypeRequest.Type.ADULT ) + getTicketsSold( TicketTypeRequest.Type.CHILD ) + getTicketsSold( TicketTypeRequest.Type.INFANT );
+    }
+
+    // At the type's ticket price when sold. Adds up to getRevenue unless a price came from somewhere else, e.g. a promotion.
+    public long getRevenue( TicketTypeRequest.Type type ) {
+        return sums[ SalesCounters.TYPE_REVENUE + type.ordinal() ];
+    }
+
+    @Override
+    public String toString() {
+        return "SalesTotals{purchases=" + getPurchases() + ", revenue=" + getRevenue() +
+                ", adults=" + getTicketsSold( TicketTypeRequest.Type.ADULT ) +
+                ", children=" + getTicketsSold( TicketTypeRequest.Type.CHILD ) +
+                ", infants=" + getTicketsSold( TicketTypeRequest.Type.INFANT ) + "}";
+    }
+
+
+}
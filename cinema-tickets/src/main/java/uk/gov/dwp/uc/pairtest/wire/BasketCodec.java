@@ -0,0 +1,95 @@
+package uk.gov.dwp.uc.pairtest.wire;
+
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Fixed-width binary basket record, read and written in place in a ByteBuffer ( heap or direct ).
+ *
+ *     offset  size  field
+ *          0     8  account id, signed, big endian
+ *          8     1  adult tickets, unsigned
+ *          9     1  child tickets, unsigned
+ *         10     1  infant tickets, unsigned
+ *         11     1  reserved, written as 0
+ *
+ * Absolute methods take the record's offset and leave the buffer's position alone, so one buffer can be
+ * shared by readers. Nothing here allocates.
+ */
+
+
+public final class BasketCodec {
+
+
+    public static final int RECORD_SIZE = 12;
+
+    private static final int ADULTS = 8;
+    private static final int CHILDREN = 9;
+    private static final int INFANTS = 10;
+    private static final int RESERVED = 11;
+
+
+    private BasketCodec() {
+    }
+
+
+    public static void write( ByteBuffer buffer, int offset, long accountId, int adults, int children, int infants ) {
+
+        if ( !isCount( adults ) || !isCount( children ) || !isCount( infants ) ) throw new IllegalArgumentException( "Counts must be between 0 and 255" );
+
+        buffer.putLong( offset, accountId );
+        buffer.put( offset + ADULTS, (byte) adults );
+        buffer.put( offset + CHILDREN, (byte) children );
+        buffer.put( offset + INFANTS, (byte) infants );
+        buffer.put( offset + RESERVED, (byte) 0 );
+
+    }
+
+
+    // Writes at the buffer's position and advances it by RECORD_SIZE.
+    public static void write( ByteBuffer buffer, long accountId, int adults, int children, int infants ) {
+
+        int offset = buffer.position();
+        if ( buffer.remaining() < RECORD_SIZE ) throw new BufferOverflowException();
+
+        write( buffer, offset, accountId, adults, children, infants );
+        buffer.position( offset + RECORD_SIZE );
+
+    }
+
+
+    public static long accountId( ByteBuffer buffer, int offset ) {
+        return buffer.getLong( offset );
+    }
+
+
+    public static int adults( ByteBuffer buffer, int offset ) {
+        return buffer.get( offset + ADULTS ) & 0xFF;
+    }
+
+    public static int children( ByteBuffer buffer, int offset ) {
+        return buffer.get( offset + CHILDREN ) & 0xFF;
+    }
+
+    public static int infants( ByteBuffer buffer, int offset ) {
+        return buffer.get( offset + INFANTS ) & 0xFF;
+    }
+
+
+    /**
+     * The record's counts as a TicketTally, or TicketTally.OVER_LIMIT if they add up to more than 20.
+     */
+    public static int tally( ByteBuffer buffer, int offset ) {
+        return TicketTally.of( adults( buffer, offset ), children( buffer, offset ), infants( buffer, offset ) );
+    }
+
+
+    private static boolean isCount( int n ) {
+        return n >= 0 && n <= 0xFF;
+    }
+
+
+}
@@ -0,0 +1,69 @@
+package uk.gov.dwp.uc.pairtest.wire;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.engine.PricingSource;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Purchases straight from BasketCodec records, with the same rules and prices as TicketServiceImpl but
+ * without boxing the account id or creating any TicketTypeRequests.
+ *
+ * A rejection is returned as a RejectionReason rather than thrown, so neither outcome allocates.
+ * Third-party failures are thrown as usual. Purchases go through the PurchasePipeline, so its listener and journal
+ * see them as they do TicketServiceImpl's.
+ */
+
+
+public class BinaryPurchaseService {
+
+
+    private final PurchasePipeline purchasePipeline;
+
+
+    public BinaryPurchaseService( SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService, PricingSource pricingSource ) {
+        this( new PurchasePipeline( seatReservationService, ticketPaymentService, pricingSource ) );
+    }
+
+
+    public BinaryPurchaseService( PurchasePipeline purchasePipeline ) {
+
+        if ( purchasePipeline == null ) throw new NullPointerException();
+
+        this.purchasePipeline = purchasePipeline;
+
+    }
+
+
+    /**
+     * Purchases the record at offset. Returns null if it was paid for and reserved, otherwise why it was rejected.
+     */
+    public RejectionReason purchase( ByteBuffer buffer, int offset ) {
+
+        long accountId = BasketCodec.accountId( buffer, offset );
+        int tally = BasketCodec.tally( buffer, offset );
+
+        return purchasePipeline.purchase( accountId, tally );
+
+    }
+
+
+    // Purchases the record at the buffer's position and advances past it.
+    public RejectionReason purchase( ByteBuffer buffer ) {
+
+        int offset = buffer.position();
+        if ( buffer.remaining() < BasketCodec.RECORD_SIZE ) throw new BufferUnderflowException();
+
+        buffer.position( offset + BasketCodec.RECORD_SIZE );
+
+        return purchase( buffer, offset );
+
+    }
+
+
+}
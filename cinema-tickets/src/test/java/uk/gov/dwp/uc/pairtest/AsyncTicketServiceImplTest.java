@@ -0,0 +1,184 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class AsyncTicketServiceImplTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    ExecutorService executor;
+    AsyncTicketServiceImpl asyncTicketService;
+
+    TicketTypeRequest[] familyTickets = new TicketTypeRequest[] {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 )
+    };
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        executor = Executors.newFixedThreadPool( 2 );
+
+        asyncTicketService = new AsyncTicketServiceImpl( seatReservationService, ticketPaymentService, executor );
+
+    }
+
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    public void givenValidPurchase_whenPurchaseTickets_thenCompletesWithCostAndSeats() throws Exception {
+
+        PurchaseResult result = asyncTicketService.purchaseTickets( 1L, familyTickets ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 50, result.getTotalCost() );
+        assertEquals( 3, result.getTotalSeats() );
+        verify( ticketPaymentService ).makePayment( 1L, 50 );
+        verify( seatReservationService ).reserveSeat( 1L, 3 );
+
+    }
+
+
+    @Test
+    public void givenInvalidPurchase_whenPurchaseTickets_thenFailsWithoutCallingThirdParties() throws Exception {
+
+        CompletableFuture<PurchaseResult> future = asyncTicketService.purchaseTickets( 0L, familyTickets );
+
+        InvalidPurchaseException rejection = (InvalidPurchaseException) causeOf( future );
+
+        assertEquals( RejectionReason.BAD_ACCOUNT, rejection.getReason() );
+        verify( ticketPaymentService, never() ).makePayment( anyLong(), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenPaymentFails_whenPurchaseTickets_thenFailsAndSeatsNotReserved() throws Exception {
+
+        doThrow( new IllegalStateException( "gateway down" ) ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        Throwable cause = causeOf( asyncTicketService.purchaseTickets( 1L, familyTickets ) );
+
+        assertEquals( "gateway down", cause.getMessage() );
+        verify( seatReservationService, never() ).reserveSeat( anyLong(), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenNullRequests_whenPurchaseTickets_thenFailsWithNullPointer() throws Exception {
+
+        assertTrue( causeOf( asyncTicketService.purchaseTickets( 1L, (TicketTypeRequest[]) null ) ) instanceof NullPointerException );
+
+    }
+
+
+    @Test
+    public void givenShutdownExecutor_whenPurchaseTickets_thenFailsWithRejectedExecution() throws Exception {
+
+        executor.shutdown();
+
+        assertTrue( causeOf( asyncTicketService.purchaseTickets( 1L, familyTickets ) ) instanceof RejectedExecutionException );
+
+    }
+
+
+    @Test
+    public void givenDefaultExecutor_whenPurchaseTickets_thenCompletes() throws Exception {
+
+        ExecutorService virtualOrPool = PurchaseExecutors.virtualThreadsOrFixedPool();
+
+        try {
+            AsyncTicketServiceImpl service = new AsyncTicketServiceImpl( seatReservationService, ticketPaymentService, virtualOrPool );
+            assertEquals( 50, service.purchaseTickets( 1L, familyTickets ).get( 5, TimeUnit.SECONDS ).getTotalCost() );
+        } finally {
+            virtualOrPool.shutdownNow();
+        }
+
+    }
+
+
+    @Test
+    public void givenPipelineWithListenerAndJournal_whenPurchasesSucceedOrFail_thenBothToldOfEach() throws Exception {
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        PurchaseJournal journal = Mockito.mock( PurchaseJournal.class );
+        when( journal.intent( anyLong(), anyInt(), anyInt(), anyInt() ) ).thenReturn( 7L );
+
+        AsyncTicketServiceImpl service = new AsyncTicketServiceImpl(
+                new PurchasePipeline( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), listener, journal ), executor );
+
+        service.purchaseTickets( 1L, familyTickets ).get( 5, TimeUnit.SECONDS );
+
+        verify( listener ).onAccepted( eq( 1L ), eq( TicketTally.of( familyTickets ) ), any( PricingTable.class ), eq( 50 ), eq( 3 ), anyLong(), anyLong(), anyLong() );
+        verify( journal ).paid( 7L );
+        verify( journal ).reserved( 7L );
+
+        IllegalStateException gatewayDown = new IllegalStateException( "gateway down" );
+        doThrow( gatewayDown ).when( ticketPaymentService ).makePayment( eq( 2L ), anyInt() );
+
+        causeOf( service.purchaseTickets( 2L, familyTickets ) );
+        causeOf( service.purchaseTickets( 0L, familyTickets ) );
+
+        verify( listener ).onFailed( 2L, TicketTally.of( familyTickets ), PurchaseStage.PAYMENT, gatewayDown );
+        verify( listener ).onRejected( eq( 0L ), anyInt(), eq( RejectionReason.BAD_ACCOUNT ), anyLong() );
+        verify( journal ).failed( 7L );
+
+    }
+
+
+    private static Throwable causeOf( CompletableFuture<?> future ) throws Exception {
+
+        try {
+            future.get( 5, TimeUnit.SECONDS );
+            fail( "Expected the future to fail" );
+            return null;
+        } catch ( ExecutionException e ) {
+            return e.getCause();
+        }
+
+    }
+
+
+}
@@ -0,0 +1,144 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+
+
+public class TicketQuoteServiceTest {
+
+
+    TicketQuoteService quoteService = new TicketQuoteService();
+
+
+    /** Valid baskets : */
+
+
+    @Test
+    public void givenValidBasket_whenQuoted_thenSameCostAndSeatsAsPurchase() {
+
+        TicketTypeRequest[] requests = {
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 ) };
+
+        TicketQuote quote = quoteService.quote( 1L, requests );
+
+        assertTrue( quote.isValid() );
+        assertNull( quote.getReason() );
+        assertEquals( 50, quote.getTotalCost() );
+        assertEquals( 3, quote.getTotalSeats() );
+
+        SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+        TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        new TicketServiceImpl( seatReservationService, ticketPaymentService ).purchaseTickets( 1L, requests );
+
+        verify( ticketPaymentService ).makePayment( 1L, quote.getTotalCost() );
+        verify( seatReservationService ).reserveSeat( 1L, quote.getTotalSeats() );
+
+    }
+
+
+    @Test
+    public void givenCounts_whenQuoted_thenSameAsRequests() {
+
+        TicketQuote fromCounts = quoteService.quote( 7L, 3, 2, 1, new TicketQuote() );
+        TicketQuote fromRequests = quoteService.quote( 7L,
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 3 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 ) );
+
+        assertEquals( fromRequests.getTotalCost(), fromCounts.getTotalCost() );
+        assertEquals( fromRequests.getTotalSeats(), fromCounts.getTotalSeats() );
+        assertEquals( fromRequests.getReasonMask(), fromCounts.getReasonMask() );
+
+    }
+
+
+    /** Rejected baskets : */
+
+
+    @Test
+    public void givenBasketBreakingSeveralRules_whenQuoted_thenEveryReasonReported() {
+
+        TicketTypeRequest[] requests = {
+                new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 2 ) };
+
+        TicketQuote quote = quoteService.quote( 0L, requests );
+
+        assertFalse( quote.isValid() );
+        assertEquals( EnumSet.of( RejectionReason.BAD_ACCOUNT, RejectionReason.NO_ADULT, RejectionReason.TOO_MANY_INFANTS ), quote.getReasons() );
+        assertEquals( 0, quote.getTotalCost() );
+        assertEquals( 0, quote.getTotalSeats() );
+
+        // The first reason is the one a purchase is refused with.
+        try {
+            new TicketServiceImpl( Mockito.mock( SeatReservationService.class ), Mockito.mock( TicketPaymentService.class ) ).purchaseTickets( 0L, requests );
+            fail();
+        } catch ( InvalidPurchaseException e ) {
+            assertEquals( e.getReason(), quote.getReason() );
+        }
+
+    }
+
+
+    @Test
+    public void givenBasketOverTheLimit_whenQuoted_thenOtherRulesStillChecked() {
+
+        TicketQuote quote = quoteService.quote( 1L,
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 15 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 10 ) );
+
+        assertEquals( RejectionReason.OVER_LIMIT, quote.getReason() );
+        assertEquals( EnumSet.of( RejectionReason.OVER_LIMIT, RejectionReason.NO_ADULT, RejectionReason.TOO_MANY_INFANTS ), quote.getReasons() );
+
+        TicketQuote fromCounts = quoteService.quote( 1L, 0, 0, 25, new TicketQuote() );
+        assertEquals( quote.getReasonMask(), fromCounts.getReasonMask() );
+
+    }
+
+
+    /** Reuse : */
+
+
+    @Test
+    public void givenQuoteObject_whenReused_thenFilledInAfresh() {
+
+        TicketQuote quote = new TicketQuote();
+
+        assertSame( quote, quoteService.quote( -1L, 0, 0, 0, quote ) );
+        assertTrue( quote.hasReason( RejectionReason.NO_TICKETS ) );
+
+        assertSame( quote, quoteService.quote( 1L, 1, 0, 0, quote ) );
+        assertTrue( quote.isValid() );
+        assertEquals( 0, quote.getReasonMask() );
+        assertEquals( 20, quote.getTotalCost() );
+        assertEquals( 1L, quote.getAccountId() );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeCount_whenQuoted_thenThrow() {
+
+        quoteService.quote( 1L, -1, 0, 0, new TicketQuote() );
+
+    }
+
+
+}
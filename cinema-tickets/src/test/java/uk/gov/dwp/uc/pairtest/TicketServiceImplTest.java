@@ -7,11 +7,12 @@ import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 
 /**
@@ -25,6 +26,8 @@ public class TicketServiceImplTest {
 
 
     TicketServiceImpl ticketServiceImpl;
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
 
     // Some useful values:
     Long validId;
@@ -37,8 +40,8 @@ public class TicketServiceImplTest {
     @Before
     public void setUp() {
 
-        SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
-        TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
 
         this.ticketServiceImpl = new TicketServiceImpl( seatReservationService, ticketPaymentService );
 
@@ -319,37 +322,13 @@ public class TicketServiceImplTest {
 
 
     /**
-     * Reflects TicketServiceImpl's private methods { calculateTotalSeatsToReserve(), calculateTotalTicketCost() } :
-     */
-
-
-    private Method getPrivateMethod_calculateTotalSeatsToReserve() throws NoSuchMethodException {
-
-        Method method =  TicketServiceImpl.class.getDeclaredMethod( "calculateTotalSeatsToReserve", TicketTypeRequest[].class);
-        method.setAccessible(true);
-        return method;
-
-    }
-
-
-    private Method getPrivateMethod_calculateTotalTicketCost() throws NoSuchMethodException {
-
-        Method method =  TicketServiceImpl.class.getDeclaredMethod( "calculateTotalTicketCost", TicketTypeRequest[].class);
-        method.setAccessible(true);
-        return method;
-
-    }
-
-
-
-    /**
-     *      calculateTotalSeatsToReserve() returns the correct # of seats:
+     *      The seat booking service is asked for the correct # of seats:
      *      (Infants are not reserved a seat. They sit on Adult laps).
      */
 
 
     @Test
-    public void givenAnAdultChildAndInfant_whenCalculatingSeatsToReserve_thenReturns2not3 () throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    public void givenAnAdultChildAndInfant_whenPurchaseTickets_thenReserves2not3 () {
 
         TicketTypeRequest a = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1);
         TicketTypeRequest b = new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1);
@@ -357,16 +336,16 @@ public class TicketServiceImplTest {
 
         TicketTypeRequest[] validTicketRequests = new TicketTypeRequest[] {a,b,c};
 
-        int totalSeatsReserved = (int) getPrivateMethod_calculateTotalSeatsToReserve().invoke( ticketServiceImpl, new Object[] {validTicketRequests} );
+        ticketServiceImpl.purchaseTickets( validId, validTicketRequests );
 
         // Infants are not reserved a seat. They sit on Adult's laps. 3 tickets = 2 seat reservations.
-        assertEquals(2, totalSeatsReserved );
+        verify( seatReservationService ).reserveSeat( validId, 2 );
 
     }
 
 
     @Test
-    public void givenValidTicketRequests_whenCalculatingSeatReservations_thenCorrectTotal () throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    public void givenValidTicketRequests_whenPurchaseTickets_thenCorrectSeatTotalReserved () {
 
         TicketTypeRequest a = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 5);
         TicketTypeRequest b = new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 6);
@@ -374,22 +353,22 @@ public class TicketServiceImplTest {
 
         TicketTypeRequest[] validTicketRequests = new TicketTypeRequest[] {a,b,c};
 
-        int totalSeatsReserved = (int) getPrivateMethod_calculateTotalSeatsToReserve().invoke( ticketServiceImpl, new Object[] {validTicketRequests} );
+        ticketServiceImpl.purchaseTickets( validId, validTicketRequests );
 
         // Infants are not reserved a seat.
-        assertEquals(11, totalSeatsReserved );
+        verify( seatReservationService ).reserveSeat( validId, 11 );
 
     }
 
 
 
     /**
-     * calculateTotalTicketCost() returns the correct total :
+     * The payment gateway is charged the correct total :
      */
 
 
     @Test
-    public void givenAdultChildInfantSingleTickets_whenCalculateTotalTicketCost_thenReturnCorrectTotal () throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    public void givenAdultChildInfantSingleTickets_whenPurchaseTickets_thenChargesCorrectTotal () {
 
         TicketTypeRequest a = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1);
         TicketTypeRequest b = new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1);
@@ -397,35 +376,86 @@ public class TicketServiceImplTest {
 
         TicketTypeRequest[] validTicketRequests = new TicketTypeRequest[] {a,b,c};
 
-        int totalTicketCost = (int) getPrivateMethod_calculateTotalTicketCost().invoke( ticketServiceImpl, new Object[] {validTicketRequests});
+        ticketServiceImpl.purchaseTickets( validId, validTicketRequests );
 
         int expectTotalTicketCost = ( adultTicketCost + childTicketCost + infantTicketCost );
 
-        assertEquals( expectTotalTicketCost, totalTicketCost);
+        assertEquals(30, expectTotalTicketCost);
 
-        assertEquals(30, totalTicketCost);
+        verify( ticketPaymentService ).makePayment( validId, expectTotalTicketCost );
 
     }
 
 
     @Test
-    public void givenManyTickets_whenCalculateTotalTicketCost_thenReturnCorrectTotal () throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    public void givenManyTickets_whenPurchaseTickets_thenChargesCorrectTotal () {
 
         TicketTypeRequest a = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 5);
         TicketTypeRequest b = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 3);
-        TicketTypeRequest c = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 10);
+        TicketTypeRequest c = new TicketTypeRequest(TicketTypeRequest.Type.INFANT, 5);
 
         TicketTypeRequest[] validTicketRequests = new TicketTypeRequest[]{a, b, c};
 
-        int totalTicketCost = (int) getPrivateMethod_calculateTotalTicketCost().invoke(ticketServiceImpl, new Object[]{validTicketRequests});
+        ticketServiceImpl.purchaseTickets( validId, validTicketRequests );
+
+        int expectTotalTicketCost = ((adultTicketCost * 5) + (childTicketCost * 3) + (infantTicketCost * 5) );
+
+        assertEquals(130, expectTotalTicketCost);
+
+        verify( ticketPaymentService ).makePayment( validId, expectTotalTicketCost );
 
-        int expectTotalTicketCost = ((adultTicketCost * 5) + (childTicketCost * 3) + (infantTicketCost * 100) );
+    }
+
+
+    @Test
+    public void givenBasketOverTheTicketLimit_whenPurchaseTickets_thenNothingChargedOrReserved () {
+
+        TicketTypeRequest a = new TicketTypeRequest(TicketTypeRequest.Type.ADULT, 15);
+        TicketTypeRequest b = new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 10);
 
-        assertEquals(expectTotalTicketCost, totalTicketCost);
+        TicketTypeRequest[] overLimitTicketRequests = new TicketTypeRequest[]{a, b};
 
-        assertEquals(130, totalTicketCost);
+        try {
+            ticketServiceImpl.purchaseTickets( validId, overLimitTicketRequests );
+            fail();
+        } catch (InvalidPurchaseException e) {
+            assertEquals(RejectionReason.OVER_LIMIT, e.getReason());
+        }
+
+        verifyNoInteractions( ticketPaymentService, seatReservationService );
+
+    }
+    /**
+     *    Rejection reasons :
+     */
 
 
+    @Test
+    public void givenChildOnlyTickets_whenPurchaseTickets_thenRejectedWithNoAdultReason() {
+
+        TicketTypeRequest[] ttr = new TicketTypeRequest[]{ new TicketTypeRequest(TicketTypeRequest.Type.CHILD, 1) };
+
+        try {
+            ticketServiceImpl.purchaseTickets(validId, ttr);
+            fail();
+        } catch (InvalidPurchaseException e) {
+            assertEquals(RejectionReason.NO_ADULT, e.getReason());
+            assertEquals(0, e.getStackTrace().length);
+        }
+
+    }
+
+
+    @Test
+    public void givenInvalidId_whenPurchaseTickets_thenRejectedWithBadAccountReason() {
+
+        try {
+            ticketServiceImpl.purchaseTickets(0L, validTicketRequests);
+            fail();
+        } catch (InvalidPurchaseException e) {
+            assertEquals(RejectionReason.BAD_ACCOUNT, e.getReason());
+        }
+
     }
 
 
@@ -0,0 +1,181 @@
+package uk.gov.dwp.uc.pairtest.bulk;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+public class BulkTicketServiceTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    ForkJoinPool validationPool;
+    ExecutorService gatewayExecutor;
+    BulkTicketService bulkTicketService;
+
+    TicketTypeRequest[] adultAndChild = new TicketTypeRequest[] {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 )
+    };
+    TicketTypeRequest[] childOnly = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) };
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        validationPool = new ForkJoinPool( 2 );
+        gatewayExecutor = Executors.newFixedThreadPool( 4 );
+
+        bulkTicketService = new BulkTicketService( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                validationPool, gatewayExecutor );
+
+    }
+
+
+    @After
+    public void tearDown() {
+
+        validationPool.shutdownNow();
+        gatewayExecutor.shutdownNow();
+
+    }
+
+
+    @Test
+    public void givenMixedBaskets_whenPurchaseAll_thenOneOutcomePerRequestInOrder() {
+
+        PurchaseOutcome[] outcomes = bulkTicketService.purchaseAll( Arrays.asList(
+                new PurchaseRequest( 1L, adultAndChild ),
+                new PurchaseRequest( 2L, childOnly ),
+                new PurchaseRequest( 0L, adultAndChild ) ) );
+
+        assertEquals( PurchaseOutcome.Status.ACCEPTED, outcomes[0].getStatus() );
+        assertEquals( 30, outcomes[0].getTotalCost() );
+        assertEquals( 2, outcomes[0].getTotalSeats() );
+
+        assertEquals( RejectionReason.NO_ADULT, outcomes[1].getReason() );
+        assertEquals( RejectionReason.BAD_ACCOUNT, outcomes[2].getReason() );
+
+        verify( ticketPaymentService ).makePayment( 1L, 30 );
+        verify( ticketPaymentService, never() ).makePayment( eq( 2L ), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenManyBaskets_whenPurchaseAll_thenValidatedInParallelAndAllDispatched() {
+
+        List<PurchaseRequest> requests = new ArrayList<>();
+        for ( long accountId = 1; accountId <= 1000; accountId++ ) requests.add( new PurchaseRequest( accountId, accountId % 10 == 0 ? childOnly : adultAndChild ) );
+
+        PurchaseOutcome[] outcomes = bulkTicketService.purchaseAll( requests );
+
+        int accepted = 0;
+        for ( int i = 0; i < outcomes.length; i++ ) {
+            assertEquals( i + 1, outcomes[i].getAccountId() );
+            if ( outcomes[i].isAccepted() ) accepted++;
+        }
+
+        assertEquals( 900, accepted );
+        verify( ticketPaymentService, times( 900 ) ).makePayment( anyLong(), eq( 30 ) );
+        verify( seatReservationService, times( 900 ) ).reserveSeat( anyLong(), eq( 2 ) );
+
+    }
+
+
+    @Test
+    public void givenPaymentFailsForOneAccount_whenPurchaseAll_thenOnlyThatOutcomeFailed() {
+
+        doThrow( new IllegalStateException( "card declined" ) ).when( ticketPaymentService ).makePayment( eq( 2L ), anyInt() );
+
+        PurchaseOutcome[] outcomes = bulkTicketService.purchaseAll( Arrays.asList(
+                new PurchaseRequest( 1L, adultAndChild ),
+                new PurchaseRequest( 2L, adultAndChild ) ) );
+
+        assertEquals( PurchaseOutcome.Status.ACCEPTED, outcomes[0].getStatus() );
+        assertEquals( PurchaseOutcome.Status.FAILED, outcomes[1].getStatus() );
+        assertEquals( "card declined", outcomes[1].getFailure().getMessage() );
+        verify( seatReservationService, never() ).reserveSeat( eq( 2L ), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenNullRequestInList_whenPurchaseAll_thenOnlyThatOutcomeFailed() {
+
+        PurchaseOutcome[] outcomes = bulkTicketService.purchaseAll( Arrays.asList(
+                new PurchaseRequest( 1L, adultAndChild ),
+                null,
+                new PurchaseRequest( 3L, adultAndChild ) ) );
+
+        assertEquals( PurchaseOutcome.Status.ACCEPTED, outcomes[0].getStatus() );
+        assertEquals( PurchaseOutcome.Status.FAILED, outcomes[1].getStatus() );
+        assertTrue( outcomes[1].getFailure() instanceof NullPointerException );
+        assertEquals( PurchaseOutcome.Status.ACCEPTED, outcomes[2].getStatus() );
+        verify( ticketPaymentService, times( 2 ) ).makePayment( anyLong(), eq( 30 ) );
+
+    }
+
+
+    @Test
+    public void givenLinkedListAndPipelineListener_whenPurchaseAll_thenListenerToldOfEveryBasket() {
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        BulkTicketService service = new BulkTicketService(
+                new PurchasePipeline( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), listener, PurchaseJournal.NONE ),
+                validationPool, gatewayExecutor );
+
+        List<PurchaseRequest> requests = new LinkedList<>();
+        for ( long accountId = 1; accountId <= 100; accountId++ ) requests.add( new PurchaseRequest( accountId, accountId % 10 == 0 ? childOnly : adultAndChild ) );
+
+        PurchaseOutcome[] outcomes = service.purchaseAll( requests );
+
+        assertEquals( 100, outcomes.length );
+        verify( listener, times( 90 ) ).onAccepted( anyLong(), anyInt(), any( PricingTable.class ), eq( 30 ), eq( 2 ), anyLong(), anyLong(), anyLong() );
+        verify( listener, times( 10 ) ).onRejected( anyLong(), anyInt(), eq( RejectionReason.NO_ADULT ), anyLong() );
+
+    }
+
+
+    @Test
+    public void givenNoRequests_whenPurchaseAll_thenEmptyResult() {
+
+        assertEquals( 0, bulkTicketService.purchaseAll( new ArrayList<>() ).length );
+
+    }
+
+
+}
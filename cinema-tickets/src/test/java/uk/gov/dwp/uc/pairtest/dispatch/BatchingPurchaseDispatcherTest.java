@@ -0,0 +1,253 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+public class BatchingPurchaseDispatcherTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    BatchingPurchaseDispatcher dispatcher;
+
+    TicketTypeRequest[] twoAdults = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) };
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+    }
+
+
+    @After
+    public void tearDown() {
+        if ( dispatcher != null ) dispatcher.close();
+    }
+
+
+    @Test
+    public void givenManyPurchases_whenDispatched_thenEachCompletesWithItsOwnResult() throws Exception {
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService );
+
+        List<CompletableFuture<PurchaseResult>> futures = new ArrayList<>();
+        for ( long accountId = 1; accountId <= 200; accountId++ ) futures.add( dispatcher.purchaseTickets( accountId, twoAdults ) );
+
+        for ( int i = 0; i < futures.size(); i++ ) {
+            PurchaseResult result = futures.get( i ).get( 5, TimeUnit.SECONDS );
+            assertEquals( i + 1, result.getAccountId() );
+            assertEquals( 40, result.getTotalCost() );
+            assertEquals( 2, result.getTotalSeats() );
+        }
+
+        verify( ticketPaymentService, times( 200 ) ).makePayment( anyLong(), eq( 40 ) );
+        verify( seatReservationService, times( 200 ) ).reserveSeat( anyLong(), eq( 2 ) );
+
+    }
+
+
+    @Test
+    public void givenOnePaymentFails_whenDispatched_thenOnlyThatPurchaseFails() throws Exception {
+
+        doThrow( new IllegalStateException( "card declined" ) ).when( ticketPaymentService ).makePayment( eq( 2L ), anyInt() );
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService );
+
+        CompletableFuture<PurchaseResult> first = dispatcher.purchaseTickets( 1L, twoAdults );
+        CompletableFuture<PurchaseResult> second = dispatcher.purchaseTickets( 2L, twoAdults );
+        CompletableFuture<PurchaseResult> third = dispatcher.purchaseTickets( 3L, twoAdults );
+
+        assertEquals( 1L, first.get( 5, TimeUnit.SECONDS ).getAccountId() );
+        assertEquals( 3L, third.get( 5, TimeUnit.SECONDS ).getAccountId() );
+        assertEquals( "card declined", causeOf( second ).getMessage() );
+
+        verify( seatReservationService, never() ).reserveSeat( eq( 2L ), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenInvalidPurchase_whenSubmitted_thenFailsWithoutQueueing() throws Exception {
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService );
+
+        assertTrue( causeOf( dispatcher.purchaseTickets( -1L, twoAdults ) ) instanceof InvalidPurchaseException );
+        verify( ticketPaymentService, never() ).makePayment( anyLong(), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenFullQueue_whenSubmitted_thenRejected() throws Exception {
+
+        CountDownLatch paymentStarted = new CountDownLatch( 1 );
+        CountDownLatch releasePayment = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            paymentStarted.countDown();
+            releasePayment.await();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                1, 1, 0, 0, TimeUnit.MILLISECONDS, 1 );
+
+        CompletableFuture<PurchaseResult> inFlight = dispatcher.purchaseTickets( 1L, twoAdults );
+        assertTrue( paymentStarted.await( 5, TimeUnit.SECONDS ) );
+
+        CompletableFuture<PurchaseResult> queued = dispatcher.purchaseTickets( 2L, twoAdults );
+        CompletableFuture<PurchaseResult> overflow = dispatcher.purchaseTickets( 3L, twoAdults );
+
+        assertTrue( causeOf( overflow ) instanceof RejectedExecutionException );
+
+        releasePayment.countDown();
+
+        assertEquals( 1L, inFlight.get( 5, TimeUnit.SECONDS ).getAccountId() );
+        assertEquals( 2L, queued.get( 5, TimeUnit.SECONDS ).getAccountId() );
+
+    }
+
+
+    @Test
+    public void givenQueuedPurchaseCancelled_whenItsBatchIsDrained_thenNeverChargedOrReserved() throws Exception {
+
+        CountDownLatch paymentStarted = new CountDownLatch( 1 );
+        CountDownLatch releasePayment = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            paymentStarted.countDown();
+            releasePayment.await();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( eq( 1L ), anyInt() );
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                4, 1, 0, 0, TimeUnit.MILLISECONDS, 1 );
+
+        CompletableFuture<PurchaseResult> inFlight = dispatcher.purchaseTickets( 1L, twoAdults );
+        assertTrue( paymentStarted.await( 5, TimeUnit.SECONDS ) );
+
+        CompletableFuture<PurchaseResult> cancelled = dispatcher.purchaseTickets( 2L, twoAdults );
+        CompletableFuture<PurchaseResult> kept = dispatcher.purchaseTickets( 3L, twoAdults );
+
+        assertTrue( cancelled.cancel( false ) );
+
+        releasePayment.countDown();
+
+        assertEquals( 1L, inFlight.get( 5, TimeUnit.SECONDS ).getAccountId() );
+        assertEquals( 3L, kept.get( 5, TimeUnit.SECONDS ).getAccountId() );
+
+        verify( ticketPaymentService, never() ).makePayment( eq( 2L ), anyInt() );
+        verify( seatReservationService, never() ).reserveSeat( eq( 2L ), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenClosedDispatcher_whenSubmitted_thenRejected() throws Exception {
+
+        dispatcher = new BatchingPurchaseDispatcher( seatReservationService, ticketPaymentService );
+        dispatcher.close();
+
+        assertTrue( causeOf( dispatcher.purchaseTickets( 1L, twoAdults ) ) instanceof RejectedExecutionException );
+
+    }
+
+
+    @Test
+    public void givenCloseRacingPurchases_whenClosed_thenNoPurchaseIsBothChargedAndFailed() throws Exception {
+
+        for ( int round = 0; round < 50; round++ ) {
+
+            Set<Long> charged = ConcurrentHashMap.newKeySet();
+            TicketPaymentService recordingPayments = ( accountId, totalAmountToPay ) -> charged.add( accountId );
+
+            dispatcher = new BatchingPurchaseDispatcher( seatReservationService, recordingPayments, PricingTable.standardPrices(), 1024, 8,
+                    100, 10, TimeUnit.MICROSECONDS, 2 );
+
+            Map<Long, CompletableFuture<PurchaseResult>> futures = new ConcurrentHashMap<>();
+            AtomicLong nextAccountId = new AtomicLong( 1 );
+            CountDownLatch started = new CountDownLatch( 4 );
+            List<Thread> purchasers = new ArrayList<>();
+
+            for ( int t = 0; t < 4; t++ ) {
+                Thread purchaser = new Thread( () -> {
+                    started.countDown();
+                    for ( int i = 0; i < 200; i++ ) {
+                        long accountId = nextAccountId.getAndIncrement();
+                        futures.put( accountId, dispatcher.purchaseTickets( accountId, twoAdults ) );
+                    }
+                } );
+                purchasers.add( purchaser );
+                purchaser.start();
+            }
+
+            started.await();
+            dispatcher.close();
+            for ( Thread purchaser: purchasers ) purchaser.join();
+
+            for ( Map.Entry<Long, CompletableFuture<PurchaseResult>> entry: futures.entrySet() ) {
+                try {
+                    entry.getValue().get( 5, TimeUnit.SECONDS );
+                    assertTrue( "Completed but never charged: " + entry.getKey(), charged.contains( entry.getKey() ) );
+                } catch ( ExecutionException e ) {
+                    assertTrue( e.getCause() instanceof RejectedExecutionException );
+                    assertFalse( "Failed but charged: " + entry.getKey(), charged.contains( entry.getKey() ) );
+                }
+            }
+
+        }
+
+    }
+
+
+    private static Throwable causeOf( CompletableFuture<?> future ) throws Exception {
+
+        try {
+            future.get( 5, TimeUnit.SECONDS );
+            fail( "Expected the future to fail" );
+            return null;
+        } catch ( ExecutionException e ) {
+            return e.getCause();
+        }
+
+    }
+
+
+}
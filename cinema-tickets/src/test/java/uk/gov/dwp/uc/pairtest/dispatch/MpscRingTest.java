@@ -0,0 +1,98 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class MpscRingTest {
+
+
+    @Test
+    public void givenCapacity_whenConstructed_thenRoundedUpToPowerOfTwo() {
+
+        assertEquals( 2, new MpscRing<>( 1 ).capacity() );
+        assertEquals( 4, new MpscRing<>( 3 ).capacity() );
+        assertEquals( 1024, new MpscRing<>( 1000 ).capacity() );
+
+    }
+
+
+    @Test
+    public void givenFullRing_whenOffered_thenRefusedUntilPolled() {
+
+        MpscRing<Integer> ring = new MpscRing<>( 4 );
+
+        for ( int i = 0; i < 4; i++ ) assertTrue( ring.offer( i ) );
+        assertFalse( ring.offer( 4 ) );
+        assertEquals( 4, ring.size() );
+
+        assertEquals( Integer.valueOf( 0 ), ring.poll() );
+        assertTrue( ring.offer( 4 ) );
+
+        for ( int i = 1; i <= 4; i++ ) assertEquals( Integer.valueOf( i ), ring.poll() );
+        assertNull( ring.poll() );
+        assertTrue( ring.isEmpty() );
+
+    }
+
+
+    @Test
+    public void givenManyProducers_whenConsumed_thenEveryItemOnceInEachProducersOrder() throws Exception {
+
+        int producers = 4;
+        int perProducer = 50_000;
+
+        MpscRing<long[]> ring = new MpscRing<>( 64 );
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> threads = new ArrayList<>();
+
+        for ( int p = 0; p < producers; p++ ) {
+            int producer = p;
+            Thread thread = new Thread( () -> {
+                try {
+                    start.await();
+                } catch ( InterruptedException e ) {
+                    return;
+                }
+                for ( int i = 0; i < perProducer; i++ ) {
+                    long[] item = { producer, i };
+                    int attempt = 0;
+                    while ( !ring.offer( item ) ) MpscRing.idle( attempt++ );
+                }
+            } );
+            thread.start();
+            threads.add( thread );
+        }
+
+        start.countDown();
+
+        int[] next = new int[ producers ];
+        int received = 0;
+        int attempt = 0;
+
+        while ( received < producers * perProducer ) {
+            long[] item = ring.poll();
+            if ( item == null ) {
+                MpscRing.idle( attempt++ );
+                continue;
+            }
+            attempt = 0;
+            assertEquals( next[ (int) item[0] ]++, item[1] );
+            received++;
+        }
+
+        for ( Thread thread: threads ) thread.join();
+        assertNull( ring.poll() );
+
+    }
+
+
+}
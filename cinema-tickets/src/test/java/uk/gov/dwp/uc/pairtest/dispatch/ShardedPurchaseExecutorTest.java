@@ -0,0 +1,271 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+
+public class ShardedPurchaseExecutorTest {
+
+
+    SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+    TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+    ShardedPurchaseExecutor executor;
+
+    TicketTypeRequest[] twoAdults = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) };
+
+
+    @After
+    public void tearDown() {
+        if ( executor != null ) executor.close();
+    }
+
+
+    @Test
+    public void givenManyCallersOnFewAccounts_whenPurchasing_thenNoAccountEverRunsTwoAtOnce() throws Exception {
+
+        ConcurrentHashMap<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        // In flight from payment until reservation: a second payment for the account in between is an overlap.
+        doAnswer( invocation -> {
+            if ( inFlight.computeIfAbsent( invocation.getArgument( 0 ), id -> new AtomicInteger() ).incrementAndGet() > 1 ) overlaps.incrementAndGet();
+            Thread.yield();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        doAnswer( invocation -> {
+            inFlight.get( invocation.getArgument( 0 ) ).decrementAndGet();
+            return null;
+        } ).when( seatReservationService ).reserveSeat( anyLong(), anyInt() );
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), 4, 16, OverflowPolicy.BLOCK );
+
+        List<Thread> callers = new ArrayList<>();
+        List<CompletableFuture<PurchaseResult>> futures = new ArrayList<>();
+
+        for ( int c = 0; c < 4; c++ ) {
+            Thread caller = new Thread( () -> {
+                for ( int i = 0; i < 500; i++ ) {
+                    CompletableFuture<PurchaseResult> future = executor.purchaseTickets( 1 + i % 5, twoAdults );
+                    synchronized ( futures ) {
+                        futures.add( future );
+                    }
+                }
+            } );
+            caller.start();
+            callers.add( caller );
+        }
+
+        for ( Thread caller: callers ) caller.join();
+        for ( CompletableFuture<PurchaseResult> future: futures ) assertEquals( 40, future.get( 5, TimeUnit.SECONDS ).getTotalCost() );
+
+        assertEquals( 2000, futures.size() );
+        assertEquals( 0, overlaps.get() );
+
+    }
+
+
+    @Test
+    public void givenSameAccount_whenShardLookedUp_thenAlwaysTheSameShard() {
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), 7, 16, OverflowPolicy.BLOCK );
+
+        boolean[] used = new boolean[ executor.getShardCount() ];
+        for ( long accountId = 1; accountId <= 1000; accountId++ ) {
+            int shard = executor.shardFor( accountId );
+            assertEquals( shard, executor.shardFor( accountId ) );
+            used[ shard ] = true;
+        }
+
+        // Sequential ids still spread over every shard.
+        for ( boolean u: used ) assertTrue( u );
+
+    }
+
+
+    @Test
+    public void givenFullShardAndRejectPolicy_whenPurchasing_thenRejectedExecution() throws Exception {
+
+        CountDownLatch paying = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            paying.countDown();
+            release.await();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), 1, 2, OverflowPolicy.REJECT );
+
+        CompletableFuture<PurchaseResult> running = executor.purchaseTickets( 1L, twoAdults );
+        assertTrue( paying.await( 5, TimeUnit.SECONDS ) );
+
+        // The shard is busy with the first, two more fill its ring.
+        CompletableFuture<PurchaseResult> queued1 = executor.purchaseTickets( 1L, twoAdults );
+        CompletableFuture<PurchaseResult> queued2 = executor.purchaseTickets( 1L, twoAdults );
+        CompletableFuture<PurchaseResult> overflow = executor.purchaseTickets( 1L, twoAdults );
+
+        release.countDown();
+
+        assertRejectedExecution( overflow );
+        assertEquals( 1, executor.getOverflowCount() );
+
+        running.get( 5, TimeUnit.SECONDS );
+        queued1.get( 5, TimeUnit.SECONDS );
+        queued2.get( 5, TimeUnit.SECONDS );
+
+    }
+
+
+    @Test
+    public void givenFullShardAndBlockPolicy_whenPurchasing_thenCallerWaitsForRoom() throws Exception {
+
+        CountDownLatch paying = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            paying.countDown();
+            release.await();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), 1, 2, OverflowPolicy.BLOCK );
+
+        executor.purchaseTickets( 1L, twoAdults );
+        assertTrue( paying.await( 5, TimeUnit.SECONDS ) );
+        executor.purchaseTickets( 1L, twoAdults );
+        executor.purchaseTickets( 1L, twoAdults );
+
+        CountDownLatch submitted = new CountDownLatch( 1 );
+        Thread blocked = new Thread( () -> {
+            executor.purchaseTickets( 1L, twoAdults );
+            submitted.countDown();
+        } );
+        blocked.start();
+
+        boolean submittedWhileFull = submitted.await( 100, TimeUnit.MILLISECONDS );
+        release.countDown();
+
+        assertFalse( submittedWhileFull );
+        assertTrue( submitted.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( 0, executor.getOverflowCount() );
+
+    }
+
+
+    @Test
+    public void givenQueuedPurchaseCancelled_whenShardReachesIt_thenNeverChargedOrReserved() throws Exception {
+
+        CountDownLatch paying = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        doAnswer( invocation -> {
+            paying.countDown();
+            release.await();
+            return null;
+        } ).when( ticketPaymentService ).makePayment( eq( 1L ), anyInt() );
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        executor = new ShardedPurchaseExecutor( new PurchasePipeline( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                listener, PurchaseJournal.NONE ), 1, 4, OverflowPolicy.BLOCK );
+
+        CompletableFuture<PurchaseResult> running = executor.purchaseTickets( 1L, twoAdults );
+        assertTrue( paying.await( 5, TimeUnit.SECONDS ) );
+
+        CompletableFuture<PurchaseResult> cancelled = executor.purchaseTickets( 2L, twoAdults );
+        CompletableFuture<PurchaseResult> kept = executor.purchaseTickets( 3L, twoAdults );
+
+        assertTrue( cancelled.cancel( false ) );
+
+        release.countDown();
+
+        assertEquals( 1L, running.get( 5, TimeUnit.SECONDS ).getAccountId() );
+        assertEquals( 3L, kept.get( 5, TimeUnit.SECONDS ).getAccountId() );
+
+        verify( ticketPaymentService, never() ).makePayment( eq( 2L ), anyInt() );
+        verify( seatReservationService, never() ).reserveSeat( eq( 2L ), anyInt() );
+        verify( listener ).onFailed( eq( 2L ), anyInt(), eq( PurchaseStage.VALIDATION ), any() );
+        verify( listener, times( 2 ) ).onAccepted( anyLong(), anyInt(), any( PricingTable.class ), eq( 40 ), eq( 2 ), anyLong(), anyLong(), anyLong() );
+
+    }
+
+
+    @Test
+    public void givenInvalidBasket_whenPurchasing_thenRejectedWithoutQueueing() throws Exception {
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService );
+
+        CompletableFuture<PurchaseResult> future = executor.purchaseTickets( 1L, new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) );
+
+        try {
+            future.get( 5, TimeUnit.SECONDS );
+            fail();
+        } catch ( ExecutionException e ) {
+            assertTrue( e.getCause() instanceof InvalidPurchaseException );
+        }
+
+        verifyNoInteractions( ticketPaymentService );
+
+    }
+
+
+    @Test
+    public void givenClosedExecutor_whenPurchasing_thenRejectedExecution() throws Exception {
+
+        executor = new ShardedPurchaseExecutor( seatReservationService, ticketPaymentService );
+        executor.close();
+
+        assertRejectedExecution( executor.purchaseTickets( 1L, twoAdults ) );
+        verifyNoInteractions( ticketPaymentService );
+
+    }
+
+
+    private static void assertRejectedExecution( CompletableFuture<PurchaseResult> future ) throws Exception {
+
+        try {
+            future.get( 5, TimeUnit.SECONDS );
+            fail();
+        } catch ( ExecutionException e ) {
+            assertTrue( e.getCause() instanceof RejectedExecutionException );
+        }
+
+    }
+
+
+}
@@ -2,6 +2,10 @@ package uk.gov.dwp.uc.pairtest.domain;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 
 /**
  * @author Mark Start
@@ -127,12 +131,66 @@ public class TicketTypeRequestTest {
     }
 
 
+    /**
+     * Flyweights and packed form:
+     */
 
 
+    @Test
+    public void givenSameTypeAndCount_whenOf_thenSameInstance() {
 
+        TicketTypeRequest a = TicketTypeRequest.of( TicketTypeRequest.Type.CHILD, 7 );
+        TicketTypeRequest b = TicketTypeRequest.of( TicketTypeRequest.Type.CHILD, 7 );
 
+        assertSame( a, b );
+        assertEquals( TicketTypeRequest.Type.CHILD, a.getTicketType() );
+        assertEquals( 7, a.getNoOfTickets() );
 
-}
+    }
+
+
+    @Test
+    public void givenConstructedAndFlyweight_whenEquals_thenEqual() {
+
+        TicketTypeRequest constructed = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 3 );
+
+        assertEquals( constructed, TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, 3 ) );
+        assertEquals( constructed.hashCode(), TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, 3 ).hashCode() );
+
+    }
+
+
+    @Test
+    public void givenEveryLegalRequest_whenPacked_thenRoundTrips() {
+
+        for ( TicketTypeRequest.Type type: TicketTypeRequest.Type.values() ) {
+            for ( int n = 1; n <= 20; n++ ) {
 
+                int packed = TicketTypeRequest.pack( type, n );
 
+                assertTrue( TicketTypeRequest.isPacked( packed ) );
+                assertSame( TicketTypeRequest.of( type, n ), TicketTypeRequest.fromPacked( packed ) );
 
+            }
+        }
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenInvalidHighNoOfTickets_WhenOf_thenThrow() {
+
+        TicketTypeRequest.of( TicketTypeRequest.Type.ADULT, 21 );
+
+    }
+
+
+    @Test(expected = NullPointerException.class)
+    public void givenNullType_WhenOf_thenThrow() {
+
+        TicketTypeRequest.of( null, 1 );
+
+    }
+
+
+}
@@ -0,0 +1,77 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class PricingTableTest {
+
+
+    PurchaseEvaluator purchaseEvaluator = new PurchaseEvaluator( 20, 10, 3 );
+    PricingTable pricingTable = PricingTable.build( purchaseEvaluator );
+
+
+    @Test
+    public void givenEveryLegalBasket_whenLookedUp_thenMatchesEvaluator() {
+
+        for ( int a = 0; a <= 20; a++ ) {
+            for ( int c = 0; a + c <= 20; c++ ) {
+                for ( int i = 0; a + c + i <= 20; i++ ) {
+
+                    int tally = TicketTally.of( a, c, i );
+
+                    assertEquals( purchaseEvaluator.rejectionReason( 1L, tally ), pricingTable.rejectionReason( 1L, tally ) );
+
+                    if ( pricingTable.isValid( 1L, tally ) ) {
+                        assertEquals( purchaseEvaluator.totalCost( tally ), pricingTable.totalCost( tally ) );
+                        assertEquals( purchaseEvaluator.totalSeats( tally ), pricingTable.totalSeats( tally ) );
+                    }
+
+                }
+            }
+        }
+
+    }
+
+
+    @Test
+    public void givenBadAccountOrOverLimit_whenRejectionReason_thenReported() {
+
+        assertEquals( RejectionReason.BAD_ACCOUNT, pricingTable.rejectionReason( 0L, TicketTally.of( 1, 0, 0 ) ) );
+        assertEquals( RejectionReason.OVER_LIMIT, pricingTable.rejectionReason( 1L, TicketTally.OVER_LIMIT ) );
+
+    }
+
+
+    @Test
+    public void givenTwentyAdults_whenLookedUp_thenMaximumCostAndSeats() {
+
+        int tally = TicketTally.of( 20, 0, 0 );
+
+        assertEquals( 400, pricingTable.totalCost( tally ) );
+        assertEquals( 20, pricingTable.totalSeats( tally ) );
+
+    }
+
+
+    @Test
+    public void givenBuiltTable_whenReported_thenFootprintAndBuildTimeKnown() {
+
+        assertEquals( 32L + 6L * TicketTally.SIZE, pricingTable.getFootprintBytes() );
+        assertTrue( pricingTable.getBuildNanos() > 0 );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenCostTooHighToPack_whenBuild_thenThrow() {
+
+        PricingTable.build( new PurchaseEvaluator( 10_000_000, 0, 0 ) );
+
+    }
+
+
+}
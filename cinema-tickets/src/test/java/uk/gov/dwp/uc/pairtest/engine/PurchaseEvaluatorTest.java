@@ -0,0 +1,120 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class PurchaseEvaluatorTest {
+
+
+    PurchaseEvaluator purchaseEvaluator;
+
+
+    @Before
+    public void setUp() {
+
+        purchaseEvaluator = new PurchaseEvaluator( 20, 10, 0 );
+
+    }
+
+
+    /**
+     *    Validity :
+     */
+
+
+    @Test
+    public void givenAdultsChildrenAndInfants_whenIsValid_thenTrue() {
+
+        assertTrue( purchaseEvaluator.isValid( 1L, TicketTally.of( 2, 5, 2 ) ) );
+
+    }
+
+
+    @Test
+    public void givenInvalidAccount_whenIsValid_thenFalse() {
+
+        assertFalse( purchaseEvaluator.isValid( 0L, TicketTally.of( 1, 0, 0 ) ) );
+        assertFalse( purchaseEvaluator.isValid( Long.MIN_VALUE, TicketTally.of( 1, 0, 0 ) ) );
+
+    }
+
+
+    @Test
+    public void givenNoAdult_whenIsValid_thenFalse() {
+
+        assertFalse( purchaseEvaluator.isValid( 1L, TicketTally.of( 0, 3, 0 ) ) );
+        assertFalse( purchaseEvaluator.isValid( 1L, TicketTally.EMPTY ) );
+
+    }
+
+
+    @Test
+    public void givenMoreInfantsThanAdults_whenIsValid_thenFalse() {
+
+        assertFalse( purchaseEvaluator.isValid( 1L, TicketTally.of( 2, 0, 3 ) ) );
+
+    }
+
+
+    @Test
+    public void givenOverLimit_whenIsValid_thenFalse() {
+
+        assertFalse( purchaseEvaluator.isValid( 1L, TicketTally.OVER_LIMIT ) );
+
+    }
+
+
+    @Test
+    public void givenEachBrokenRule_whenRejectionReason_thenReasonReported() {
+
+        assertEquals( RejectionReason.BAD_ACCOUNT, purchaseEvaluator.rejectionReason( 0L, TicketTally.of( 1, 0, 0 ) ) );
+        assertEquals( RejectionReason.OVER_LIMIT, purchaseEvaluator.rejectionReason( 1L, TicketTally.OVER_LIMIT ) );
+        assertEquals( RejectionReason.NO_TICKETS, purchaseEvaluator.rejectionReason( 1L, TicketTally.EMPTY ) );
+        assertEquals( RejectionReason.NO_ADULT, purchaseEvaluator.rejectionReason( 1L, TicketTally.of( 0, 2, 0 ) ) );
+        assertEquals( RejectionReason.TOO_MANY_INFANTS, purchaseEvaluator.rejectionReason( 1L, TicketTally.of( 1, 0, 2 ) ) );
+        assertEquals( null, purchaseEvaluator.rejectionReason( 1L, TicketTally.of( 2, 0, 2 ) ) );
+
+    }
+
+
+    /**
+     *    Cost and seats :
+     */
+
+
+    @Test
+    public void givenMixedTally_whenTotalCostAndSeats_thenCorrect() {
+
+        int tally = TicketTally.of( 5, 3, 10 );
+
+        assertEquals( 130, purchaseEvaluator.totalCost( tally ) );
+        assertEquals( 8, purchaseEvaluator.totalSeats( tally ) );
+
+    }
+
+
+    @Test
+    public void givenChargedInfants_whenTotalCost_thenInfantsIncluded() {
+
+        PurchaseEvaluator chargedInfants = new PurchaseEvaluator( 20, 10, 5 );
+
+        assertEquals( 20 + 10 + 10, chargedInfants.totalCost( TicketTally.of( 1, 1, 2 ) ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeCost_whenConstructing_thenThrow() {
+
+        new PurchaseEvaluator( -1, 10, 0 );
+
+    }
+
+
+}
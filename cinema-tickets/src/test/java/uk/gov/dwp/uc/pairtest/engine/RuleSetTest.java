@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+
+public class RuleSetTest {
+
+
+    static RuleSet rules( String... keysAndValues ) {
+
+        Properties properties = new Properties();
+        for ( int i = 0; i < keysAndValues.length; i += 2 ) properties.setProperty( RuleSet.PREFIX + keysAndValues[i], keysAndValues[i + 1] );
+        return RuleSet.fromProperties( properties );
+
+    }
+
+
+    @Test
+    public void givenStandardRules_whenCompiled_thenSameAnswersAsHardCodedChecks() {
+
+        PricingTable table = PricingTable.build( PurchaseEvaluator.standardPrices(), RuleSet.standard() );
+        PurchaseEvaluator evaluator = PurchaseEvaluator.standardPrices();
+
+        for ( int tally = 0; tally < TicketTally.SIZE; tally++ ) {
+
+            if ( TicketTally.total( tally ) > TicketTally.MAX_TICKETS ) continue;
+
+            assertEquals( evaluator.rejectionReason( 1L, tally ), table.rejectionReason( 1L, tally ) );
+            if ( evaluator.isValid( 1L, tally ) ) assertEquals( evaluator.totalCost( tally ), table.totalCost( tally ) );
+
+        }
+
+    }
+
+
+    @Test
+    public void givenMatinee_whenChildrenOnly_thenValidButInfantsStillNeedAnAdult() {
+
+        RuleSet matinee = rules( "adultRequired", "false" );
+
+        assertNull( matinee.rejectionReason( TicketTally.of( 0, 4, 0 ) ) );
+        assertEquals( RejectionReason.TOO_MANY_INFANTS, matinee.rejectionReason( TicketTally.of( 0, 4, 1 ) ) );
+
+    }
+
+
+    @Test
+    public void givenLowerCaps_whenExceeded_thenOverLimit() {
+
+        RuleSet smallVenue = rules( "maxTickets", "6", "maxChildren", "2" );
+
+        assertNull( smallVenue.rejectionReason( TicketTally.of( 4, 2, 0 ) ) );
+        assertEquals( RejectionReason.OVER_LIMIT, smallVenue.rejectionReason( TicketTally.of( 5, 2, 0 ) ) );
+        assertEquals( RejectionReason.OVER_LIMIT, smallVenue.rejectionReason( TicketTally.of( 1, 3, 0 ) ) );
+
+    }
+
+
+    @Test
+    public void givenGroupDiscount_whenCompiled_thenLargeBasketsCheaper() {
+
+        PricingTable table = PricingTable.build( PurchaseEvaluator.standardPrices(),
+                rules( "groupDiscount.minTickets", "10", "groupDiscount.percent", "15" ) );
+
+        assertEquals( 180, table.totalCost( TicketTally.of( 9, 0, 0 ) ) );
+
+        // 200 less 15%.
+        assertEquals( 170, table.totalCost( TicketTally.of( 10, 0, 0 ) ) );
+
+    }
+
+
+    @Test
+    public void givenExtraRule_whenAdded_thenCheckedLastAndCompiledIn() {
+
+        RuleSet evenAdults = RuleSet.standard().and( "evenAdults", ( a, c, i ) -> a % 2 == 1 ? RejectionReason.OVER_LIMIT : null );
+        PricingTable table = PricingTable.build( PurchaseEvaluator.standardPrices(), evenAdults );
+
+        assertEquals( RejectionReason.NO_ADULT, table.rejectionReason( 1L, TicketTally.of( 0, 1, 0 ) ) );
+        assertEquals( RejectionReason.OVER_LIMIT, table.rejectionReason( 1L, TicketTally.of( 1, 0, 0 ) ) );
+        assertNull( table.rejectionReason( 1L, TicketTally.of( 2, 0, 0 ) ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenCapAboveTwenty_whenLoaded_thenThrow() {
+        rules( "maxTickets", "21" );
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenBadBoolean_whenLoaded_thenThrow() {
+        rules( "adultRequired", "yes" );
+    }
+
+
+}
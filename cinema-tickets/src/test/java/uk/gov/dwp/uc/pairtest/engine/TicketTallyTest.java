@@ -0,0 +1,145 @@
+package uk.gov.dwp.uc.pairtest.engine;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class TicketTallyTest {
+
+
+    /**
+     *    Tallying TicketTypeRequest[] :
+     */
+
+
+    @Test
+    public void givenMixedRequests_whenTally_thenCountsEachType() {
+
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[] {
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 3 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 4 )
+        };
+
+        int tally = TicketTally.of( ticketTypeRequests );
+
+        assertEquals( 6, TicketTally.adults( tally ) );
+        assertEquals( 3, TicketTally.children( tally ) );
+        assertEquals( 1, TicketTally.infants( tally ) );
+        assertEquals( 10, TicketTally.total( tally ) );
+
+    }
+
+
+    @Test
+    public void givenEmptyRequests_whenTally_thenEmpty() {
+
+        assertEquals( TicketTally.EMPTY, TicketTally.of( new TicketTypeRequest[]{} ) );
+
+    }
+
+
+    @Test(expected = NullPointerException.class)
+    public void givenNullRequests_whenTally_thenThrow() {
+
+        TicketTally.of( null );
+
+    }
+
+
+    @Test
+    public void givenExactlyMaximumTickets_whenTally_thenCounted() {
+
+        int tally = TicketTally.of( new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 20 ) } );
+
+        assertEquals( 20, TicketTally.infants( tally ) );
+        assertEquals( 0, TicketTally.adults( tally ) );
+
+    }
+
+
+    @Test
+    public void givenOverMaximumTickets_whenTally_thenOverLimit() {
+
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[] {
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 20 ),
+                new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 )
+        };
+
+        assertEquals( TicketTally.OVER_LIMIT, TicketTally.of( ticketTypeRequests ) );
+
+    }
+
+
+    @Test
+    public void givenOverMaximumRequestCount_whenTally_thenOverLimit() {
+
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[21];
+        for ( int i = 0; i < 21; i++ ) ticketTypeRequests[i] = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1 );
+
+        assertEquals( TicketTally.OVER_LIMIT, TicketTally.of( ticketTypeRequests ) );
+
+    }
+
+
+    @Test
+    public void givenPackedRequests_whenTallyPacked_thenSameAsObjects() {
+
+        int[] packed = new int[] {
+                TicketTypeRequest.pack( TicketTypeRequest.Type.ADULT, 2 ),
+                TicketTypeRequest.pack( TicketTypeRequest.Type.CHILD, 3 ),
+                TicketTypeRequest.pack( TicketTypeRequest.Type.INFANT, 1 ),
+                0 // beyond length, ignored
+        };
+
+        assertEquals( TicketTally.of( 2, 3, 1 ), TicketTally.ofPacked( packed, 3 ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMalformedPackedRequest_whenTallyPacked_thenThrow() {
+
+        TicketTally.ofPacked( new int[] { TicketTypeRequest.pack( TicketTypeRequest.Type.ADULT, 0 ) }, 1 );
+
+    }
+
+
+    /**
+     *    Tallying counts :
+     */
+
+
+    @Test
+    public void givenEveryLegalCombination_whenTally_thenRoundTripsWithinSize() {
+
+        for ( int a = 0; a <= 20; a++ ) {
+            for ( int c = 0; a + c <= 20; c++ ) {
+                for ( int i = 0; a + c + i <= 20; i++ ) {
+
+                    int tally = TicketTally.of( a, c, i );
+
+                    assertEquals( a, TicketTally.adults( tally ) );
+                    assertEquals( c, TicketTally.children( tally ) );
+                    assertEquals( i, TicketTally.infants( tally ) );
+                    assertEquals( true, tally >= 0 && tally < TicketTally.SIZE );
+
+                }
+            }
+        }
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenNegativeCount_whenTally_thenThrow() {
+
+        TicketTally.of( -1, 0, 0 );
+
+    }
+
+
+}
@@ -0,0 +1,336 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.dispatch.OverflowPolicy;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+
+
+public class PurchaseEventPublisherTest {
+
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+    TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+    PurchaseEventPublisher publisher;
+
+    TicketTypeRequest[] family = new TicketTypeRequest[] {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 )
+    };
+
+    TicketTypeRequest[] childOnly = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ) };
+
+
+    @After
+    public void tearDown() {
+        if ( publisher != null ) publisher.close();
+    }
+
+
+    /** Section : Events from purchases */
+
+
+    @Test
+    public void givenEveryOutcome_whenPurchasing_thenOneEventEachInOrder() {
+
+        InMemoryEventSink sink = new InMemoryEventSink( 16 );
+        publisher = new PurchaseEventPublisher( 16, OverflowPolicy.BLOCK, sink );
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), publisher );
+
+        ticketService.purchaseTickets( 42L, family );
+        purchaseExpectingFailure( ticketService, 7L, childOnly );
+
+        doThrow( new IllegalStateException( "seats down" ) ).when( seatReservationService ).reserveSeat( anyLong(), anyInt() );
+        purchaseExpectingFailure( ticketService, 9L, family );
+
+        publisher.close();
+
+        List<PurchaseEvent> events = sink.recent();
+        assertEquals( 3, events.size() );
+
+        PurchaseEvent accepted = events.get( 0 );
+        assertEquals( 0L, accepted.getSequence() );
+        assertEquals( 42L, accepted.getAccountId() );
+        assertEquals( PurchaseOutcome.Status.ACCEPTED, accepted.getStatus() );
+        assertEquals( 2, accepted.getAdults() );
+        assertEquals( 1, accepted.getChildren() );
+        assertEquals( 0, accepted.getInfants() );
+        assertEquals( 50, accepted.getTotalCost() );
+        assertEquals( 3, accepted.getTotalSeats() );
+        assertTrue( accepted.getTimestampMillis() > 0 );
+
+        PurchaseEvent rejected = events.get( 1 );
+        assertEquals( PurchaseOutcome.Status.REJECTED, rejected.getStatus() );
+        assertEquals( RejectionReason.NO_ADULT, rejected.getReason() );
+        assertEquals( 0, rejected.getTotalCost() );
+
+        PurchaseEvent failed = events.get( 2 );
+        assertEquals( PurchaseOutcome.Status.FAILED, failed.getStatus() );
+        assertEquals( PurchaseStage.RESERVATION, failed.getFailedStage() );
+        assertNull( failed.getReason() );
+
+        assertEquals( 3, publisher.getDelivered() );
+        assertEquals( 0, publisher.getDropped() );
+
+    }
+
+
+    @Test
+    public void givenMetricsAndPublisher_whenCombined_thenBothHearEveryPurchase() {
+
+        InMemoryEventSink sink = new InMemoryEventSink( 16 );
+        publisher = new PurchaseEventPublisher( sink );
+        PurchaseMetrics metrics = new PurchaseMetrics();
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(),
+                PurchaseListener.all( metrics, publisher ) );
+
+        ticketService.purchaseTickets( 1L, family );
+        purchaseExpectingFailure( ticketService, 2L, childOnly );
+
+        publisher.close();
+
+        assertEquals( 2, sink.getReceived() );
+        assertEquals( 1, metrics.snapshot().getAccepted() );
+
+    }
+
+
+    @Test
+    public void givenOverLimitBasket_whenRejected_thenCountsAreUnknown() {
+
+        InMemoryEventSink sink = new InMemoryEventSink( 4 );
+        publisher = new PurchaseEventPublisher( sink );
+
+        publisher.onRejected( 1L, TicketTally.OVER_LIMIT, RejectionReason.OVER_LIMIT, 0L );
+        publisher.close();
+
+        PurchaseEvent event = sink.recent().get( 0 );
+        assertTrue( event.isOverLimit() );
+        assertEquals( -1, event.getAdults() );
+
+    }
+
+
+    /** Section : Back-pressure */
+
+
+    @Test
+    public void givenStalledSinkAndRejectPolicy_whenRingFills_thenEventsDroppedAndPublisherNeverWaits() throws Exception {
+
+        CountDownLatch entered = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        List<Long> sequences = new ArrayList<>();
+
+        PurchaseEventSink stalled = event -> {
+            sequences.add( event.getSequence() );
+            entered.countDown();
+            await( release );
+        };
+
+        publisher = new PurchaseEventPublisher( 2, OverflowPolicy.REJECT, stalled );
+
+        try {
+
+            publisher.onAccepted( 1L, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+            assertTrue( entered.await( 5, TimeUnit.SECONDS ) );
+
+            // The drainer holds the first, two fit in the ring, the last two have nowhere to go.
+            for ( int i = 0; i < 4; i++ ) publisher.onAccepted( 2L + i, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+
+            assertEquals( 2, publisher.getDropped() );
+            assertEquals( 5, publisher.getPublished() );
+
+        } finally {
+            release.countDown();
+        }
+
+        publisher.close();
+
+        assertEquals( 3, publisher.getDelivered() );
+        // The two dropped while the first was being delivered leave a gap after it.
+        assertEquals( Arrays.asList( 0L, 3L, 4L ), sequences );
+
+    }
+
+
+    @Test
+    public void givenStalledSinkAndBlockPolicy_whenRingFills_thenPublisherWaitsAndNothingIsLost() throws Exception {
+
+        CountDownLatch entered = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        InMemoryEventSink sink = new InMemoryEventSink( 16 );
+
+        PurchaseEventSink stalled = event -> {
+            entered.countDown();
+            await( release );
+        };
+
+        publisher = new PurchaseEventPublisher( 2, OverflowPolicy.BLOCK, stalled, sink );
+
+        Thread purchaser = new Thread( () -> {
+            for ( int i = 0; i < 6; i++ ) publisher.onAccepted( i, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+        } );
+
+        try {
+
+            purchaser.start();
+            assertTrue( entered.await( 5, TimeUnit.SECONDS ) );
+
+            purchaser.join( 200 );
+            assertTrue( purchaser.isAlive() );
+
+        } finally {
+            release.countDown();
+        }
+
+        purchaser.join( 5000 );
+        publisher.close();
+
+        assertEquals( 6, sink.getReceived() );
+        assertEquals( 0, publisher.getDropped() );
+
+    }
+
+
+    @Test
+    public void givenManyPublishingThreads_whenDelivered_thenSequencesInDeliveryOrderWithoutGaps() throws Exception {
+
+        List<Long> sequences = new ArrayList<>();
+        publisher = new PurchaseEventPublisher( 16, OverflowPolicy.BLOCK, event -> sequences.add( event.getSequence() ) );
+
+        Thread[] purchasers = new Thread[ 4 ];
+        for ( int t = 0; t < purchasers.length; t++ ) {
+            purchasers[t] = new Thread( () -> {
+                for ( int i = 0; i < 2000; i++ ) publisher.onAccepted( i, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+            } );
+            purchasers[t].start();
+        }
+
+        for ( Thread purchaser: purchasers ) purchaser.join();
+        publisher.close();
+
+        assertEquals( 8000, sequences.size() );
+        for ( int i = 0; i < sequences.size(); i++ ) assertEquals( i, sequences.get( i ).longValue() );
+
+    }
+
+
+    /** Section : Sinks */
+
+
+    @Test
+    public void givenFailingSink_whenPublishing_thenOtherSinksStillGetEveryEvent() {
+
+        InMemoryEventSink sink = new InMemoryEventSink( 16 );
+        PurchaseEventSink broken = event -> {
+            throw new IllegalStateException( "broken" );
+        };
+
+        publisher = new PurchaseEventPublisher( 16, OverflowPolicy.BLOCK, broken, sink );
+
+        for ( int i = 0; i < 3; i++ ) publisher.onAccepted( i, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+        publisher.close();
+
+        assertEquals( 3, sink.getReceived() );
+        assertEquals( 3, publisher.getSinkFailures() );
+
+    }
+
+
+    @Test
+    public void givenFileAppender_whenClosed_thenHeaderAndOneLinePerEvent() throws Exception {
+
+        Path file = folder.getRoot().toPath().resolve( "events.csv" );
+        publisher = new PurchaseEventPublisher( 16, OverflowPolicy.BLOCK, new EventFileAppender( file ) );
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), publisher );
+
+        ticketService.purchaseTickets( 42L, family );
+        purchaseExpectingFailure( ticketService, 7L, childOnly );
+
+        publisher.close();
+
+        List<String> lines = Files.readAllLines( file );
+        assertEquals( 3, lines.size() );
+        assertEquals( EventFileAppender.HEADER, lines.get( 0 ) );
+        assertTrue( lines.get( 1 ), lines.get( 1 ).matches( "0,\\d+,42,2,1,0,ACCEPTED,,,50,3,\\d+,\\d+,\\d+" ) );
+        assertTrue( lines.get( 2 ), lines.get( 2 ).matches( "1,\\d+,7,0,2,0,REJECTED,NO_ADULT,,0,0,\\d+,0,0" ) );
+
+    }
+
+
+    @Test
+    public void givenSmallInMemorySink_whenOverfilled_thenKeepsMostRecent() {
+
+        InMemoryEventSink sink = new InMemoryEventSink( 2 );
+        publisher = new PurchaseEventPublisher( sink );
+
+        for ( int i = 0; i < 5; i++ ) publisher.onAccepted( i, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25, 1, 0L, 0L, 0L );
+        publisher.close();
+
+        List<PurchaseEvent> recent = sink.recent();
+        assertEquals( 2, recent.size() );
+        assertEquals( 3L, recent.get( 0 ).getAccountId() );
+        assertEquals( 4L, recent.get( 1 ).getAccountId() );
+
+    }
+
+
+    private static void purchaseExpectingFailure( TicketServiceImpl ticketService, long accountId, TicketTypeRequest[] requests ) {
+
+        try {
+            ticketService.purchaseTickets( accountId, requests );
+            fail( "Expected the purchase to fail" );
+        } catch ( InvalidPurchaseException | IllegalStateException expected ) {
+        }
+
+    }
+
+
+    private static void await( CountDownLatch latch ) {
+
+        try {
+            latch.await( 5, TimeUnit.SECONDS );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+
+}
@@ -0,0 +1,205 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class InvalidPurchaseExceptionTest {
+
+
+    TicketTypeRequest[] childOnly = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ) };
+
+
+    /**
+     *    Lightweight rejections :
+     */
+
+
+    @Test
+    public void givenReason_whenConstructing_thenNoStackTrace() {
+
+        InvalidPurchaseException e = new InvalidPurchaseException( RejectionReason.NO_ADULT, 7L, childOnly );
+
+        assertEquals( 0, e.getStackTrace().length );
+        assertEquals( RejectionReason.NO_ADULT, e.getReason() );
+        assertEquals( 7L, e.getAccountId() );
+
+    }
+
+
+    @Test
+    public void givenReason_whenGetMessage_thenDescribesRequest() {
+
+        String message = new InvalidPurchaseException( RejectionReason.NO_ADULT, 7L, childOnly ).getMessage();
+
+        assertTrue( message.startsWith( "NO_ADULT: " ) );
+        assertTrue( message.contains( "AccountID:\t7" ) );
+        assertTrue( message.contains( "ticketType: CHILD, #ofTickets: 2" ) );
+
+    }
+
+
+    @Test
+    public void givenCallerReusesItsArray_whenGetMessage_thenDescribesRequestAsRejected() {
+
+        TicketTypeRequest[] reused = childOnly.clone();
+        InvalidPurchaseException e = new InvalidPurchaseException( RejectionReason.NO_ADULT, 7L, reused );
+
+        reused[0] = new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 5 );
+
+        assertTrue( e.getMessage().contains( "ticketType: CHILD, #ofTickets: 2" ) );
+
+    }
+
+
+    @Test
+    public void givenMessage_whenConstructing_thenMessageKept() {
+
+        InvalidPurchaseException e = new InvalidPurchaseException( "custom" );
+
+        assertEquals( "custom", e.getMessage() );
+        assertEquals( null, e.getReason() );
+
+    }
+
+
+    /**
+     *    Off-thread logging :
+     */
+
+
+    @Test
+    public void givenRejection_whenLogged_thenWrittenByBackgroundThread() throws InterruptedException {
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel( Level.FINE );
+        logger.setUseParentHandlers( false );
+        RecordingHandler handler = new RecordingHandler();
+        logger.addHandler( handler );
+
+        try ( RejectionLog rejectionLog = new RejectionLog( logger, 16 ) ) {
+
+            assertTrue( rejectionLog.log( new InvalidPurchaseException( RejectionReason.BAD_ACCOUNT, -1L, childOnly ) ) );
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 5 );
+            while ( handler.records().isEmpty() && System.nanoTime() < deadline ) Thread.sleep( 5 );
+
+        }
+
+        LogRecord record = handler.records().get( 0 );
+
+        assertEquals( RejectionReason.BAD_ACCOUNT, record.getParameters()[0] );
+        assertEquals( -1L, record.getParameters()[1] );
+        assertFalse( Thread.currentThread().getId() == handler.threadId );
+
+    }
+
+
+    @Test
+    public void givenLoggerOff_whenLogged_thenNotQueued() {
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel( Level.OFF );
+
+        try ( RejectionLog rejectionLog = new RejectionLog( logger, 16 ) ) {
+            assertFalse( rejectionLog.log( new InvalidPurchaseException( RejectionReason.BAD_ACCOUNT, -1L, childOnly ) ) );
+        }
+
+    }
+
+
+    @Test
+    public void givenDefaultLogging_whenRejected_thenNotQueued() {
+
+        Logger logger = Logger.getAnonymousLogger();
+
+        try ( RejectionLog rejectionLog = new RejectionLog( logger, 16 ) ) {
+            assertFalse( rejectionLog.log( new InvalidPurchaseException( RejectionReason.BAD_ACCOUNT, -1L, childOnly ) ) );
+        }
+
+    }
+
+
+    @Test
+    public void givenQueuedRejections_whenClosed_thenWrittenAndThreadStopped() {
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel( Level.FINE );
+        logger.setUseParentHandlers( false );
+        RecordingHandler handler = new RecordingHandler();
+        logger.addHandler( handler );
+
+        RejectionLog rejectionLog = new RejectionLog( logger, 16 );
+        for ( int i = 0; i < 10; i++ ) rejectionLog.log( new InvalidPurchaseException( RejectionReason.NO_ADULT, i + 1L, childOnly ) );
+
+        rejectionLog.close();
+
+        assertEquals( 10, handler.records().size() );
+        assertFalse( handler.thread.isAlive() );
+
+        assertFalse( rejectionLog.log( new InvalidPurchaseException( RejectionReason.NO_ADULT, 1L, childOnly ) ) );
+        assertEquals( 1, rejectionLog.getDropped() );
+
+    }
+
+
+    @Test
+    public void givenSharedLog_whenClosed_thenStillLogging() {
+
+        RejectionLog.shared().close();
+
+        Logger logger = Logger.getLogger( RejectionLog.LOGGER_NAME );
+        logger.setUseParentHandlers( false );
+        logger.setLevel( Level.FINE );
+
+        try {
+            assertTrue( RejectionLog.shared().log( new InvalidPurchaseException( RejectionReason.NO_ADULT, 1L, childOnly ) ) );
+        } finally {
+            logger.setLevel( null );
+            logger.setUseParentHandlers( true );
+        }
+
+    }
+
+
+    static class RecordingHandler extends Handler {
+
+        private final List<LogRecord> records = new ArrayList<>();
+        volatile long threadId;
+        volatile Thread thread;
+
+        @Override
+        public synchronized void publish( LogRecord record ) {
+            thread = Thread.currentThread();
+            threadId = thread.getId();
+            records.add( record );
+        }
+
+        synchronized List<LogRecord> records() {
+            return new ArrayList<>( records );
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+
+}
@@ -0,0 +1,71 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class AccountRateLimiterTest {
+
+
+    AtomicLong clock = new AtomicLong( TimeUnit.SECONDS.toNanos( 100 ) );
+
+    // 10 purchases a second, bursts of 3.
+    AccountRateLimiter rateLimiter = new AccountRateLimiter( 10, 3, 1024, clock::get );
+
+
+    @Test
+    public void givenBurstUsed_whenTryAcquire_thenRejectedUntilRefilled() {
+
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertFalse( rateLimiter.tryAcquire( 1L ) );
+
+        clock.addAndGet( TimeUnit.MILLISECONDS.toNanos( 100 ) );
+
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertFalse( rateLimiter.tryAcquire( 1L ) );
+
+    }
+
+
+    @Test
+    public void givenOneAccountLimited_whenTryAcquire_thenOtherAccountsUnaffected() {
+
+        for ( int i = 0; i < 3; i++ ) rateLimiter.tryAcquire( 1L );
+
+        assertFalse( rateLimiter.tryAcquire( 1L ) );
+        assertTrue( rateLimiter.tryAcquire( 2L ) );
+
+    }
+
+
+    @Test
+    public void givenLongIdle_whenTryAcquire_thenFullBurstAvailable() {
+
+        for ( int i = 0; i < 3; i++ ) rateLimiter.tryAcquire( 1L );
+
+        // Longer than the 32 bit microsecond clock wraps.
+        clock.addAndGet( TimeUnit.HOURS.toNanos( 2 ) );
+
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+        assertTrue( rateLimiter.tryAcquire( 1L ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenZeroRate_whenConstructing_thenThrow() {
+
+        new AccountRateLimiter( 0, 1 );
+
+    }
+
+
+}
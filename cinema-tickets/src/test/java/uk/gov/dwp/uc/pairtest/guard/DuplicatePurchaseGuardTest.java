@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class DuplicatePurchaseGuardTest {
+
+
+    AtomicLong clock = new AtomicLong( TimeUnit.SECONDS.toNanos( 100 ) );
+
+    DuplicatePurchaseGuard guard = new DuplicatePurchaseGuard( 2, TimeUnit.SECONDS, 1024, clock::get );
+
+    int twoAdults = TicketTally.of( 2, 0, 0 );
+    int threeAdults = TicketTally.of( 3, 0, 0 );
+
+
+    @Test
+    public void givenSameBasketWithinWindow_whenTryClaim_thenDuplicate() {
+
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+        assertFalse( guard.tryClaim( 1L, twoAdults ) );
+
+    }
+
+
+    @Test
+    public void givenDifferentBasketOrAccount_whenTryClaim_thenClaimed() {
+
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+        assertTrue( guard.tryClaim( 1L, threeAdults ) );
+        assertTrue( guard.tryClaim( 2L, twoAdults ) );
+
+    }
+
+
+    @Test
+    public void givenWindowExpired_whenTryClaim_thenClaimed() {
+
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+
+        clock.addAndGet( TimeUnit.MILLISECONDS.toNanos( 2001 ) );
+
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+
+    }
+
+
+    @Test
+    public void givenReleased_whenTryClaim_thenClaimed() {
+
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+        guard.release( 1L, twoAdults );
+        assertTrue( guard.tryClaim( 1L, twoAdults ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenTtlTooLong_whenConstructing_thenThrow() {
+
+        new DuplicatePurchaseGuard( 3, TimeUnit.HOURS );
+
+    }
+
+
+}
@@ -0,0 +1,150 @@
+package uk.gov.dwp.uc.pairtest.guard;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+public class GuardedTicketServiceTest {
+
+
+    TicketService delegate;
+    GuardedTicketService guardedTicketService;
+
+    TicketTypeRequest[] twoAdults = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) };
+    TicketTypeRequest[] oneAdult = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1 ) };
+
+
+    @Before
+    public void setUp() {
+
+        delegate = Mockito.mock( TicketService.class );
+
+        guardedTicketService = new GuardedTicketService( delegate,
+                new AccountRateLimiter( 1, 2 ),
+                new DuplicatePurchaseGuard( 5, TimeUnit.SECONDS ) );
+
+    }
+
+
+    @Test
+    public void givenRepeatedBasket_whenPurchaseTickets_thenDuplicateRejectedBeforeDelegate() {
+
+        guardedTicketService.purchaseTickets( 1L, twoAdults );
+
+        assertEquals( RejectionReason.DUPLICATE, reasonFor( 1L, twoAdults ) );
+        verify( delegate, times( 1 ) ).purchaseTickets( any(), any() );
+
+    }
+
+
+    @Test
+    public void givenRetryStorm_whenPurchaseTickets_thenRateLimited() {
+
+        guardedTicketService.purchaseTickets( 1L, twoAdults );
+        guardedTicketService.purchaseTickets( 1L, oneAdult );
+
+        assertEquals( RejectionReason.RATE_LIMITED, reasonFor( 1L, oneAdult ) );
+        verify( delegate, times( 2 ) ).purchaseTickets( any(), any() );
+
+    }
+
+
+    @Test
+    public void givenDelegateFails_whenRetried_thenDuplicateRejectedBeforeDelegate() {
+
+        doThrow( new IllegalStateException( "gateway down" ) ).doNothing().when( delegate ).purchaseTickets( any(), any() );
+
+        try {
+            guardedTicketService.purchaseTickets( 1L, twoAdults );
+            fail();
+        } catch ( IllegalStateException expected ) {
+        }
+
+        // The failure may have come after the payment was taken, so a retry is not let through.
+        assertEquals( RejectionReason.DUPLICATE, reasonFor( 1L, twoAdults ) );
+        verify( delegate, times( 1 ) ).purchaseTickets( any(), any() );
+
+    }
+
+
+    @Test
+    public void givenReservationFailsAfterPayment_whenRetried_thenNotChargedTwice() {
+
+        SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+        TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        doThrow( new IllegalStateException( "no seats service" ) ).when( seatReservationService ).reserveSeat( anyLong(), anyInt() );
+
+        guardedTicketService = new GuardedTicketService( new TicketServiceImpl( seatReservationService, ticketPaymentService ),
+                new AccountRateLimiter( 1, 2 ), new DuplicatePurchaseGuard( 5, TimeUnit.SECONDS ) );
+
+        try {
+            guardedTicketService.purchaseTickets( 1L, twoAdults );
+            fail();
+        } catch ( IllegalStateException expected ) {
+        }
+
+        assertEquals( RejectionReason.DUPLICATE, reasonFor( 1L, twoAdults ) );
+        verify( ticketPaymentService, times( 1 ) ).makePayment( 1L, 40 );
+
+    }
+
+
+    @Test
+    public void givenDelegateRejects_whenRetried_thenSameReasonNotDuplicate() {
+
+        doThrow( new InvalidPurchaseException( RejectionReason.NO_ADULT, 1L, twoAdults ) ).when( delegate ).purchaseTickets( any(), any() );
+
+        assertEquals( RejectionReason.NO_ADULT, reasonFor( 1L, twoAdults ) );
+        assertEquals( RejectionReason.NO_ADULT, reasonFor( 1L, twoAdults ) );
+        verify( delegate, times( 2 ) ).purchaseTickets( any(), any() );
+
+    }
+
+
+    @Test
+    public void givenInvalidBasketRejectedByTicketService_whenRetried_thenRealReasonEachTime() {
+
+        TicketService ticketService = new TicketServiceImpl( Mockito.mock( SeatReservationService.class ), Mockito.mock( TicketPaymentService.class ) );
+        guardedTicketService = new GuardedTicketService( ticketService, new AccountRateLimiter( 1, 2 ), new DuplicatePurchaseGuard( 5, TimeUnit.SECONDS ) );
+
+        TicketTypeRequest[] childOnly = new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ) };
+
+        assertEquals( RejectionReason.NO_ADULT, reasonFor( 1L, childOnly ) );
+        assertEquals( RejectionReason.NO_ADULT, reasonFor( 1L, childOnly ) );
+
+    }
+
+
+    private RejectionReason reasonFor( Long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+
+        try {
+            guardedTicketService.purchaseTickets( accountId, ticketTypeRequests );
+            fail( "Expected a rejection" );
+            return null;
+        } catch ( InvalidPurchaseException e ) {
+            return e.getReason();
+        }
+
+    }
+
+
+}
@@ -0,0 +1,139 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.RuleSet;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+public class InventoryTicketServiceTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    ScreeningCapacity screening;
+    InventoryTicketService inventoryTicketService;
+
+    TicketTypeRequest[] threeSeats = {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 ) };
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+        screening = new SeatInventory( 4 ).open( 1L, 5 );
+        inventoryTicketService = new InventoryTicketService( new TicketServiceImpl( seatReservationService, ticketPaymentService ), screening );
+
+    }
+
+
+    @Test
+    public void givenSeatsLeft_whenPurchaseTickets_thenSeatsTakenAndReserved() {
+
+        inventoryTicketService.purchaseTickets( 1L, threeSeats );
+
+        verify( seatReservationService ).reserveSeat( 1L, 3 );
+        assertEquals( 2, screening.getRemaining() );
+
+    }
+
+
+    @Test
+    public void givenTooFewSeatsLeft_whenPurchaseTickets_thenSoldOutBeforePayment() {
+
+        inventoryTicketService.purchaseTickets( 1L, threeSeats );
+
+        try {
+            inventoryTicketService.purchaseTickets( 2L, threeSeats );
+            fail();
+        } catch ( InvalidPurchaseException e ) {
+            assertEquals( RejectionReason.SOLD_OUT, e.getReason() );
+        }
+
+        verify( ticketPaymentService, never() ).makePayment( 2L, 50 );
+        assertEquals( 2, screening.getRemaining() );
+
+    }
+
+
+    @Test
+    public void givenInvalidBasket_whenPurchaseTickets_thenOwnReasonAndNoSeatsTaken() {
+
+        try {
+            inventoryTicketService.purchaseTickets( 1L, new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ) );
+            fail();
+        } catch ( InvalidPurchaseException e ) {
+            assertEquals( RejectionReason.NO_ADULT, e.getReason() );
+        }
+
+        assertEquals( 5, screening.getRemaining() );
+
+    }
+
+
+    @Test
+    public void givenPaymentFails_whenPurchaseTickets_thenSeatsGivenBack() {
+
+        doThrow( new IllegalStateException( "gateway down" ) ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+        try {
+            inventoryTicketService.purchaseTickets( 1L, threeSeats );
+            fail();
+        } catch ( IllegalStateException e ) {
+            assertEquals( 5, screening.getRemaining() );
+        }
+
+    }
+
+
+    @Test
+    public void givenDelegateAllowsChildOnlyBaskets_whenPurchaseTickets_thenSeatsStillTaken() {
+
+        Properties matinee = new Properties();
+        matinee.setProperty( RuleSet.PREFIX + "adultRequired", "false" );
+        PricingTable matineePrices = PricingTable.build( PurchaseEvaluator.standardPrices(), RuleSet.fromProperties( matinee ) );
+
+        InventoryTicketService matineeService = new InventoryTicketService(
+                new TicketServiceImpl( seatReservationService, ticketPaymentService, matineePrices ), screening );
+
+        matineeService.purchaseTickets( 1L, new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 4 ) );
+
+        try {
+            matineeService.purchaseTickets( 2L, new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 2 ) );
+            fail();
+        } catch ( InvalidPurchaseException e ) {
+            assertEquals( RejectionReason.SOLD_OUT, e.getReason() );
+        }
+
+        verify( seatReservationService ).reserveSeat( 1L, 4 );
+        verify( ticketPaymentService, never() ).makePayment( eq( 2L ), anyInt() );
+        assertEquals( 1, screening.getRemaining() );
+
+    }
+
+
+}
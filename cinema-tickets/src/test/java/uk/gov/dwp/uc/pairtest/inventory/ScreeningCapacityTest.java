@@ -0,0 +1,119 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class ScreeningCapacityTest {
+
+
+    @Test
+    public void givenSeatsSpreadOverStripes_whenTakingMoreThanAnyStripeHolds_thenGathered() {
+
+        ScreeningCapacity screening = new ScreeningCapacity( 1L, 10, 8 );
+
+        assertTrue( screening.tryTake( 7 ) );
+        assertEquals( 3, screening.getRemaining() );
+
+        assertFalse( screening.tryTake( 4 ) );
+        assertEquals( 3, screening.getRemaining() );
+
+        assertTrue( screening.tryTake( 3 ) );
+        assertEquals( 0, screening.getRemaining() );
+
+    }
+
+
+    @Test
+    public void givenTakenSeats_whenReleased_thenAvailableAgain() {
+
+        ScreeningCapacity screening = new ScreeningCapacity( 1L, 5, 4 );
+
+        assertTrue( screening.tryTake( 5 ) );
+        assertFalse( screening.tryTake( 1 ) );
+
+        screening.release( 2 );
+
+        assertTrue( screening.tryTake( 2 ) );
+        assertFalse( screening.tryTake( 1 ) );
+
+    }
+
+
+    @Test
+    public void givenManyThreadsBuying_whenSoldOut_thenNeverOversold() throws Exception {
+
+        int capacity = 10_000;
+        int threads = 16;
+
+        ScreeningCapacity screening = new ScreeningCapacity( 1L, capacity, 8 );
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        CountDownLatch start = new CountDownLatch( 1 );
+
+        try {
+
+            List<Future<Integer>> sold = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ ) {
+                int seatsEach = 1 + t % 3;
+                Callable<Integer> buyer = () -> {
+                    start.await();
+                    int taken = 0;
+                    while ( screening.tryTake( seatsEach ) ) taken += seatsEach;
+                    return taken;
+                };
+                sold.add( executor.submit( buyer ) );
+            }
+
+            start.countDown();
+
+            int total = 0;
+            for ( Future<Integer> future: sold ) total += future.get();
+
+            // Buyers of one seat only stop once there are none, so every seat is sold.
+            assertEquals( capacity, total );
+            assertEquals( 0, screening.getRemaining() );
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+
+    @Test
+    public void givenInventory_whenScreeningOpenedAndClosed_thenLookedUpById() {
+
+        SeatInventory inventory = new SeatInventory();
+        ScreeningCapacity screening = inventory.open( 42L, 100 );
+
+        assertSame( screening, inventory.screening( 42L ) );
+        assertSame( screening, inventory.close( 42L ) );
+        assertNull( inventory.screening( 42L ) );
+
+    }
+
+
+    @Test(expected = IllegalStateException.class)
+    public void givenOpenScreening_whenOpenedAgain_thenThrow() {
+
+        SeatInventory inventory = new SeatInventory();
+        inventory.open( 42L, 100 );
+        inventory.open( 42L, 100 );
+
+    }
+
+
+}
@@ -0,0 +1,326 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+
+public class MappedPurchaseJournalTest {
+
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path directory;
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+
+
+    @Before
+    public void setUp() {
+
+        directory = folder.getRoot().toPath().resolve( "journal" );
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+    }
+
+
+    /**
+     *    Journal :
+     */
+
+
+    @Test
+    public void givenPurchasesCutShort_whenScanned_thenOnlyUnfinishedReturned() throws IOException {
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.NONE ) ) {
+
+            long complete = journal.intent( 1L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+            journal.paid( complete );
+            journal.reserved( complete );
+
+            long paidOnly = journal.intent( 2L, TicketTally.of( 2, 1, 0 ), 50, 3 );
+            journal.paid( paidOnly );
+
+            long intentOnly = journal.intent( 3L, TicketTally.of( 1, 0, 1 ), 20, 1 );
+
+            long failed = journal.intent( 4L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+            journal.failed( failed );
+
+        }
+
+        List<IncompletePurchase> incomplete = JournalRecovery.scan( directory );
+
+        assertEquals( 2, incomplete.size() );
+        assertEquals( 2L, incomplete.get( 0 ).getAccountId() );
+        assertEquals( 50, incomplete.get( 0 ).getTotalCost() );
+        assertEquals( 3, incomplete.get( 0 ).getTotalSeats() );
+        assertTrue( incomplete.get( 0 ).isPaid() );
+        assertEquals( 3L, incomplete.get( 1 ).getAccountId() );
+        assertFalse( incomplete.get( 1 ).isPaid() );
+
+    }
+
+
+    @Test
+    public void givenTornLastRecord_whenScanned_thenReadingStopsBeforeIt() throws IOException {
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.EVERY_RECORD ) ) {
+            long purchaseId = journal.intent( 1L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+            journal.paid( purchaseId );
+        }
+
+        // Corrupt the PAID record's purchase id, as a write cut off by a crash would leave it.
+        try ( FileChannel channel = FileChannel.open( JournalRecords.segmentPath( directory, 0 ), StandardOpenOption.WRITE ) ) {
+            channel.write( ByteBuffer.wrap( new byte[] { 9 } ), JournalRecords.RECORD_SIZE );
+        }
+
+        List<IncompletePurchase> incomplete = JournalRecovery.scan( directory );
+
+        assertEquals( 1, incomplete.size() );
+        assertFalse( incomplete.get( 0 ).isPaid() );
+
+    }
+
+
+    @Test
+    public void givenSmallSegments_whenPurchasesFinish_thenFinishedSegmentsDeleted() throws IOException {
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.NONE, 4 * JournalRecords.RECORD_SIZE ) ) {
+
+            long unfinished = journal.intent( 1L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+
+            for ( int i = 0; i < 20; i++ ) {
+                long purchaseId = journal.intent( 2L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+                journal.paid( purchaseId );
+                journal.reserved( purchaseId );
+            }
+
+            // The first segment holds an unfinished intent, so nothing after it can go either.
+            assertEquals( 16, journal.getSegmentCount() );
+
+            journal.failed( unfinished );
+
+            // Deleting happens when the next segment is started.
+            for ( int i = 0; i < 3; i++ ) {
+                long purchaseId = journal.intent( 3L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+                journal.paid( purchaseId );
+                journal.reserved( purchaseId );
+            }
+
+            assertTrue( journal.getSegmentCount() <= 2 );
+
+        }
+
+        assertTrue( JournalRecovery.scan( directory ).isEmpty() );
+
+    }
+
+
+    @Test
+    public void givenGroupCommit_whenManyThreadsAppend_thenEveryRecordReadBack() throws Exception {
+
+        int threads = 8;
+        int purchasesPerThread = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.GROUP_COMMIT, 1 << 16 ) ) {
+
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ ) {
+                futures.add( executor.submit( () -> {
+                    for ( int i = 0; i < purchasesPerThread; i++ ) journal.paid( journal.intent( 1L, TicketTally.of( 1, 0, 0 ), 20, 1 ) );
+                } ) );
+            }
+
+            for ( Future<?> future: futures ) future.get();
+
+        } finally {
+            executor.shutdown();
+        }
+
+        List<IncompletePurchase> incomplete = JournalRecovery.scan( directory );
+
+        assertEquals( threads * purchasesPerThread, incomplete.size() );
+        for ( IncompletePurchase purchase: incomplete ) assertTrue( purchase.isPaid() );
+
+    }
+
+
+    @Test( timeout = 10_000 )
+    public void givenSyncThreadFails_whenAppending_thenWaitersAndLaterAppendsFailInsteadOfHanging() throws Exception {
+
+        Error diskGone = new Error( "disk gone" );
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.GROUP_COMMIT ) {
+            @Override
+            void force( MappedByteBuffer buffer ) {
+                throw diskGone;
+            }
+        } ) {
+
+            for ( int attempt = 0; attempt < 2; attempt++ ) {
+                try {
+                    journal.intent( 1L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+                    fail( "Expected the append to fail" );
+                } catch ( IllegalStateException e ) {
+                    assertEquals( diskGone, e.getCause() );
+                }
+            }
+
+        }
+
+    }
+
+
+    /**
+     *    Recovery :
+     */
+
+
+    @Test
+    public void givenPaidAndUnpaidIncomplete_whenReplayed_thenPaidReservedAndUnpaidReturned() throws IOException {
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.NONE ) ) {
+            journal.paid( journal.intent( 2L, TicketTally.of( 2, 1, 0 ), 50, 3 ) );
+            journal.intent( 3L, TicketTally.of( 1, 0, 0 ), 20, 1 );
+        }
+
+        List<IncompletePurchase> unresolved;
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.NONE ) ) {
+
+            unresolved = JournalRecovery.replay( JournalRecovery.scan( directory ), journal, seatReservationService );
+
+            // Ids carry on after the earlier process's.
+            assertEquals( 2L, journal.intent( 4L, TicketTally.of( 1, 0, 0 ), 20, 1 ) );
+
+        }
+
+        verify( seatReservationService ).reserveSeat( 2L, 3 );
+        verify( seatReservationService, never() ).reserveSeat( 3L, 1 );
+
+        assertEquals( 1, unresolved.size() );
+        assertEquals( 3L, unresolved.get( 0 ).getAccountId() );
+
+        // Only the purchase started after recovery is left, and the old segment is gone.
+        assertEquals( 1, JournalRecovery.scan( directory ).size() );
+        assertEquals( 1, JournalRecords.segments( directory ).size() );
+
+    }
+
+
+    /**
+     *    TicketServiceImpl :
+     */
+
+
+    @Test
+    public void givenJournaledService_whenPurchasesSucceedOrFail_thenNothingLeftIncomplete() throws IOException {
+
+        try ( MappedPurchaseJournal journal = new MappedPurchaseJournal( directory, SyncPolicy.GROUP_COMMIT ) ) {
+
+            TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService,
+                    PricingTable.standardPrices(), PurchaseListener.NONE, journal );
+
+            ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) } );
+
+            doThrow( new IllegalStateException( "gateway down" ) ).when( ticketPaymentService ).makePayment( anyLong(), anyInt() );
+
+            try {
+                ticketService.purchaseTickets( 2L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1 ) } );
+                fail();
+            } catch ( IllegalStateException e ) {
+                assertEquals( "gateway down", e.getMessage() );
+            }
+
+        }
+
+        verify( seatReservationService ).reserveSeat( 1L, 2 );
+        assertTrue( JournalRecovery.scan( directory ).isEmpty() );
+
+    }
+
+
+    @Test
+    public void givenJournalFailsAfterGateway_whenPurchaseTickets_thenSaleStillCompletes() {
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        PurchaseJournal journal = Mockito.mock( PurchaseJournal.class );
+        when( journal.intent( anyLong(), anyInt(), anyInt(), anyInt() ) ).thenReturn( 5L );
+        doThrow( new IllegalStateException( "disk full" ) ).when( journal ).paid( 5L );
+        doThrow( new IllegalStateException( "disk full" ) ).when( journal ).reserved( 5L );
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService,
+                PricingTable.standardPrices(), listener, journal );
+
+        ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) } );
+
+        verify( ticketPaymentService ).makePayment( 1L, 40 );
+        verify( seatReservationService ).reserveSeat( 1L, 2 );
+        verify( listener ).onAccepted( eq( 1L ), anyInt(), any( PricingTable.class ), eq( 40 ), eq( 2 ), anyLong(), anyLong(), anyLong() );
+        verify( listener, never() ).onFailed( anyLong(), anyInt(), any(), any() );
+        verify( journal, never() ).failed( anyLong() );
+
+    }
+
+
+    @Test
+    public void givenJournalIntentFails_whenPurchaseTickets_thenNothingCharged() {
+
+        PurchaseJournal journal = Mockito.mock( PurchaseJournal.class );
+        when( journal.intent( anyLong(), anyInt(), anyInt(), anyInt() ) ).thenThrow( new IllegalStateException( "disk full" ) );
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService,
+                PricingTable.standardPrices(), PurchaseListener.NONE, journal );
+
+        try {
+            ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) } );
+            fail();
+        } catch ( IllegalStateException e ) {
+            assertEquals( "disk full", e.getMessage() );
+        }
+
+        verifyNoInteractions( ticketPaymentService, seatReservationService );
+
+    }
+
+
+}
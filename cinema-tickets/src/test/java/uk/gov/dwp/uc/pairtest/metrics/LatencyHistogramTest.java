@@ -0,0 +1,100 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class LatencyHistogramTest {
+
+
+    @Test
+    public void givenAnyValue_whenBucketed_thenWithinOneSixteenth() {
+
+        for ( long value = 0; value < 1_000_000; value = value * 3 / 2 + 1 ) {
+
+            long lowest = LatencyHistogram.lowestValue( LatencyHistogram.bucket( value ) );
+
+            assertTrue( lowest <= value );
+            assertTrue( value - lowest <= Math.max( 0, value / 16 ) );
+
+        }
+
+    }
+
+
+    @Test
+    public void givenUniformValues_whenPercentiles_thenCloseToExact() {
+
+        LatencyHistogram histogram = new LatencyHistogram( 4 );
+
+        for ( long i = 1; i <= 10_000; i++ ) histogram.record( i * 1000 );
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals( 10_000, snapshot.getCount() );
+        assertEquals( 5_000_000, snapshot.valueAtPercentile( 50.0 ), 5_000_000 / 16.0 );
+        assertEquals( 9_900_000, snapshot.valueAtPercentile( 99.0 ), 9_900_000 / 16.0 );
+        assertEquals( 10_000_000, snapshot.getMaxValue(), 10_000_000 / 16.0 );
+
+    }
+
+
+    @Test
+    public void givenNothingRecorded_whenPercentile_thenZero() {
+
+        assertEquals( 0, new LatencyHistogram().snapshot().valueAtPercentile( 99.0 ) );
+
+    }
+
+
+    @Test
+    public void givenHugeValue_whenRecorded_thenClampedToLastBucket() {
+
+        LatencyHistogram histogram = new LatencyHistogram( 1 );
+        histogram.record( Long.MAX_VALUE );
+
+        assertEquals( LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.snapshot().getMaxValue() );
+
+    }
+
+
+    @Test
+    public void givenPoolThreadsRecordingTogether_whenSnapshot_thenEveryValueCounted() throws Exception {
+
+        LatencyHistogram histogram = new LatencyHistogram( 4 );
+        ExecutorService pool = Executors.newFixedThreadPool( 8 );
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < 8; t++ ) {
+                futures.add( pool.submit( () -> {
+                    for ( int i = 0; i < 10_000; i++ ) histogram.record( 1_000 );
+                } ) );
+            }
+            for ( Future<?> future: futures ) future.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals( 80_000, histogram.snapshot().getCount() );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenStripesNotPowerOfTwo_whenConstructing_thenThrow() {
+
+        new LatencyHistogram( 3 );
+
+    }
+
+
+}
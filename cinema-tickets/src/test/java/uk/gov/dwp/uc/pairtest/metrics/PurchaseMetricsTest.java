@@ -0,0 +1,135 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+
+public class PurchaseMetricsTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    PurchaseMetrics purchaseMetrics;
+    TicketServiceImpl ticketService;
+
+    TicketTypeRequest[] family = new TicketTypeRequest[] {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 3 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 )
+    };
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        purchaseMetrics = new PurchaseMetrics();
+
+        ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), purchaseMetrics );
+
+    }
+
+
+    @Test
+    public void givenAcceptedPurchases_whenSnapshot_thenCountedPerTypeAndTimed() {
+
+        ticketService.purchaseTickets( 1L, family );
+        ticketService.purchaseTickets( 2L, family );
+
+        PurchaseMetricsSnapshot snapshot = purchaseMetrics.snapshot();
+
+        assertEquals( 2, snapshot.getAccepted() );
+        assertEquals( 140, snapshot.getRevenue() );
+        assertEquals( 4, snapshot.getTicketsSold( TicketTypeRequest.Type.ADULT ) );
+        assertEquals( 6, snapshot.getTicketsSold( TicketTypeRequest.Type.CHILD ) );
+        assertEquals( 2, snapshot.getTicketsSold( TicketTypeRequest.Type.INFANT ) );
+        assertEquals( 2, snapshot.getLatency( PurchaseStage.PAYMENT ).getCount() );
+        assertEquals( 2, snapshot.getTotalLatency().getCount() );
+
+    }
+
+
+    @Test
+    public void givenRejectedPurchases_whenSnapshot_thenCountedPerReason() {
+
+        rejected( 0L, family );
+        rejected( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) } );
+        rejected( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) } );
+
+        PurchaseMetricsSnapshot snapshot = purchaseMetrics.snapshot();
+
+        assertEquals( 0, snapshot.getAccepted() );
+        assertEquals( 3, snapshot.getRejected() );
+        assertEquals( 1, snapshot.getRejected( RejectionReason.BAD_ACCOUNT ) );
+        assertEquals( 2, snapshot.getRejected( RejectionReason.NO_ADULT ) );
+        assertEquals( 3, snapshot.getLatency( PurchaseStage.VALIDATION ).getCount() );
+
+    }
+
+
+    @Test
+    public void givenReservationFails_whenSnapshot_thenFailureCountedAtReservation() {
+
+        doThrow( new IllegalStateException( "booking down" ) ).when( seatReservationService ).reserveSeat( eq( 1L ), anyInt() );
+
+        try {
+            ticketService.purchaseTickets( 1L, family );
+            fail();
+        } catch ( IllegalStateException expected ) {
+        }
+
+        PurchaseMetricsSnapshot snapshot = purchaseMetrics.snapshot();
+
+        assertEquals( 1, snapshot.getFailed( PurchaseStage.RESERVATION ) );
+        assertEquals( 0, snapshot.getFailed( PurchaseStage.PAYMENT ) );
+        assertEquals( 0, snapshot.getAccepted() );
+
+    }
+
+
+    @Test
+    public void givenRegisteredMBean_whenRead_thenReflectsMetrics() throws Exception {
+
+        ObjectName name = purchaseMetrics.registerMBean( "uk.gov.dwp.uc.pairtest:type=PurchaseMetrics,name=test" );
+
+        try {
+            ticketService.purchaseTickets( 1L, family );
+            assertEquals( 1L, ManagementFactory.getPlatformMBeanServer().getAttribute( name, "Accepted" ) );
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean( name );
+        }
+
+    }
+
+
+    private void rejected( Long accountId, TicketTypeRequest[] ticketTypeRequests ) {
+
+        try {
+            ticketService.purchaseTickets( accountId, ticketTypeRequests );
+            fail();
+        } catch ( InvalidPurchaseException expected ) {
+        }
+
+    }
+
+
+}
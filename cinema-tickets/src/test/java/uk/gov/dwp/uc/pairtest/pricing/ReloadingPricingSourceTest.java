@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+
+public class ReloadingPricingSourceTest {
+
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path priceFile;
+    ReloadingPricingSource pricingSource;
+
+
+    @Before
+    public void setUp() throws IOException {
+
+        priceFile = folder.getRoot().toPath().resolve( "prices.properties" );
+        write( "ADULT=20\nCHILD=10\nINFANT=0\n" );
+
+        pricingSource = new ReloadingPricingSource( priceFile );
+
+    }
+
+
+    @After
+    public void tearDown() throws IOException {
+        pricingSource.close();
+    }
+
+
+    @Test
+    public void givenPriceFile_whenConstructed_thenPricesLoaded() {
+
+        assertEquals( 20, pricingSource.current().getEvaluator().getAdultTicketCost() );
+        assertEquals( 10, pricingSource.current().getEvaluator().getChildTicketCost() );
+
+    }
+
+
+    @Test
+    public void givenChangedFile_whenReload_thenNewSnapshotPublished() throws IOException {
+
+        write( "ADULT=25\nCHILD=12\nINFANT=0\n" );
+
+        assertTrue( pricingSource.reload() );
+        assertEquals( 25, pricingSource.current().getEvaluator().getAdultTicketCost() );
+
+    }
+
+
+    @Test
+    public void givenBrokenFile_whenReload_thenPreviousPricesKept() throws IOException {
+
+        write( "ADULT=25\nCHILD=twelve\n" );
+
+        assertFalse( pricingSource.reload() );
+        assertEquals( 20, pricingSource.current().getEvaluator().getAdultTicketCost() );
+
+    }
+
+
+    @Test
+    public void givenChangedFile_whenWatched_thenReloadedWithoutBeingAsked() throws Exception {
+
+        write( "ADULT=30\nCHILD=10\nINFANT=0\n" );
+
+        // Some platforms poll for file changes, allow plenty of time.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 20 );
+        while ( pricingSource.current().getEvaluator().getAdultTicketCost() != 30 && System.nanoTime() < deadline ) Thread.sleep( 20 );
+
+        assertEquals( 30, pricingSource.current().getEvaluator().getAdultTicketCost() );
+
+    }
+
+
+    @Test
+    public void givenReloadedPrices_whenPurchaseTickets_thenChargedNewPrice() throws IOException {
+
+        SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+        TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, pricingSource );
+
+        write( "ADULT=25\nCHILD=10\nINFANT=0\n" );
+        pricingSource.reload();
+
+        ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ) } );
+
+        verify( ticketPaymentService ).makePayment( 1L, 50 );
+        assertEquals( 25, ticketService.getAdultTicketCost() );
+
+    }
+
+
+    @Test
+    public void givenMatineeRulesInFile_whenReload_thenChildOnlyPurchaseAccepted() throws IOException {
+
+        TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+        TicketServiceImpl ticketService = new TicketServiceImpl( Mockito.mock( SeatReservationService.class ), ticketPaymentService, pricingSource );
+
+        write( "ADULT=20\nCHILD=8\nINFANT=0\nrules.adultRequired=false\n" );
+        assertTrue( pricingSource.reload() );
+
+        ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 3 ) } );
+
+        verify( ticketPaymentService ).makePayment( 1L, 24 );
+
+    }
+
+
+    @Test(expected = NoSuchFileException.class)
+    public void givenMissingFile_whenConstructed_thenThrow() throws IOException {
+
+        new ReloadingPricingSource( folder.getRoot().toPath().resolve( "missing.properties" ) );
+
+    }
+
+
+    private void write( String contents ) throws IOException {
+        Files.write( priceFile, contents.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+
+}
@@ -0,0 +1,127 @@
+package uk.gov.dwp.uc.pairtest.promotions;
+
+import org.junit.Test;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class PromotionPricingTest {
+
+
+    PurchaseEvaluator prices = PurchaseEvaluator.standardPrices();
+    PromotionPricing pricing = new PromotionPricing();
+
+
+    /**
+     *    Promotions :
+     */
+
+
+    @Test
+    public void givenNoPromotions_whenQuoted_thenBasePrice() {
+
+        PromotionSet none = new PromotionSet( "none", prices, Collections.emptyList() );
+
+        assertEquals( 50, pricing.quote( none, TicketTally.of( 2, 1, 1 ) ) );
+
+    }
+
+
+    @Test
+    public void givenFamilyBundle_whenTwoFamiliesAndASpareChild_thenBundledTwiceAndChildFullPrice() {
+
+        PromotionSet family = new PromotionSet( "family", prices, Collections.singletonList( Promotions.familyBundle( 2, 2, 50 ) ) );
+
+        // Two bundles at 50, plus a child at 10.
+        assertEquals( 110, pricing.quote( family, TicketTally.of( 4, 5, 0 ) ) );
+
+    }
+
+
+    @Test
+    public void givenStackedPromotions_whenQuoted_thenAppliedInOrder() {
+
+        PromotionSet memberOffPeak = new PromotionSet( "member off-peak", prices, Arrays.asList(
+                Promotions.typePrice( TicketTypeRequest.Type.ADULT, 15 ),
+                Promotions.percentOff( 10 ),
+                Promotions.amountOff( 3, 5 ) ) );
+
+        // 2 x 15 + 10 = 40, less 10% = 36, less 5 for three tickets = 31.
+        assertEquals( 31, pricing.quote( memberOffPeak,
+                new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ), new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) ) );
+
+    }
+
+
+    @Test
+    public void givenDiscountsBeyondThePrice_whenQuoted_thenNeverBelowZero() {
+
+        PromotionSet generous = new PromotionSet( "generous", prices, Arrays.asList( Promotions.amountOff( 1, 500 ), Promotions.amountOff( 1, 5 ) ) );
+
+        assertEquals( 0, pricing.quote( generous, TicketTally.of( 1, 0, 0 ) ) );
+
+    }
+
+
+    /**
+     *    Cache :
+     */
+
+
+    @Test
+    public void givenRepeatBasket_whenQuotedAgain_thenServedFromCache() {
+
+        PromotionSet offPeak = new PromotionSet( "off-peak", prices, Collections.singletonList( Promotions.percentOff( 20 ) ) );
+
+        assertEquals( 40, pricing.quote( offPeak, TicketTally.of( 2, 1, 0 ) ) );
+        assertEquals( 40, pricing.quote( offPeak, TicketTally.of( 2, 1, 0 ) ) );
+
+        assertEquals( 1, pricing.getCache().getMisses() );
+        assertEquals( 1, pricing.getCache().getHits() );
+
+    }
+
+
+    @Test
+    public void givenNewSetVersion_whenQuoted_thenOldQuoteNotServed() {
+
+        PromotionSet before = new PromotionSet( "off-peak", prices, Collections.singletonList( Promotions.percentOff( 20 ) ) );
+        PromotionSet after = new PromotionSet( "off-peak", prices, Collections.singletonList( Promotions.percentOff( 50 ) ) );
+
+        assertEquals( 40, pricing.quote( before, TicketTally.of( 2, 1, 0 ) ) );
+        assertEquals( 25, pricing.quote( after, TicketTally.of( 2, 1, 0 ) ) );
+
+    }
+
+
+    @Test
+    public void givenTinyCache_whenBasketsCollide_thenEvictedAndStillCorrect() {
+
+        PromotionPricing tiny = new PromotionPricing( 1 );
+        PromotionSet offPeak = new PromotionSet( "off-peak", prices, Collections.singletonList( Promotions.percentOff( 10 ) ) );
+
+        for ( int round = 0; round < 2; round++ ) {
+            assertEquals( 18, tiny.quote( offPeak, TicketTally.of( 1, 0, 0 ) ) );
+            assertEquals( 36, tiny.quote( offPeak, TicketTally.of( 2, 0, 0 ) ) );
+        }
+
+        assertEquals( 4, tiny.getCache().getMisses() );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenOverLimitBasket_whenQuoted_thenThrow() {
+
+        pricing.quote( new PromotionSet( "none", prices, Collections.emptyList() ), TicketTally.OVER_LIMIT );
+
+    }
+
+
+}
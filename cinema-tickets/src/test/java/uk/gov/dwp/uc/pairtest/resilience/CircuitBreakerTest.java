@@ -0,0 +1,132 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+
+public class CircuitBreakerTest {
+
+
+    AtomicLong clock = new AtomicLong();
+    CircuitBreaker breaker = new CircuitBreaker( 3, 10, TimeUnit.SECONDS, clock::get );
+
+
+    void fail( int times ) {
+
+        for ( int i = 0; i < times; i++ ) breaker.onFailure( admitted() );
+
+    }
+
+
+    @Test
+    public void givenFailuresBelowThreshold_whenSuccess_thenCountReset() {
+
+        fail( 2 );
+        breaker.onSuccess( admitted() );
+        fail( 2 );
+
+        assertEquals( CircuitState.CLOSED, breaker.getState() );
+
+    }
+
+
+    @Test
+    public void givenConsecutiveFailures_whenThresholdReached_thenOpenAndRefusing() {
+
+        fail( 3 );
+
+        assertEquals( CircuitState.OPEN, breaker.getState() );
+        assertEquals( 1, breaker.getTimesOpened() );
+        assertEquals( CircuitBreaker.REFUSED, breaker.tryAcquire() );
+
+    }
+
+
+    @Test
+    public void givenOpenDurationPassed_whenProbeSucceeds_thenClosed() {
+
+        fail( 3 );
+        clock.addAndGet( TimeUnit.SECONDS.toNanos( 10 ) );
+
+        long probe = admitted();
+        assertEquals( CircuitState.HALF_OPEN, breaker.getState() );
+
+        // Only one probe at a time.
+        assertEquals( CircuitBreaker.REFUSED, breaker.tryAcquire() );
+
+        breaker.onSuccess( probe );
+
+        assertEquals( CircuitState.CLOSED, breaker.getState() );
+        admitted();
+
+    }
+
+
+    @Test
+    public void givenProbe_whenItFails_thenOpenForAnotherFullDuration() {
+
+        fail( 3 );
+        clock.addAndGet( TimeUnit.SECONDS.toNanos( 10 ) );
+
+        breaker.onFailure( admitted() );
+
+        assertEquals( CircuitState.OPEN, breaker.getState() );
+        clock.addAndGet( TimeUnit.SECONDS.toNanos( 9 ) );
+        assertEquals( CircuitBreaker.REFUSED, breaker.tryAcquire() );
+
+    }
+
+
+    @Test
+    public void givenProbe_whenAbandoned_thenNextCallerProbes() {
+
+        fail( 3 );
+        clock.addAndGet( TimeUnit.SECONDS.toNanos( 10 ) );
+
+        breaker.onAbandoned( admitted() );
+
+        assertEquals( CircuitState.OPEN, breaker.getState() );
+        admitted();
+
+    }
+
+
+    @Test
+    public void givenCallsAdmittedBeforeOpening_whenTheyReturnDuringProbe_thenIgnored() {
+
+        long slowSuccess = admitted();
+        long slowFailure = admitted();
+
+        fail( 3 );
+        clock.addAndGet( TimeUnit.SECONDS.toNanos( 10 ) );
+        long probe = admitted();
+
+        breaker.onSuccess( slowSuccess );
+        assertEquals( CircuitState.HALF_OPEN, breaker.getState() );
+
+        breaker.onFailure( slowFailure );
+        breaker.onAbandoned( slowFailure );
+        assertEquals( CircuitState.HALF_OPEN, breaker.getState() );
+        assertEquals( 1, breaker.getTimesOpened() );
+
+        breaker.onSuccess( probe );
+        assertEquals( CircuitState.CLOSED, breaker.getState() );
+
+    }
+
+
+    private long admitted() {
+
+        long permit = breaker.tryAcquire();
+        assertNotEquals( CircuitBreaker.REFUSED, permit );
+        return permit;
+
+    }
+
+
+}
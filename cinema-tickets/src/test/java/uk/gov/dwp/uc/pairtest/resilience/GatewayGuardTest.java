@@ -0,0 +1,200 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+public class GatewayGuardTest {
+
+
+    ExecutorService callExecutor;
+
+    // Sleeps far longer than any test, until interrupted by tearDown.
+    TicketPaymentService hungPayments = ( accountId, totalAmountToPay ) -> LockSupport.parkNanos( TimeUnit.SECONDS.toNanos( 30 ) );
+
+
+    @Before
+    public void setUp() {
+        callExecutor = Executors.newCachedThreadPool();
+    }
+
+
+    @After
+    public void tearDown() {
+        callExecutor.shutdownNow();
+    }
+
+
+    GatewayGuard guard( int maxConcurrentCalls, long timeoutMillis, int failureThreshold ) {
+        return new GatewayGuard( "payment", new Bulkhead( maxConcurrentCalls ), new CircuitBreaker( failureThreshold, 1, TimeUnit.MINUTES ),
+                timeoutMillis, TimeUnit.MILLISECONDS, callExecutor );
+    }
+
+
+    GatewayUnavailableException.Reason refusal( Runnable call ) {
+
+        try {
+            call.run();
+            fail();
+            return null;
+        } catch ( GatewayUnavailableException e ) {
+            return e.getReason();
+        }
+
+    }
+
+
+    /**
+     *    Guard :
+     */
+
+
+    @Test
+    public void givenHungGateway_whenCalled_thenTimesOutAndKeepsBulkheadSlot() {
+
+        GatewayGuard guard = guard( 1, 20, 5 );
+        TicketPaymentService payments = guard.protectPayments( hungPayments );
+
+        assertEquals( GatewayUnavailableException.Reason.TIMEOUT, refusal( () -> payments.makePayment( 1L, 20 ) ) );
+
+        // The hung call still holds the only slot.
+        assertEquals( 1, guard.getInFlight() );
+        assertEquals( GatewayUnavailableException.Reason.BULKHEAD_FULL, refusal( () -> payments.makePayment( 1L, 20 ) ) );
+        assertEquals( 1, guard.getTimedOut() );
+        assertEquals( 1, guard.getRefusedFull() );
+
+    }
+
+
+    @Test
+    public void givenFailingGateway_whenThresholdReached_thenOpenAndNotCalled() {
+
+        TicketPaymentService failing = Mockito.mock( TicketPaymentService.class );
+        doThrow( new IllegalStateException( "gateway down" ) ).when( failing ).makePayment( anyLong(), anyInt() );
+
+        GatewayGuard guard = guard( 4, 0, 2 );
+        TicketPaymentService payments = guard.protectPayments( failing );
+
+        for ( int i = 0; i < 2; i++ ) {
+            try {
+                payments.makePayment( 1L, 20 );
+                fail();
+            } catch ( IllegalStateException e ) {
+                assertEquals( "gateway down", e.getMessage() );
+            }
+        }
+
+        assertEquals( CircuitState.OPEN, guard.getCircuitState() );
+        assertEquals( GatewayUnavailableException.Reason.CIRCUIT_OPEN, refusal( () -> payments.makePayment( 1L, 20 ) ) );
+
+        verify( failing, times( 2 ) ).makePayment( anyLong(), anyInt() );
+        assertEquals( 0, guard.getInFlight() );
+
+    }
+
+
+    @Test
+    public void givenHealthyGateway_whenCalledInline_thenSucceeds() {
+
+        SeatReservationService seats = Mockito.mock( SeatReservationService.class );
+        GatewayGuard guard = guard( 1, 0, 1 );
+
+        guard.protectSeats( seats ).reserveSeat( 1L, 3 );
+
+        verify( seats ).reserveSeat( 1L, 3 );
+        assertEquals( 1, guard.getSucceeded() );
+        assertEquals( CircuitState.CLOSED, guard.getCircuitState() );
+
+    }
+
+
+    /**
+     *    Latency injection :
+     */
+
+
+    @Test
+    public void givenHungPaymentGateway_whenBoxOfficeBusy_thenValidationUnaffected() throws Exception {
+
+        GatewayGuard paymentGuard = guard( 2, 20, 2 );
+        TicketServiceImpl ticketService = new TicketServiceImpl( Mockito.mock( SeatReservationService.class ), paymentGuard.protectPayments( hungPayments ) );
+
+        // A small box office: four request threads, each buying and then sending rejectable requests.
+        ExecutorService requestThreads = Executors.newFixedThreadPool( 4 );
+        CountDownLatch start = new CountDownLatch( 1 );
+        int rejectionsEach = 10_000;
+
+        try {
+
+            List<Future<Integer>> rejectedCounts = new ArrayList<>();
+
+            for ( int t = 0; t < 4; t++ ) {
+                rejectedCounts.add( requestThreads.submit( () -> {
+
+                    start.await();
+
+                    for ( int i = 0; i < 5; i++ ) {
+                        try {
+                            ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 1 ) } );
+                        } catch ( GatewayUnavailableException e ) {
+                            // Timed out, bulkhead full or circuit open, but never stuck.
+                        }
+                    }
+
+                    int rejected = 0;
+                    for ( int i = 0; i < rejectionsEach; i++ ) {
+                        try {
+                            ticketService.purchaseTickets( 1L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) } );
+                        } catch ( InvalidPurchaseException e ) {
+                            rejected++;
+                        }
+                    }
+
+                    return rejected;
+
+                } ) );
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+
+            for ( Future<Integer> count: rejectedCounts ) assertEquals( rejectionsEach, (int) count.get( 5, TimeUnit.SECONDS ) );
+
+            // Unguarded, twenty purchases on four threads against a 30s gateway would take minutes.
+            assertTrue( System.nanoTime() - started < TimeUnit.SECONDS.toNanos( 5 ) );
+            assertEquals( CircuitState.OPEN, paymentGuard.getCircuitState() );
+            assertTrue( paymentGuard.getInFlight() <= 2 );
+
+        } finally {
+            requestThreads.shutdownNow();
+        }
+
+    }
+
+
+}
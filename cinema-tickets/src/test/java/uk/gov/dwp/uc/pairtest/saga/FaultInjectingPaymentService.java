@@ -0,0 +1,42 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A payment service that throws on its first few calls and can take a while to answer.
+ */
+
+
+class FaultInjectingPaymentService implements TicketPaymentService {
+
+
+    private final int failures;
+    private final long delayMillis;
+
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger payments = new AtomicInteger();
+
+
+    FaultInjectingPaymentService( int failures, long delayMillis ) {
+        this.failures = failures;
+        this.delayMillis = delayMillis;
+    }
+
+
+    @Override
+    public void makePayment( long accountId, int totalAmountToPay ) {
+
+        if ( calls.incrementAndGet() <= failures ) throw new IllegalStateException( "Payment gateway unavailable" );
+
+        if ( delayMillis > 0 ) LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( delayMillis ) );
+        payments.incrementAndGet();
+
+    }
+
+
+}
@@ -0,0 +1,42 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A seat reservation service that throws on its first few calls and can take a while to answer.
+ */
+
+
+class FaultInjectingSeatReservationService implements SeatReservationService {
+
+
+    private final int failures;
+    private final long delayMillis;
+
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger reservations = new AtomicInteger();
+
+
+    FaultInjectingSeatReservationService( int failures, long delayMillis ) {
+        this.failures = failures;
+        this.delayMillis = delayMillis;
+    }
+
+
+    @Override
+    public void reserveSeat( long accountId, int totalSeatsToAllocate ) {
+
+        if ( calls.incrementAndGet() <= failures ) throw new IllegalStateException( "Seat booking unavailable" );
+
+        if ( delayMillis > 0 ) LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( delayMillis ) );
+        reservations.incrementAndGet();
+
+    }
+
+
+}
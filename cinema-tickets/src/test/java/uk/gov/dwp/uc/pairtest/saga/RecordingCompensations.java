@@ -0,0 +1,44 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Compensations that count what they were asked to undo, and can fail the first few refunds.
+ */
+
+
+class RecordingCompensations implements Compensations {
+
+
+    private final int refundFailures;
+
+    final AtomicInteger refundCalls = new AtomicInteger();
+    final AtomicInteger refunded = new AtomicInteger();
+    final AtomicInteger released = new AtomicInteger();
+
+
+    RecordingCompensations( int refundFailures ) {
+        this.refundFailures = refundFailures;
+    }
+
+
+    @Override
+    public void refund( long accountId, int totalCost ) {
+
+        if ( refundCalls.incrementAndGet() <= refundFailures ) throw new IllegalStateException( "Refunds unavailable" );
+
+        refunded.addAndGet( totalCost );
+
+    }
+
+
+    @Override
+    public void releaseSeats( long accountId, int totalSeats ) {
+
+        released.addAndGet( totalSeats );
+
+    }
+
+
+}
@@ -0,0 +1,269 @@
+package uk.gov.dwp.uc.pairtest.saga;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class SagaTicketServiceTest {
+
+
+    ExecutorService callExecutor;
+    ScheduledExecutorService scheduler;
+
+    // Three quick attempts, 200ms per call.
+    RetryPolicy retryPolicy = new RetryPolicy( 3, 1, 5, 200, TimeUnit.MILLISECONDS );
+
+    TicketTypeRequest[] family = {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) };
+
+
+    @Before
+    public void setUp() {
+
+        callExecutor = Executors.newCachedThreadPool();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    }
+
+
+    @After
+    public void tearDown() {
+
+        callExecutor.shutdownNow();
+        scheduler.shutdownNow();
+
+    }
+
+
+    SagaTicketService saga( FaultInjectingPaymentService payments, FaultInjectingSeatReservationService seats, RecordingCompensations compensations ) {
+        return new SagaTicketService( seats, payments, PricingTable.standardPrices(), compensations, retryPolicy, callExecutor, scheduler );
+    }
+
+
+    PurchaseSagaException failure( CompletableFuture<PurchaseResult> future ) throws InterruptedException, TimeoutException {
+
+        try {
+            future.get( 5, TimeUnit.SECONDS );
+            fail();
+            return null;
+        } catch ( ExecutionException e ) {
+            return (PurchaseSagaException) e.getCause();
+        }
+
+    }
+
+
+    /**
+     *    Retries :
+     */
+
+
+    @Test
+    public void givenFlakySeatService_whenPurchaseTickets_thenReservationRetriedAndCompleted() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 0 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( 2, 0 );
+        RecordingCompensations compensations = new RecordingCompensations( 0 );
+
+        PurchaseResult result = saga( payments, seats, compensations ).purchaseTickets( 1L, family ).get( 5, TimeUnit.SECONDS );
+
+        assertEquals( 50, result.getTotalCost() );
+        assertEquals( 1, payments.calls.get() );
+        assertEquals( 3, seats.calls.get() );
+        assertEquals( 0, compensations.refunded.get() );
+
+    }
+
+
+    @Test
+    public void givenPaymentThrows_whenPurchaseTickets_thenNotRetriedAndNothingToRefund() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 1, 0 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( 0, 0 );
+        RecordingCompensations compensations = new RecordingCompensations( 0 );
+
+        PurchaseSagaException e = failure( saga( payments, seats, compensations ).purchaseTickets( 1L, family ) );
+
+        assertEquals( PurchaseStage.PAYMENT, e.getStage() );
+        assertTrue( e.isCompensated() );
+        assertEquals( 1, payments.calls.get() );
+        assertEquals( 0, seats.calls.get() );
+        assertEquals( 0, compensations.refundCalls.get() );
+
+    }
+
+
+    @Test
+    public void givenInvalidBasket_whenPurchaseTickets_thenRejectedWithoutAnyCalls() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 0 );
+
+        try {
+            saga( payments, new FaultInjectingSeatReservationService( 0, 0 ), new RecordingCompensations( 0 ) )
+                    .purchaseTickets( 1L, new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) ).get( 5, TimeUnit.SECONDS );
+            fail();
+        } catch ( ExecutionException e ) {
+            assertTrue( e.getCause() instanceof InvalidPurchaseException );
+        }
+
+        assertEquals( 0, payments.calls.get() );
+
+    }
+
+
+    /**
+     *    Compensation :
+     */
+
+
+    @Test
+    public void givenReservationAlwaysFails_whenPurchaseTickets_thenPaymentRefunded() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 0 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( Integer.MAX_VALUE, 0 );
+        RecordingCompensations compensations = new RecordingCompensations( 1 );
+
+        PurchaseSagaException e = failure( saga( payments, seats, compensations ).purchaseTickets( 1L, family ) );
+
+        assertEquals( PurchaseStage.RESERVATION, e.getStage() );
+        assertTrue( e.isCompensated() );
+        assertEquals( 3, seats.calls.get() );
+        assertEquals( 2, compensations.refundCalls.get() );
+        assertEquals( 50, compensations.refunded.get() );
+
+    }
+
+
+    @Test
+    public void givenRefundAlwaysFails_whenReservationFails_thenNotCompensated() throws Exception {
+
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( Integer.MAX_VALUE, 0 );
+        RecordingCompensations compensations = new RecordingCompensations( Integer.MAX_VALUE );
+
+        PurchaseSagaException e = failure( saga( new FaultInjectingPaymentService( 0, 0 ), seats, compensations ).purchaseTickets( 1L, family ) );
+
+        assertFalse( e.isCompensated() );
+        assertEquals( 3, compensations.refundCalls.get() );
+
+    }
+
+
+    @Test
+    public void givenSlowReservation_whenItTimesOut_thenRefundedAndLateSeatsReleased() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 0 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( 0, 600 );
+        RecordingCompensations compensations = new RecordingCompensations( 0 );
+
+        PurchaseSagaException e = failure( saga( payments, seats, compensations ).purchaseTickets( 1L, family ) );
+
+        assertEquals( PurchaseStage.RESERVATION, e.getStage() );
+        assertTrue( e.getCause() instanceof TimeoutException );
+        assertTrue( e.isCompensationPending() );
+        assertEquals( 1, seats.calls.get() );
+        assertEquals( 50, compensations.refunded.get() );
+
+        // The reservation goes through after the purchase has failed, and is undone.
+        e.getCompensation().toCompletableFuture().get( 5, TimeUnit.SECONDS );
+
+        assertTrue( e.isCompensated() );
+        assertEquals( 3, compensations.released.get() );
+
+    }
+
+
+    @Test
+    public void givenSlowPayment_whenItTimesOut_thenNotRetriedAndLatePaymentRefunded() throws Exception {
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 600 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( 0, 0 );
+        RecordingCompensations compensations = new RecordingCompensations( 0 );
+
+        PurchaseSagaException e = failure( saga( payments, seats, compensations ).purchaseTickets( 1L, family ) );
+
+        assertEquals( PurchaseStage.PAYMENT, e.getStage() );
+        assertFalse( e.isCompensated() );
+        assertTrue( e.isCompensationPending() );
+        assertEquals( 1, payments.calls.get() );
+        assertEquals( 0, seats.calls.get() );
+
+        e.getCompensation().toCompletableFuture().get( 5, TimeUnit.SECONDS );
+
+        assertTrue( e.isCompensated() );
+        assertEquals( 50, compensations.refunded.get() );
+
+    }
+
+
+    /**
+     *    Pipeline :
+     */
+
+
+    @Test
+    public void givenPipelineWithListenerAndJournal_whenPurchaseSucceedsOrTimesOut_thenBothToldOnceTheCallReturns() throws Exception {
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        PurchaseJournal journal = Mockito.mock( PurchaseJournal.class );
+        when( journal.intent( anyLong(), anyInt(), anyInt(), anyInt() ) ).thenReturn( 4L );
+
+        FaultInjectingPaymentService payments = new FaultInjectingPaymentService( 0, 0 );
+        FaultInjectingSeatReservationService seats = new FaultInjectingSeatReservationService( 0, 0 );
+        SagaTicketService service = new SagaTicketService(
+                new PurchasePipeline( seats, payments, PricingTable.standardPrices(), listener, journal ),
+                new RecordingCompensations( 0 ), retryPolicy, callExecutor, scheduler );
+
+        service.purchaseTickets( 1L, family ).get( 5, TimeUnit.SECONDS );
+
+        verify( listener ).onAccepted( eq( 1L ), anyInt(), any( PricingTable.class ), eq( 50 ), eq( 3 ), anyLong(), anyLong(), anyLong() );
+        verify( journal ).reserved( 4L );
+
+        FaultInjectingPaymentService slowPayments = new FaultInjectingPaymentService( 0, 600 );
+        PurchaseSagaException e = failure( new SagaTicketService(
+                new PurchasePipeline( seats, slowPayments, PricingTable.standardPrices(), listener, journal ),
+                new RecordingCompensations( 0 ), retryPolicy, callExecutor, scheduler ).purchaseTickets( 2L, family ) );
+
+        verify( journal, never() ).failed( anyLong() );
+
+        e.getCompensation().toCompletableFuture().get( 5, TimeUnit.SECONDS );
+
+        verify( journal, timeout( 5000 ) ).failed( 4L );
+        verify( listener, timeout( 5000 ) ).onFailed( eq( 2L ), anyInt(), eq( PurchaseStage.PAYMENT ), any() );
+        verify( listener, never() ).onAccepted( eq( 2L ), anyInt(), any( PricingTable.class ), anyInt(), anyInt(), anyLong(), anyLong(), anyLong() );
+
+    }
+
+
+}
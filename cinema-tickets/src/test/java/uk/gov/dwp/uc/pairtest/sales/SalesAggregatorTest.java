@@ -0,0 +1,203 @@
+package uk.gov.dwp.uc.pairtest.sales;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricedPurchase;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class SalesAggregatorTest {
+
+
+    SeatReservationService seatReservationService = Mockito.mock( SeatReservationService.class );
+    TicketPaymentService ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+    AtomicLong clock = new AtomicLong( TimeUnit.DAYS.toMillis( 20000 ) );
+    SalesAggregator aggregator = new SalesAggregator( 5, clock::get );
+
+    TicketTypeRequest[] family = new TicketTypeRequest[] {
+            new TicketTypeRequest( TicketTypeRequest.Type.ADULT, 2 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 3 ),
+            new TicketTypeRequest( TicketTypeRequest.Type.INFANT, 1 )
+    };
+
+
+    /** Section : Totals */
+
+
+    @Test
+    public void givenAcceptedAndRejectedPurchases_whenTotals_thenOnlyAcceptedCountedByType() {
+
+        TicketServiceImpl ticketService = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), aggregator );
+
+        ticketService.purchaseTickets( 1L, family );
+        ticketService.purchaseTickets( 2L, family );
+
+        try {
+            ticketService.purchaseTickets( 3L, new TicketTypeRequest[] { new TicketTypeRequest( TicketTypeRequest.Type.CHILD, 1 ) } );
+            fail( "Expected a rejection" );
+        } catch ( InvalidPurchaseException expected ) {
+        }
+
+        SalesTotals totals = aggregator.totals();
+
+        assertEquals( 2, totals.getPurchases() );
+        assertEquals( 4, totals.getTicketsSold( TicketTypeRequest.Type.ADULT ) );
+        assertEquals( 6, totals.getTicketsSold( TicketTypeRequest.Type.CHILD ) );
+        assertEquals( 2, totals.getTicketsSold( TicketTypeRequest.Type.INFANT ) );
+        assertEquals( 12, totals.getTicketsSold() );
+        assertEquals( 2 * ( 2 * 20 + 3 * 10 ), totals.getRevenue() );
+        assertEquals( 80, totals.getRevenue( TicketTypeRequest.Type.ADULT ) );
+        assertEquals( 60, totals.getRevenue( TicketTypeRequest.Type.CHILD ) );
+        assertEquals( 0, totals.getRevenue( TicketTypeRequest.Type.INFANT ) );
+
+    }
+
+
+    @Test
+    public void givenPriceChangeBeforePurchaseSettles_whenTotals_thenRevenueByTypeAtPricesItWasPricedAt() {
+
+        AtomicReference<PricingTable> prices = new AtomicReference<>( PricingTable.standardPrices() );
+        PurchasePipeline pipeline = new PurchasePipeline( seatReservationService, ticketPaymentService, prices::get, aggregator, PurchaseJournal.NONE );
+
+        PricedPurchase purchase = pipeline.price( 1L, family );
+        prices.set( PricingTable.build( new PurchaseEvaluator( 25, 15, 0 ) ) );
+        pipeline.settle( purchase );
+
+        SalesTotals totals = aggregator.totals();
+
+        assertEquals( 70, totals.getRevenue() );
+        assertEquals( 40, totals.getRevenue( TicketTypeRequest.Type.ADULT ) );
+        assertEquals( 30, totals.getRevenue( TicketTypeRequest.Type.CHILD ) );
+
+    }
+
+
+    @Test
+    public void givenScreeningListeners_whenPurchasing_thenEachScreeningCountedApartAndTogether() {
+
+        TicketServiceImpl screeningOne = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), aggregator.forScreening( 1L ) );
+        TicketServiceImpl screeningTwo = new TicketServiceImpl( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), aggregator.forScreening( 2L ) );
+
+        screeningOne.purchaseTickets( 10L, family );
+        screeningTwo.purchaseTickets( 11L, family );
+        screeningTwo.purchaseTickets( 12L, family );
+
+        assertEquals( 1, aggregator.screening( 1L ).getPurchases() );
+        assertEquals( 2, aggregator.screening( 2L ).getPurchases() );
+        assertEquals( 3, aggregator.totals().getPurchases() );
+
+        aggregator.forgetScreening( 1L );
+        assertSame( SalesTotals.ZERO, aggregator.screening( 1L ) );
+        assertEquals( 3, aggregator.totals().getPurchases() );
+
+    }
+
+
+    /** Section : Rolling minutes */
+
+
+    @Test
+    public void givenSalesOverSeveralMinutes_whenPerMinute_thenOldestFirstEndingNow() {
+
+        aggregator.record( -1L, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25 );
+        clock.addAndGet( TimeUnit.MINUTES.toMillis( 1 ) );
+        aggregator.record( -1L, TicketTally.of( 2, 0, 0 ), PricingTable.standardPrices(), 50 );
+        aggregator.record( -1L, TicketTally.of( 1, 1, 0 ), PricingTable.standardPrices(), 40 );
+        clock.addAndGet( TimeUnit.MINUTES.toMillis( 2 ) );
+
+        SalesTotals[] minutes = aggregator.perMinute( 4 );
+
+        assertEquals( 4, minutes.length );
+        assertEquals( 1, minutes[0].getPurchases() );
+        assertEquals( 2, minutes[1].getPurchases() );
+        assertEquals( 0, minutes[2].getPurchases() );
+        assertEquals( 0, minutes[3].getPurchases() );
+
+        assertEquals( 90, aggregator.lastMinutes( 3 ).getRevenue() );
+        assertEquals( 115, aggregator.lastMinutes( 4 ).getRevenue() );
+
+    }
+
+
+    @Test
+    public void givenMinutesOlderThanTheWindow_whenSellingAgain_thenOldBucketsReplacedNotAccumulated() {
+
+        aggregator.record( -1L, TicketTally.of( 1, 0, 0 ), PricingTable.standardPrices(), 25 );
+
+        // Same slot in a ring of 5, a window later.
+        clock.addAndGet( TimeUnit.MINUTES.toMillis( 5 ) );
+        aggregator.record( -1L, TicketTally.of( 2, 0, 0 ), PricingTable.standardPrices(), 50 );
+
+        assertEquals( 1, aggregator.lastMinutes( 5 ).getPurchases() );
+        assertEquals( 50, aggregator.lastMinutes( 1 ).getRevenue() );
+        assertEquals( 2, aggregator.totals().getPurchases() );
+
+    }
+
+
+    @Test( expected = IllegalArgumentException.class )
+    public void givenMoreMinutesThanTheWindow_whenQueried_thenIllegalArgument() {
+        aggregator.lastMinutes( 6 );
+    }
+
+
+    /** Section : Concurrency */
+
+
+    @Test
+    public void givenWritersAndReaders_whenRunTogether_thenNoSaleIsLost() throws Exception {
+
+        AtomicBoolean writing = new AtomicBoolean( true );
+        List<Thread> threads = new ArrayList<>();
+
+        for ( int w = 0; w < 4; w++ ) {
+            long screeningId = w;
+            threads.add( new Thread( () -> {
+                for ( int i = 0; i < 10_000; i++ ) aggregator.record( screeningId, TicketTally.of( 1, 1, 0 ), PricingTable.standardPrices(), 40 );
+            } ) );
+        }
+
+        for ( int r = 0; r < 2; r++ ) {
+            threads.add( new Thread( () -> {
+                while ( writing.get() ) {
+                    assertTrue( aggregator.lastMinutes( 5 ).getPurchases() >= 0 );
+                    aggregator.perMinute( 5 );
+                }
+            } ) );
+        }
+
+        for ( Thread thread: threads ) thread.start();
+        for ( int w = 0; w < 4; w++ ) threads.get( w ).join();
+        writing.set( false );
+        for ( Thread thread: threads ) thread.join();
+
+        assertEquals( 40_000, aggregator.totals().getPurchases() );
+        assertEquals( 40_000, aggregator.lastMinutes( 1 ).getTicketsSold( TicketTypeRequest.Type.CHILD ) );
+        assertEquals( 10_000 * 40, aggregator.screening( 3L ).getRevenue() );
+
+    }
+
+
+}
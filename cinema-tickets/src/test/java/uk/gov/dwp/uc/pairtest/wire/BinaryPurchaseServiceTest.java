@@ -0,0 +1,140 @@
+package uk.gov.dwp.uc.pairtest.wire;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.PurchasePipeline;
+import uk.gov.dwp.uc.pairtest.engine.PricingTable;
+import uk.gov.dwp.uc.pairtest.engine.TicketTally;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class BinaryPurchaseServiceTest {
+
+
+    SeatReservationService seatReservationService;
+    TicketPaymentService ticketPaymentService;
+    BinaryPurchaseService binaryPurchaseService;
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect( BasketCodec.RECORD_SIZE * 4 );
+
+
+    @Before
+    public void setUp() {
+
+        seatReservationService = Mockito.mock( SeatReservationService.class );
+        ticketPaymentService = Mockito.mock( TicketPaymentService.class );
+
+        binaryPurchaseService = new BinaryPurchaseService( seatReservationService, ticketPaymentService, PricingTable.standardPrices() );
+
+    }
+
+
+    /**
+     *    Codec :
+     */
+
+
+    @Test
+    public void givenWrittenRecord_whenRead_thenFieldsRoundTrip() {
+
+        BasketCodec.write( buffer, BasketCodec.RECORD_SIZE, Long.MAX_VALUE, 3, 200, 1 );
+
+        assertEquals( Long.MAX_VALUE, BasketCodec.accountId( buffer, BasketCodec.RECORD_SIZE ) );
+        assertEquals( 3, BasketCodec.adults( buffer, BasketCodec.RECORD_SIZE ) );
+        assertEquals( 200, BasketCodec.children( buffer, BasketCodec.RECORD_SIZE ) );
+        assertEquals( 1, BasketCodec.infants( buffer, BasketCodec.RECORD_SIZE ) );
+        assertEquals( TicketTally.OVER_LIMIT, BasketCodec.tally( buffer, BasketCodec.RECORD_SIZE ) );
+
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenCountTooLargeForByte_whenWrite_thenThrow() {
+
+        BasketCodec.write( buffer, 0, 1L, 256, 0, 0 );
+
+    }
+
+
+    /**
+     *    Purchases :
+     */
+
+
+    @Test
+    public void givenValidRecords_whenPurchased_thenChargedAndReserved() {
+
+        BasketCodec.write( buffer, 7L, 2, 1, 1 );
+        BasketCodec.write( buffer, 8L, 1, 0, 0 );
+        buffer.flip();
+
+        assertNull( binaryPurchaseService.purchase( buffer ) );
+        assertNull( binaryPurchaseService.purchase( buffer ) );
+        assertEquals( 0, buffer.remaining() );
+
+        verify( ticketPaymentService ).makePayment( 7L, 50 );
+        verify( seatReservationService ).reserveSeat( 7L, 3 );
+        verify( ticketPaymentService ).makePayment( 8L, 20 );
+
+    }
+
+
+    @Test
+    public void givenInvalidRecords_whenPurchased_thenReasonReturnedAndNothingCharged() {
+
+        BasketCodec.write( buffer, 0, 1L, 0, 2, 0 );
+        BasketCodec.write( buffer, 12, -5L, 1, 0, 0 );
+        BasketCodec.write( buffer, 24, 1L, 1, 0, 2 );
+        BasketCodec.write( buffer, 36, 1L, 15, 6, 0 );
+
+        assertEquals( RejectionReason.NO_ADULT, binaryPurchaseService.purchase( buffer, 0 ) );
+        assertEquals( RejectionReason.BAD_ACCOUNT, binaryPurchaseService.purchase( buffer, 12 ) );
+        assertEquals( RejectionReason.TOO_MANY_INFANTS, binaryPurchaseService.purchase( buffer, 24 ) );
+        assertEquals( RejectionReason.OVER_LIMIT, binaryPurchaseService.purchase( buffer, 36 ) );
+
+        verify( ticketPaymentService, never() ).makePayment( anyLong(), anyInt() );
+
+    }
+
+
+    @Test
+    public void givenPipelineWithListenerAndJournal_whenPurchased_thenBothToldOfEach() {
+
+        PurchaseListener listener = Mockito.mock( PurchaseListener.class );
+        PurchaseJournal journal = Mockito.mock( PurchaseJournal.class );
+        when( journal.intent( anyLong(), anyInt(), anyInt(), anyInt() ) ).thenReturn( 3L );
+
+        BinaryPurchaseService service = new BinaryPurchaseService(
+                new PurchasePipeline( seatReservationService, ticketPaymentService, PricingTable.standardPrices(), listener, journal ) );
+
+        BasketCodec.write( buffer, 0, 7L, 2, 1, 1 );
+        BasketCodec.write( buffer, 12, 8L, 0, 2, 0 );
+
+        assertNull( service.purchase( buffer, 0 ) );
+        assertEquals( RejectionReason.NO_ADULT, service.purchase( buffer, 12 ) );
+
+        verify( listener ).onAccepted( eq( 7L ), anyInt(), any( PricingTable.class ), eq( 50 ), eq( 3 ), anyLong(), anyLong(), anyLong() );
+        verify( listener ).onRejected( eq( 8L ), anyInt(), eq( RejectionReason.NO_ADULT ), anyLong() );
+        verify( journal ).reserved( 3L );
+
+    }
+
+
+}